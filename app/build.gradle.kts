@@ -34,6 +34,9 @@ android {
 
 dependencies {
 
+    // Leaderboard math shared with the worker
+    implementation(project(":shared"))
+
     //Glide Implementation
     implementation(libs.glide)
     implementation(libs.credentials)
@@ -64,4 +67,7 @@ dependencies {
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
     implementation(libs.swiperefreshlayout)
+
+    // Background work
+    implementation(libs.work.runtime)
 }
\ No newline at end of file
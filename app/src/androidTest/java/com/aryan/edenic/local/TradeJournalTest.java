@@ -0,0 +1,102 @@
+package com.aryan.edenic.local;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.aryan.edenic.models.Transaction;
+import com.aryan.edenic.orders.TradeService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The trade journal against the device's SQLite, under a user id no real account has
+ */
+@RunWith(AndroidJUnit4.class)
+public class TradeJournalTest {
+    private static final String USER = "journal-test-user";
+
+    private TradeJournal journal;
+
+    @Before
+    public void setUp() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        journal = TradeJournal.getInstance(context);
+        clear();
+    }
+
+    @After
+    public void tearDown() {
+        clear();
+    }
+
+    private void clear() {
+        List<String> ids = new ArrayList<>();
+        for (TradeService.Trade trade : journal.pending(USER, Integer.MAX_VALUE)) {
+            ids.add(trade.getId());
+        }
+        journal.remove(ids);
+    }
+
+    private static TradeService.Trade trade(String id, long time) {
+        return new TradeService.Trade(id, Transaction.Type.BUY, "AAPL", "Apple Inc.", 3, 150.25, time);
+    }
+
+    @Test
+    public void pending_returnsTradesOldestFirst() {
+        journal.append(USER, trade("b", 2000));
+        journal.append(USER, trade("a", 1000));
+        journal.append(USER, trade("c", 3000));
+
+        List<TradeService.Trade> pending = journal.pending(USER, 2);
+
+        assertEquals(2, pending.size());
+        assertEquals("a", pending.get(0).getId());
+        assertEquals("b", pending.get(1).getId());
+        assertEquals(Transaction.Type.BUY, pending.get(0).getSide());
+        assertEquals(3, pending.get(0).getQuantity());
+        assertEquals(150.25, pending.get(0).getPrice(), 1e-9);
+        assertEquals(1000, pending.get(0).getTime());
+    }
+
+    @Test
+    public void append_ignoresTheSameTradeTwice() {
+        journal.append(USER, trade("a", 1000));
+        journal.append(USER, trade("a", 1000));
+
+        assertEquals(1, journal.pending(USER, Integer.MAX_VALUE).size());
+    }
+
+    @Test
+    public void madeBefore_returnsOnlyOlderTrades() {
+        journal.append(USER, trade("a", 1000));
+        journal.append(USER, trade("b", 5000));
+
+        List<TradeService.Trade> old = journal.madeBefore(USER, 2000);
+
+        assertEquals(1, old.size());
+        assertEquals("a", old.get(0).getId());
+    }
+
+    @Test
+    public void remove_dropsOnlyTheGivenTrades() {
+        journal.append(USER, trade("a", 1000));
+        journal.append(USER, trade("b", 2000));
+
+        journal.remove(Arrays.asList("a"));
+
+        List<TradeService.Trade> pending = journal.pending(USER, Integer.MAX_VALUE);
+        assertEquals(1, pending.size());
+        assertEquals("b", pending.get(0).getId());
+    }
+}
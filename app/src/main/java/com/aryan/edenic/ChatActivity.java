@@ -17,23 +17,25 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.adapters.ChatMessageAdapter;
+import com.aryan.edenic.chat.ChatWriter;
+import com.aryan.edenic.chat.ReadReceipts;
+import com.aryan.edenic.local.MessageStore;
 import com.aryan.edenic.models.ChatMessage;
 import com.aryan.edenic.models.Stock;
 import com.bumptech.glide.Glide;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class ChatActivity extends AppCompatActivity {
     private static final String TAG = "ChatActivity";
+    private static final int PAGE_SIZE = 30;
+    private static final int LOAD_OLDER_THRESHOLD = 5; // Rows from the top that trigger the next page
 
     // UI components
     private RecyclerView messagesList;
@@ -52,6 +54,11 @@ public class ChatActivity extends AppCompatActivity {
     private String contactNameStr;
     private String contactPhotoUrl;
     private String chatId; // Unique identifier for this conversation
+    private MessageStore messageStore;
+    private ReadReceipts readReceipts;
+    private final Set<String> messageIds = new HashSet<>();
+    private boolean loadingOlder = false;
+    private boolean hasOlder = true;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -79,8 +86,7 @@ public class ChatActivity extends AppCompatActivity {
         }
 
         // Generate chat ID (alphabetical order of user IDs)
-        chatId = currentUserId.compareTo(contactId) < 0 ?
-                currentUserId + "_" + contactId : contactId + "_" + currentUserId;
+        chatId = ChatWriter.chatIdFor(currentUserId, contactId);
 
         // Initialize UI components
         initializeViews();
@@ -89,6 +95,7 @@ public class ChatActivity extends AppCompatActivity {
         setupRecyclerView();
 
         // Load chat messages
+        setupReadReceipts();
         loadChatMessages();
     }
 
@@ -143,75 +150,133 @@ public class ChatActivity extends AppCompatActivity {
                         messagesList.smoothScrollToPosition(adapter.getItemCount() - 1), 100);
             }
         });
+
+        // Load older messages when scrolled near the top
+        messagesList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy < 0 && layoutManager.findFirstVisibleItemPosition() <= LOAD_OLDER_THRESHOLD) {
+                    loadOlderMessages();
+                }
+            }
+        });
     }
 
     private void loadChatMessages() {
-        DatabaseReference messagesRef = FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId);
+        messageStore = MessageStore.getInstance(this);
 
-        messagesRef.orderByChild("timestamp").addValueEventListener(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                messages.clear();
-
-                for (DataSnapshot messageSnapshot : snapshot.getChildren()) {
-                    try {
-                        ChatMessage chatMessage = messageSnapshot.getValue(ChatMessage.class);
-                        if (chatMessage != null) {
-                            messages.add(chatMessage);
-                            Log.d(TAG, "Loaded message: " + chatMessage.getContent() +
-                                    ", Time: " + chatMessage.getTimestamp() +
-                                    ", Sender: " + (chatMessage.getSenderId().equals(currentUserId) ? "me" : "other"));
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing message", e);
+        // Show what's stored on this device right away, then sync only newer messages
+        messageStore.loadLatest(chatId, PAGE_SIZE, (page, more) -> {
+            for (ChatMessage message : page) {
+                if (messageIds.add(message.getMessageId())) {
+                    messages.add(message);
+                }
+            }
+            Collections.sort(messages, (m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
+            adapter.notifyDataSetChanged();
+            scrollToBottom();
+            updateEmptyState();
+            markMessagesAsRead();
+
+            messageStore.startSync(chatId, PAGE_SIZE, new MessageStore.SyncListener() {
+                @Override
+                public void onMessageAdded(ChatMessage message) {
+                    if (!messageIds.add(message.getMessageId())) return;
+                    messages.add(message);
+                    adapter.notifyItemInserted(messages.size() - 1);
+                    scrollToBottom();
+                    updateEmptyState();
+                    if (!message.getSenderId().equals(currentUserId)) {
+                        markMessagesAsRead();
                     }
                 }
 
-                // Sort messages by timestamp
-                Collections.sort(messages, (m1, m2) -> Long.compare(m1.getTimestamp(), m2.getTimestamp()));
-
-                adapter.notifyDataSetChanged();
+                @Override
+                public void onMessageChanged(ChatMessage message) {
+                    for (int i = messages.size() - 1; i >= 0; i--) {
+                        if (messages.get(i).getMessageId().equals(message.getMessageId())) {
+                            messages.set(i, message);
+                            adapter.notifyItemChanged(i);
+                            break;
+                        }
+                    }
+                }
 
-                if (!messages.isEmpty()) {
-                    messagesList.scrollToPosition(messages.size() - 1);
-                    emptyChat.setVisibility(View.GONE);
-                } else {
-                    emptyChat.setVisibility(View.VISIBLE);
+                @Override
+                public void onError(Exception e) {
+                    Log.e(TAG, "Error loading messages", e);
                 }
+            });
+        });
+    }
 
-                // Mark messages as read
-                markMessagesAsRead();
-            }
+    private void loadOlderMessages() {
+        if (loadingOlder || !hasOlder || messages.isEmpty()) return;
+        loadingOlder = true;
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error loading messages", error.toException());
+        messageStore.loadOlder(chatId, messages.get(0), PAGE_SIZE, (page, more) -> {
+            loadingOlder = false;
+            hasOlder = more;
+
+            List<ChatMessage> older = new ArrayList<>();
+            for (ChatMessage message : page) {
+                if (messageIds.add(message.getMessageId())) {
+                    older.add(message);
+                }
             }
+            messages.addAll(0, older);
+            adapter.notifyItemRangeInserted(0, older.size());
         });
     }
 
-    private void markMessagesAsRead() {
-        DatabaseReference messagesRef = FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId);
-
-        for (ChatMessage message : messages) {
-            if (!message.isRead() && !message.getSenderId().equals(currentUserId)) {
-                messagesRef.child(message.getMessageId()).child("read").setValue(true);
-            }
+    private void scrollToBottom() {
+        if (!messages.isEmpty()) {
+            messagesList.scrollToPosition(messages.size() - 1);
         }
+    }
 
-        // Update unread count in contact
-        updateUnreadCount(0);
+    private void updateEmptyState() {
+        emptyChat.setVisibility(messages.isEmpty() ? View.VISIBLE : View.GONE);
     }
 
-    private void updateUnreadCount(int count) {
-        DatabaseReference contactRef = FirebaseDatabase.getInstance().getReference("chats")
-                .child(currentUserId)
-                .child("contacts")
-                .child(contactId);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (messageStore != null) {
+            messageStore.stopSync(chatId);
+        }
+        if (readReceipts != null) {
+            readReceipts.stop();
+        }
+    }
 
-        contactRef.child("unreadCount").setValue(count);
+    // Move the read watermark up to the newest message from the contact
+    private void markMessagesAsRead() {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            ChatMessage message = messages.get(i);
+            if (!message.getSenderId().equals(currentUserId)) {
+                readReceipts.markReadUpTo(message.getTimestamp());
+                return;
+            }
+        }
+    }
+
+    private void setupReadReceipts() {
+        readReceipts = new ReadReceipts(chatId, currentUserId, contactId);
+        readReceipts.start((previousLastRead, contactLastRead) -> {
+            adapter.setContactLastRead(contactLastRead);
+
+            // Only bubbles whose read state flipped need rebinding
+            long low = Math.min(previousLastRead, contactLastRead);
+            long high = Math.max(previousLastRead, contactLastRead);
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                ChatMessage message = messages.get(i);
+                if (message.getTimestamp() <= low) break;
+                if (message.getTimestamp() <= high && message.getSenderId().equals(currentUserId)) {
+                    adapter.notifyItemChanged(i);
+                }
+            }
+        });
     }
 
     private void sendMessage() {
@@ -228,11 +293,8 @@ public class ChatActivity extends AppCompatActivity {
                 text
         );
 
-        // Save to Firebase
-        DatabaseReference messagesRef = FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId);
-
-        messagesRef.child(message.getMessageId()).setValue(message)
+        // Message and both contact entries in one write
+        ChatWriter.send(currentUserId, contactId, message)
                 .addOnSuccessListener(aVoid -> {
                     // Clear input
                     messageInput.setText("");
@@ -240,9 +302,6 @@ public class ChatActivity extends AppCompatActivity {
                     // Hide keyboard
                     InputMethodManager imm = (InputMethodManager) getSystemService(Context.INPUT_METHOD_SERVICE);
                     imm.hideSoftInputFromWindow(messageInput.getWindowToken(), 0);
-
-                    // Update last message and time for both users
-                    updateLastMessage(message);
                 })
                 .addOnFailureListener(e -> Toast.makeText(this, "Failed to send message", Toast.LENGTH_SHORT).show());
     }
@@ -259,52 +318,10 @@ public class ChatActivity extends AppCompatActivity {
                 stock.getPrice()
         );
 
-        // Save to Firebase
-        DatabaseReference messagesRef = FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId);
-
-        messagesRef.child(message.getMessageId()).setValue(message)
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "Stock shared successfully", Toast.LENGTH_SHORT).show();
-
-                    // Update last message and time for both users
-                    updateLastMessage(message);
-                })
+        // Message and both contact entries in one write
+        ChatWriter.send(currentUserId, contactId, message)
+                .addOnSuccessListener(aVoid ->
+                        Toast.makeText(this, "Stock shared successfully", Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> Toast.makeText(this, "Failed to share stock", Toast.LENGTH_SHORT).show());
     }
-
-    private void updateLastMessage(ChatMessage message) {
-        // Update in current user's contacts
-        DatabaseReference currentUserRef = FirebaseDatabase.getInstance().getReference("chats")
-                .child(currentUserId)
-                .child("contacts")
-                .child(contactId);
-
-        currentUserRef.child("lastMessage").setValue(message.getContent());
-        currentUserRef.child("lastMessageTime").setValue(message.getTimestamp());
-
-        // Update in contact's contacts
-        DatabaseReference contactRef = FirebaseDatabase.getInstance().getReference("chats")
-                .child(contactId)
-                .child("contacts")
-                .child(currentUserId);
-
-        contactRef.child("lastMessage").setValue(message.getContent());
-        contactRef.child("lastMessageTime").setValue(message.getTimestamp());
-
-        // Increment unread count for contact
-        contactRef.child("unreadCount").addListenerForSingleValueEvent(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                Integer currentCount = snapshot.getValue(Integer.class);
-                int newCount = (currentCount != null ? currentCount : 0) + 1;
-                contactRef.child("unreadCount").setValue(newCount);
-            }
-
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                // Handle error
-            }
-        });
-    }
 }
\ No newline at end of file
@@ -14,6 +14,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.adapters.ChatContactAdapter;
+import com.aryan.edenic.local.ReadMetrics;
 import com.aryan.edenic.models.ChatContact;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.tabs.TabLayout;
@@ -142,7 +143,8 @@ public class ChatListActivity extends AppCompatActivity implements ChatContactAd
                 .child(currentUserId)
                 .child(showingRequests ? "requests" : "contacts");
 
-        contactsRef.addValueEventListener(new ValueEventListener() {
+        String readName = showingRequests ? "chatRequests" : "chatContacts";
+        contactsRef.addValueEventListener(ReadMetrics.timed(readName, new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
                 contacts.clear();
@@ -172,7 +174,7 @@ public class ChatListActivity extends AppCompatActivity implements ChatContactAd
             public void onCancelled(@NonNull DatabaseError error) {
                 // Handle error
             }
-        });
+        }));
     }
 
     private void openUserSearch() {
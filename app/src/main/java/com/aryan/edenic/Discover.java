@@ -27,35 +27,42 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.adapters.StockAdapter;
 import com.aryan.edenic.adapters.StockGridAdapter;
+import com.aryan.edenic.alerts.AlertManager;
+import com.aryan.edenic.alerts.PriceAlertDialog;
+import com.aryan.edenic.backtest.BacktestDialog;
+import com.aryan.edenic.chat.ChatWriter;
+import com.aryan.edenic.market.IntradaySummary;
+import com.aryan.edenic.market.QuoteFeed;
 import com.aryan.edenic.models.ChatContact;
 import com.aryan.edenic.models.ChatMessage;
+import com.aryan.edenic.models.Holding;
+import com.aryan.edenic.models.PendingOrder;
 import com.aryan.edenic.models.PortfolioItem;
 import com.aryan.edenic.models.Stock;
 import com.aryan.edenic.models.Transaction;
+import com.aryan.edenic.orders.OrderForm;
+import com.aryan.edenic.orders.OrderManager;
+import com.aryan.edenic.orders.TradeService;
+import com.aryan.edenic.orders.TradeSyncer;
+import com.aryan.edenic.utils.FirebaseWriteBatch;
 import com.aryan.edenic.utils.NotificationManager;
-import com.aryan.edenic.utils.StockChangeClient;
+import com.aryan.edenic.utils.PortfolioWrites;
+import com.aryan.edenic.utils.StockDirectory;
 import com.aryan.edenic.utils.StockLogoLoader;
-import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
-import com.aryan.edenic.yahoo_finance.YahooResponse;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.Set;
 
 public class Discover extends AppCompatActivity implements StockAdapter.StockShareListener {
     private static final String TAG = "Discover";
@@ -72,12 +79,16 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
     // Data
     private List<Stock> allStocks = new ArrayList<>();
     private StockGridAdapter adapter;
+    private final QuoteFeed.QuoteListener quoteListener = this::onQuote;
     private boolean isSearchVisible = false;
 
     // User portfolio data
     private List<PortfolioItem> portfolioItems = new ArrayList<>();
     private double availableBalance = 10000;
 
+    // Coalesces the writes of one trade into a single root update
+    private final FirebaseWriteBatch writeBatch = new FirebaseWriteBatch();
+
     // Firestore
     private FirebaseFirestore db;
     private String userId;
@@ -92,6 +103,10 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
         if (user != null) {
             userId = user.getUid();
+
+            // Load resting orders and price alerts so ticks can trigger them
+            OrderManager.getInstance(this).load(userId);
+            AlertManager.getInstance(this).load(userId);
         }
 
         // Initialize UI
@@ -183,6 +198,12 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
         });
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        QuoteFeed.getInstance(this).unsubscribeAll(quoteListener);
+    }
+
     // In Discover.java
     private void loadAllStocks() {
         Log.d(TAG, "Starting to load all stocks");
@@ -204,7 +225,7 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
 
         // Create stock objects
         for (String symbol : symbols) {
-            allStocks.add(new Stock(symbol, getFullName(symbol), 0, 0));
+            allStocks.add(new Stock(symbol, StockDirectory.getCompanyName(symbol), 0, 0));
         }
 
         // Update the adapter
@@ -215,161 +236,47 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
         fetchPricesForAllStocks();
     }
 
+    // Prices are pushed by the shared quote feed instead of one request per stock
     private void fetchPricesForAllStocks() {
-        Log.d(TAG, "Fetching prices for " + allStocks.size() + " stocks");
-
-        // First fetch change percentages from Google Sheets
-        StockChangeClient.fetchChangePercentages(new StockChangeClient.StockChangeCallback() {
-            @Override
-            public void onSuccess(Map<String, Double> changePercentMap) {
-                Log.d(TAG, "Successfully fetched change percentages from Google Sheets");
-
-                // Update stock objects with percentage changes
-                for (Stock stock : allStocks) {
-                    Double changePercent = changePercentMap.get(stock.getSymbol());
-                    if (changePercent != null) {
-                        stock.setChangePercent(changePercent);
-                        Log.d(TAG, "Set change % for " + stock.getSymbol() + ": " + changePercent);
-                    }
-                }
-
-                // Now fetch current prices from Yahoo Finance
-                fetchCurrentPricesFromYahoo();
-            }
-
-            @Override
-            public void onFailure(Exception e) {
-                Log.e(TAG, "Failed to fetch change percentages from Google Sheets", e);
-                // Fall back to Yahoo Finance for both price and change calculation
-                fetchCurrentPricesFromYahoo();
-            }
-        });
+        Set<String> symbols = new HashSet<>();
+        for (Stock stock : allStocks) {
+            symbols.add(stock.getSymbol());
+        }
+        QuoteFeed.getInstance(this).setSymbols(quoteListener, symbols);
     }
 
-    // New method to handle Yahoo Finance API calls for current prices
-    private void fetchCurrentPricesFromYahoo() {
-        final int[] completedRequests = {0};
-        final int totalRequests = allStocks.size();
-
+    private void onQuote(QuoteFeed.Quote quote) {
         for (Stock stock : allStocks) {
-            Log.d(TAG, "Fetching price for " + stock.getSymbol());
-
-            // Only need 1d for current price since we're getting change % from Sheets
-            YahooFinanceClient.getInstance().getStockData(stock.getSymbol(), "1d", "1d")
-                    .enqueue(new Callback<YahooResponse>() {
-                        @Override
-                        public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                            Log.d(TAG, "Received response for " + stock.getSymbol() + ", success: " + response.isSuccessful());
-
-                            if (response.isSuccessful() && response.body() != null) {
-                                YahooResponse yahooResponse = response.body();
-
-                                if (yahooResponse.chart != null &&
-                                        yahooResponse.chart.result != null &&
-                                        !yahooResponse.chart.result.isEmpty() &&
-                                        yahooResponse.chart.result.get(0) != null &&
-                                        yahooResponse.chart.result.get(0).meta != null) {
-
-                                    double price = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-                                    // We still get prevClose but don't rely on it for change %
-                                    double prevClose = yahooResponse.chart.result.get(0).meta.previousClose;
-
-                                    Log.d(TAG, stock.getSymbol() + " price: $" + price);
-
-                                    runOnUiThread(() -> {
-                                        // Update stock price and previousClose as backup
-                                        stock.setPrice(price);
-                                        if (prevClose > 0) {
-                                            stock.setPreviousClose(prevClose);
-                                        }
-                                        adapter.notifyDataSetChanged();
-
-                                        // Hide loading after all requests complete
-                                        checkRequestCompletion();
-                                    });
-                                } else {
-                                    Log.e(TAG, "Invalid response structure for " + stock.getSymbol());
-                                    checkRequestCompletion();
-                                }
-                            } else {
-                                Log.e(TAG, "Error response for " + stock.getSymbol() + ": " +
-                                        (response.errorBody() != null ? response.errorBody().toString() : "unknown error"));
-                                checkRequestCompletion();
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<YahooResponse> call, Throwable t) {
-                            Log.e(TAG, "Request failed for " + stock.getSymbol() + ": " + t.getMessage(), t);
-                            checkRequestCompletion();
-                        }
-
-                        private void checkRequestCompletion() {
-                            // Use the array to track completions
-                            completedRequests[0]++;
-
-                            Log.d(TAG, "Completed " + completedRequests[0] + " of " + totalRequests + " requests");
-
-                            // Hide loading indicator when all requests complete
-                            if (completedRequests[0] >= totalRequests) {
-                                runOnUiThread(() -> {
-                                    loadingIndicator.setVisibility(View.GONE);
-                                    if (adapter.getItemCount() == 0) {
-                                        emptyView.setVisibility(View.VISIBLE);
-                                    }
-                                });
-                            }
-                        }
-                    });
+            if (stock.getSymbol().equals(quote.getSymbol())) {
+                stock.setPrice(quote.getPrice());
+                stock.setChangePercent(quote.getChangePercent());
+            }
         }
+        adapter.notifyDataSetChanged();
+        loadingIndicator.setVisibility(View.GONE);
     }
 
     private void loadUserPortfolio() {
         if (userId == null) return;
 
-        FirebaseDatabase.getInstance().getReference("users").child(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        portfolioItems.clear();
-
-                        if (snapshot.exists() && snapshot.child("stocks").exists()) {
-                            double totalInvested = 0;
-
-                            for (DataSnapshot stockSnapshot : snapshot.child("stocks").getChildren()) {
-                                try {
-                                    String symbol = stockSnapshot.getKey();
-                                    double avgPrice = stockSnapshot.child("avgPrice").getValue(Double.class);
-                                    int quantity = stockSnapshot.child("qty").getValue(Integer.class);
-
-                                    double investedAmount = avgPrice * quantity;
-                                    totalInvested += investedAmount;
-
-                                    // Create portfolio item
-                                    PortfolioItem item = new PortfolioItem(
-                                            symbol,
-                                            getFullName(symbol),
-                                            avgPrice,
-                                            quantity,
-                                            investedAmount
-                                    );
-
-                                    portfolioItems.add(item);
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error parsing stock", e);
-                                }
-                            }
-
-                            // Update available balance
-                            availableBalance = 10000 - totalInvested;
-                        }
-                    }
+        // Stored cash and holdings from one read of the account, with trades not yet
+        // synced applied on top; legacy records are migrated on first read
+        TradeSyncer.getInstance(this).loadAccount(userId, new TradeSyncer.AccountListener() {
+            @Override
+            public void onAccountLoaded(double cash, Map<String, Holding> holdings) {
+                portfolioItems.clear();
+                for (Holding holding : holdings.values()) {
+                    portfolioItems.add(holding.toPortfolioItem(
+                            StockDirectory.getCompanyName(holding.getSymbol()), 0));
+                }
+                availableBalance = cash;
+            }
 
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading portfolio", error.toException());
-                    }
-                });
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading portfolio", e);
+            }
+        });
     }
 
     private void toggleSearchBar() {
@@ -411,6 +318,7 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
         RadioGroup tradeTypeGroup = dialogView.findViewById(R.id.trade_type_group);
         EditText quantityInput = dialogView.findViewById(R.id.quantity_input);
         Button btnConfirm = dialogView.findViewById(R.id.btn_confirm);
+        OrderForm orderForm = new OrderForm(dialogView);
 
         // Set stock data
         StockLogoLoader.loadStockLogo(this, stock.getSymbol(), stockLogo);
@@ -448,18 +356,56 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
 
         btnConfirm.setOnClickListener(v -> {
             String quantityStr = quantityInput.getText().toString().trim();
-            executeTrade(
-                    stock,
-                    quantityStr,
-                    tradeTypeGroup.getCheckedRadioButtonId() == R.id.radio_buy,
-                    dialog
-            );
+            boolean isBuy = tradeTypeGroup.getCheckedRadioButtonId() == R.id.radio_buy;
+            if (orderForm.isMarketOrder()) {
+                executeTrade(stock, quantityStr, isBuy, dialog);
+            } else {
+                placePendingOrder(orderForm, stock, quantityStr, isBuy, dialog);
+            }
         });
 
         dialogView.findViewById(R.id.btn_cancel).setOnClickListener(v -> dialog.dismiss());
+        dialogView.findViewById(R.id.dialog_set_alert).setOnClickListener(v -> {
+            dialog.dismiss();
+            PriceAlertDialog.show(this, stock);
+        });
+        IntradaySummary.bind(this, dialogView, stock.getSymbol());
+        dialogView.findViewById(R.id.dialog_backtest).setOnClickListener(v -> {
+            dialog.dismiss();
+            BacktestDialog.show(this, stock);
+        });
         dialog.show();
     }
 
+    private void placePendingOrder(OrderForm orderForm, Stock stock, String quantityStr,
+                                   boolean isBuy, AlertDialog dialog) {
+        if (userId == null) return;
+        int quantity;
+        try {
+            quantity = Integer.parseInt(quantityStr);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Invalid quantity format", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (quantity <= 0) {
+            Toast.makeText(this, "Quantity must be greater than 0", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        PendingOrder order = orderForm.buildOrder(stock, isBuy, quantity);
+        if (order == null) {
+            return; // The form shows which price is missing
+        }
+
+        // The order rests in the trigger book and fills when the price crosses its trigger
+        OrderManager.getInstance(this).place(userId, order)
+                .addOnSuccessListener(aVoid -> Toast.makeText(this,
+                        "Order placed: " + order.getDescription(), Toast.LENGTH_SHORT).show())
+                .addOnFailureListener(e -> Toast.makeText(this,
+                        "Failed to place order", Toast.LENGTH_SHORT).show());
+        dialog.dismiss();
+    }
+
     private void validateInput(EditText input, Button confirmBtn, Stock stock,
                                boolean isBuy, int ownedShares) {
         // Get the input text
@@ -514,149 +460,87 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
                 return;
             }
 
-            double amount = quantity * stock.getPrice();
-
             if (isBuy) {
-                executeBuyOrder(amount, stock, quantity);
-                NotificationManager.subscribeToStockUpdates(stock.getSymbol());
+                executeBuyOrder(stock, quantity);
             } else {
-                executeSellOrder(amount, stock, quantity);
-                NotificationManager.unsubscribeFromStockUpdates(stock.getSymbol());
+                executeSellOrder(stock, quantity);
             }
 
             dialog.dismiss();
-            Toast.makeText(this,
-                    String.format("%s %d shares of %s",
-                            isBuy ? "Bought" : "Sold",
-                            quantity,
-                            stock.getSymbol()),
-                    Toast.LENGTH_SHORT).show();
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Invalid quantity format", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void executeBuyOrder(double amount, Stock stock, int quantity) {
-        if (amount <= availableBalance) {
-            availableBalance -= amount;
-            addToPortfolio(stock, quantity, amount);
-
-            // Record transaction
-            recordTransaction(stock, Transaction.Type.BUY, quantity, stock.getPrice());
-
-            // Save to Firebase
-            savePortfolioToFirebase();
-        }
+    private void executeBuyOrder(Stock stock, int quantity) {
+        executeOrder(stock, Transaction.Type.BUY, quantity,
+                () -> NotificationManager.subscribeToStockUpdates(stock.getSymbol()));
     }
 
-    private void executeSellOrder(double amount, Stock stock, int quantity) {
-        // Get avg purchase price for profit/loss calculation
-        double avgPurchasePrice = 0;
-        for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                avgPurchasePrice = item.getAvgPurchasePrice();
-                break;
-            }
-        }
-
-        availableBalance += amount;
-        removeFromPortfolio(stock, quantity);
-
-        // Record transaction with profit/loss
-        recordTransaction(stock, Transaction.Type.SELL, quantity, stock.getPrice(), avgPurchasePrice);
-
-        // Save to Firebase
-        savePortfolioToFirebase();
-    }
-
-    private void recordTransaction(Stock stock, Transaction.Type type, int quantity, double price) {
-        recordTransaction(stock, type, quantity, price, 0);
+    private void executeSellOrder(Stock stock, int quantity) {
+        executeOrder(stock, Transaction.Type.SELL, quantity,
+                () -> NotificationManager.unsubscribeFromStockUpdates(stock.getSymbol()));
     }
 
-    private void recordTransaction(Stock stock, Transaction.Type type, int quantity, double price, double avgPurchasePrice) {
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) return;
-
-        String userId = user.getUid();
+    // Journaled first, then applied here; the syncer applies it in the database
+    private void executeOrder(Stock stock, Transaction.Type side, int quantity, Runnable onFilled) {
+        if (userId == null) return;
 
-        // Create transaction object
-        Transaction transaction;
-        if (type == Transaction.Type.BUY) {
-            transaction = new Transaction(stock.getSymbol(), stock.getName(), quantity, price);
-        } else {
-            transaction = new Transaction(stock.getSymbol(), stock.getName(), quantity, price, avgPurchasePrice);
+        TradeService.Trade trade = TradeService.Trade.create(side, stock.getSymbol(), stock.getName(),
+                quantity, stock.getPrice());
+        TradeService.Result checked = TradeService.apply(trade, availableBalance, currentHolding(stock.getSymbol()));
+        if (!checked.isApplied()) {
+            Toast.makeText(this, checked.getOutcome() == TradeService.Outcome.INSUFFICIENT_FUNDS ?
+                    "Trade failed: not enough balance" : "Trade failed: not enough shares",
+                    Toast.LENGTH_SHORT).show();
+            return;
         }
+        TradeSyncer.getInstance(this).submit(userId, trade, new TradeSyncer.SubmitListener() {
+            @Override
+            public void onJournaled() {
+                // Against the state now, which another trade may have changed meanwhile
+                TradeService.Result result = TradeService.apply(trade, availableBalance,
+                        currentHolding(stock.getSymbol()));
+                if (!result.isApplied()) return;
+
+                availableBalance = result.getCash();
+                applyHolding(stock, result.getHolding());
+                savePortfolioToFirebase();
+                Toast.makeText(Discover.this,
+                        String.format("%s %d shares of %s",
+                                side == Transaction.Type.BUY ? "Bought" : "Sold",
+                                quantity,
+                                stock.getSymbol()),
+                        Toast.LENGTH_SHORT).show();
+                onFilled.run();
+            }
 
-        // Save to Firebase
-        FirebaseDatabase.getInstance().getReference("transactions")
-                .child(userId)
-                .child(transaction.getId())
-                .setValue(transaction.toMap())
-                .addOnSuccessListener(aVoid ->
-                        Log.d(TAG, type + " transaction recorded for " + stock.getSymbol()))
-                .addOnFailureListener(e ->
-                        Log.e(TAG, "Failed to record transaction", e));
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(Discover.this, "Trade failed, please try again", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
-    private void addToPortfolio(Stock stock, int quantity, double investedAmount) {
+    private Holding currentHolding(String symbol) {
         for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                item.addShares(quantity, investedAmount);
-                return;
+            if (item.getSymbol().equals(symbol)) {
+                return Holding.from(item);
             }
         }
-
-        portfolioItems.add(new PortfolioItem(
-                stock.getSymbol(),
-                stock.getName(),
-                stock.getPrice(),
-                quantity,
-                investedAmount
-        ));
+        return null;
     }
 
-    private void removeFromPortfolio(Stock stock, int quantity) {
-        String symbolToRemove = null;
-
-        for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                item.removeShares(quantity);
-
-                if (item.getQuantity() <= 0) {
-                    symbolToRemove = item.getSymbol();
-                }
+    // Replace the local position with the one the trade committed
+    private void applyHolding(Stock stock, Holding holding) {
+        for (int i = 0; i < portfolioItems.size(); i++) {
+            if (portfolioItems.get(i).getSymbol().equals(stock.getSymbol())) {
+                portfolioItems.remove(i);
                 break;
             }
         }
-
-        // Remove item with zero quantity
-        if (symbolToRemove != null) {
-            for (int i = 0; i < portfolioItems.size(); i++) {
-                if (portfolioItems.get(i).getSymbol().equals(symbolToRemove)) {
-                    portfolioItems.remove(i);
-                    break;
-                }
-            }
-
-            // Also remove from Firebase
-            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-            if (user != null) {
-                String userId = user.getUid();
-
-                // Remove from stocks node
-                FirebaseDatabase.getInstance().getReference("users")
-                        .child(userId)
-                        .child("stocks")
-                        .child(symbolToRemove)
-                        .removeValue();
-
-                // Remove from portfolioItems node
-                FirebaseDatabase.getInstance().getReference("users")
-                        .child(userId)
-                        .child("portfolioItems")
-                        .child(symbolToRemove)
-                        .removeValue();
-            }
+        if (holding != null) {
+            portfolioItems.add(holding.toPortfolioItem(stock.getName(), stock.getPrice()));
         }
     }
 
@@ -673,62 +557,9 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
 
         if (user != null) {
-            String userId = user.getUid();
-            DatabaseReference userRef = FirebaseDatabase.getInstance().getReference("users").child(userId);
-
-            // Calculate total portfolio value
-            double portfolioValue = 0;
-            for (PortfolioItem item : portfolioItems) {
-                portfolioValue += item.getCurrentValue();
-            }
-
-            // Update portfolio value
-            userRef.child("portfolioValue").setValue(portfolioValue);
-            userRef.child("lastUpdated").setValue(ServerValue.TIMESTAMP);
-
-            // Calculate daily change percentage
-            double totalInvested = 0;
-            for (PortfolioItem item : portfolioItems) {
-                totalInvested += item.getInvestedAmount();
-            }
-
-            double changePercent = totalInvested > 0 ?
-                    ((portfolioValue - totalInvested) / totalInvested) * 100 : 0;
-
-            userRef.child("dailyChangePercent").setValue(changePercent);
-
-            // Update each stock
-            for (PortfolioItem item : portfolioItems) {
-                // Update legacy format
-                Map<String, Object> stockData = new HashMap<>();
-                stockData.put("avgPrice", item.getAvgPurchasePrice());
-                stockData.put("qty", item.getQuantity());
-
-                userRef.child("stocks").child(item.getSymbol()).setValue(stockData);
-
-                // Update new format
-                Map<String, Object> portfolioItemData = new HashMap<>();
-                portfolioItemData.put("symbol", item.getSymbol());
-                portfolioItemData.put("companyName", item.getCompanyName());
-                portfolioItemData.put("currentPrice", item.getCurrentPrice());
-                portfolioItemData.put("quantity", item.getQuantity());
-                portfolioItemData.put("investedAmount", item.getInvestedAmount());
-                portfolioItemData.put("avgPurchasePrice", item.getAvgPurchasePrice());
-
-                userRef.child("portfolioItems").child(item.getSymbol()).setValue(portfolioItemData);
-            }
-
-            // Update leaderboard entry
-            DatabaseReference leaderboardRef = FirebaseDatabase.getInstance().getReference("leaderboard").child(userId);
-            Map<String, Object> leaderboardData = new HashMap<>();
-            leaderboardData.put("name", user.getDisplayName());
-            leaderboardData.put("displayName", user.getDisplayName());
-            leaderboardData.put("photoUrl", user.getPhotoUrl() != null ? user.getPhotoUrl().toString() : "");
-            leaderboardData.put("portfolioValue", portfolioValue);
-            leaderboardData.put("dailyChangePercent", changePercent);
-            leaderboardData.put("position", -1);
-
-            leaderboardRef.setValue(leaderboardData);
+            // Totals and the leaderboard entry in one multi-path write; holdings are only written by trades
+            PortfolioWrites.stagePortfolio(writeBatch, user, portfolioItems);
+            writeBatch.commitLater();
         }
     }
 
@@ -816,10 +647,6 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
 
         String currentUserId = currentUser.getUid();
 
-        // Generate chat ID (alphabetical order of user IDs)
-        String chatId = currentUserId.compareTo(contact.getUserId()) < 0 ?
-                currentUserId + "_" + contact.getUserId() : contact.getUserId() + "_" + currentUserId;
-
         // Create stock share message
         ChatMessage message = new ChatMessage(
                 currentUserId,
@@ -828,92 +655,10 @@ public class Discover extends AppCompatActivity implements StockAdapter.StockSha
                 stock.getPrice()
         );
 
-        // Save to Firebase
-        FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId)
-                .child(message.getMessageId())
-                .setValue(message.toMap())
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "Stock shared with " + contact.getDisplayName(), Toast.LENGTH_SHORT).show();
-
-                    // Update last message and time for both users
-                    updateLastMessage(currentUserId, contact.getUserId(), message);
-                    updateLastMessage(contact.getUserId(), currentUserId, message);
-                })
+        // Message and both contact entries in one write
+        ChatWriter.send(currentUserId, contact.getUserId(), message)
+                .addOnSuccessListener(aVoid ->
+                        Toast.makeText(this, "Stock shared with " + contact.getDisplayName(), Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> Toast.makeText(this, "Failed to share stock", Toast.LENGTH_SHORT).show());
     }
-
-    private void updateLastMessage(String userId, String contactId, ChatMessage message) {
-        DatabaseReference contactRef = FirebaseDatabase.getInstance().getReference("chats")
-                .child(userId)
-                .child("contacts")
-                .child(contactId);
-
-        contactRef.child("lastMessage").setValue(message.getContent());
-        contactRef.child("lastMessageTime").setValue(message.getTimestamp());
-
-        // Increment unread count for recipient
-        if (!userId.equals(message.getSenderId())) {
-            contactRef.child("unreadCount").addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    Integer currentCount = snapshot.getValue(Integer.class);
-                    int newCount = (currentCount != null ? currentCount : 0) + 1;
-                    contactRef.child("unreadCount").setValue(newCount);
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-                    // Handle error
-                }
-            });
-        }
-    }
-
-    private String getFullName(String symbol) {
-        // Map stock symbols to company names
-        Map<String, String> companyNames = new HashMap<>();
-        companyNames.put("AAPL", "Apple Inc.");
-        companyNames.put("MSFT", "Microsoft Corporation");
-        companyNames.put("GOOGL", "Alphabet Inc.");
-        companyNames.put("AMZN", "Amazon.com Inc.");
-        companyNames.put("META", "Meta Platforms Inc.");
-        companyNames.put("TSLA", "Tesla Inc.");
-        companyNames.put("NVDA", "NVIDIA Corporation");
-        companyNames.put("JPM", "JPMorgan Chase & Co.");
-        companyNames.put("V", "Visa Inc.");
-        companyNames.put("WMT", "Walmart Inc.");
-        companyNames.put("PG", "Procter & Gamble Co.");
-        companyNames.put("JNJ", "Johnson & Johnson");
-        companyNames.put("UNH", "UnitedHealth Group Inc.");
-        companyNames.put("HD", "Home Depot Inc.");
-        companyNames.put("BAC", "Bank of America Corp.");
-        companyNames.put("PFE", "Pfizer Inc.");
-        companyNames.put("CSCO", "Cisco Systems Inc.");
-        companyNames.put("VZ", "Verizon Communications Inc.");
-        companyNames.put("INTC", "Intel Corporation");
-        companyNames.put("NFLX", "Netflix Inc.");
-        companyNames.put("DIS", "The Walt Disney Company");
-        companyNames.put("ADBE", "Adobe Inc.");
-        companyNames.put("PYPL", "PayPal Holdings Inc.");
-        companyNames.put("CRM", "Salesforce Inc.");
-        companyNames.put("CMCSA", "Comcast Corporation");
-        companyNames.put("PEP", "PepsiCo Inc.");
-        companyNames.put("COST", "Costco Wholesale Corporation");
-        companyNames.put("ABT", "Abbott Laboratories");
-        companyNames.put("TMO", "Thermo Fisher Scientific Inc.");
-        companyNames.put("MCD", "McDonald's Corporation");
-        companyNames.put("ACN", "Accenture plc");
-        companyNames.put("NKE", "Nike Inc.");
-        companyNames.put("AVGO", "Broadcom Inc.");
-        companyNames.put("TXN", "Texas Instruments Incorporated");
-        companyNames.put("QCOM", "Qualcomm Incorporated");
-        companyNames.put("LLY", "Eli Lilly and Company");
-        companyNames.put("DHR", "Danaher Corporation");
-        companyNames.put("NEE", "NextEra Energy Inc.");
-        companyNames.put("T", "AT&T Inc.");
-        companyNames.put("CVX", "Chevron Corporation");
-
-        return companyNames.getOrDefault(symbol, symbol + " Inc.");
-    }
 }
\ No newline at end of file
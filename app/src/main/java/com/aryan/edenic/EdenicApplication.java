@@ -6,15 +6,34 @@ import android.app.NotificationManager;
 import android.os.Build;
 import android.util.Log;
 
+import androidx.work.WorkManager;
+
+import com.aryan.edenic.local.SyncPolicy;
+import com.aryan.edenic.market.MarketWatchWorker;
+import com.aryan.edenic.orders.TradeSyncer;
+
 public class EdenicApplication extends Application {
     private static final String TAG = "EdenicApplication";
+    private static final String LEGACY_REVALUATION_WORK = "portfolio_revaluation";
 
     @Override
     public void onCreate() {
         super.onCreate();
 
+        // Disk persistence and kept-synced nodes; must come before any other database use
+        SyncPolicy.start();
+
         // Initialize notification channels
         createNotificationChannels();
+
+        // Check resting orders and price alerts in the background
+        MarketWatchWorker.schedule(this);
+
+        // Portfolios are revalued by the server worker now; drop the old on-device schedule
+        WorkManager.getInstance(this).cancelUniqueWork(LEGACY_REVALUATION_WORK);
+
+        // Send trades journaled while offline, now and on every reconnect
+        TradeSyncer.getInstance(this).start();
     }
 
     private void createNotificationChannels() {
@@ -37,6 +56,14 @@ public class EdenicApplication extends Application {
             generalChannel.setDescription("General app notifications and updates");
             notificationManager.createNotificationChannel(generalChannel);
 
+            // Price alerts channel
+            NotificationChannel alertChannel = new NotificationChannel(
+                    "price_alerts",
+                    "Price Alerts",
+                    NotificationManager.IMPORTANCE_HIGH);
+            alertChannel.setDescription("Notifications when a stock reaches your alert price");
+            notificationManager.createNotificationChannel(alertChannel);
+
             Log.d(TAG, "Notification channels created");
         }
     }
@@ -15,26 +15,25 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.adapters.TransactionAdapter;
+import com.aryan.edenic.local.TransactionLedger;
+import com.aryan.edenic.models.Holding;
 import com.aryan.edenic.models.Transaction;
+import com.aryan.edenic.orders.TradeSyncer;
 import com.bumptech.glide.Glide;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
 public class HistoryActivity extends AppCompatActivity {
     private static final String TAG = "HistoryActivity";
+    private static final int PAGE_SIZE = 25;
+    private static final int LOAD_MORE_THRESHOLD = 5; // Rows from the end that trigger the next page
 
     // UI components
     private TextView userBalance;
@@ -51,6 +50,11 @@ public class HistoryActivity extends AppCompatActivity {
     private TransactionAdapter adapter;
     private String userId;
     private double availableBalance = 10000;
+    private TransactionLedger ledger;
+    private TransactionLedger.Filter currentFilter = TransactionLedger.Filter.ALL;
+    private boolean loadingPage = false;
+    private boolean hasMore = false;
+    private int pageGeneration = 0;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -131,27 +135,24 @@ public class HistoryActivity extends AppCompatActivity {
             public void onTabSelected(TabLayout.Tab tab) {
                 int position = tab.getPosition();
 
-                // Reset adapter to ensure clean state
-                adapter.clearFilters();
-
                 switch (position) {
-                    case 0: // All
-                        // No filters - already cleared
-                        break;
                     case 1: // Purchases
-                        adapter.filterByType(Transaction.Type.BUY);
+                        currentFilter = TransactionLedger.Filter.BUY;
                         break;
                     case 2: // Sales
-                        adapter.filterByType(Transaction.Type.SELL);
+                        currentFilter = TransactionLedger.Filter.SELL;
                         break;
                     case 3: // Profitable
-                        adapter.filterByProfitLoss(true, false);
+                        currentFilter = TransactionLedger.Filter.PROFIT;
                         break;
                     case 4: // Loss
-                        adapter.filterByProfitLoss(false, true);
+                        currentFilter = TransactionLedger.Filter.LOSS;
+                        break;
+                    default: // All
+                        currentFilter = TransactionLedger.Filter.ALL;
                         break;
                 }
-                updateEmptyState();
+                reloadHistory();
             }
 
             @Override
@@ -177,6 +178,17 @@ public class HistoryActivity extends AppCompatActivity {
         adapter = new TransactionAdapter(this, transactions);
         historyList.setLayoutManager(new LinearLayoutManager(this));
         historyList.setAdapter(adapter);
+
+        historyList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (dy > 0 && !loadingPage && hasMore && layoutManager != null &&
+                        layoutManager.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadMore();
+                }
+            }
+        });
     }
 
     private void loadUserProfile() {
@@ -189,35 +201,19 @@ public class HistoryActivity extends AppCompatActivity {
                     .into(userProfile);
         }
 
-        // Load user balance
-        FirebaseDatabase.getInstance().getReference("users")
-                .child(userId)
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        if (snapshot.exists()) {
-
-                            double investedAmount = 0;
-                            if (snapshot.child("stocks").exists()) {
-                                for (DataSnapshot stockSnapshot : snapshot.child("stocks").getChildren()) {
-                                    if (stockSnapshot.child("avgPrice").exists() && stockSnapshot.child("qty").exists()) {
-                                        double avgPrice = stockSnapshot.child("avgPrice").getValue(Double.class);
-                                        int qty = stockSnapshot.child("qty").getValue(Integer.class);
-                                        investedAmount += avgPrice * qty;
-                                    }
-                                }
-                            }
-
-                            availableBalance = 10000 - investedAmount;
-                            updateBalanceUI();
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading user data", error.toException());
-                    }
-                });
+        // Load user balance from the account
+        TradeSyncer.getInstance(this).loadAccount(userId, new TradeSyncer.AccountListener() {
+            @Override
+            public void onAccountLoaded(double cash, Map<String, Holding> holdings) {
+                availableBalance = cash;
+                updateBalanceUI();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading user data", e);
+            }
+        });
     }
 
     private void updateBalanceUI() {
@@ -226,90 +222,84 @@ public class HistoryActivity extends AppCompatActivity {
 
     private void loadTransactionHistory() {
         Log.d(TAG, "Loading transaction history for user: " + userId);
+        ledger = TransactionLedger.getInstance(this);
+
+        // Render the local mirror right away, then fetch only what it is missing
+        reloadHistory();
+        ledger.startSync(userId, new TransactionLedger.SyncListener() {
+            @Override
+            public void onSynced() {
+                reloadHistory();
+            }
+
+            @Override
+            public void onOlderSynced() {
+                // Older rows land behind the shown ones; fetch them if the list had run out
+                if (!hasMore && !loadingPage) {
+                    loadMore();
+                }
+                loadSummary();
+            }
 
-        FirebaseDatabase.getInstance().getReference("transactions")
-                .child(userId)
-                .orderByChild("timestamp")
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Log.d(TAG, "Transaction data snapshot exists: " + snapshot.exists() +
-                                ", children count: " + snapshot.getChildrenCount());
-
-                        transactions.clear();
-                        double totalProfit = 0;
-
-                        if (snapshot.exists()) {
-                            for (DataSnapshot transactionSnapshot : snapshot.getChildren()) {
-                                try {
-                                    Log.d(TAG, "Processing transaction: " + transactionSnapshot.getKey());
-
-                                    Map<String, Object> data = new HashMap<>();
-                                    for (DataSnapshot child : transactionSnapshot.getChildren()) {
-                                        data.put(child.getKey(), child.getValue());
-                                        Log.d(TAG, "  - " + child.getKey() + ": " + child.getValue());
-                                    }
-
-                                    Transaction transaction = Transaction.fromMap(data);
-                                    transactions.add(transaction);
-                                    Log.d(TAG, "Added transaction: " + transaction.getSymbol() +
-                                            ", Type: " + transaction.getType());
-
-                                    // Add to total profit if it's a sell
-                                    if (transaction.getType() == Transaction.Type.SELL) {
-                                        totalProfit += transaction.getProfitLoss();
-                                    }
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error parsing transaction: " + e.getMessage(), e);
-                                }
-                            }
-
-                            // Log transaction list
-                            Log.d(TAG, "Loaded " + transactions.size() + " transactions");
-
-                            // Sort by timestamp descending (newest first)
-                            Collections.sort(transactions,
-                                    (t1, t2) -> t2.getTimestamp().compareTo(t1.getTimestamp()));
-
-                            // Update transaction count
-                            transactionCount.setText(String.valueOf(transactions.size()));
-
-                            // Update total profit/loss
-                            boolean isProfit = totalProfit >= 0;
-                            totalProfitLoss.setText(String.format(Locale.US, "%s$%.2f",
-                                    isProfit ? "+" : "", Math.abs(totalProfit)));
-                            totalProfitLoss.setTextColor(ContextCompat.getColor(HistoryActivity.this,
-                                    isProfit ? R.color.green : R.color.red));
-
-                            // Update adapter
-                            adapter.updateTransactions(transactions);
-
-                            // Debug RecyclerView state
-                            Log.d(TAG, "RecyclerView visibility: " + (historyList.getVisibility() == View.VISIBLE ? "VISIBLE" : "GONE"));
-                            Log.d(TAG, "RecyclerView adapter item count: " + adapter.getItemCount());
-
-                            // Show/hide empty state based on filtered items count
-                            boolean isEmpty = adapter.getItemCount() == 0;
-                            historyList.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
-                            emptyHistory.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
-                        } else {
-                            // No transactions
-                            Log.d(TAG, "No transactions found for user");
-                            transactionCount.setText("0");
-                            totalProfitLoss.setText("$0.00");
-
-                            // Show empty state
-                            historyList.setVisibility(View.GONE);
-                            emptyHistory.setVisibility(View.VISIBLE);
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading transaction history", error.toException());
-                        Toast.makeText(HistoryActivity.this,
-                                "Failed to load transaction history", Toast.LENGTH_SHORT).show();
-                    }
-                });
+            @Override
+            public void onTransactionAdded(Transaction transaction) {
+                if (currentFilter.matches(transaction) && adapter.addTransaction(transaction, !hasMore)) {
+                    updateEmptyState();
+                }
+                loadSummary();
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(HistoryActivity.this,
+                        "Failed to load transaction history", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    // First page of the current filter, plus the totals
+    private void reloadHistory() {
+        int generation = ++pageGeneration;
+        loadingPage = true;
+        ledger.loadPage(userId, currentFilter, null, PAGE_SIZE, (page, more) -> {
+            if (generation != pageGeneration) return; // Filter changed meanwhile
+            loadingPage = false;
+            hasMore = more;
+            adapter.updateTransactions(page);
+            updateEmptyState();
+        });
+        loadSummary();
+    }
+
+    private void loadMore() {
+        int generation = pageGeneration;
+        loadingPage = true;
+        ledger.loadPage(userId, currentFilter, adapter.getLastTransaction(), PAGE_SIZE, (page, more) -> {
+            if (generation != pageGeneration) return;
+            loadingPage = false;
+            hasMore = more;
+            adapter.addOlderTransactions(page);
+        });
+    }
+
+    private void loadSummary() {
+        ledger.loadSummary(userId, summary -> {
+            double totalProfit = summary.getRealizedProfitLoss();
+            transactionCount.setText(String.valueOf(summary.getTradeCount()));
+
+            boolean isProfit = totalProfit >= 0;
+            totalProfitLoss.setText(String.format(Locale.US, "%s$%.2f",
+                    isProfit ? "+" : "", Math.abs(totalProfit)));
+            totalProfitLoss.setTextColor(ContextCompat.getColor(HistoryActivity.this,
+                    isProfit ? R.color.green : R.color.red));
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (ledger != null) {
+            ledger.stopSync();
+        }
     }
 }
\ No newline at end of file
@@ -32,44 +32,55 @@ import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.aryan.edenic.adapters.LeaderboardAdapter;
 import com.aryan.edenic.adapters.StockAdapter;
+import com.aryan.edenic.alerts.AlertManager;
+import com.aryan.edenic.alerts.PriceAlertDialog;
+import com.aryan.edenic.backtest.BacktestDialog;
+import com.aryan.edenic.chat.ChatWriter;
+import com.aryan.edenic.leaderboard.LeaderboardPeriod;
+import com.aryan.edenic.leaderboard.LeaderboardSource;
+import com.aryan.edenic.leaderboard.PeriodLeaderboards;
+import com.aryan.edenic.local.ReadMetrics;
+import com.aryan.edenic.market.IntradaySummary;
+import com.aryan.edenic.market.QuoteFeed;
 import com.aryan.edenic.models.ChatContact;
 import com.aryan.edenic.models.ChatMessage;
+import com.aryan.edenic.models.Holding;
 import com.aryan.edenic.models.LeaderboardEntry;
+import com.aryan.edenic.models.PendingOrder;
 import com.aryan.edenic.models.PortfolioItem;
-import com.aryan.edenic.models.PortfolioManager;
 import com.aryan.edenic.models.Stock;
 import com.aryan.edenic.models.Transaction;
+import com.aryan.edenic.orders.OrderForm;
+import com.aryan.edenic.orders.OrderManager;
+import com.aryan.edenic.orders.TradeService;
+import com.aryan.edenic.orders.TradeSyncer;
+import com.aryan.edenic.timeseries.EquityCurveStore;
 import com.aryan.edenic.utils.FirebaseDataService;
+import com.aryan.edenic.utils.FirebaseWriteBatch;
 import com.aryan.edenic.utils.NotificationManager;
-import com.aryan.edenic.utils.StockChangeClient;
+import com.aryan.edenic.utils.PortfolioWrites;
+import com.aryan.edenic.utils.StockDirectory;
 import com.aryan.edenic.utils.StockLogoLoader;
-import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
-import com.aryan.edenic.yahoo_finance.YahooResponse;
 import com.bumptech.glide.Glide;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
+import com.google.android.material.tabs.TabLayout;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
 import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.Set;
 
 public class HomeActivity extends AppCompatActivity implements StockAdapter.StockShareListener {
     private static final String TAG = "HomeActivity";
-    private static final long PRICE_REFRESH_INTERVAL = 5 * 60 * 1000; // 5 minutes
-    private static long lastPriceRefreshTime = 0;
     private FirebaseDataService firebaseDataService;
 
     // UI Components
@@ -80,6 +91,8 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
     private ImageView userProfile;
     private SwipeRefreshLayout swipeRefreshLayout;
     private RecyclerView leaderboardRecycler;
+    private TabLayout leaderboardTabs;
+    private TextView leaderboardLabel;
     private TextView seeAllLabel;
 
     // Data
@@ -87,12 +100,40 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
     private List<PortfolioItem> portfolioItems = new ArrayList<>();
     private StockAdapter adapter;
     private LeaderboardAdapter leaderboardAdapter;
-    private PortfolioManager portfolioManager;
+    private List<LeaderboardEntry> allTimeEntries = new ArrayList<>();
+    private LeaderboardPeriod leaderboardPeriod; // Null for all time
 
     // User portfolio state
     private double availableBalance = 10000;
     private double portfolioTotalValue = 0;
 
+    // Coalesces the writes of one trade or save into a single root update
+    private final FirebaseWriteBatch writeBatch = new FirebaseWriteBatch();
+
+    // Reload holdings when a resting order fills in the background
+    private final OrderManager.OrderListener orderFillListener =
+            (order, price) -> loadPortfolioFromDatabase(false);
+
+    private final QuoteFeed.QuoteListener quoteListener = this::onQuote;
+
+    // A trade made offline was refused once synced: show the account as it really is
+    private final TradeSyncer.SyncListener tradeSyncListener = (trade, outcome) -> {
+        Toast.makeText(this, String.format("%s %d %s refused: %s",
+                trade.getSide() == Transaction.Type.BUY ? "Buy of" : "Sale of",
+                trade.getQuantity(), trade.getSymbol(),
+                outcome == TradeService.Outcome.INSUFFICIENT_FUNDS ? "not enough balance" : "not enough shares"),
+                Toast.LENGTH_LONG).show();
+        loadPortfolioFromDatabase(false);
+    };
+
+    // Shared top-of-leaderboard subscription, already sorted
+    private final LeaderboardSource.LeaderboardListener leaderboardListener = topEntries -> {
+        allTimeEntries = topEntries;
+        if (leaderboardPeriod == null) {
+            leaderboardAdapter.setEntries(topEntries, FirebaseAuth.getInstance().getCurrentUser().getUid());
+        }
+    };
+
     // Constants
     private static final Map<String, Integer> STOCK_LOGOS = new HashMap<String, Integer>() {{
         put("AAPL", R.drawable.default_img_holder);
@@ -117,19 +158,21 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         setupRecyclerViews();
         setupBottomNavigation();
         setupSwipeRefresh();
+        setupLeaderboardTabs();
         setupListeners();
 
         // Initialize Firebase Data Service
         firebaseDataService = new FirebaseDataService();
 
-        // Initialize portfolio manager
         String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-        portfolioManager = new PortfolioManager(userId);
+
+        // Load resting orders and price alerts so ticks can trigger them
+        OrderManager.getInstance(this).load(userId);
+        AlertManager.getInstance(this).load(userId);
 
         // Load data
         loadUserData();
         setupStockData();
-        setupLeaderboard();
 
     }
 
@@ -150,14 +193,19 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
     protected void onResume() {
         super.onResume();
         bottomNav.setSelectedItemId(R.id.nav_home);
-        portfolioManager.startAutoUpdates();
+        OrderManager.getInstance(this).addListener(orderFillListener);
+        TradeSyncer.getInstance(this).addListener(tradeSyncListener);
+        LeaderboardSource.getInstance().addListener(leaderboardListener);
         refreshData();
     }
 
     @Override
     protected void onPause() {
         super.onPause();
-        portfolioManager.stopAutoUpdates();
+        OrderManager.getInstance(this).removeListener(orderFillListener);
+        TradeSyncer.getInstance(this).removeListener(tradeSyncListener);
+        LeaderboardSource.getInstance().removeListener(leaderboardListener);
+        QuoteFeed.getInstance(this).unsubscribeAll(quoteListener);
     }
 
     private void initializeViews() {
@@ -170,6 +218,8 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         userProfile = findViewById(R.id.user_profile);
         swipeRefreshLayout = findViewById(R.id.swipe_refresh);
         leaderboardRecycler = findViewById(R.id.leaderboard_recycler);
+        leaderboardTabs = findViewById(R.id.leaderboard_tabs);
+        leaderboardLabel = findViewById(R.id.leaderboard_label);
         seeAllLabel = findViewById(R.id.see_all_label);
 
     }
@@ -222,8 +272,100 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         );
     }
 
+    private void setupLeaderboardTabs() {
+        leaderboardTabs.addOnTabSelectedListener(new TabLayout.OnTabSelectedListener() {
+            @Override
+            public void onTabSelected(TabLayout.Tab tab) {
+                switch (tab.getPosition()) {
+                    case 1: // Today
+                        leaderboardPeriod = LeaderboardPeriod.DAILY;
+                        break;
+                    case 2: // Week
+                        leaderboardPeriod = LeaderboardPeriod.WEEKLY;
+                        break;
+                    case 3: // Month
+                        leaderboardPeriod = LeaderboardPeriod.MONTHLY;
+                        break;
+                    default: // All time
+                        leaderboardPeriod = null;
+                        break;
+                }
+                loadLeaderboard();
+            }
+
+            @Override
+            public void onTabUnselected(TabLayout.Tab tab) {
+                // Not needed
+            }
+
+            @Override
+            public void onTabReselected(TabLayout.Tab tab) {
+                onTabSelected(tab);
+            }
+        });
+    }
+
+    /**
+     * Show the selected ranking. A period the worker hasn't ranked yet (its first minutes)
+     * falls back to the summary of the one before it.
+     */
+    private void loadLeaderboard() {
+        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        LeaderboardPeriod period = leaderboardPeriod;
+        if (period == null) {
+            leaderboardLabel.setText("Leaderboard");
+            leaderboardAdapter.setEntries(allTimeEntries, userId);
+            return;
+        }
+
+        PeriodLeaderboards.loadCurrent(period, LeaderboardSource.TOP_N, new PeriodLeaderboards.PeriodListener() {
+            @Override
+            public void onLoaded(List<LeaderboardEntry> entries) {
+                if (period != leaderboardPeriod) return; // Another tab was picked meanwhile
+                if (!entries.isEmpty()) {
+                    leaderboardLabel.setText("Leaderboard");
+                    leaderboardAdapter.setEntries(entries, userId);
+                    return;
+                }
+                PeriodLeaderboards.loadPrevious(period, new PeriodLeaderboards.PeriodListener() {
+                    @Override
+                    public void onLoaded(List<LeaderboardEntry> previous) {
+                        if (period != leaderboardPeriod) return;
+                        leaderboardLabel.setText("Leaderboard \u00b7 " + previousPeriodName(period));
+                        leaderboardAdapter.setEntries(previous, userId);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        Log.e(TAG, "Error loading previous " + period.getId() + " leaderboard", e);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading " + period.getId() + " leaderboard", e);
+                Toast.makeText(HomeActivity.this, "Couldn't load leaderboard", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private static String previousPeriodName(LeaderboardPeriod period) {
+        switch (period) {
+            case DAILY:
+                return "yesterday";
+            case WEEKLY:
+                return "last week";
+            default:
+                return "last month";
+        }
+    }
+
     private void refreshData() {
         swipeRefreshLayout.setRefreshing(true);
+        if (leaderboardPeriod != null) {
+            loadLeaderboard(); // Period boards are read once, not followed
+        }
 
         // Loading portfolio data should check isInitialLoad
         boolean isInitialLoad = portfolioItems.isEmpty();
@@ -258,169 +400,40 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         stocks.add(new Stock("WMT", "Walmart Inc.", 0, STOCK_LOGOS.get("WMT")));
         adapter.notifyDataSetChanged();
 
-        // Fetch initial prices
-        fetchInitialPrices();
+        // Start following prices
+        subscribeToQuotes();
     }
 
-    private void setupLeaderboard() {
-        // Listen for leaderboard updates
-        setupLeaderboardListener();
-    }
-
-    private void fetchInitialPrices() {
-        long currentTime = System.currentTimeMillis();
-
-        // Only fetch prices if it's been more than PRICE_REFRESH_INTERVAL since last refresh
-        if (currentTime - lastPriceRefreshTime > PRICE_REFRESH_INTERVAL) {
-            // First fetch percentage changes from Google Sheets
-            StockChangeClient.fetchChangePercentages(new StockChangeClient.StockChangeCallback() {
-                @Override
-                public void onSuccess(Map<String, Double> changePercentMap) {
-                    // Store the percentage changes for each stock
-                    for (Stock stock : stocks) {
-                        Double changePercent = changePercentMap.get(stock.getSymbol());
-                        if (changePercent != null) {
-                            stock.setChangePercent(changePercent); // Assume you've added this field
-                            Log.d(TAG, "Set change % for " + stock.getSymbol() + ": " + changePercent);
-                        }
-                    }
-
-                    // Then continue with your normal price fetching
-                    for (Stock stock : stocks) {
-                        fetchStockPrice(stock);
-                    }
-
-                    // Also update portfolio item prices
-                    for (PortfolioItem item : portfolioItems) {
-                        // Find corresponding stock in your stocks list
-                        for (Stock stock : stocks) {
-                            if (stock.getSymbol().equals(item.getSymbol())) {
-                                // First check if price is already loaded
-                                if (stock.getPrice() > 0) {
-                                    item.updatePrice(stock.getPrice());
-                                } else {
-                                    // If not, fetch price directly for this portfolio item
-                                    fetchPriceForPortfolioItem(item);
-                                }
-                                break;
-                            }
-                        }
-                    }
-                    lastPriceRefreshTime = currentTime;
-                }
-
-                @Override
-                public void onFailure(Exception e) {
-                    Log.e(TAG, "Failed to fetch change percentages from Google Sheets", e);
-
-                    // Fall back to just fetching prices with Yahoo Finance
-                    for (Stock stock : stocks) {
-                        fetchStockPrice(stock);
-                    }
-
-                    // Rest of your existing code for portfolio items
-                    for (PortfolioItem item : portfolioItems) {
-                        for (Stock stock : stocks) {
-                            if (stock.getSymbol().equals(item.getSymbol())) {
-                                if (stock.getPrice() > 0) {
-                                    item.updatePrice(stock.getPrice());
-                                } else {
-                                    fetchPriceForPortfolioItem(item);
-                                }
-                                break;
-                            }
-                        }
-                    }
-                    lastPriceRefreshTime = currentTime;
-                }
-            });
-        } else {
-            // Just update the UI with current data
-            updatePortfolioValue();
-            swipeRefreshLayout.setRefreshing(false);
+    // Prices are pushed by the shared quote feed; follow the listed stocks and everything held
+    private void subscribeToQuotes() {
+        Set<String> symbols = new HashSet<>();
+        for (Stock stock : stocks) {
+            symbols.add(stock.getSymbol());
         }
-    }
-
-    // Method to fetch price specifically for portfolio items
-    private void fetchPriceForPortfolioItem(PortfolioItem item) {
-        YahooFinanceClient.getInstance().getStockData(item.getSymbol(), "1d", "1d")
-                .enqueue(new Callback<YahooResponse>() {
-                    @Override
-                    public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            YahooResponse yahooResponse = response.body();
-
-                            if (yahooResponse.chart != null &&
-                                    yahooResponse.chart.result != null &&
-                                    !yahooResponse.chart.result.isEmpty() &&
-                                    yahooResponse.chart.result.get(0) != null &&
-                                    yahooResponse.chart.result.get(0).meta != null) {
-
-                                double price = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-
-                                runOnUiThread(() -> {
-                                    // Update the portfolio item price
-                                    item.updatePrice(price);
-                                    Log.d(TAG, "Updated price for portfolio item " + item.getSymbol() + ": $" + price);
-
-                                    // Recalculate portfolio value and update UI
-                                    updatePortfolioValue();
-                                    swipeRefreshLayout.setRefreshing(false);
-                                });
-                            } else {
-                                swipeRefreshLayout.setRefreshing(false);
-                            }
-                        } else {
-                            swipeRefreshLayout.setRefreshing(false);
-                        }
-                    }
+        for (PortfolioItem item : portfolioItems) {
+            symbols.add(item.getSymbol());
+        }
+        QuoteFeed.getInstance(this).setSymbols(quoteListener, symbols);
 
-                    @Override
-                    public void onFailure(Call<YahooResponse> call, Throwable t) {
-                        Log.e(TAG, "Error fetching price for " + item.getSymbol(), t);
-                        swipeRefreshLayout.setRefreshing(false);
-                    }
-                });
+        updatePortfolioValue();
+        swipeRefreshLayout.setRefreshing(false);
     }
 
-    private void fetchStockPrice(Stock stock) {
-        YahooFinanceClient.getInstance().getStockData(stock.getSymbol(), "1d", "1d")
-                .enqueue(new Callback<YahooResponse>() {
-                    @Override
-                    public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            YahooResponse yahooResponse = response.body();
-
-                            if (yahooResponse.chart != null &&
-                                    yahooResponse.chart.result != null &&
-                                    !yahooResponse.chart.result.isEmpty() &&
-                                    yahooResponse.chart.result.get(0) != null &&
-                                    yahooResponse.chart.result.get(0).meta != null) {
-
-                                double price = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-
-                                runOnUiThread(() -> {
-                                    stock.setPrice(price);
-                                    // We don't need previous close or to calculate change percent here
-                                    // as we're using the pre-fetched value from Google Sheets
-                                    adapter.notifyDataSetChanged();
-                                    updatePortfolioValue();
-                                    swipeRefreshLayout.setRefreshing(false);
-                                });
-                            } else {
-                                swipeRefreshLayout.setRefreshing(false);
-                            }
-                        } else {
-                            swipeRefreshLayout.setRefreshing(false);
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<YahooResponse> call, Throwable t) {
-                        Log.e(TAG, "Error fetching price for " + stock.getSymbol(), t);
-                        swipeRefreshLayout.setRefreshing(false);
-                    }
-                });
+    private void onQuote(QuoteFeed.Quote quote) {
+        for (int i = 0; i < stocks.size(); i++) {
+            Stock stock = stocks.get(i);
+            if (stock.getSymbol().equals(quote.getSymbol())) {
+                stock.setPrice(quote.getPrice());
+                stock.setChangePercent(quote.getChangePercent());
+                adapter.notifyItemChanged(i);
+            }
+        }
+        for (PortfolioItem item : portfolioItems) {
+            if (item.getSymbol().equals(quote.getSymbol())) {
+                item.updatePrice(quote.getPrice());
+            }
+        }
+        updatePortfolioValue();
     }
 
     private void showTradeDialog(Stock stock) {
@@ -435,6 +448,7 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         RadioGroup tradeTypeGroup = dialogView.findViewById(R.id.trade_type_group);
         EditText quantityInput = dialogView.findViewById(R.id.quantity_input);
         Button btnConfirm = dialogView.findViewById(R.id.btn_confirm);
+        OrderForm orderForm = new OrderForm(dialogView);
 
         // Set stock data
         StockLogoLoader.loadStockLogo(this, stock.getSymbol(), stockLogo);
@@ -472,18 +486,56 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
 
         btnConfirm.setOnClickListener(v -> {
             String quantityStr = quantityInput.getText().toString().trim();
-            executeTrade(
-                    stock,
-                    quantityStr,
-                    tradeTypeGroup.getCheckedRadioButtonId() == R.id.radio_buy,
-                    dialog
-            );
+            boolean isBuy = tradeTypeGroup.getCheckedRadioButtonId() == R.id.radio_buy;
+            if (orderForm.isMarketOrder()) {
+                executeTrade(stock, quantityStr, isBuy, dialog);
+            } else {
+                placePendingOrder(orderForm, stock, quantityStr, isBuy, dialog);
+            }
         });
 
         dialogView.findViewById(R.id.btn_cancel).setOnClickListener(v -> dialog.dismiss());
+        dialogView.findViewById(R.id.dialog_set_alert).setOnClickListener(v -> {
+            dialog.dismiss();
+            PriceAlertDialog.show(this, stock);
+        });
+        IntradaySummary.bind(this, dialogView, stock.getSymbol());
+        dialogView.findViewById(R.id.dialog_backtest).setOnClickListener(v -> {
+            dialog.dismiss();
+            BacktestDialog.show(this, stock);
+        });
         dialog.show();
     }
 
+    private void placePendingOrder(OrderForm orderForm, Stock stock, String quantityStr,
+                                   boolean isBuy, AlertDialog dialog) {
+        int quantity;
+        try {
+            quantity = Integer.parseInt(quantityStr);
+        } catch (NumberFormatException e) {
+            Toast.makeText(this, "Invalid quantity format", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        if (quantity <= 0) {
+            Toast.makeText(this, "Quantity must be greater than 0", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        PendingOrder order = orderForm.buildOrder(stock, isBuy, quantity);
+        if (order == null) {
+            return; // The form shows which price is missing
+        }
+
+        // The order rests in the trigger book and fills when the price crosses its trigger
+        String userId = FirebaseAuth.getInstance().getCurrentUser().getUid();
+        OrderManager.getInstance(this).place(userId, order)
+                .addOnSuccessListener(aVoid -> Toast.makeText(this,
+                        "Order placed: " + order.getDescription(), Toast.LENGTH_SHORT).show())
+                .addOnFailureListener(e -> Toast.makeText(this,
+                        "Failed to place order", Toast.LENGTH_SHORT).show());
+        dialog.dismiss();
+    }
+
     private void validateInput(EditText input, Button confirmBtn, Stock stock,
                                boolean isBuy, int ownedShares) {
         // Get the input text
@@ -538,38 +590,20 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
                 return;
             }
 
-            double amount = quantity * stock.getPrice();
-
             if (isBuy) {
-                executeBuyOrder(amount, stock, quantity);
+                executeBuyOrder(stock, quantity);
             } else {
-                executeSellOrder(amount, stock, quantity);
+                executeSellOrder(stock, quantity);
             }
 
             dialog.dismiss();
-            Toast.makeText(this,
-                    String.format("%s %d shares of %s",
-                            isBuy ? "Bought" : "Sold",
-                            quantity,
-                            stock.getSymbol()),
-                    Toast.LENGTH_SHORT).show();
         } catch (NumberFormatException e) {
             Toast.makeText(this, "Invalid quantity format", Toast.LENGTH_SHORT).show();
         }
     }
 
-    private void executeBuyOrder(double amount, Stock stock, int quantity) {
-        if (amount <= availableBalance) {
-            availableBalance -= amount;
-            addToPortfolio(stock, quantity, amount);
-            updateUI();
-
-            // Record the transaction
-            recordTransaction(stock, Transaction.Type.BUY, quantity, stock.getPrice());
-
-            // Save to Firebase
-            savePortfolioToDatabase();
-
+    private void executeBuyOrder(Stock stock, int quantity) {
+        executeOrder(stock, Transaction.Type.BUY, quantity, () -> {
             showTransactionNotification(
                     "Purchase Complete",
                     "You bought " + quantity + " shares of " + stock.getSymbol() + " at $" + stock.getPrice()
@@ -577,35 +611,83 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
 
             //Notification for the Stock
             NotificationManager.subscribeToStockUpdates(stock.getSymbol());
-        }
+        });
     }
 
-    private void executeSellOrder(double amount, Stock stock, int quantity) {
-        // Get the avg purchase price for profit/loss calculation
-        double avgPurchasePrice = 0;
-        for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                avgPurchasePrice = item.getAvgPurchasePrice();
-                break;
+    private void executeSellOrder(Stock stock, int quantity) {
+        executeOrder(stock, Transaction.Type.SELL, quantity, () -> {
+            showTransactionNotification(
+                    "Sale Complete",
+                    "You sold " + quantity + " shares of " + stock.getSymbol() + " at $" + stock.getPrice()
+            );
+
+            if (getOwnedShares(stock.getSymbol()) <= 0) {
+                NotificationManager.unsubscribeFromStockUpdates(stock.getSymbol());
             }
-        }
+        });
+    }
 
-        availableBalance += amount;
-        removeFromPortfolio(stock, quantity);
-        updateUI();
+    // Journaled first, then applied here with the same accounting the database uses;
+    // the syncer applies it there atomically once connected
+    private void executeOrder(Stock stock, Transaction.Type side, int quantity, Runnable onFilled) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return;
 
-        // Record the transaction with profit/loss info
-        recordTransaction(stock, Transaction.Type.SELL, quantity, stock.getPrice(), avgPurchasePrice);
+        TradeService.Trade trade = TradeService.Trade.create(side, stock.getSymbol(), stock.getName(),
+                quantity, stock.getPrice());
+        TradeService.Result checked = TradeService.apply(trade, availableBalance, currentHolding(stock.getSymbol()));
+        if (!checked.isApplied()) {
+            Toast.makeText(this, tradeFailureMessage(checked.getOutcome()), Toast.LENGTH_SHORT).show();
+            return;
+        }
+        TradeSyncer.getInstance(this).submit(user.getUid(), trade, new TradeSyncer.SubmitListener() {
+            @Override
+            public void onJournaled() {
+                // Against the state now, which another trade may have changed meanwhile;
+                // if that refuses it, so will the database, and the sync listener reloads
+                TradeService.Result result = TradeService.apply(trade, availableBalance,
+                        currentHolding(stock.getSymbol()));
+                if (!result.isApplied()) return;
+
+                availableBalance = result.getCash();
+                applyHolding(stock, result.getHolding());
+                updateUI();
+                savePortfolioToDatabase();
+                Toast.makeText(HomeActivity.this,
+                        String.format("%s %d shares of %s",
+                                side == Transaction.Type.BUY ? "Bought" : "Sold",
+                                quantity,
+                                stock.getSymbol()),
+                        Toast.LENGTH_SHORT).show();
+                onFilled.run();
+            }
 
-        showTransactionNotification(
-                "Sale Complete",
-                "You sold " + quantity + " shares of " + stock.getSymbol() + " at $" + stock.getPrice()
-        );
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(HomeActivity.this, tradeFailureMessage(TradeService.Outcome.FAILED),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-        NotificationManager.unsubscribeFromStockUpdates(stock.getSymbol());
+    private Holding currentHolding(String symbol) {
+        for (PortfolioItem item : portfolioItems) {
+            if (item.getSymbol().equals(symbol)) {
+                return Holding.from(item);
+            }
+        }
+        return null;
+    }
 
-        // Save to Firebase
-        savePortfolioToDatabase();
+    private static String tradeFailureMessage(TradeService.Outcome outcome) {
+        switch (outcome) {
+            case INSUFFICIENT_FUNDS:
+                return "Trade failed: not enough balance";
+            case INSUFFICIENT_SHARES:
+                return "Trade failed: not enough shares";
+            default:
+                return "Trade failed, please try again";
+        }
     }
 
     // Method to show the transaction notification
@@ -637,109 +719,17 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         return (int) (System.currentTimeMillis() % Integer.MAX_VALUE);
     }
 
-    private void recordTransaction(Stock stock, Transaction.Type type, int quantity, double price) {
-        recordTransaction(stock, type, quantity, price, 0);
-    }
-
-    private void recordTransaction(Stock stock, Transaction.Type type, int quantity, double price, double avgPurchasePrice) {
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) return;
-
-        String userId = user.getUid();
-
-        // Create transaction object
-        Transaction transaction;
-        if (type == Transaction.Type.BUY) {
-            transaction = new Transaction(stock.getSymbol(), stock.getName(), quantity, price);
-        } else {
-            transaction = new Transaction(stock.getSymbol(), stock.getName(), quantity, price, avgPurchasePrice);
-        }
-
-        // Save to Firebase
-        FirebaseDatabase.getInstance().getReference("transactions")
-                .child(userId)
-                .child(transaction.getId())
-                .setValue(transaction.toMap())
-                .addOnSuccessListener(aVoid ->
-                        Log.d(TAG, type + " transaction recorded for " + stock.getSymbol()))
-                .addOnFailureListener(e ->
-                        Log.e(TAG, "Failed to record transaction", e));
-    }
-
-    private void addToPortfolio(Stock stock, int quantity, double investedAmount) {
-        for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                item.addShares(quantity, investedAmount);
-                updatePortfolioValue();
-                return;
-            }
-        }
-
-        portfolioItems.add(new PortfolioItem(
-                stock.getSymbol(),
-                stock.getName(),
-                stock.getPrice(),
-                quantity,
-                investedAmount
-        ));
-        updatePortfolioValue();
-    }
-
-    private void removeFromPortfolio(Stock stock, int quantity) {
-        Log.d(TAG, "Attempting to remove " + quantity + " shares of " + stock.getSymbol());
-
-        PortfolioItem itemToRemove = null;
-        for (PortfolioItem item : portfolioItems) {
-            if (item.getSymbol().equals(stock.getSymbol())) {
-                item.removeShares(quantity);
-                Log.d(TAG, "After removal, remaining shares: " + item.getQuantity());
-
-                if (item.getQuantity() <= 0) {
-                    itemToRemove = item; // Mark for removal outside loop
-                }
+    // Replace the local position with the one the trade committed
+    private void applyHolding(Stock stock, Holding holding) {
+        for (int i = 0; i < portfolioItems.size(); i++) {
+            if (portfolioItems.get(i).getSymbol().equals(stock.getSymbol())) {
+                portfolioItems.remove(i);
                 break;
             }
-
-            if (getOwnedShares(stock.getSymbol()) <= 0) {
-                NotificationManager.unsubscribeFromStockUpdates(stock.getSymbol());
-            }
         }
-
-        // Remove outside the loop to avoid ConcurrentModificationException
-        if (itemToRemove != null) {
-            // Store symbol in a final variable for use in lambda
-            final String symbolToRemove = itemToRemove.getSymbol();
-
-            Log.d(TAG, "Completely removing stock: " + symbolToRemove);
-            portfolioItems.remove(itemToRemove);
-
-            // IMPORTANT: Directly remove from the database as well
-            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-            if (user != null) {
-                String userId = user.getUid();
-                DatabaseReference userRef = FirebaseDatabase.getInstance().getReference("users").child(userId);
-
-                // Remove from both data structures
-                userRef.child("stocks").child(symbolToRemove).removeValue()
-                        .addOnSuccessListener(aVoid ->
-                                Log.d(TAG, "Successfully removed " + symbolToRemove + " from stocks"))
-                        .addOnFailureListener(e ->
-                                Log.e(TAG, "Failed to remove " + symbolToRemove + " from stocks: " + e.getMessage()));
-
-                userRef.child("portfolioItems").child(symbolToRemove).removeValue()
-                        .addOnSuccessListener(aVoid ->
-                                Log.d(TAG, "Successfully removed " + symbolToRemove + " from portfolioItems"))
-                        .addOnFailureListener(e ->
-                                Log.e(TAG, "Failed to remove " + symbolToRemove + " from portfolioItems: " + e.getMessage()));
-            }
+        if (holding != null) {
+            portfolioItems.add(holding.toPortfolioItem(stock.getName(), stock.getPrice()));
         }
-
-        // Debug the portfolio after removal
-        Log.d(TAG, "Portfolio after removal:");
-        for (PortfolioItem item : portfolioItems) {
-            Log.d(TAG, item.getSymbol() + ": " + item.getQuantity() + " shares");
-        }
-
         updatePortfolioValue();
     }
 
@@ -765,7 +755,7 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         // Update current prices in portfolio items
         for (PortfolioItem item : portfolioItems) {
             for (Stock stock : stocks) {
-                if (item.getSymbol().equals(stock.getSymbol())) {
+                if (item.getSymbol().equals(stock.getSymbol()) && stock.getPrice() > 0) {
                     item.updatePrice(stock.getPrice());
                     break;
                 }
@@ -787,28 +777,12 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
 
         // To make sure to update Firebase with the calculated value
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user != null && portfolioTotalValue > 0) {
-            // Update portfolioValue in user node
-            FirebaseDatabase.getInstance().getReference("users")
-                    .child(user.getUid())
-                    .child("portfolioValue")
-                    .setValue(portfolioTotalValue);
-
-            // Also update the leaderboard value directly
-            FirebaseDatabase.getInstance().getReference("leaderboard")
-                    .child(user.getUid())
-                    .child("portfolioValue")
-                    .setValue(portfolioTotalValue);
-
-            // Update daily change percentage
-            FirebaseDatabase.getInstance().getReference("leaderboard")
-                    .child(user.getUid())
-                    .child("dailyChangePercent")
-                    .setValue(profitPercent);
+        if (user != null) {
+            // Add a point to the local equity history (throttled to one per minute)
+            EquityCurveStore.getInstance(this, user.getUid()).record(availableBalance + portfolioTotalValue);
         }
-
-        // Save to Firebase
-        savePortfolioToDatabase();
+        // Not saved here: quotes arrive many times a minute. Trades save, and the worker
+        // revalues the stored value on its own schedule.
     }
 
     private void updatePortfolioCard(double value, double percentChange) {
@@ -838,7 +812,7 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
         if (!isInitialLoad && !portfolioItems.isEmpty()) {
             Log.d(TAG, "Skipping reload after trade to preserve local state");
             updateUI();
-            fetchInitialPrices();
+            subscribeToQuotes();
             return;
         }
         */
@@ -847,7 +821,7 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
             DatabaseReference userRef = FirebaseDatabase.getInstance().getReference("users").child(userId);
 
             // Also check portfolioValue directly
-            userRef.child("portfolioValue").addListenerForSingleValueEvent(new ValueEventListener() {
+            userRef.child("portfolioValue").addListenerForSingleValueEvent(ReadMetrics.timed("portfolioValue", new ValueEventListener() {
                 @Override
                 public void onDataChange(@NonNull DataSnapshot snapshot) {
                     if (snapshot.exists()) {
@@ -867,7 +841,7 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
                 public void onCancelled(@NonNull DatabaseError error) {
                     loadFullPortfolioData(userRef);
                 }
-            });
+            }));
         } else {
             swipeRefreshLayout.setRefreshing(false);
         }
@@ -875,60 +849,33 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
 
     // New helper method to load the full portfolio data
     private void loadFullPortfolioData(DatabaseReference userRef) {
-        userRef.addListenerForSingleValueEvent(new ValueEventListener() {
+        // Stored cash and holdings from one read of the account, with trades not yet
+        // synced applied on top; legacy records are migrated on first read
+        TradeSyncer.getInstance(this).loadAccount(userRef.getKey(), new TradeSyncer.AccountListener() {
             @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    portfolioItems.clear();
+            public void onAccountLoaded(double cash, Map<String, Holding> holdings) {
+                Log.d(TAG, "Found " + holdings.size() + " holdings in account");
 
-                    // Process stocks
-                    DataSnapshot stocksSnapshot = snapshot.child("stocks");
-                    if (stocksSnapshot.exists()) {
-                        Log.d(TAG, "Found " + stocksSnapshot.getChildrenCount() + " stocks in database");
-                        double totalInvested = 0;
-
-                        for (DataSnapshot stockSnapshot : stocksSnapshot.getChildren()) {
-                            try {
-                                String symbol = stockSnapshot.getKey();
-                                double avgPrice = stockSnapshot.child("avgPrice").getValue(Double.class);
-                                int quantity = stockSnapshot.child("qty").getValue(Integer.class);
-
-                                Log.d(TAG, String.format("Loading stock: %s, %d shares @ $%.2f",
-                                        symbol, quantity, avgPrice));
-
-                                double investedAmount = avgPrice * quantity;
-                                totalInvested += investedAmount;
-
-                                // Create portfolio item
-                                PortfolioItem item = new PortfolioItem(
-                                        symbol,
-                                        getStockName(symbol),
-                                        avgPrice,  // Current price initially same as avg price
-                                        quantity,
-                                        investedAmount
-                                );
-
-                                portfolioItems.add(item);
-                            } catch (Exception e) {
-                                Log.e("Firebase", "Error parsing stock data: " + e.getMessage());
-                            }
-                        }
+                portfolioItems.clear();
+                for (Holding holding : holdings.values()) {
+                    Log.d(TAG, String.format("Loading stock: %s, %d shares @ $%.2f",
+                            holding.getSymbol(), holding.getQuantity(), holding.getAvgPrice()));
 
-                        // Update available balance
-                        availableBalance = 10000 - totalInvested;
-                    }
+                    // Current price initially same as avg price
+                    portfolioItems.add(holding.toPortfolioItem(getStockName(holding.getSymbol()), 0));
                 }
+                availableBalance = cash;
 
                 // Update UI
                 updateUI();
 
-                // Fetch latest prices
-                fetchInitialPrices();
+                // Follow prices of the listed stocks and holdings
+                subscribeToQuotes();
             }
 
             @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e("Firebase", "Error loading portfolio: " + error.getMessage());
+            public void onError(Exception e) {
+                Log.e("Firebase", "Error loading portfolio: " + e.getMessage());
                 swipeRefreshLayout.setRefreshing(false);
             }
         });
@@ -941,154 +888,24 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
                 return stock.getName();
             }
         }
-        return symbol + " Inc.";
+        return StockDirectory.getCompanyName(symbol);
     }
 
     private void savePortfolioToDatabase() {
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
 
         if (user != null) {
-            String userId = user.getUid();
-            Log.d(TAG, "Saving portfolio for user: " + userId);
-
-            // Calculate total portfolio value - ensure it's accurate based on current prices
-            final double calculatedPortfolioValue = portfolioItems.stream()
-                    .mapToDouble(PortfolioItem::getCurrentValue)
-                    .sum();
+            Log.d(TAG, "Saving portfolio for user: " + user.getUid());
 
-            for (PortfolioItem item : portfolioItems) {
-                Log.d(TAG, String.format("Portfolio item: %s, %d shares, value: $%.2f",
-                        item.getSymbol(), item.getQuantity(), item.getCurrentValue()));
-            }
+            // Stage totals and the leaderboard entry; repeated saves collapse into one
+            // multi-path write. Holdings are only written by trades.
+            double calculatedPortfolioValue = PortfolioWrites.stagePortfolio(writeBatch, user, portfolioItems);
+            writeBatch.commitLater();
 
             Log.d(TAG, "Total portfolio value: $" + calculatedPortfolioValue);
-
-            // Reference to user data
-            DatabaseReference userRef = FirebaseDatabase.getInstance().getReference("users").child(userId);
-
-            // Update portfolio value
-            userRef.child("portfolioValue").setValue(calculatedPortfolioValue);
-            userRef.child("lastUpdated").setValue(ServerValue.TIMESTAMP);
-
-            // Calculate daily change percentage
-            final double totalInvested = portfolioItems.stream()
-                    .mapToDouble(PortfolioItem::getInvestedAmount)
-                    .sum();
-            final double changePercent = totalInvested > 0 ?
-                    ((calculatedPortfolioValue - totalInvested) / totalInvested) * 100 : 0;
-            userRef.child("dailyChangePercent").setValue(changePercent);
-
-            // Update each stock individually
-            for (PortfolioItem item : portfolioItems) {
-                if (item.getQuantity() > 0) {
-                    // Make sure we're using the CURRENT price, not just avg price
-                    double currentPrice = item.getCurrentPrice();
-                    if (currentPrice <= 0) {
-                        // If price isn't loaded yet, use avg price as fallback
-                        currentPrice = item.getAvgPurchasePrice();
-                    }
-
-                    // Update legacy format
-                    Map<String, Object> legacyData = new HashMap<>();
-                    legacyData.put("avgPrice", item.getAvgPurchasePrice());
-                    legacyData.put("qty", item.getQuantity());
-                    userRef.child("stocks").child(item.getSymbol()).setValue(legacyData);
-                    Log.d(TAG, String.format("Saving legacy format: %s, %d shares @ $%.2f",
-                            item.getSymbol(), item.getQuantity(), item.getAvgPurchasePrice()));
-
-                    // Update new format
-                    Map<String, Object> newData = new HashMap<>();
-                    newData.put("symbol", item.getSymbol());
-                    newData.put("companyName", item.getCompanyName());
-                    newData.put("currentPrice", currentPrice);  // Make sure we use current price
-                    newData.put("quantity", item.getQuantity());
-                    newData.put("investedAmount", item.getInvestedAmount());
-                    newData.put("avgPurchasePrice", item.getAvgPurchasePrice());
-                    userRef.child("portfolioItems").child(item.getSymbol()).setValue(newData);
-                    Log.d(TAG, String.format("Saving new format: %s, %d shares @ $%.2f, current: $%.2f",
-                            item.getSymbol(), item.getQuantity(), item.getAvgPurchasePrice(), currentPrice));
-                }
-            }
-
-            // Update leaderboard entry
-            updateLeaderboardEntry(userId, calculatedPortfolioValue, changePercent);
-
-            Log.d(TAG, "Portfolio data saved");
         }
     }
 
-    private void updateLeaderboardEntry(String userId, double portfolioValue, double changePercent) {
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) return;
-
-        // Create leaderboard entry
-        Map<String, Object> entryData = new HashMap<>();
-        entryData.put("name", user.getDisplayName());
-        entryData.put("displayName", user.getDisplayName());
-        entryData.put("photoUrl", user.getPhotoUrl() != null ? user.getPhotoUrl().toString() : "");
-        entryData.put("portfolioValue", portfolioValue);
-        entryData.put("dailyChangePercent", changePercent);
-        entryData.put("position", -1); // Position will be calculated when displaying the leaderboard
-
-        // Update in Realtime Database
-        FirebaseDatabase.getInstance().getReference("leaderboard")
-                .child(userId)
-                .setValue(entryData)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Leaderboard entry updated"))
-                .addOnFailureListener(e -> Log.e(TAG, "Error updating leaderboard", e));
-    }
-
-    private void setupLeaderboardListener() {
-        String currentUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-
-        FirebaseDatabase.getInstance().getReference("leaderboard")
-                .addValueEventListener(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        List<LeaderboardEntry> allEntries = new ArrayList<>();
-
-                        // 1. Collect all entries and find current user
-                        for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                            try {
-                                String userId = userSnapshot.getKey();
-                                String name = userSnapshot.child("name").getValue(String.class);
-                                String photoUrl = userSnapshot.child("photoUrl").getValue(String.class);
-                                Double portfolioValue = userSnapshot.child("portfolioValue").getValue(Double.class);
-                                Double dailyChangePercent = userSnapshot.child("dailyChangePercent").getValue(Double.class);
-
-                                if (name != null && portfolioValue != null) {
-                                    LeaderboardEntry entry = new LeaderboardEntry(
-                                            name,
-                                            photoUrl,
-                                            portfolioValue,
-                                            dailyChangePercent != null ? dailyChangePercent : 0.0
-                                    );
-                                    entry.setUserId(userId);
-
-                                    allEntries.add(entry);
-                                    Log.d(TAG, "Added leaderboard entry: " + name + " - $" + portfolioValue);
-                                }
-                            } catch (Exception e) {
-                                Log.e(TAG, "Error parsing leaderboard entry", e);
-                            }
-                        }
-
-                        // 2. Sort by portfolio value (descending)
-                        Collections.sort(allEntries, (o1, o2) ->
-                                Double.compare(o2.getPortfolioValue(), o1.getPortfolioValue()));
-
-                        // Update adapter
-                        leaderboardAdapter.setEntries(allEntries, currentUserId);
-                        Log.d(TAG, "Updated leaderboard adapter with " + allEntries.size() + " entries");
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading leaderboard", error.toException());
-                    }
-                });
-    }
-
     // StockShareListener implementation
     @Override
     public void onStockShareRequested(Stock stock) {
@@ -1173,10 +990,6 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
 
         String currentUserId = currentUser.getUid();
 
-        // Generate chat ID (alphabetical order of user IDs)
-        String chatId = currentUserId.compareTo(contact.getUserId()) < 0 ?
-                currentUserId + "_" + contact.getUserId() : contact.getUserId() + "_" + currentUserId;
-
         // Create stock share message
         ChatMessage message = new ChatMessage(
                 currentUserId,
@@ -1185,45 +998,10 @@ public class HomeActivity extends AppCompatActivity implements StockAdapter.Stoc
                 stock.getPrice()
         );
 
-        // Save to Firebase
-        FirebaseDatabase.getInstance().getReference("messages")
-                .child(chatId)
-                .child(message.getMessageId())
-                .setValue(message.toMap())
-                .addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "Stock shared with " + contact.getDisplayName(), Toast.LENGTH_SHORT).show();
-
-                    // Update last message and time for both users
-                    updateLastMessage(currentUserId, contact.getUserId(), message);
-                    updateLastMessage(contact.getUserId(), currentUserId, message);
-                })
+        // Message and both contact entries in one write
+        ChatWriter.send(currentUserId, contact.getUserId(), message)
+                .addOnSuccessListener(aVoid ->
+                        Toast.makeText(this, "Stock shared with " + contact.getDisplayName(), Toast.LENGTH_SHORT).show())
                 .addOnFailureListener(e -> Toast.makeText(this, "Failed to share stock", Toast.LENGTH_SHORT).show());
     }
-
-    private void updateLastMessage(String userId, String contactId, ChatMessage message) {
-        DatabaseReference contactRef = FirebaseDatabase.getInstance().getReference("chats")
-                .child(userId)
-                .child("contacts")
-                .child(contactId);
-
-        contactRef.child("lastMessage").setValue(message.getContent());
-        contactRef.child("lastMessageTime").setValue(message.getTimestamp());
-
-        // Increment unread count for recipient
-        if (!userId.equals(message.getSenderId())) {
-            contactRef.child("unreadCount").addListenerForSingleValueEvent(new ValueEventListener() {
-                @Override
-                public void onDataChange(@NonNull DataSnapshot snapshot) {
-                    Integer currentCount = snapshot.getValue(Integer.class);
-                    int newCount = (currentCount != null ? currentCount : 0) + 1;
-                    contactRef.child("unreadCount").setValue(newCount);
-                }
-
-                @Override
-                public void onCancelled(@NonNull DatabaseError error) {
-
-                }
-            });
-        }
-    }
 }
\ No newline at end of file
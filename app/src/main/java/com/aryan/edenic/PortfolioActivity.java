@@ -9,37 +9,49 @@ import android.view.View;
 import android.widget.EditText;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
-import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.adapters.PortfolioAdapter;
+import com.aryan.edenic.analytics.MonteCarloEngine;
+import com.aryan.edenic.analytics.MonteCarloResult;
+import com.aryan.edenic.analytics.RiskEngine;
+import com.aryan.edenic.analytics.RiskReport;
+import com.aryan.edenic.market.PriceHistoryStore;
+import com.aryan.edenic.market.PriceSeries;
+import com.aryan.edenic.market.QuoteFeed;
+import com.aryan.edenic.models.Holding;
 import com.aryan.edenic.models.PortfolioItem;
-import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
-import com.aryan.edenic.yahoo_finance.YahooResponse;
+import com.aryan.edenic.orders.TradeSyncer;
+import com.aryan.edenic.timeseries.EquityCurveStore;
+import com.aryan.edenic.utils.HoldingsMigrator;
+import com.aryan.edenic.utils.StockDirectory;
+import com.aryan.edenic.views.SparklineView;
 import com.bumptech.glide.Glide;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.database.DataSnapshot;
-import com.google.firebase.database.DatabaseError;
-import com.google.firebase.database.FirebaseDatabase;
-import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 public class PortfolioActivity extends AppCompatActivity {
     private static final String TAG = "PortfolioActivity";
+    private static final int EQUITY_CURVE_POINTS = 120;
+    private static final String BENCHMARK_SYMBOL = "^GSPC";
+    private static final int RISK_WINDOW_DAYS = 252;
+    private static final int PROJECTION_PATHS = 50000;
+    private static final int PROJECTION_DAYS = 252;
+    private static final int TRADING_DAYS_PER_MONTH = 21;
 
     // UI Components
     private TextView totalValue;
@@ -54,11 +66,15 @@ public class PortfolioActivity extends AppCompatActivity {
     private BottomNavigationView bottomNav;
     private ImageView userProfile;
     private TextView userBalance;
+    private SparklineView equityCurve;
+    private TextView riskSummary;
+    private TextView projectionSummary;
 
     // Data
     private List<PortfolioItem> portfolioItems = new ArrayList<>();
     private PortfolioAdapter adapter;
     private String userId;
+    private final QuoteFeed.QuoteListener quoteListener = this::onQuote;
 
     // Portfolio statistics
     private double totalPortfolioValue = 0;
@@ -67,6 +83,10 @@ public class PortfolioActivity extends AppCompatActivity {
     private double profitLossPercent = 0;
     private double availableBalance = 10000;  // Default value
 
+    // Latest risk inputs, reused by the projection
+    private RiskReport riskReport;
+    private Map<String, Double> riskLastCloses;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -105,6 +125,13 @@ public class PortfolioActivity extends AppCompatActivity {
         portfolioItems.clear(); // Clear existing items first
         // Refresh data when activity is resumed
         loadPortfolioData();
+        loadEquityCurve();
+    }
+
+    @Override
+    protected void onPause() {
+        super.onPause();
+        QuoteFeed.getInstance(this).unsubscribeAll(quoteListener);
     }
 
     private void initializeViews() {
@@ -119,6 +146,9 @@ public class PortfolioActivity extends AppCompatActivity {
         investedValue = findViewById(R.id.invested_value);
         todayGain = findViewById(R.id.today_gain);
         todayGainPercent = findViewById(R.id.today_gain_percent);
+        equityCurve = findViewById(R.id.equity_curve);
+        riskSummary = findViewById(R.id.risk_summary);
+        projectionSummary = findViewById(R.id.projection_summary);
 
         // Search and list views
         searchStocks = findViewById(R.id.search_stocks);
@@ -140,6 +170,9 @@ public class PortfolioActivity extends AppCompatActivity {
     }
 
     private void setupListeners() {
+        // Run a Monte Carlo projection on demand
+        projectionSummary.setOnClickListener(v -> runProjection());
+
         // Search text changed listener
         searchStocks.addTextChangedListener(new TextWatcher() {
             @Override
@@ -203,210 +236,91 @@ public class PortfolioActivity extends AppCompatActivity {
 
         Log.d(TAG, "Starting to load portfolio data for user: " + userId);
 
-        // Use the new portfolioItems structure in Realtime Database
-        FirebaseDatabase.getInstance().getReference("users")
-                .child(userId)
-                .child("portfolioItems")  // New path
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Log.d(TAG, "Portfolio items data retrieved: exists = " + snapshot.exists() +
-                                ", count = " + snapshot.getChildrenCount());
-
-                        if (snapshot.exists() && snapshot.getChildrenCount() > 0) {
-                            portfolioItems.clear();
-                            totalInvestedValue = 0;
-
-                            // Process stocks in new format
-                            for (DataSnapshot stockSnapshot : snapshot.getChildren()) {
-                                try {
-                                    String symbol = stockSnapshot.child("symbol").getValue(String.class);
-                                    String companyName = stockSnapshot.child("companyName").getValue(String.class);
-                                    double currentPrice = stockSnapshot.child("currentPrice").getValue(Double.class);
-                                    int quantity = stockSnapshot.child("quantity").getValue(Integer.class);
-                                    double investedAmount = stockSnapshot.child("investedAmount").getValue(Double.class);
-
-                                    Log.d(TAG, String.format("Loading stock: %s, %d shares @ $%.2f",
-                                            symbol, quantity, currentPrice));
-
-                                    // Create portfolio item
-                                    PortfolioItem item = new PortfolioItem(
-                                            symbol,
-                                            companyName,
-                                            currentPrice,
-                                            quantity,
-                                            investedAmount
-                                    );
-
-                                    portfolioItems.add(item);
-                                    totalInvestedValue += investedAmount;
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error parsing stock: " + e.getMessage(), e);
-                                }
-                            }
-
-                            Log.d(TAG, "Loaded " + portfolioItems.size() + " stocks in new format");
-
-                            // Calculate portfolio value
-                            totalPortfolioValue = portfolioItems.stream()
-                                    .mapToDouble(PortfolioItem::getCurrentValue)
-                                    .sum();
-
-                            // Calculate profit/loss
-                            totalProfitLoss = totalPortfolioValue - totalInvestedValue;
-                            profitLossPercent = totalInvestedValue > 0 ?
-                                    (totalProfitLoss / totalInvestedValue) * 100 : 0;
-
-                            // Update UI
-                            updatePortfolioSummary();
-
-                            // Calculate available balance
-                            availableBalance = 10000 - totalInvestedValue;
-                            updateBalanceUI();
-
-                            // Update adapter with a new copy of the list
-                            Log.d(TAG, "Updating adapter with " + portfolioItems.size() + " items");
-                            adapter.updateItems(new ArrayList<>(portfolioItems));
-
-                            // Show/hide empty view
-                            boolean isEmpty = portfolioItems.isEmpty();
-                            Log.d(TAG, "Portfolio empty? " + isEmpty);
-                            emptyPortfolio.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
-                            stocksList.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
-
-                            // Update with latest prices
-                            refreshStockPrices();
-                        } else {
-                            // Fallback to the old structure if new one doesn't exist
-                            loadLegacyPortfolioData();
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading portfolio: " + error.getMessage());
-                        // Try legacy format as fallback
-                        loadLegacyPortfolioData();
-                    }
-                });
+        // Stored cash and holdings from one read of the account, with trades not yet synced
+        // applied on top; legacy stocks/portfolioItems records are migrated on first read
+        TradeSyncer.getInstance(this).loadAccount(userId, new TradeSyncer.AccountListener() {
+            @Override
+            public void onAccountLoaded(double cash, Map<String, Holding> holdings) {
+                Log.d(TAG, "Holdings retrieved: count = " + holdings.size());
+                showAccount(cash, holdings);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error loading portfolio: " + e.getMessage());
+                emptyPortfolio.setVisibility(View.VISIBLE);
+                stocksList.setVisibility(View.GONE);
+            }
+        });
     }
 
-    // Legacy loader for backward compatibility
-    private void loadLegacyPortfolioData() {
-        Log.d(TAG, "Falling back to legacy portfolio data format");
-
-        FirebaseDatabase.getInstance().getReference("users")
-                .child(userId)
-                .child("stocks")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        Log.d(TAG, "Legacy stocks data retrieved: exists = " + snapshot.exists());
-
-                        if (snapshot.exists()) {
-                            portfolioItems.clear();
-                            totalInvestedValue = 0;
-
-                            // Process stocks in legacy format
-                            for (DataSnapshot stockSnapshot : snapshot.getChildren()) {
-                                try {
-                                    String symbol = stockSnapshot.getKey();
-                                    double avgPrice = stockSnapshot.child("avgPrice").getValue(Double.class);
-                                    int quantity = stockSnapshot.child("qty").getValue(Integer.class);
-
-                                    double investedAmount = avgPrice * quantity;
-
-                                    Log.d(TAG, String.format("Loading legacy stock: %s, %d shares @ $%.2f",
-                                            symbol, quantity, avgPrice));
-
-                                    // Create portfolio item
-                                    PortfolioItem item = new PortfolioItem(
-                                            symbol,
-                                            getFullName(symbol),
-                                            avgPrice,  // Current price same as avg initially
-                                            quantity,
-                                            investedAmount
-                                    );
-
-                                    portfolioItems.add(item);
-                                    totalInvestedValue += investedAmount;
-                                } catch (Exception e) {
-                                    Log.e(TAG, "Error parsing legacy stock: " + e.getMessage(), e);
-                                }
-                            }
-
-                            // Continue with the same logic as before...
-                            Log.d(TAG, "Loaded " + portfolioItems.size() + " stocks in legacy format");
-
-                            // Update adapter with portfolio items
-                            adapter.updateItems(new ArrayList<>(portfolioItems));
-
-                            // Rest of the UI updates...
-                            // [Same code as in loadPortfolioData]
-                        }
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error loading legacy portfolio: " + error.getMessage());
-                        emptyPortfolio.setVisibility(View.VISIBLE);
-                        stocksList.setVisibility(View.GONE);
-                    }
-                });
+    private void showAccount(double cash, Map<String, Holding> holdings) {
+        portfolioItems.clear();
+        for (Holding holding : holdings.values()) {
+            Log.d(TAG, String.format("Loading stock: %s, %d shares @ $%.2f",
+                    holding.getSymbol(), holding.getQuantity(), holding.getAvgPrice()));
+
+            // Current price same as avg initially, refreshed below
+            portfolioItems.add(holding.toPortfolioItem(
+                    StockDirectory.getCompanyName(holding.getSymbol()), 0));
+        }
+        totalInvestedValue = HoldingsMigrator.totalCost(holdings);
+
+        // Calculate portfolio value
+        totalPortfolioValue = portfolioItems.stream()
+                .mapToDouble(PortfolioItem::getCurrentValue)
+                .sum();
+
+        // Calculate profit/loss
+        totalProfitLoss = totalPortfolioValue - totalInvestedValue;
+        profitLossPercent = totalInvestedValue > 0 ?
+                (totalProfitLoss / totalInvestedValue) * 100 : 0;
+
+        // Update UI
+        updatePortfolioSummary();
+
+        availableBalance = cash;
+        updateBalanceUI();
+
+        // Update adapter with a new copy of the list
+        Log.d(TAG, "Updating adapter with " + portfolioItems.size() + " items");
+        adapter.updateItems(new ArrayList<>(portfolioItems));
+
+        // Show/hide empty view
+        boolean isEmpty = portfolioItems.isEmpty();
+        Log.d(TAG, "Portfolio empty? " + isEmpty);
+        emptyPortfolio.setVisibility(isEmpty ? View.VISIBLE : View.GONE);
+        stocksList.setVisibility(isEmpty ? View.GONE : View.VISIBLE);
+
+        if (!isEmpty) {
+            // Follow the latest prices
+            subscribeToQuotes();
+
+            // Risk figures come from cached daily history, so they don't wait on prices
+            loadRiskSummary();
+        }
     }
 
     private void updateBalanceUI() {
         userBalance.setText(String.format("$%,.2f", availableBalance));
     }
 
-    private void refreshStockPrices() {
-        // Update prices for all stocks in portfolio
+    // Prices are pushed by the shared quote feed; a quote only updates this screen
+    private void subscribeToQuotes() {
+        Set<String> symbols = new HashSet<>();
         for (PortfolioItem item : portfolioItems) {
-            YahooFinanceClient.getInstance().getStockData(item.getSymbol(), "1d", "1d")
-                    .enqueue(new Callback<YahooResponse>() {
-                        @Override
-                        public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                            if (response.isSuccessful() && response.body() != null) {
-                                YahooResponse yahooResponse = response.body();
-
-                                if (yahooResponse.chart != null &&
-                                        yahooResponse.chart.result != null &&
-                                        !yahooResponse.chart.result.isEmpty() &&
-                                        yahooResponse.chart.result.get(0) != null &&
-                                        yahooResponse.chart.result.get(0).meta != null) {
-
-                                    double price = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-                                    Log.d(TAG, "Updated price for " + item.getSymbol() + ": $" + price);
-
-                                    // Update price
-                                    item.updatePrice(price);
-
-                                    // Recalculate portfolio statistics
-                                    recalculatePortfolioStats();
-
-                                    // Update in database
-                                    updateStockInDatabase(item);
-                                }
-                            }
-                        }
-
-                        @Override
-                        public void onFailure(Call<YahooResponse> call, Throwable t) {
-                            Log.e(TAG, "Error fetching price for " + item.getSymbol() + ": " + t.getMessage(), t);
-                        }
-                    });
+            symbols.add(item.getSymbol());
         }
+        QuoteFeed.getInstance(this).setSymbols(quoteListener, symbols);
     }
 
-    private void updateStockInDatabase(PortfolioItem item) {
-        if (userId == null) return;
-
-        // Only update the current price, not the average price
-        FirebaseDatabase.getInstance().getReference("users")
-                .child(userId)
-                .child("portfolioValue")
-                .setValue(totalPortfolioValue)
-                .addOnFailureListener(e -> Log.e(TAG, "Error updating portfolio value", e));
+    private void onQuote(QuoteFeed.Quote quote) {
+        for (PortfolioItem item : portfolioItems) {
+            if (item.getSymbol().equals(quote.getSymbol())) {
+                item.updatePrice(quote.getPrice());
+            }
+        }
+        recalculatePortfolioStats();
     }
 
     private void recalculatePortfolioStats() {
@@ -419,15 +333,142 @@ public class PortfolioActivity extends AppCompatActivity {
         totalProfitLoss = totalPortfolioValue - totalInvestedValue;
         profitLossPercent = totalInvestedValue > 0 ? (totalProfitLoss / totalInvestedValue) * 100 : 0;
 
+        // Add a point to the local equity history (throttled to one per minute)
+        EquityCurveStore.getInstance(this, userId).record(availableBalance + totalPortfolioValue);
+
         // Update UI
         runOnUiThread(() -> {
             updatePortfolioSummary();
 
             // Update the adapter to reflect the new prices/values
             adapter.notifyDataSetChanged();
+        });
+    }
+
+    private void loadRiskSummary() {
+        if (portfolioItems.isEmpty()) {
+            riskSummary.setVisibility(View.GONE);
+            return;
+        }
 
-            // Update leaderboard
-            updateLeaderboardEntry();
+        Set<String> held = new HashSet<>();
+        for (PortfolioItem item : portfolioItems) {
+            held.add(item.getSymbol());
+        }
+        List<String> symbols = new ArrayList<>(held);
+        symbols.add(BENCHMARK_SYMBOL);
+
+        riskSummary.setVisibility(View.VISIBLE);
+        PriceHistoryStore.getInstance(this).load(symbols, history -> {
+            Map<String, Double> lastCloses = new HashMap<>();
+            for (Map.Entry<String, PriceSeries> entry : history.entrySet()) {
+                lastCloses.put(entry.getKey(), entry.getValue().lastClose());
+            }
+            // Weighted by the prices as they are now, not when the holdings were loaded
+            Map<String, Double> positionValues = positionValues(lastCloses);
+
+            // Correlations are O(n^2), keep them off the main thread
+            ForkJoinPool.commonPool().execute(() -> {
+                // Risk is measured over the last year of the cached history
+                Map<String, PriceSeries> lastYear = new HashMap<>();
+                for (Map.Entry<String, PriceSeries> entry : history.entrySet()) {
+                    lastYear.put(entry.getKey(), entry.getValue().tail(RISK_WINDOW_DAYS));
+                }
+                RiskReport report = new RiskEngine().analyze(lastYear, positionValues, BENCHMARK_SYMBOL);
+                runOnUiThread(() -> {
+                    riskReport = report;
+                    riskLastCloses = lastCloses;
+                    showRiskSummary(report);
+                });
+            });
+        });
+    }
+
+    // Value each position at its latest quote, or its last daily close until one arrives
+    private Map<String, Double> positionValues(Map<String, Double> lastCloses) {
+        Map<String, Double> values = new HashMap<>();
+        for (PortfolioItem item : portfolioItems) {
+            double price = item.getCurrentPrice();
+            if (price <= 0) {
+                Double close = lastCloses.get(item.getSymbol());
+                if (close == null) continue;
+                price = close;
+            }
+            values.merge(item.getSymbol(), price * item.getQuantity(), Double::sum);
+        }
+        return values;
+    }
+
+    private void showRiskSummary(RiskReport report) {
+        if (isFinishing()) return;
+
+        if (report == null) {
+            riskSummary.setText("Risk: not enough price history yet");
+            projectionSummary.setVisibility(View.GONE);
+            return;
+        }
+        projectionSummary.setVisibility(View.VISIBLE);
+
+        String summary = String.format(Locale.US,
+                "Volatility %.1f%%  •  Beta %.2f  •  Sharpe %.2f\n1-day VaR (95%%) $%,.2f",
+                report.portfolioVolatility * 100, report.portfolioBeta, report.sharpeRatio,
+                report.valueAtRisk95);
+
+        int[] pair = report.mostCorrelatedPair();
+        if (pair != null) {
+            summary += String.format(Locale.US, "  •  %s/%s corr %.2f",
+                    report.symbols[pair[0]], report.symbols[pair[1]],
+                    report.getCorrelation(pair[0], pair[1]));
+        }
+        riskSummary.setText(summary);
+    }
+
+    private void runProjection() {
+        RiskReport report = riskReport;
+        if (report == null) {
+            Toast.makeText(this, "Price history is still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        // Start the paths from today's values rather than those the report was weighted with
+        Map<String, Double> positionValues = positionValues(riskLastCloses);
+        double[] values = new double[report.symbols.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = positionValues.getOrDefault(report.symbols[i], 0.0);
+        }
+
+        projectionSummary.setEnabled(false);
+        projectionSummary.setText("Simulating...");
+        ForkJoinPool.commonPool().execute(() -> {
+            MonteCarloResult result = new MonteCarloEngine().simulate(values, report.meanReturn,
+                    report.volatility, report.correlation, PROJECTION_PATHS, PROJECTION_DAYS,
+                    TRADING_DAYS_PER_MONTH, System.nanoTime());
+            runOnUiThread(() -> showProjection(result));
+        });
+    }
+
+    private void showProjection(MonteCarloResult result) {
+        if (isFinishing()) return;
+        projectionSummary.setEnabled(true);
+
+        // Show the 5th-95th percentile range and median at 3, 6 and 12 months
+        StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "Projection (%,d paths, tap to rerun)", result.paths));
+        for (int months : new int[]{3, 6, 12}) {
+            int checkpoint = months - 1;
+            if (checkpoint >= result.getCheckpointCount()) break;
+            text.append(String.format(Locale.US, "\n%2d mo: $%,.0f – $%,.0f  (median $%,.0f)",
+                    months, result.getValue(checkpoint, 0), result.getValue(checkpoint, 4),
+                    result.getMedian(checkpoint)));
+        }
+        projectionSummary.setText(text.toString());
+    }
+
+    private void loadEquityCurve() {
+        EquityCurveStore.getInstance(this, userId).loadCurve(0, EQUITY_CURVE_POINTS, values -> {
+            if (!isFinishing()) {
+                equityCurve.setSeries(values.length > 1 ? values : null);
+            }
         });
     }
 
@@ -473,41 +514,4 @@ public class PortfolioActivity extends AppCompatActivity {
             todayGainPercent.setTextColor(textColor);
         }
     }
-
-    private void updateLeaderboardEntry() {
-        if (userId == null) return;
-
-        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
-        if (user == null) return;
-
-        // Create leaderboard entry
-        Map<String, Object> entryData = new HashMap<>();
-        entryData.put("name", user.getDisplayName());
-        entryData.put("displayName", user.getDisplayName());
-        entryData.put("photoUrl", user.getPhotoUrl() != null ? user.getPhotoUrl().toString() : "");
-        entryData.put("portfolioValue", totalPortfolioValue);
-        entryData.put("dailyChangePercent", profitLossPercent);
-        entryData.put("position", -1);
-
-        // Update in Firebase Realtime Database
-        FirebaseDatabase.getInstance().getReference("leaderboard")
-                .child(userId)
-                .setValue(entryData)
-                .addOnSuccessListener(aVoid -> Log.d(TAG, "Leaderboard entry updated"))
-                .addOnFailureListener(e -> Log.e(TAG, "Error updating leaderboard", e));
-    }
-
-    // Helper method to get company name from symbol
-    private String getFullName(String symbol) {
-        Map<String, String> companyNames = new HashMap<>();
-        companyNames.put("AAPL", "Apple Inc.");
-        companyNames.put("MSFT", "Microsoft Corporation");
-        companyNames.put("GOOGL", "Alphabet Inc.");
-        companyNames.put("AMZN", "Amazon.com Inc.");
-        companyNames.put("META", "Meta Platforms Inc.");
-        companyNames.put("TSLA", "Tesla Inc.");
-        companyNames.put("NVDA", "NVIDIA Corporation");
-
-        return companyNames.getOrDefault(symbol, symbol + " Inc.");
-    }
 }
\ No newline at end of file
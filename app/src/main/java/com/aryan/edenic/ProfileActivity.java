@@ -18,6 +18,8 @@ import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.aryan.edenic.leaderboard.LeaderboardRankIndex;
+import com.aryan.edenic.utils.TradeStats;
 import com.bumptech.glide.Glide;
 import com.google.android.gms.auth.api.signin.GoogleSignIn;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
@@ -32,11 +34,8 @@ import com.google.firebase.database.FirebaseDatabase;
 import com.google.firebase.database.ValueEventListener;
 
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -185,65 +184,62 @@ public class ProfileActivity extends AppCompatActivity {
     }
 
     private void loadTotalTrades() {
-        FirebaseDatabase.getInstance().getReference("transactions")
+        // Running count instead of downloading every transaction
+        FirebaseDatabase.getInstance().getReference("tradeStats")
                 .child(user.getUid())
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        long count = snapshot.getChildrenCount();
-                        totalTrades.setText(String.valueOf(count));
+                        if (!TradeStats.isBackfilled(snapshot)) {
+                            TradeStats.backfill(user.getUid());
+                            countAllTrades();
+                            return;
+                        }
+                        Long count = snapshot.child(TradeStats.COUNT).getValue(Long.class);
+                        totalTrades.setText(String.valueOf(count != null ? count : 0));
                     }
 
                     @Override
                     public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error counting transactions", error.toException());
+                        Log.e(TAG, "Error loading trade stats", error.toException());
                     }
                 });
     }
 
-    private void loadLeaderboardPosition() {
-        FirebaseDatabase.getInstance().getReference("leaderboard")
-                .orderByChild("portfolioValue")
+    // Fallback for accounts whose trade stats haven't been backfilled yet
+    private void countAllTrades() {
+        FirebaseDatabase.getInstance().getReference("transactions")
+                .child(user.getUid())
                 .addListenerForSingleValueEvent(new ValueEventListener() {
                     @Override
                     public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        // Create a list to store all entries
-                        List<DataSnapshot> entries = new ArrayList<>();
-
-                        // Add all entries to the list
-                        for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                            entries.add(userSnapshot);
-                        }
-
-                        // Sort in descending order by portfolio value (highest first)
-                        Collections.sort(entries, (a, b) -> {
-                            double valueA = a.child("portfolioValue").getValue(Double.class);
-                            double valueB = b.child("portfolioValue").getValue(Double.class);
-                            return Double.compare(valueB, valueA); // Note the reversed order for descending
-                        });
-
-                        // Find current user's position
-                        int position = 1;
-                        for (DataSnapshot entry : entries) {
-                            if (entry.getKey().equals(user.getUid())) {
-                                leaderboardPosition.setText("#" + position);
-                                return;
-                            }
-                            position++;
-                        }
-
-                        // If user not found in leaderboard
-                        leaderboardPosition.setText("N/A");
+                        long count = snapshot.getChildrenCount();
+                        totalTrades.setText(String.valueOf(count));
                     }
 
                     @Override
                     public void onCancelled(@NonNull DatabaseError error) {
-                        Log.e(TAG, "Error determining leaderboard position", error.toException());
-                        leaderboardPosition.setText("--");
+                        Log.e(TAG, "Error counting transactions", error.toException());
                     }
                 });
     }
 
+    private void loadLeaderboardPosition() {
+        // Small reads against the rank index instead of downloading the whole leaderboard
+        LeaderboardRankIndex.loadRank(user.getUid(), new LeaderboardRankIndex.RankListener() {
+            @Override
+            public void onRankLoaded(int rank) {
+                leaderboardPosition.setText(rank > 0 ? "#" + rank : "N/A");
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Log.e(TAG, "Error determining leaderboard position", e);
+                leaderboardPosition.setText("--");
+            }
+        });
+    }
+
     private void openImagePicker() {
         Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
         intent.setType("image/*");
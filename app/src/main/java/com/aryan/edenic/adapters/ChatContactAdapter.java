@@ -105,10 +105,10 @@ public class ChatContactAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
             holder.lastMessageTime.setVisibility(View.GONE);
         }
 
-        // Show unread count if any
-        if (contact.getUnreadCount() > 0) {
+        // Unread dot while the last message is newer than the read watermark
+        if (contact.hasUnread()) {
             holder.unreadCount.setVisibility(View.VISIBLE);
-            holder.unreadCount.setText(String.valueOf(contact.getUnreadCount()));
+            holder.unreadCount.setText("");
         } else {
             holder.unreadCount.setVisibility(View.GONE);
         }
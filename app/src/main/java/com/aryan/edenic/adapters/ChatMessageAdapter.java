@@ -6,6 +6,7 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
 import android.widget.TextView;
+import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.cardview.widget.CardView;
@@ -13,22 +14,16 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.R;
+import com.aryan.edenic.market.QuoteFeed;
 import com.aryan.edenic.models.ChatMessage;
 import com.aryan.edenic.models.Stock;
 import com.aryan.edenic.utils.StockLogoLoader;
-import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
-import com.aryan.edenic.yahoo_finance.YahooResponse;
-import com.google.firebase.database.FirebaseDatabase;
 
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
-import retrofit2.Call;
-import retrofit2.Callback;
-import retrofit2.Response;
-
 public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
     private static final int VIEW_TYPE_SENT_TEXT = 0;
     private static final int VIEW_TYPE_RECEIVED_TEXT = 1;
@@ -38,6 +33,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     private final Context context;
     private final List<ChatMessage> messages;
     private final String currentUserId;
+    private long contactLastRead = 0; // Contact's read watermark, see ReadReceipts
 
     public ChatMessageAdapter(Context context, List<ChatMessage> messages, String currentUserId) {
         this.context = context;
@@ -45,6 +41,13 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         this.currentUserId = currentUserId;
     }
 
+    /**
+     * Sent messages up to this timestamp show as read
+     */
+    public void setContactLastRead(long contactLastRead) {
+        this.contactLastRead = contactLastRead;
+    }
+
     @Override
     public int getItemViewType(int position) {
         ChatMessage message = messages.get(position);
@@ -99,7 +102,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         holder.messageTime.setText(formatTime(message.getTimestamp()));
 
         // Show read status
-        holder.readStatus.setVisibility(message.isRead() ? View.VISIBLE : View.GONE);
+        holder.readStatus.setVisibility(message.getTimestamp() <= contactLastRead ? View.VISIBLE : View.GONE);
     }
 
     private void bindReceivedTextMessage(ReceivedTextViewHolder holder, ChatMessage message) {
@@ -117,7 +120,7 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
         StockLogoLoader.loadStockLogo(context, message.getStockSymbol(), holder.stockLogo);
 
         // Show read status
-        holder.readStatus.setVisibility(message.isRead() ? View.VISIBLE : View.GONE);
+        holder.readStatus.setVisibility(message.getTimestamp() <= contactLastRead ? View.VISIBLE : View.GONE);
 
         // Fetch latest price
         updateStockPrice(message, holder.stockPrice, holder.priceChange);
@@ -143,110 +146,44 @@ public class ChatMessageAdapter extends RecyclerView.Adapter<RecyclerView.ViewHo
     }
 
     private void updateStockPrice(ChatMessage message, TextView priceView, TextView changeView) {
-        YahooFinanceClient.getInstance().getStockData(message.getStockSymbol(), "1d", "1d")
-                .enqueue(new Callback<YahooResponse>() {
-                    @Override
-                    public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            YahooResponse yahooResponse = response.body();
-
-                            if (yahooResponse.chart != null &&
-                                    yahooResponse.chart.result != null &&
-                                    !yahooResponse.chart.result.isEmpty() &&
-                                    yahooResponse.chart.result.get(0) != null &&
-                                    yahooResponse.chart.result.get(0).meta != null) {
-
-                                double currentPrice = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-                                double prevClose = yahooResponse.chart.result.get(0).meta.previousClose;
-
-                                // Update price in UI
-                                priceView.setText(String.format(Locale.US, "$%.2f", currentPrice));
-
-                                // Calculate and display change percentage
-                                if (prevClose > 0) {
-                                    double change = currentPrice - prevClose;
-                                    double changePercent = (change / prevClose) * 100;
-
-                                    String changeText = String.format(Locale.US, "%s%.2f%%",
-                                            changePercent >= 0 ? "+" : "", changePercent);
-
-                                    changeView.setText(changeText);
-
-                                    // Set color based on change
-                                    int color = ContextCompat.getColor(context,
-                                            changePercent >= 0 ? R.color.green : R.color.red);
-                                    changeView.setTextColor(color);
-                                    changeView.setVisibility(View.VISIBLE);
-                                } else {
-                                    changeView.setVisibility(View.GONE);
-                                }
-
-                                // Update price in Firebase to keep it current
-                                updateMessagePrice(message.getMessageId(), currentPrice);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<YahooResponse> call, Throwable t) {
-                        // Stock update failed, but message still shows
-                        changeView.setVisibility(View.GONE);
-                    }
-                });
-    }
-
-    private void updateMessagePrice(String messageId, double newPrice) {
-        // Find the chat ID from the first message
-        if (!messages.isEmpty()) {
-            String senderId = messages.get(0).getSenderId();
-            String receiverId = senderId.equals(currentUserId) ?
-                    messages.get(0).getSenderId() : currentUserId;
-
-            // Generate chat ID (alphabetical order of user IDs)
-            String chatId = senderId.compareTo(receiverId) < 0 ?
-                    senderId + "_" + receiverId : receiverId + "_" + senderId;
-
-            // Update price in Firebase
-            FirebaseDatabase.getInstance().getReference("messages")
-                    .child(chatId)
-                    .child(messageId)
-                    .child("stockPrice")
-                    .setValue(newPrice);
-        }
+        // Views are recycled; only the row still showing this message takes the quote
+        priceView.setTag(message);
+        QuoteFeed.getInstance(context).get(message.getStockSymbol(), quote -> {
+            // Without a quote the row keeps the price the message was sent with
+            if (quote == null || priceView.getTag() != message) return;
+
+            // Update price in UI
+            priceView.setText(String.format(Locale.US, "$%.2f", quote.getPrice()));
+
+            // Display the day's change
+            double changePercent = quote.getChangePercent();
+            String changeText = String.format(Locale.US, "%s%.2f%%",
+                    changePercent >= 0 ? "+" : "", changePercent);
+            changeView.setText(changeText);
+
+            // Set color based on change
+            int color = ContextCompat.getColor(context,
+                    changePercent >= 0 ? R.color.green : R.color.red);
+            changeView.setTextColor(color);
+            changeView.setVisibility(View.VISIBLE);
+        });
     }
 
     private void openStockDetails(String symbol) {
         // Create a stock object and show trade dialog
         Stock stock = new Stock(symbol, getCompanyName(symbol), 0, 0);
 
-        // Fetch current price
-        YahooFinanceClient.getInstance().getStockData(symbol, "1d", "1d")
-                .enqueue(new Callback<YahooResponse>() {
-                    @Override
-                    public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
-                        if (response.isSuccessful() && response.body() != null) {
-                            YahooResponse yahooResponse = response.body();
-
-                            if (yahooResponse.chart != null &&
-                                    yahooResponse.chart.result != null &&
-                                    !yahooResponse.chart.result.isEmpty() &&
-                                    yahooResponse.chart.result.get(0) != null &&
-                                    yahooResponse.chart.result.get(0).meta != null) {
-
-                                double currentPrice = yahooResponse.chart.result.get(0).meta.regularMarketPrice;
-                                stock.setPrice(currentPrice);
-
-                                // Show trade dialog
-                                showTradeDialog(stock);
-                            }
-                        }
-                    }
-
-                    @Override
-                    public void onFailure(Call<YahooResponse> call, Throwable t) {
-                        // Handle error
-                    }
-                });
+        // Current price from the shared quote feed
+        QuoteFeed.getInstance(context).get(symbol, quote -> {
+            if (quote == null) {
+                Toast.makeText(context, "Couldn't get a price for " + symbol, Toast.LENGTH_SHORT).show();
+                return;
+            }
+            stock.setPrice(quote.getPrice());
+
+            // Show trade dialog
+            showTradeDialog(stock);
+        });
     }
 
     private void showTradeDialog(Stock stock) {
@@ -14,15 +14,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.R;
 import com.aryan.edenic.models.Stock;
+import com.aryan.edenic.utils.MiniSeriesStore;
 import com.aryan.edenic.utils.StockLogoLoader;
+import com.aryan.edenic.views.SparklineView;
 
 import java.util.List;
 import java.util.Locale;
 import java.util.Random;
 import java.util.function.Consumer;
 
-public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder> {
+public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder>
+        implements MiniSeriesStore.SeriesListener {
     private static final String TAG = "StockAdapter";
+    private static final Object PAYLOAD_SPARKLINE = new Object();
     private List<Stock> stocks;
     private Consumer<Stock> onStockClick;
     private StockShareListener shareListener;
@@ -73,6 +77,9 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder>
         holder.stockChange.setTextColor(ContextCompat.getColor(holder.itemView.getContext(),
                 changePercent >= 0 ? R.color.green : R.color.red));
 
+        // Set intraday sparkline (fetched in batches by the shared store)
+        bindSparkline(holder, stock.getSymbol());
+
         // Set click listener for trading
         holder.itemView.setOnClickListener(v -> {
             if (onStockClick != null) {
@@ -90,6 +97,40 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder>
         });
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty()) {
+            // Sparkline payloads only need the chart rebound
+            bindSparkline(holder, stocks.get(position).getSymbol());
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private void bindSparkline(ViewHolder holder, String symbol) {
+        MiniSeriesStore seriesStore = MiniSeriesStore.getInstance();
+        float[] series = seriesStore.getCached(symbol);
+        holder.sparkline.setSeries(series);
+        if (series == null) {
+            seriesStore.load(symbol, this);
+        }
+    }
+
+    @Override
+    public void onSeriesLoaded(String symbol, float[] series) {
+        for (int i = 0; i < stocks.size(); i++) {
+            if (stocks.get(i).getSymbol().equals(symbol)) {
+                notifyItemChanged(i, PAYLOAD_SPARKLINE);
+            }
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        MiniSeriesStore.getInstance().removeListener(this);
+    }
+
     @Override
     public int getItemCount() {
         return stocks.size();
@@ -122,6 +163,7 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder>
         TextView stockName;
         TextView stockPrice;
         TextView stockChange;
+        SparklineView sparkline;
 
         public ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -129,6 +171,7 @@ public class StockAdapter extends RecyclerView.Adapter<StockAdapter.ViewHolder>
             stockName = itemView.findViewById(R.id.stock_name);
             stockPrice = itemView.findViewById(R.id.stock_price);
             stockChange = itemView.findViewById(R.id.stock_change);
+            sparkline = itemView.findViewById(R.id.stock_sparkline);
         }
     }
 }
\ No newline at end of file
@@ -17,15 +17,19 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.aryan.edenic.R;
 import com.aryan.edenic.models.Stock;
+import com.aryan.edenic.utils.MiniSeriesStore;
 import com.aryan.edenic.utils.StockLogoLoader;
+import com.aryan.edenic.views.SparklineView;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.function.Consumer;
 
-public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.ViewHolder> implements Filterable {
+public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.ViewHolder>
+        implements Filterable, MiniSeriesStore.SeriesListener {
     private static final String TAG = "StockGridAdapter";
+    private static final Object PAYLOAD_SPARKLINE = new Object();
     private final Context context;
     private final List<Stock> stocks;
     private List<Stock> filteredStocks;
@@ -95,6 +99,9 @@ public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.View
         // Set card background gradient
         holder.cardContainer.setBackgroundResource(getPersistentGradient(stock.getSymbol()));
 
+        // Set intraday sparkline (fetched in batches by the shared store)
+        bindSparkline(holder, stock.getSymbol());
+
         // Set click listeners
         holder.itemView.setOnClickListener(v -> {
             if (onStockClick != null) {
@@ -111,6 +118,40 @@ public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.View
         });
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull ViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty()) {
+            // Sparkline payloads only need the chart rebound
+            bindSparkline(holder, filteredStocks.get(position).getSymbol());
+            return;
+        }
+        onBindViewHolder(holder, position);
+    }
+
+    private void bindSparkline(ViewHolder holder, String symbol) {
+        MiniSeriesStore seriesStore = MiniSeriesStore.getInstance();
+        float[] series = seriesStore.getCached(symbol);
+        holder.sparkline.setSeries(series);
+        if (series == null) {
+            seriesStore.load(symbol, this);
+        }
+    }
+
+    @Override
+    public void onSeriesLoaded(String symbol, float[] series) {
+        for (int i = 0; i < filteredStocks.size(); i++) {
+            if (filteredStocks.get(i).getSymbol().equals(symbol)) {
+                notifyItemChanged(i, PAYLOAD_SPARKLINE);
+            }
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        MiniSeriesStore.getInstance().removeListener(this);
+    }
+
     @Override
     public Filter getFilter() {
         return new Filter() {
@@ -223,6 +264,7 @@ public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.View
         TextView stockSymbol;
         TextView stockPrice;
         TextView stockChange;
+        SparklineView sparkline;
 
         ViewHolder(@NonNull View itemView) {
             super(itemView);
@@ -231,6 +273,7 @@ public class StockGridAdapter extends RecyclerView.Adapter<StockGridAdapter.View
             stockSymbol = itemView.findViewById(R.id.stock_symbol);
             stockPrice = itemView.findViewById(R.id.stock_price);
             stockChange = itemView.findViewById(R.id.stock_change);
+            sparkline = itemView.findViewById(R.id.stock_sparkline);
         }
     }
 }
\ No newline at end of file
@@ -5,8 +5,6 @@ import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.Filter;
-import android.widget.Filterable;
 import android.widget.ImageView;
 import android.widget.LinearLayout;
 import android.widget.TextView;
@@ -24,21 +22,19 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 
-public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.ViewHolder> implements Filterable {
+/**
+ * Shows the loaded pages of the transaction history. Filtering happens in
+ * {@link com.aryan.edenic.local.TransactionLedger}, so the adapter only holds displayed rows.
+ */
+public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.ViewHolder> {
     private static final String TAG = "TransactionAdapter";
     private final Context context;
     private final List<Transaction> transactions;
-    private List<Transaction> filteredTransactions;
-    private Transaction.Type currentFilter = null; // null means show all
-    private boolean showProfitOnly = false;
-    private boolean showLossOnly = false;
 
     public TransactionAdapter(Context context, List<Transaction> transactions) {
         this.context = context;
         this.transactions = new ArrayList<>(transactions);
-        this.filteredTransactions = new ArrayList<>(transactions);
         Log.d(TAG, "Adapter created with " + transactions.size() + " transactions");
-        applyFilters(); // Apply initial filters
     }
 
     @NonNull
@@ -51,8 +47,7 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        Transaction transaction = filteredTransactions.get(position);
-        Log.d(TAG, "Binding transaction at position " + position + ": " + transaction.getSymbol());
+        Transaction transaction = transactions.get(position);
 
         // Load stock logo
         StockLogoLoader.loadStockLogo(context, transaction.getSymbol(), holder.stockLogo);
@@ -102,158 +97,55 @@ public class TransactionAdapter extends RecyclerView.Adapter<TransactionAdapter.
 
     @Override
     public int getItemCount() {
-        return filteredTransactions.size();
+        return transactions.size();
     }
 
-    // Update the list of transactions
+    // Replace the list, e.g. with the first page of a new filter
     public void updateTransactions(List<Transaction> newTransactions) {
         Log.d(TAG, "Updating with " + newTransactions.size() + " transactions");
         this.transactions.clear();
         this.transactions.addAll(newTransactions);
-        applyFilters(); // Will update filteredTransactions and notify dataset changed
-    }
-
-    // Filter by transaction type
-    public void filterByType(Transaction.Type type) {
-        Log.d(TAG, "Filtering by type: " + type);
-        this.currentFilter = type;
-        this.showProfitOnly = false;  // Reset profit/loss filters when filtering by type
-        this.showLossOnly = false;
-        applyFilters();
-    }
-
-    // Filter by profit/loss
-    public void filterByProfitLoss(boolean showProfitOnly, boolean showLossOnly) {
-        Log.d(TAG, "Filtering by profit/loss - showProfitOnly: " + showProfitOnly + ", showLossOnly: " + showLossOnly);
-        this.currentFilter = null;  // Reset type filter when filtering by profit/loss
-        this.showProfitOnly = showProfitOnly;
-        this.showLossOnly = showLossOnly;
-        applyFilters();
+        notifyDataSetChanged();
     }
 
-    // Show all transactions
-    public void clearFilters() {
-        Log.d(TAG, "Clearing all filters");
-        this.currentFilter = null;
-        this.showProfitOnly = false;
-        this.showLossOnly = false;
-        applyFilters();
+    // Append an older page to the end of the list
+    public void addOlderTransactions(List<Transaction> olderTransactions) {
+        int start = transactions.size();
+        transactions.addAll(olderTransactions);
+        notifyItemRangeInserted(start, olderTransactions.size());
     }
 
-    // Apply all active filters
-    private void applyFilters() {
-        Log.d(TAG, "Applying filters - Type: " + currentFilter +
-                ", ShowProfit: " + showProfitOnly + ", ShowLoss: " + showLossOnly);
-
-        filteredTransactions.clear();
-
-        // If no filters are active, show all transactions
-        if (currentFilter == null && !showProfitOnly && !showLossOnly) {
-            filteredTransactions.addAll(transactions);
-            Log.d(TAG, "No filters active, showing all " + transactions.size() + " transactions");
-        } else {
-            // Apply filters
-            for (Transaction transaction : transactions) {
-                // Check type filter
-                if (currentFilter != null && transaction.getType() != currentFilter) {
-                    Log.d(TAG, "Filtered out by type: " + transaction.getSymbol());
-                    continue;
-                }
-
-                // Check profit/loss filters
-                if (transaction.getType() == Transaction.Type.SELL) {
-                    double profitLoss = transaction.getProfitLoss();
-
-                    if (showProfitOnly && profitLoss <= 0) {
-                        Log.d(TAG, "Filtered out not-profitable: " + transaction.getSymbol());
-                        continue;
-                    }
-
-                    if (showLossOnly && profitLoss >= 0) {
-                        Log.d(TAG, "Filtered out not-loss: " + transaction.getSymbol());
-                        continue;
-                    }
-                } else if (showProfitOnly || showLossOnly) {
-                    // Skip buy transactions if filtering by profit/loss
-                    Log.d(TAG, "Filtered out buy when profit/loss filter: " + transaction.getSymbol());
-                    continue;
-                }
-
-                // Transaction passed all filters
-                filteredTransactions.add(transaction);
-                Log.d(TAG, "Passed all filters: " + transaction.getSymbol());
-            }
+    /**
+     * Insert a trade where it belongs, newest first by timestamp then id like the ledger pages.
+     * A record can reach the ledger long after its trade, so it isn't always the newest.
+     * @param allLoaded False if older pages are still to come; a trade older than every
+     *                  shown row is then left for them
+     * @return False if the trade was left out or is already shown
+     */
+    public boolean addTransaction(Transaction transaction, boolean allLoaded) {
+        int position = 0;
+        while (position < transactions.size() && isNewer(transactions.get(position), transaction)) {
+            position++;
         }
-
-        Log.d(TAG, "After filtering: " + filteredTransactions.size() + " transactions");
-        notifyDataSetChanged();
+        if (position < transactions.size() && transactions.get(position).getId().equals(transaction.getId())) {
+            return false;
+        }
+        if (position == transactions.size() && !allLoaded) {
+            return false;
+        }
+        transactions.add(position, transaction);
+        notifyItemInserted(position);
+        return true;
     }
 
-    @Override
-    public Filter getFilter() {
-        return new Filter() {
-            @Override
-            protected FilterResults performFiltering(CharSequence constraint) {
-                List<Transaction> filteredList = new ArrayList<>();
-
-                if (constraint == null || constraint.length() == 0) {
-                    // No search constraint, apply current type/profit filters
-                    for (Transaction transaction : transactions) {
-                        // Apply type filter
-                        if (currentFilter != null && transaction.getType() != currentFilter) {
-                            continue;
-                        }
-
-                        // Apply profit/loss filter
-                        if (transaction.getType() == Transaction.Type.SELL) {
-                            double profitLoss = transaction.getProfitLoss();
-                            if ((showProfitOnly && profitLoss <= 0) ||
-                                    (showLossOnly && profitLoss >= 0)) {
-                                continue;
-                            }
-                        } else if (showProfitOnly || showLossOnly) {
-                            continue;
-                        }
-
-                        filteredList.add(transaction);
-                    }
-                } else {
-                    // Apply search + other filters
-                    String filterPattern = constraint.toString().toLowerCase().trim();
-
-                    for (Transaction transaction : transactions) {
-                        // Apply all filters
-                        if ((currentFilter != null && transaction.getType() != currentFilter) ||
-                                (transaction.getType() == Transaction.Type.SELL &&
-                                        ((showProfitOnly && transaction.getProfitLoss() <= 0) ||
-                                                (showLossOnly && transaction.getProfitLoss() >= 0))) ||
-                                ((showProfitOnly || showLossOnly) && transaction.getType() == Transaction.Type.BUY)) {
-                            continue;
-                        }
-
-                        // Check if matches search query
-                        if (transaction.getSymbol().toLowerCase().contains(filterPattern) ||
-                                transaction.getCompanyName().toLowerCase().contains(filterPattern)) {
-                            filteredList.add(transaction);
-                        }
-                    }
-                }
-
-                FilterResults results = new FilterResults();
-                results.values = filteredList;
-                results.count = filteredList.size();
-                return results;
-            }
+    private static boolean isNewer(Transaction a, Transaction b) {
+        int byTime = a.getTimestamp().compareTo(b.getTimestamp());
+        return byTime != 0 ? byTime > 0 : a.getId().compareTo(b.getId()) > 0;
+    }
 
-            @Override
-            protected void publishResults(CharSequence constraint, FilterResults results) {
-                filteredTransactions.clear();
-                //noinspection unchecked
-                filteredTransactions.addAll((List<Transaction>) results.values);
-                notifyDataSetChanged();
-                Log.d(TAG, "Search filter applied, showing " + filteredTransactions.size() + " items");
-            }
-        };
+    // Oldest transaction shown, used as the cursor for the next page
+    public Transaction getLastTransaction() {
+        return transactions.isEmpty() ? null : transactions.get(transactions.size() - 1);
     }
 
     static class ViewHolder extends RecyclerView.ViewHolder {
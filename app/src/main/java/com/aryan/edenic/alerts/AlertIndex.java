@@ -0,0 +1,73 @@
+package com.aryan.edenic.alerts;
+
+import com.aryan.edenic.models.PriceAlert;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Price alerts for one symbol, sorted by threshold.
+ * Upper thresholds fire when the price rises to them and lower thresholds when it falls,
+ * so a quote only visits the crossed range: O(log n + k) for k fired alerts.
+ * Not thread-safe; {@link AlertManager} synchronizes access.
+ */
+class AlertIndex {
+    private final TreeMap<Double, List<PriceAlert>> upper = new TreeMap<>();
+    private final TreeMap<Double, List<PriceAlert>> lower = new TreeMap<>();
+    private int size = 0;
+
+    void add(PriceAlert alert) {
+        TreeMap<Double, List<PriceAlert>> side = alert.isUpper() ? upper : lower;
+        side.computeIfAbsent(alert.getThresholdPrice(), price -> new ArrayList<>(1)).add(alert);
+        size++;
+    }
+
+    boolean remove(PriceAlert alert) {
+        TreeMap<Double, List<PriceAlert>> side = alert.isUpper() ? upper : lower;
+        List<PriceAlert> atPrice = side.get(alert.getThresholdPrice());
+        if (atPrice == null || !atPrice.remove(alert)) {
+            return false;
+        }
+        if (atPrice.isEmpty()) {
+            side.remove(alert.getThresholdPrice());
+        }
+        size--;
+        return true;
+    }
+
+    /**
+     * Remove and return every alert crossed by a price. Alerts are one-shot.
+     */
+    List<PriceAlert> onPrice(double price) {
+        List<PriceAlert> fired = new ArrayList<>();
+        drain(upper.headMap(price, true), fired);
+        drain(lower.tailMap(price, true), fired);
+        return fired;
+    }
+
+    /**
+     * @return True if the price would fire at least one alert, without removing anything
+     */
+    boolean wouldFire(double price) {
+        return (!upper.isEmpty() && upper.firstKey() <= price) ||
+                (!lower.isEmpty() && lower.lastKey() >= price);
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void drain(NavigableMap<Double, List<PriceAlert>> range, List<PriceAlert> fired) {
+        Iterator<Map.Entry<Double, List<PriceAlert>>> iterator = range.entrySet().iterator();
+        while (iterator.hasNext()) {
+            List<PriceAlert> alerts = iterator.next().getValue();
+            fired.addAll(alerts);
+            size -= alerts.size();
+            iterator.remove();
+        }
+    }
+}
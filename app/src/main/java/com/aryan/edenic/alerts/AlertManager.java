@@ -0,0 +1,276 @@
+package com.aryan.edenic.alerts;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.analytics.IndicatorEngine;
+import com.aryan.edenic.analytics.IndicatorSet;
+import com.aryan.edenic.market.QuoteFeed;
+import com.aryan.edenic.market.TickRecorder;
+import com.aryan.edenic.models.PriceAlert;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Keeps the signed-in user's price alerts in per-symbol {@link AlertIndex}es.
+ * Alerts are persisted under {@code alerts/{uid}}, checked on every recorded tick while
+ * the app runs, and by {@link com.aryan.edenic.market.MarketWatchWorker} in the background.
+ */
+public class AlertManager implements TickRecorder.TickListener {
+    private static final String TAG = "AlertManager";
+    private static final String CHANNEL_ID = "price_alerts";
+
+    private static AlertManager instance;
+
+    private final Context context;
+    private final Map<String, AlertIndex> indexes = new HashMap<>();
+    private final Map<String, PriceAlert> alertsById = new HashMap<>();
+    private String userId;
+
+    private AlertManager(Context context) {
+        this.context = context;
+        TickRecorder.getInstance(context).addListener(this);
+    }
+
+    public static synchronized AlertManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlertManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Load a user's alerts into the indexes
+     */
+    public void load(String userId) {
+        synchronized (this) {
+            this.userId = userId;
+        }
+        alertsRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                rebuild(userId, snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading alerts", error.toException());
+            }
+        });
+    }
+
+    /**
+     * Load a user's alerts on the calling thread (used by background work)
+     */
+    public void loadBlocking(String userId) throws ExecutionException, InterruptedException {
+        rebuild(userId, Tasks.await(alertsRef(userId).get()));
+    }
+
+    /**
+     * Save an alert for a user. It is indexed if that user's alerts are the ones loaded;
+     * otherwise {@link #load(String)} picks it up.
+     */
+    public Task<Void> add(String userId, PriceAlert alert) {
+        if (userId == null) {
+            return Tasks.forException(new IllegalStateException("No signed-in user"));
+        }
+        boolean tracked;
+        synchronized (this) {
+            if (this.userId == null) {
+                this.userId = userId;
+            }
+            tracked = userId.equals(this.userId);
+            if (tracked) {
+                index(alert);
+            }
+        }
+        // Keep the worker publishing this symbol while the alert rests
+        QuoteFeed.getInstance(context).registerInterest(Collections.singleton(alert.getSymbol()));
+        return alertsRef(userId).child(alert.getId()).setValue(alert.toMap())
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error saving alert", e);
+                    if (tracked) {
+                        synchronized (this) {
+                            unindex(alert);
+                        }
+                    }
+                });
+    }
+
+    /**
+     * Delete every alert a user has for a symbol in one write
+     */
+    public Task<Void> removeAll(String userId, String symbol) {
+        if (userId == null) {
+            return Tasks.forException(new IllegalStateException("No signed-in user"));
+        }
+        Map<String, Object> updates = new HashMap<>();
+        synchronized (this) {
+            if (!userId.equals(this.userId)) {
+                // Not the loaded user, so their alerts have to be read first
+                return alertsRef(userId).get().continueWithTask(read -> {
+                    Map<String, Object> stored = new HashMap<>();
+                    for (DataSnapshot alert : read.getResult().getChildren()) {
+                        if (symbol.equals(alert.child("symbol").getValue(String.class))) {
+                            stored.put(alert.getKey(), null);
+                        }
+                    }
+                    return stored.isEmpty() ? Tasks.<Void>forResult(null) : alertsRef(userId).updateChildren(stored);
+                });
+            }
+            for (PriceAlert alert : getAlerts(symbol)) {
+                unindex(alert);
+                updates.put(alert.getId(), null);
+            }
+        }
+        if (updates.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+        return alertsRef(userId).updateChildren(updates);
+    }
+
+    public synchronized List<PriceAlert> getAlerts(String symbol) {
+        List<PriceAlert> alerts = new ArrayList<>();
+        for (PriceAlert alert : alertsById.values()) {
+            if (alert.getSymbol().equals(symbol)) {
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    public synchronized Set<String> getSymbols() {
+        Set<String> symbols = new HashSet<>();
+        for (Map.Entry<String, AlertIndex> entry : indexes.entrySet()) {
+            if (entry.getValue().size() > 0) {
+                symbols.add(entry.getKey());
+            }
+        }
+        return symbols;
+    }
+
+    @Override
+    public void onTick(String symbol, long timestamp, double price) {
+        evaluate(symbol, price);
+    }
+
+    /**
+     * Fire every alert crossed by a price and delete the fired alerts in one write.
+     * Does not block, so it is safe on any thread.
+     * @return Task that completes once the fired alerts are deleted
+     */
+    public Task<Void> evaluate(String symbol, double price) {
+        List<PriceAlert> fired;
+        String user;
+        synchronized (this) {
+            AlertIndex index = indexes.get(symbol);
+            if (index == null || userId == null || !index.wouldFire(price)) {
+                return Tasks.forResult(null);
+            }
+            fired = index.onPrice(price);
+            for (PriceAlert alert : fired) {
+                alertsById.remove(alert.getId());
+            }
+            user = userId;
+        }
+
+        Map<String, Object> updates = new HashMap<>();
+        for (PriceAlert alert : fired) {
+            updates.put(alert.getId(), null);
+            showAlertNotification(alert, price);
+        }
+        Log.d(TAG, "Fired " + fired.size() + " alerts for " + symbol + " at " + price);
+
+        return alertsRef(user).updateChildren(updates)
+                .addOnFailureListener(e -> Log.e(TAG, "Error deleting fired alerts", e));
+    }
+
+    private synchronized void rebuild(String userId, DataSnapshot snapshot) {
+        this.userId = userId;
+        indexes.clear();
+        alertsById.clear();
+
+        for (DataSnapshot alertSnapshot : snapshot.getChildren()) {
+            try {
+                Map<String, Object> data = new HashMap<>();
+                for (DataSnapshot child : alertSnapshot.getChildren()) {
+                    data.put(child.getKey(), child.getValue());
+                }
+                index(PriceAlert.fromMap(data));
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing alert " + alertSnapshot.getKey(), e);
+            }
+        }
+        Log.d(TAG, "Loaded " + alertsById.size() + " price alerts");
+    }
+
+    private void index(PriceAlert alert) {
+        alertsById.put(alert.getId(), alert);
+        AlertIndex index = indexes.get(alert.getSymbol());
+        if (index == null) {
+            index = new AlertIndex();
+            indexes.put(alert.getSymbol(), index);
+        }
+        index.add(alert);
+    }
+
+    private void unindex(PriceAlert alert) {
+        alertsById.remove(alert.getId());
+        AlertIndex index = indexes.get(alert.getSymbol());
+        if (index != null) {
+            index.remove(alert);
+        }
+    }
+
+    private DatabaseReference alertsRef(String userId) {
+        return FirebaseDatabase.getInstance().getReference("alerts").child(userId);
+    }
+
+    private void showAlertNotification(PriceAlert alert, double price) {
+        // Add the live indicators, if enough 5 minute bars have been recorded
+        String text = alert.getDescription() + String.format(" - now $%.2f", price);
+        IndicatorSet.Snapshot indicators = IndicatorEngine.getInstance().getSnapshot(alert.getSymbol());
+        if (indicators != null && indicators.describe() != null) {
+            text += "\n5m " + indicators.describe();
+        }
+
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle("Price Alert: " + alert.getSymbol())
+                .setContentText(text)
+                .setStyle(new NotificationCompat.BigTextStyle().bigText(text))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setAutoCancel(true);
+
+        // Check for notification permission
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU ||
+                ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) ==
+                        PackageManager.PERMISSION_GRANTED) {
+            // One notification per alert, so a later alert doesn't replace an earlier one
+            NotificationManagerCompat.from(context).notify(alert.getId().hashCode(), builder.build());
+        }
+    }
+}
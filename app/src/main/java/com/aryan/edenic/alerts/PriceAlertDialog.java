@@ -0,0 +1,133 @@
+package com.aryan.edenic.alerts;
+
+import android.app.AlertDialog;
+import android.content.Context;
+import android.text.TextUtils;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.models.PriceAlert;
+import com.aryan.edenic.models.Stock;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Dialog for creating price alerts on a stock and clearing existing ones
+ */
+public class PriceAlertDialog {
+
+    private PriceAlertDialog() {}
+
+    public static void show(Context context, Stock stock) {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            Toast.makeText(context, "Sign in to set alerts", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String userId = user.getUid();
+        AlertManager alertManager = AlertManager.getInstance(context);
+        AlertDialog.Builder builder = new AlertDialog.Builder(context, R.style.CustomDialogTheme);
+        View dialogView = LayoutInflater.from(context).inflate(R.layout.dialog_price_alert, null);
+
+        TextView title = dialogView.findViewById(R.id.alert_title);
+        TextView currentPrice = dialogView.findViewById(R.id.alert_current_price);
+        RadioGroup typeGroup = dialogView.findViewById(R.id.alert_type_group);
+        EditText valueInput = dialogView.findViewById(R.id.alert_value_input);
+        TextView existing = dialogView.findViewById(R.id.alert_existing);
+        TextView clear = dialogView.findViewById(R.id.alert_clear);
+
+        title.setText("Alert for " + stock.getSymbol());
+        currentPrice.setText(String.format("Now $%.2f", stock.getPrice()));
+
+        // Percent alerts take a percentage instead of a price
+        typeGroup.setOnCheckedChangeListener((group, checkedId) -> valueInput.setHint(
+                checkedId == R.id.radio_percent_up || checkedId == R.id.radio_percent_down ?
+                        "Percent change" : "Price"));
+
+        // List active alerts for this stock
+        List<PriceAlert> alerts = alertManager.getAlerts(stock.getSymbol());
+        if (!alerts.isEmpty()) {
+            List<String> descriptions = new ArrayList<>();
+            for (PriceAlert alert : alerts) {
+                descriptions.add(alert.getDescription());
+            }
+            existing.setText("Active: " + TextUtils.join(", ", descriptions));
+            existing.setVisibility(View.VISIBLE);
+            clear.setVisibility(View.VISIBLE);
+        }
+
+        builder.setView(dialogView);
+        AlertDialog dialog = builder.create();
+
+        clear.setOnClickListener(v -> {
+            alertManager.removeAll(userId, stock.getSymbol())
+                    .addOnFailureListener(e -> Toast.makeText(context,
+                            "Failed to clear alerts", Toast.LENGTH_SHORT).show());
+            dialog.dismiss();
+        });
+
+        dialogView.findViewById(R.id.alert_btn_confirm).setOnClickListener(v -> {
+            PriceAlert alert = buildAlert(stock, typeGroup.getCheckedRadioButtonId(), valueInput);
+            if (alert == null) return;
+
+            alertManager.add(userId, alert)
+                    .addOnSuccessListener(aVoid -> Toast.makeText(context,
+                            "Alert set: " + alert.getDescription(), Toast.LENGTH_SHORT).show())
+                    .addOnFailureListener(e -> Toast.makeText(context,
+                            "Failed to set alert", Toast.LENGTH_SHORT).show());
+            dialog.dismiss();
+        });
+
+        dialogView.findViewById(R.id.alert_btn_cancel).setOnClickListener(v -> dialog.dismiss());
+        dialog.show();
+    }
+
+    private static PriceAlert buildAlert(Stock stock, int checkedId, EditText valueInput) {
+        double value;
+        try {
+            value = Double.parseDouble(valueInput.getText().toString().trim());
+        } catch (NumberFormatException e) {
+            valueInput.setError("Enter a valid number");
+            return null;
+        }
+
+        PriceAlert.AlertType type = checkedId == R.id.radio_price_below ? PriceAlert.AlertType.PRICE_BELOW :
+                checkedId == R.id.radio_percent_up ? PriceAlert.AlertType.PERCENT_UP :
+                checkedId == R.id.radio_percent_down ? PriceAlert.AlertType.PERCENT_DOWN :
+                PriceAlert.AlertType.PRICE_ABOVE;
+
+        // Reject thresholds that are already crossed or can never be reached
+        double price = stock.getPrice();
+        boolean valid;
+        switch (type) {
+            case PRICE_ABOVE:
+                valid = value > price;
+                break;
+            case PRICE_BELOW:
+                valid = value > 0 && value < price;
+                break;
+            case PERCENT_DOWN:
+                valid = value > 0 && value < 100;
+                break;
+            default:
+                valid = value > 0;
+                break;
+        }
+        if (!valid) {
+            valueInput.setError(type == PriceAlert.AlertType.PRICE_ABOVE ? "Must be above the current price" :
+                    type == PriceAlert.AlertType.PRICE_BELOW ? "Must be below the current price" :
+                    "Enter a valid percentage");
+            return null;
+        }
+
+        return new PriceAlert(stock.getSymbol(), stock.getName(), type, value, price);
+    }
+}
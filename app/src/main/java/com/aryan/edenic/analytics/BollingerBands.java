@@ -0,0 +1,86 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Bollinger bands around a simple moving average.
+ * Running sums of prices and squared prices give the window's standard deviation
+ * without revisiting older bars; they are re-added from the window once per period so
+ * drift can't build up. The main value is the middle band.
+ */
+public class BollingerBands implements Indicator {
+    private final int period;
+    private final double width;
+    private final RingBuffer window;
+    private double sum = 0;
+    private double sumOfSquares = 0;
+    private int sinceRebase = 0;
+
+    public BollingerBands() {
+        this(20, 2);
+    }
+
+    public BollingerBands(int period, double width) {
+        this.period = period;
+        this.width = width;
+        this.window = new RingBuffer(period);
+    }
+
+    @Override
+    public double update(double price) {
+        double evicted = window.add(price);
+        sum += price;
+        sumOfSquares += price * price;
+        if (!Double.isNaN(evicted)) {
+            sum -= evicted;
+            sumOfSquares -= evicted * evicted;
+            if (++sinceRebase >= period) {
+                sum = window.sum();
+                sumOfSquares = window.sumOfSquares();
+                sinceRebase = 0;
+            }
+        }
+        return getValue();
+    }
+
+    @Override
+    public double getValue() {
+        return isReady() ? sum / period : Double.NaN;
+    }
+
+    public double getUpper() {
+        return isReady() ? getValue() + width * getStandardDeviation() : Double.NaN;
+    }
+
+    public double getLower() {
+        return isReady() ? getValue() - width * getStandardDeviation() : Double.NaN;
+    }
+
+    public double getStandardDeviation() {
+        if (!isReady()) return Double.NaN;
+        double mean = sum / period;
+        // Clamp tiny negatives caused by floating point drift
+        return Math.sqrt(Math.max(0, sumOfSquares / period - mean * mean));
+    }
+
+    /**
+     * @return Where the latest price sits in the bands, 0 at the lower band and 1 at the upper
+     */
+    public double getPercentB() {
+        double upper = getUpper();
+        double lower = getLower();
+        if (Double.isNaN(upper) || upper == lower) return Double.NaN;
+        return (window.newest() - lower) / (upper - lower);
+    }
+
+    @Override
+    public boolean isReady() {
+        return window.isFull();
+    }
+
+    @Override
+    public void reset() {
+        window.clear();
+        sum = 0;
+        sumOfSquares = 0;
+        sinceRebase = 0;
+    }
+}
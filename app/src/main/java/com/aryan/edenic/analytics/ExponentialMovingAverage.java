@@ -0,0 +1,54 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Exponential moving average seeded with the simple average of the first {@code period} prices.
+ */
+public class ExponentialMovingAverage implements Indicator {
+    private final int period;
+    private final double alpha;
+    private double value = Double.NaN;
+    private double seedSum = 0;
+    private int count = 0;
+
+    public ExponentialMovingAverage(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        this.period = period;
+        this.alpha = 2.0 / (period + 1);
+    }
+
+    @Override
+    public double update(double price) {
+        if (count < period) {
+            // Warm up with a plain average so early values aren't skewed by the first price
+            seedSum += price;
+            count++;
+            if (count == period) {
+                value = seedSum / period;
+            }
+        } else {
+            value += alpha * (price - value);
+        }
+        return value;
+    }
+
+    @Override
+    public double getValue() {
+        return value;
+    }
+
+    @Override
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    @Override
+    public void reset() {
+        value = Double.NaN;
+        seedSum = 0;
+        count = 0;
+    }
+
+    public int getPeriod() { return period; }
+}
@@ -0,0 +1,22 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * A technical indicator that consumes one price per bar.
+ * Implementations keep rolling state so each update is O(1).
+ */
+public interface Indicator {
+    /**
+     * Feed the next closing price
+     * @return The updated indicator value, or NaN while still warming up
+     */
+    double update(double price);
+
+    /**
+     * @return The latest value, or NaN if not enough bars have been seen
+     */
+    double getValue();
+
+    boolean isReady();
+
+    void reset();
+}
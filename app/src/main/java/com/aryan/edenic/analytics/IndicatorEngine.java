@@ -0,0 +1,65 @@
+package com.aryan.edenic.analytics;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps an {@link IndicatorSet} per symbol and feeds it price history and live ticks.
+ * Each new price costs O(1) per indicator, so many symbols can be tracked at once.
+ */
+public class IndicatorEngine {
+    private static IndicatorEngine instance;
+
+    private final ConcurrentHashMap<String, IndicatorSet> indicators = new ConcurrentHashMap<>();
+
+    private IndicatorEngine() {}
+
+    public static synchronized IndicatorEngine getInstance() {
+        if (instance == null) {
+            instance = new IndicatorEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Replace a symbol's state with a price history
+     * @param closes Closing prices in chronological order
+     */
+    public IndicatorSet.Snapshot seed(String symbol, double[] closes) {
+        IndicatorSet set = get(symbol);
+        synchronized (set) {
+            set.reset();
+            for (double close : closes) {
+                set.update(close);
+            }
+            return set.snapshot();
+        }
+    }
+
+    /**
+     * Feed the next price for a symbol
+     * @return The indicator values after this price
+     */
+    public IndicatorSet.Snapshot onPrice(String symbol, double price) {
+        IndicatorSet set = get(symbol);
+        synchronized (set) {
+            set.update(price);
+            return set.snapshot();
+        }
+    }
+
+    /**
+     * @return The latest values, or null if nothing has been fed for this symbol
+     */
+    public IndicatorSet.Snapshot getSnapshot(String symbol) {
+        IndicatorSet set = indicators.get(symbol);
+        return set != null ? set.snapshot() : null;
+    }
+
+    public void remove(String symbol) {
+        indicators.remove(symbol);
+    }
+
+    private IndicatorSet get(String symbol) {
+        return indicators.computeIfAbsent(symbol, key -> new IndicatorSet());
+    }
+}
@@ -0,0 +1,106 @@
+package com.aryan.edenic.analytics;
+
+import java.util.Locale;
+
+/**
+ * The standard indicators tracked for one symbol.
+ * Updates are synchronized so live ticks and history seeding can come from different threads.
+ */
+public class IndicatorSet {
+    private final SimpleMovingAverage sma = new SimpleMovingAverage(20);
+    private final ExponentialMovingAverage ema = new ExponentialMovingAverage(20);
+    private final RelativeStrengthIndex rsi = new RelativeStrengthIndex(14);
+    private final Macd macd = new Macd();
+    private final BollingerBands bollinger = new BollingerBands();
+    private double lastPrice = Double.NaN;
+    private long bars = 0;
+
+    public synchronized void update(double price) {
+        sma.update(price);
+        ema.update(price);
+        rsi.update(price);
+        macd.update(price);
+        bollinger.update(price);
+        lastPrice = price;
+        bars++;
+    }
+
+    public synchronized void reset() {
+        sma.reset();
+        ema.reset();
+        rsi.reset();
+        macd.reset();
+        bollinger.reset();
+        lastPrice = Double.NaN;
+        bars = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(lastPrice, bars, sma.getValue(), ema.getValue(), rsi.getValue(),
+                macd.getValue(), macd.getSignal(), macd.getHistogram(),
+                bollinger.getUpper(), bollinger.getValue(), bollinger.getLower());
+    }
+
+    /**
+     * Immutable view of the indicator values after the latest bar.
+     * Values that are still warming up are NaN.
+     */
+    public static class Snapshot {
+        public final double price;
+        public final long bars;
+        public final double sma20;
+        public final double ema20;
+        public final double rsi14;
+        public final double macd;
+        public final double macdSignal;
+        public final double macdHistogram;
+        public final double bollingerUpper;
+        public final double bollingerMiddle;
+        public final double bollingerLower;
+
+        Snapshot(double price, long bars, double sma20, double ema20, double rsi14,
+                 double macd, double macdSignal, double macdHistogram,
+                 double bollingerUpper, double bollingerMiddle, double bollingerLower) {
+            this.price = price;
+            this.bars = bars;
+            this.sma20 = sma20;
+            this.ema20 = ema20;
+            this.rsi14 = rsi14;
+            this.macd = macd;
+            this.macdSignal = macdSignal;
+            this.macdHistogram = macdHistogram;
+            this.bollingerUpper = bollingerUpper;
+            this.bollingerMiddle = bollingerMiddle;
+            this.bollingerLower = bollingerLower;
+        }
+
+        public boolean isOverbought() {
+            return rsi14 >= 70;
+        }
+
+        public boolean isOversold() {
+            return rsi14 <= 30;
+        }
+
+        /**
+         * One line of the values for display, or null while RSI is still warming up
+         */
+        public String describe() {
+            if (Double.isNaN(rsi14)) return null;
+
+            String text = String.format(Locale.US, "RSI %.0f", rsi14);
+            if (isOverbought()) {
+                text += " (overbought)";
+            } else if (isOversold()) {
+                text += " (oversold)";
+            }
+            if (!Double.isNaN(sma20)) {
+                text += String.format(Locale.US, "  •  SMA 20 $%.2f", sma20);
+            }
+            if (!Double.isNaN(bollingerLower)) {
+                text += String.format(Locale.US, "  •  Bands $%.2f–$%.2f", bollingerLower, bollingerUpper);
+            }
+            return text;
+        }
+    }
+}
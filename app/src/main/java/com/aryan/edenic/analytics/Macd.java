@@ -0,0 +1,62 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Moving average convergence/divergence.
+ * The main value is the MACD line; the signal line and histogram are exposed separately.
+ */
+public class Macd implements Indicator {
+    private final ExponentialMovingAverage fast;
+    private final ExponentialMovingAverage slow;
+    private final ExponentialMovingAverage signal;
+    private double macd = Double.NaN;
+
+    public Macd() {
+        this(12, 26, 9);
+    }
+
+    public Macd(int fastPeriod, int slowPeriod, int signalPeriod) {
+        if (fastPeriod >= slowPeriod) {
+            throw new IllegalArgumentException("Fast period must be shorter than slow period");
+        }
+        this.fast = new ExponentialMovingAverage(fastPeriod);
+        this.slow = new ExponentialMovingAverage(slowPeriod);
+        this.signal = new ExponentialMovingAverage(signalPeriod);
+    }
+
+    @Override
+    public double update(double price) {
+        fast.update(price);
+        slow.update(price);
+        if (slow.isReady()) {
+            macd = fast.getValue() - slow.getValue();
+            signal.update(macd);
+        }
+        return macd;
+    }
+
+    @Override
+    public double getValue() {
+        return macd;
+    }
+
+    public double getSignal() {
+        return signal.getValue();
+    }
+
+    public double getHistogram() {
+        return signal.isReady() ? macd - signal.getValue() : Double.NaN;
+    }
+
+    @Override
+    public boolean isReady() {
+        return signal.isReady();
+    }
+
+    @Override
+    public void reset() {
+        fast.reset();
+        slow.reset();
+        signal.reset();
+        macd = Double.NaN;
+    }
+}
@@ -0,0 +1,234 @@
+package com.aryan.edenic.analytics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Projects portfolio value by simulating correlated geometric Brownian motion for each holding.
+ *
+ * Independent normals are correlated with the Cholesky factor of the correlation matrix.
+ * Paths are split into blocks on a fork/join pool, each block with its own
+ * {@link SplittableRandom} and scratch arrays, so the step loop never allocates.
+ */
+public class MonteCarloEngine {
+    private static final int TRADING_DAYS = 252;
+    private static final int PATHS_PER_TASK = 1024;
+
+    private final ForkJoinPool pool;
+
+    public MonteCarloEngine() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloEngine(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Run a simulation. Blocks while the parallel work runs, so call it off the main thread.
+     * @param values Current value of each holding
+     * @param meanReturn Annualized expected return of each holding
+     * @param volatility Annualized volatility of each holding
+     * @param correlation Row-major correlation matrix of the holdings
+     * @param paths Number of simulated paths
+     * @param steps Number of trading days to simulate
+     * @param stepsPerCheckpoint How often to record percentile bands, e.g. 21 for monthly
+     * @param seed Seed for reproducible runs
+     */
+    public MonteCarloResult simulate(double[] values, double[] meanReturn, double[] volatility,
+                                     double[] correlation, int paths, int steps,
+                                     int stepsPerCheckpoint, long seed) {
+        int n = values.length;
+        double[] cholesky = cholesky(correlation, n);
+
+        // Per-step log drift and diffusion for each holding
+        double dt = 1.0 / TRADING_DAYS;
+        double[] drift = new double[n];
+        double[] diffusion = new double[n];
+        double[] logValues = new double[n];
+        double initialValue = 0;
+        for (int i = 0; i < n; i++) {
+            logValues[i] = Math.log(values[i]);
+            drift[i] = (meanReturn[i] - 0.5 * volatility[i] * volatility[i]) * dt;
+            diffusion[i] = volatility[i] * Math.sqrt(dt);
+            initialValue += values[i];
+        }
+
+        int checkpoints = steps / stepsPerCheckpoint;
+        // Checkpoint-major so each checkpoint's values are contiguous for sorting
+        double[] outcomes = new double[checkpoints * paths];
+
+        pool.invoke(new PathTask(new Simulation(logValues, drift, diffusion, cholesky, n, steps,
+                stepsPerCheckpoint, checkpoints, paths, outcomes), 0, paths, new SplittableRandom(seed)));
+
+        double[] bands = new double[checkpoints * MonteCarloResult.PERCENTILES.length];
+        for (int c = 0; c < checkpoints; c++) {
+            int offset = c * paths;
+            Arrays.sort(outcomes, offset, offset + paths);
+            for (int p = 0; p < MonteCarloResult.PERCENTILES.length; p++) {
+                int index = (int) Math.round(MonteCarloResult.PERCENTILES[p] / 100 * (paths - 1));
+                bands[c * MonteCarloResult.PERCENTILES.length + p] = outcomes[offset + index];
+            }
+        }
+
+        return new MonteCarloResult(paths, stepsPerCheckpoint, initialValue, bands);
+    }
+
+    /**
+     * Lower-triangular Cholesky factor of a correlation matrix. Adds a small ridge to the
+     * diagonal if estimation noise made the matrix not positive definite.
+     */
+    static double[] cholesky(double[] matrix, int n) {
+        for (double ridge = 0; ridge < 1; ridge = ridge == 0 ? 1e-10 : ridge * 10) {
+            double[] lower = new double[n * n];
+            boolean positiveDefinite = true;
+
+            for (int i = 0; i < n && positiveDefinite; i++) {
+                for (int j = 0; j <= i; j++) {
+                    double sum = matrix[i * n + j] + (i == j ? ridge : 0);
+                    for (int k = 0; k < j; k++) {
+                        sum -= lower[i * n + k] * lower[j * n + k];
+                    }
+                    if (i == j) {
+                        if (sum <= 0) {
+                            positiveDefinite = false;
+                            break;
+                        }
+                        lower[i * n + i] = Math.sqrt(sum);
+                    } else {
+                        lower[i * n + j] = sum / lower[j * n + j];
+                    }
+                }
+            }
+
+            if (positiveDefinite) {
+                return lower;
+            }
+        }
+
+        // Give up on correlation and treat holdings as independent
+        double[] identity = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            identity[i * n + i] = 1;
+        }
+        return identity;
+    }
+
+    /**
+     * Read-only inputs shared by all path tasks
+     */
+    private static class Simulation {
+        final double[] logInitial;
+        final double[] drift;
+        final double[] diffusion;
+        final double[] cholesky;
+        final int n;
+        final int steps;
+        final int stepsPerCheckpoint;
+        final int checkpoints;
+        final int paths;
+        final double[] outcomes;
+
+        Simulation(double[] logInitial, double[] drift, double[] diffusion, double[] cholesky, int n,
+                   int steps, int stepsPerCheckpoint, int checkpoints, int paths, double[] outcomes) {
+            this.logInitial = logInitial;
+            this.drift = drift;
+            this.diffusion = diffusion;
+            this.cholesky = cholesky;
+            this.n = n;
+            this.steps = steps;
+            this.stepsPerCheckpoint = stepsPerCheckpoint;
+            this.checkpoints = checkpoints;
+            this.paths = paths;
+            this.outcomes = outcomes;
+        }
+    }
+
+    /**
+     * Simulates a range of paths, splitting the range and the random stream until the
+     * block is small enough
+     */
+    private static class PathTask extends RecursiveAction {
+        private final Simulation sim;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        // Spare normal from the polar method
+        private boolean hasSpare = false;
+        private double spare;
+
+        PathTask(Simulation sim, int from, int to, SplittableRandom random) {
+            this.sim = sim;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PATHS_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new PathTask(sim, from, middle, random.split()),
+                        new PathTask(sim, middle, to, random.split()));
+                return;
+            }
+
+            int n = sim.n;
+            double[] shocks = new double[n];
+            double[] logValues = new double[n];
+            double[] cholesky = sim.cholesky;
+
+            for (int path = from; path < to; path++) {
+                System.arraycopy(sim.logInitial, 0, logValues, 0, n);
+
+                int checkpoint = 0;
+                for (int step = 1; step <= sim.steps; step++) {
+                    for (int i = 0; i < n; i++) {
+                        shocks[i] = nextGaussian();
+                    }
+                    // Correlate: row i of L times the independent shocks (L is lower-triangular)
+                    for (int i = 0; i < n; i++) {
+                        int row = i * n;
+                        double correlated = 0;
+                        for (int k = 0; k <= i; k++) {
+                            correlated += cholesky[row + k] * shocks[k];
+                        }
+                        logValues[i] += sim.drift[i] + sim.diffusion[i] * correlated;
+                    }
+
+                    if (step % sim.stepsPerCheckpoint == 0 && checkpoint < sim.checkpoints) {
+                        double total = 0;
+                        for (int i = 0; i < n; i++) {
+                            total += Math.exp(logValues[i]);
+                        }
+                        sim.outcomes[checkpoint * sim.paths + path] = total;
+                        checkpoint++;
+                    }
+                }
+            }
+        }
+
+        // Marsaglia polar method; SplittableRandom has no nextGaussian on older Android versions
+        private double nextGaussian() {
+            if (hasSpare) {
+                hasSpare = false;
+                return spare;
+            }
+            double u;
+            double v;
+            double s;
+            do {
+                u = random.nextDouble() * 2 - 1;
+                v = random.nextDouble() * 2 - 1;
+                s = u * u + v * v;
+            } while (s >= 1 || s == 0);
+            double scale = Math.sqrt(-2 * Math.log(s) / s);
+            spare = v * scale;
+            hasSpare = true;
+            return u * scale;
+        }
+    }
+}
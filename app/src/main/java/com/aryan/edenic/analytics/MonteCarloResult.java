@@ -0,0 +1,38 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Percentile bands of simulated portfolio value at evenly spaced checkpoints
+ */
+public class MonteCarloResult {
+    public static final double[] PERCENTILES = {5, 25, 50, 75, 95};
+
+    public final int paths;
+    public final int stepsPerCheckpoint;
+    public final double initialValue;
+
+    // Row-major checkpoints x PERCENTILES.length
+    private final double[] bands;
+
+    MonteCarloResult(int paths, int stepsPerCheckpoint, double initialValue, double[] bands) {
+        this.paths = paths;
+        this.stepsPerCheckpoint = stepsPerCheckpoint;
+        this.initialValue = initialValue;
+        this.bands = bands;
+    }
+
+    public int getCheckpointCount() {
+        return bands.length / PERCENTILES.length;
+    }
+
+    /**
+     * @param checkpoint 0 for the first checkpoint after the start
+     * @param percentileIndex Index into {@link #PERCENTILES}
+     */
+    public double getValue(int checkpoint, int percentileIndex) {
+        return bands[checkpoint * PERCENTILES.length + percentileIndex];
+    }
+
+    public double getMedian(int checkpoint) {
+        return getValue(checkpoint, 2);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Relative strength index using Wilder's smoothing of average gains and losses.
+ * Values range from 0 to 100.
+ */
+public class RelativeStrengthIndex implements Indicator {
+    private final int period;
+    private double previousPrice = Double.NaN;
+    private double avgGain = 0;
+    private double avgLoss = 0;
+    private int changes = 0;
+
+    public RelativeStrengthIndex(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        this.period = period;
+    }
+
+    @Override
+    public double update(double price) {
+        if (Double.isNaN(previousPrice)) {
+            previousPrice = price;
+            return Double.NaN;
+        }
+
+        double change = price - previousPrice;
+        double gain = change > 0 ? change : 0;
+        double loss = change < 0 ? -change : 0;
+        previousPrice = price;
+
+        if (changes < period) {
+            // First averages are plain means of the opening window
+            avgGain += gain / period;
+            avgLoss += loss / period;
+            changes++;
+        } else {
+            avgGain = (avgGain * (period - 1) + gain) / period;
+            avgLoss = (avgLoss * (period - 1) + loss) / period;
+        }
+        return getValue();
+    }
+
+    @Override
+    public double getValue() {
+        if (!isReady()) return Double.NaN;
+        if (avgLoss == 0) {
+            return avgGain == 0 ? 50 : 100;
+        }
+        double relativeStrength = avgGain / avgLoss;
+        return 100 - 100 / (1 + relativeStrength);
+    }
+
+    @Override
+    public boolean isReady() {
+        return changes >= period;
+    }
+
+    @Override
+    public void reset() {
+        previousPrice = Double.NaN;
+        avgGain = 0;
+        avgLoss = 0;
+        changes = 0;
+    }
+
+    public int getPeriod() { return period; }
+}
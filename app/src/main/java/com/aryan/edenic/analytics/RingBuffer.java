@@ -0,0 +1,82 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Fixed-capacity ring of primitive doubles.
+ * Once full, each add overwrites the oldest value and hands it back so callers
+ * can adjust running totals without re-scanning the window.
+ */
+public class RingBuffer {
+    private final double[] values;
+    private int head = 0; // Index of the next write
+    private int size = 0;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.values = new double[capacity];
+    }
+
+    /**
+     * Add a value to the ring
+     * @return The evicted oldest value, or NaN if the ring was not yet full
+     */
+    public double add(double value) {
+        double evicted = Double.NaN;
+        if (size == values.length) {
+            evicted = values[head];
+        } else {
+            size++;
+        }
+        values[head] = value;
+        head = (head + 1) % values.length;
+        return evicted;
+    }
+
+    /**
+     * Get a value by age
+     * @param index 0 for the oldest value, size() - 1 for the newest
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of " + size);
+        }
+        int start = (head - size + values.length) % values.length;
+        return values[(start + index) % values.length];
+    }
+
+    /**
+     * Sum of the values, added up from scratch
+     */
+    public double sum() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[i];
+        }
+        return total;
+    }
+
+    /**
+     * Sum of the squared values, added up from scratch
+     */
+    public double sumOfSquares() {
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += values[i] * values[i];
+        }
+        return total;
+    }
+
+    public double newest() {
+        return get(size - 1);
+    }
+
+    public int size() { return size; }
+    public int capacity() { return values.length; }
+    public boolean isFull() { return size == values.length; }
+
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+}
@@ -0,0 +1,289 @@
+package com.aryan.edenic.analytics;
+
+import com.aryan.edenic.market.PriceSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Computes volatility, beta, Sharpe ratio, historical VaR and the correlation matrix for a
+ * set of holdings from their daily closes.
+ *
+ * Return series are aligned to common trading days and stored as one flat row-major array.
+ * Each row is standardized once, so a correlation is just a dot product of two contiguous
+ * rows. The matrix is split into tiles of rows and computed in parallel on a fork/join pool.
+ */
+public class RiskEngine {
+    private static final int TRADING_DAYS = 252;
+    private static final int MIN_OBSERVATIONS = 20;
+    private static final int TILE = 8; // Rows per tile; a tile pair is one leaf task
+    private static final long SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final ForkJoinPool pool;
+    private final double riskFreeRate;
+
+    public RiskEngine() {
+        this(ForkJoinPool.commonPool(), 0.04);
+    }
+
+    public RiskEngine(ForkJoinPool pool, double riskFreeRate) {
+        this.pool = pool;
+        this.riskFreeRate = riskFreeRate;
+    }
+
+    /**
+     * Analyze a portfolio. Blocks while the parallel work runs, so call it off the main thread.
+     * @param history Daily closes for each holding and the benchmark
+     * @param positionValues Current value held per symbol, used as weights
+     * @param benchmark Symbol of the index used for beta, e.g. ^GSPC
+     * @return The report, or null if there is not enough overlapping history
+     */
+    public RiskReport analyze(Map<String, PriceSeries> history, Map<String, Double> positionValues,
+                              String benchmark) {
+        List<String> symbols = new ArrayList<>();
+        double totalValue = 0;
+        for (Map.Entry<String, Double> position : positionValues.entrySet()) {
+            if (history.containsKey(position.getKey()) && position.getValue() > 0) {
+                symbols.add(position.getKey());
+                totalValue += position.getValue();
+            }
+        }
+        PriceSeries benchmarkSeries = history.get(benchmark);
+        if (symbols.isEmpty() || benchmarkSeries == null) {
+            return null;
+        }
+
+        // The benchmark goes in the last row so its correlations come for free
+        int n = symbols.size();
+        PriceSeries[] rows = new PriceSeries[n + 1];
+        for (int i = 0; i < n; i++) {
+            rows[i] = history.get(symbols.get(i));
+        }
+        rows[n] = benchmarkSeries;
+
+        long[] days = commonDays(rows);
+        int t = days.length - 1; // Number of returns
+        if (t < MIN_OBSERVATIONS) {
+            return null;
+        }
+
+        int rowCount = n + 1;
+        double[] returns = new double[rowCount * t];
+        for (int i = 0; i < rowCount; i++) {
+            fillReturns(rows[i], days, returns, i * t);
+        }
+
+        // Standardize rows: z = (r - mean) / (sd * sqrt(t - 1)), so corr(i, j) = dot(z_i, z_j)
+        double[] standardized = new double[rowCount * t];
+        double[] stdDev = new double[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            stdDev[i] = standardize(returns, standardized, i * t, t);
+        }
+
+        double[] fullCorrelation = new double[rowCount * rowCount];
+        pool.invoke(new CorrelationTask(standardized, fullCorrelation, rowCount, t,
+                tilePairs((rowCount + TILE - 1) / TILE), 0, -1));
+
+        // Per-symbol stats
+        double[] meanReturn = new double[n];
+        double[] volatility = new double[n];
+        double[] beta = new double[n];
+        double[] weights = new double[n];
+        double benchmarkStdDev = stdDev[n];
+        for (int i = 0; i < n; i++) {
+            meanReturn[i] = mean(returns, i * t, t) * TRADING_DAYS;
+            volatility[i] = stdDev[i] * Math.sqrt(TRADING_DAYS);
+            beta[i] = benchmarkStdDev > 0 ? fullCorrelation[i * rowCount + n] * stdDev[i] / benchmarkStdDev : 0;
+            weights[i] = positionValues.get(symbols.get(i)) / totalValue;
+        }
+
+        // Portfolio return series from the weighted rows
+        double[] portfolioReturns = new double[t];
+        double portfolioBeta = 0;
+        for (int i = 0; i < n; i++) {
+            int offset = i * t;
+            double weight = weights[i];
+            for (int k = 0; k < t; k++) {
+                portfolioReturns[k] += weight * returns[offset + k];
+            }
+            portfolioBeta += weight * beta[i];
+        }
+
+        double mean = mean(portfolioReturns, 0, t);
+        double dailyStdDev = sampleStdDev(portfolioReturns, 0, t, mean);
+        double portfolioVolatility = dailyStdDev * Math.sqrt(TRADING_DAYS);
+        double sharpe = portfolioVolatility > 0 ?
+                (mean * TRADING_DAYS - riskFreeRate) / portfolioVolatility : 0;
+
+        // Historical VaR: the 5th percentile daily return applied to today's value
+        double[] sorted = Arrays.copyOf(portfolioReturns, t);
+        Arrays.sort(sorted);
+        double fifthPercentile = sorted[(int) Math.floor(0.05 * (t - 1))];
+        double valueAtRisk = Math.max(0, -fifthPercentile) * totalValue;
+
+        // Drop the benchmark row and column from the published matrix
+        double[] correlation = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(fullCorrelation, i * rowCount, correlation, i * n, n);
+        }
+
+        return new RiskReport(symbols.toArray(new String[0]), t, meanReturn, volatility, beta, correlation,
+                portfolioVolatility, portfolioBeta, sharpe, valueAtRisk);
+    }
+
+    // Days (epoch day numbers) on which every series has a close
+    private static long[] commonDays(PriceSeries[] rows) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (PriceSeries series : rows) {
+            long previous = Long.MIN_VALUE;
+            for (long timestamp : series.getTimestamps()) {
+                long day = Math.floorDiv(timestamp, SECONDS_PER_DAY);
+                if (day != previous) {
+                    counts.merge(day, 1, Integer::sum);
+                    previous = day;
+                }
+            }
+        }
+
+        long[] days = new long[counts.size()];
+        int count = 0;
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            if (entry.getValue() == rows.length) {
+                days[count++] = entry.getKey();
+            }
+        }
+        days = Arrays.copyOf(days, count);
+        Arrays.sort(days);
+        return days;
+    }
+
+    // Write simple returns for the given days into out[offset .. offset + days.length - 2]
+    private static void fillReturns(PriceSeries series, long[] days, double[] out, int offset) {
+        long[] timestamps = series.getTimestamps();
+        double[] closes = series.getCloses();
+        int cursor = 0;
+        double previous = Double.NaN;
+        for (int d = 0; d < days.length; d++) {
+            // Both are sorted, so one forward pass finds every day; take the last close of the day
+            while (cursor + 1 < timestamps.length &&
+                    Math.floorDiv(timestamps[cursor + 1], SECONDS_PER_DAY) <= days[d]) {
+                cursor++;
+            }
+            while (Math.floorDiv(timestamps[cursor], SECONDS_PER_DAY) < days[d]) {
+                cursor++;
+            }
+            double close = closes[cursor];
+            if (d > 0) {
+                out[offset + d - 1] = close / previous - 1;
+            }
+            previous = close;
+        }
+    }
+
+    /**
+     * @return The sample standard deviation of the row
+     */
+    private static double standardize(double[] in, double[] out, int offset, int length) {
+        double mean = mean(in, offset, length);
+        double stdDev = sampleStdDev(in, offset, length, mean);
+        double scale = stdDev > 0 ? 1 / (stdDev * Math.sqrt(length - 1)) : 0;
+        for (int k = 0; k < length; k++) {
+            out[offset + k] = (in[offset + k] - mean) * scale;
+        }
+        return stdDev;
+    }
+
+    private static double mean(double[] values, int offset, int length) {
+        double sum = 0;
+        for (int k = 0; k < length; k++) {
+            sum += values[offset + k];
+        }
+        return sum / length;
+    }
+
+    private static double sampleStdDev(double[] values, int offset, int length, double mean) {
+        double sum = 0;
+        for (int k = 0; k < length; k++) {
+            double diff = values[offset + k] - mean;
+            sum += diff * diff;
+        }
+        return Math.sqrt(sum / (length - 1));
+    }
+
+    // Upper-triangle tile pairs (bi <= bj), packed as bi * tiles + bj
+    private static int[] tilePairs(int tiles) {
+        int[] pairs = new int[tiles * (tiles + 1) / 2];
+        int count = 0;
+        for (int bi = 0; bi < tiles; bi++) {
+            for (int bj = bi; bj < tiles; bj++) {
+                pairs[count++] = bi * tiles + bj;
+            }
+        }
+        return pairs;
+    }
+
+    /**
+     * Computes a range of tile pairs of the correlation matrix, splitting in half until
+     * one tile pair is left
+     */
+    private static class CorrelationTask extends RecursiveAction {
+        private final double[] z;
+        private final double[] result;
+        private final int n;
+        private final int length;
+        private final int[] pairs;
+        private final int from;
+        private final int to;
+
+        CorrelationTask(double[] z, double[] result, int n, int length, int[] pairs, int from, int to) {
+            this.z = z;
+            this.result = result;
+            this.n = n;
+            this.length = length;
+            this.pairs = pairs;
+            this.from = from;
+            this.to = to < 0 ? pairs.length : to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    computeTile(pairs[from]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CorrelationTask(z, result, n, length, pairs, from, middle),
+                    new CorrelationTask(z, result, n, length, pairs, middle, to));
+        }
+
+        private void computeTile(int packed) {
+            int tiles = (n + TILE - 1) / TILE;
+            int bi = packed / tiles;
+            int bj = packed % tiles;
+            int iEnd = Math.min(n, (bi + 1) * TILE);
+            int jEnd = Math.min(n, (bj + 1) * TILE);
+
+            for (int i = bi * TILE; i < iEnd; i++) {
+                int rowI = i * length;
+                // Skip the lower triangle inside diagonal tiles
+                for (int j = Math.max(i, bj * TILE); j < jEnd; j++) {
+                    int rowJ = j * length;
+                    double dot = 0;
+                    for (int k = 0; k < length; k++) {
+                        dot += z[rowI + k] * z[rowJ + k];
+                    }
+                    double value = i == j ? 1 : Math.max(-1, Math.min(1, dot));
+                    result[i * n + j] = value;
+                    result[j * n + i] = value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Result of a {@link RiskEngine} run. Per-symbol arrays follow the order of {@link #symbols}.
+ */
+public class RiskReport {
+    public final String[] symbols;
+    public final int observations;
+
+    // Per symbol, annualized
+    public final double[] meanReturn;
+    public final double[] volatility;
+    public final double[] beta;
+
+    // Row-major symbols.length x symbols.length matrix
+    public final double[] correlation;
+
+    // Whole portfolio, weighted by position value
+    public final double portfolioVolatility;
+    public final double portfolioBeta;
+    public final double sharpeRatio;
+    public final double valueAtRisk95; // One-day historical VaR as a positive dollar amount
+
+    RiskReport(String[] symbols, int observations, double[] meanReturn, double[] volatility, double[] beta,
+               double[] correlation, double portfolioVolatility, double portfolioBeta,
+               double sharpeRatio, double valueAtRisk95) {
+        this.symbols = symbols;
+        this.observations = observations;
+        this.meanReturn = meanReturn;
+        this.volatility = volatility;
+        this.beta = beta;
+        this.correlation = correlation;
+        this.portfolioVolatility = portfolioVolatility;
+        this.portfolioBeta = portfolioBeta;
+        this.sharpeRatio = sharpeRatio;
+        this.valueAtRisk95 = valueAtRisk95;
+    }
+
+    public double getCorrelation(int i, int j) {
+        return correlation[i * symbols.length + j];
+    }
+
+    /**
+     * @return Indexes of the most correlated pair of different symbols, or null with fewer than two
+     */
+    public int[] mostCorrelatedPair() {
+        int n = symbols.length;
+        int[] best = null;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (correlation[i * n + j] > bestValue) {
+                    bestValue = correlation[i * n + j];
+                    best = new int[]{i, j};
+                }
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,51 @@
+package com.aryan.edenic.analytics;
+
+/**
+ * Simple moving average over the last {@code period} prices, kept as a running sum.
+ * The sum is re-added from the window once per period, so floating-point drift can't build
+ * up over a long feed while updates stay O(1) amortized.
+ */
+public class SimpleMovingAverage implements Indicator {
+    private final int period;
+    private final RingBuffer window;
+    private double sum = 0;
+    private int sinceRebase = 0;
+
+    public SimpleMovingAverage(int period) {
+        this.period = period;
+        this.window = new RingBuffer(period);
+    }
+
+    @Override
+    public double update(double price) {
+        double evicted = window.add(price);
+        sum += price;
+        if (!Double.isNaN(evicted)) {
+            sum -= evicted;
+            if (++sinceRebase >= period) {
+                sum = window.sum();
+                sinceRebase = 0;
+            }
+        }
+        return getValue();
+    }
+
+    @Override
+    public double getValue() {
+        return window.isFull() ? sum / period : Double.NaN;
+    }
+
+    @Override
+    public boolean isReady() {
+        return window.isFull();
+    }
+
+    @Override
+    public void reset() {
+        window.clear();
+        sum = 0;
+        sinceRebase = 0;
+    }
+
+    public int getPeriod() { return period; }
+}
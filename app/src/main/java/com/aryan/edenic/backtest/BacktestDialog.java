@@ -0,0 +1,71 @@
+package com.aryan.edenic.backtest;
+
+import android.app.Activity;
+import android.app.AlertDialog;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.market.PriceHistoryStore;
+import com.aryan.edenic.market.PriceSeries;
+import com.aryan.edenic.models.Stock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Dialog that backtests the sample strategies on a stock's cached daily history
+ */
+public class BacktestDialog {
+    private static final double INITIAL_CASH = 10000;
+    private static final int TRADING_DAYS = 252;
+
+    private BacktestDialog() {}
+
+    public static void show(Activity activity, Stock stock) {
+        AlertDialog dialog = new AlertDialog.Builder(activity, R.style.CustomDialogTheme)
+                .setTitle("Backtest " + stock.getSymbol())
+                .setMessage("Loading price history...")
+                .setPositiveButton("Close", null)
+                .create();
+        dialog.show();
+
+        // Refreshed history if it's stale and the network is up, otherwise whatever is cached
+        PriceHistoryStore.getInstance(activity).load(Collections.singleton(stock.getSymbol()), history -> {
+            PriceSeries series = history.get(stock.getSymbol());
+            if (series == null) {
+                dialog.setMessage("No price history for " + stock.getSymbol() + " yet");
+                return;
+            }
+            dialog.setMessage("Running...");
+
+            List<Strategy.Factory> strategies = Arrays.asList(
+                    SmaCrossStrategy.factory(50, 200),
+                    RsiReversionStrategy.factory(14, 30, 70));
+            Map<String, PriceSeries> input = Collections.singletonMap(stock.getSymbol(), series);
+            ForkJoinPool.commonPool().execute(() -> {
+                List<BacktestResult> results = new Backtester(INITIAL_CASH).runAll(strategies, input);
+                activity.runOnUiThread(() -> {
+                    if (!activity.isFinishing() && dialog.isShowing()) {
+                        dialog.setMessage(describe(series, results));
+                    }
+                });
+            });
+        });
+    }
+
+    private static String describe(PriceSeries series, List<BacktestResult> results) {
+        StringBuilder text = new StringBuilder(String.format(Locale.US,
+                "%.1f years of daily closes, $%,.0f starting cash\n",
+                series.size() / (double) TRADING_DAYS, INITIAL_CASH));
+        for (BacktestResult result : results) {
+            text.append(String.format(Locale.US,
+                    "\n%s: %+.1f%% (%+.1f%%/yr)\nMax drawdown %.1f%%  •  Sharpe %.2f\n%d trades, %.0f%% winning sells\n",
+                    result.strategy, result.totalReturn * 100, result.annualizedReturn * 100,
+                    result.maxDrawdown * 100, result.sharpeRatio, result.trades, result.winRate * 100));
+        }
+        return text.toString().trim();
+    }
+}
@@ -0,0 +1,30 @@
+package com.aryan.edenic.backtest;
+
+/**
+ * Outcome of one strategy on one symbol
+ */
+public class BacktestResult {
+    public final String strategy;
+    public final String symbol;
+    public final double[] equity; // Account value after each bar
+    public final double totalReturn;
+    public final double annualizedReturn;
+    public final double maxDrawdown; // Largest peak-to-trough drop, as a fraction
+    public final double sharpeRatio;
+    public final int trades;
+    public final double winRate; // Share of sells above the average cost
+
+    BacktestResult(String strategy, String symbol, double[] equity, double totalReturn,
+                   double annualizedReturn, double maxDrawdown, double sharpeRatio,
+                   int trades, double winRate) {
+        this.strategy = strategy;
+        this.symbol = symbol;
+        this.equity = equity;
+        this.totalReturn = totalReturn;
+        this.annualizedReturn = annualizedReturn;
+        this.maxDrawdown = maxDrawdown;
+        this.sharpeRatio = sharpeRatio;
+        this.trades = trades;
+        this.winRate = winRate;
+    }
+}
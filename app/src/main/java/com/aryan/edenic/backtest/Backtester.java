@@ -0,0 +1,107 @@
+package com.aryan.edenic.backtest;
+
+import com.aryan.edenic.market.PriceSeries;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Replays daily closes through strategies. Every strategy/symbol pair is an independent run,
+ * and runs execute in parallel. Works on any history, including what
+ * {@link com.aryan.edenic.market.PriceHistoryStore#loadCached} returns offline.
+ */
+public class Backtester {
+    private static final int TRADING_DAYS = 252;
+
+    private final ForkJoinPool pool;
+    private final double initialCash;
+
+    public Backtester(double initialCash) {
+        this(ForkJoinPool.commonPool(), initialCash);
+    }
+
+    public Backtester(ForkJoinPool pool, double initialCash) {
+        this.pool = pool;
+        this.initialCash = initialCash;
+    }
+
+    /**
+     * Run every strategy on every symbol. Blocks until done, so call it off the main thread.
+     * @return One result per strategy and symbol, in strategy-major order
+     */
+    public List<BacktestResult> runAll(List<Strategy.Factory> strategies, Map<String, PriceSeries> history) {
+        List<Callable<BacktestResult>> runs = new ArrayList<>();
+        for (Strategy.Factory factory : strategies) {
+            for (PriceSeries series : history.values()) {
+                runs.add(() -> run(factory.create(), series));
+            }
+        }
+
+        List<BacktestResult> results = new ArrayList<>(runs.size());
+        for (Future<BacktestResult> future : pool.invokeAll(runs)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Backtest failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run one strategy on one symbol
+     */
+    public BacktestResult run(Strategy strategy, PriceSeries series) {
+        double[] closes = series.getCloses();
+        SimulatedBroker broker = new SimulatedBroker(series.getSymbol(), initialCash);
+        double[] equity = new double[closes.length];
+
+        double peak = initialCash;
+        double maxDrawdown = 0;
+        for (int i = 0; i < closes.length; i++) {
+            broker.markToMarket(closes[i]);
+            strategy.onBar(i, closes[i], broker);
+
+            equity[i] = broker.getEquity();
+            if (equity[i] > peak) {
+                peak = equity[i];
+            } else if (peak > 0) {
+                maxDrawdown = Math.max(maxDrawdown, (peak - equity[i]) / peak);
+            }
+        }
+
+        double finalEquity = closes.length > 0 ? equity[closes.length - 1] : initialCash;
+        double totalReturn = finalEquity / initialCash - 1;
+        double years = closes.length / (double) TRADING_DAYS;
+        double annualizedReturn = years > 0 ? Math.pow(finalEquity / initialCash, 1 / years) - 1 : 0;
+
+        return new BacktestResult(strategy.getName(), series.getSymbol(), equity, totalReturn,
+                annualizedReturn, maxDrawdown, sharpe(equity), broker.getTrades(),
+                broker.getSells() > 0 ? broker.getWinningSells() / (double) broker.getSells() : 0);
+    }
+
+    // Annualized Sharpe ratio of daily equity returns, with no risk-free rate
+    private static double sharpe(double[] equity) {
+        int count = equity.length - 1;
+        if (count < 2) return 0;
+
+        double sum = 0;
+        double sumOfSquares = 0;
+        for (int i = 1; i < equity.length; i++) {
+            double r = equity[i] / equity[i - 1] - 1;
+            sum += r;
+            sumOfSquares += r * r;
+        }
+        double mean = sum / count;
+        double variance = (sumOfSquares - count * mean * mean) / (count - 1);
+        return variance > 0 ? mean / Math.sqrt(variance) * Math.sqrt(TRADING_DAYS) : 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.aryan.edenic.backtest;
+
+import com.aryan.edenic.analytics.RelativeStrengthIndex;
+
+/**
+ * Buys when RSI drops below the oversold level and sells once it rises above the overbought level
+ */
+public class RsiReversionStrategy implements Strategy {
+    private final RelativeStrengthIndex rsi;
+    private final double oversold;
+    private final double overbought;
+
+    public RsiReversionStrategy(int period, double oversold, double overbought) {
+        this.rsi = new RelativeStrengthIndex(period);
+        this.oversold = oversold;
+        this.overbought = overbought;
+    }
+
+    public static Strategy.Factory factory(int period, double oversold, double overbought) {
+        return () -> new RsiReversionStrategy(period, oversold, overbought);
+    }
+
+    @Override
+    public String getName() {
+        return "RSI " + rsi.getPeriod();
+    }
+
+    @Override
+    public void onBar(int index, double close, SimulatedBroker broker) {
+        double value = rsi.update(close);
+        if (Double.isNaN(value)) return;
+
+        if (value < oversold && broker.getQuantity() == 0) {
+            broker.buyAll();
+        } else if (value > overbought && broker.getQuantity() > 0) {
+            broker.sellAll();
+        }
+    }
+}
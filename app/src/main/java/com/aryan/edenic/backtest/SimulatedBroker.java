@@ -0,0 +1,96 @@
+package com.aryan.edenic.backtest;
+
+import com.aryan.edenic.models.PortfolioItem;
+
+/**
+ * Cash and a single-symbol position for one backtest run.
+ * Fills use the same {@link PortfolioItem} accounting as real trades.
+ */
+public class SimulatedBroker {
+    private final String symbol;
+    private double cash;
+    private double price;
+    private PortfolioItem position;
+
+    // Trade statistics
+    private int trades = 0;
+    private int winningSells = 0;
+    private int sells = 0;
+
+    SimulatedBroker(String symbol, double initialCash) {
+        this.symbol = symbol;
+        this.cash = initialCash;
+    }
+
+    void markToMarket(double close) {
+        price = close;
+        if (position != null) {
+            position.updatePrice(close);
+        }
+    }
+
+    /**
+     * Buy at the current close
+     * @return False if there isn't enough cash
+     */
+    public boolean buy(int quantity) {
+        double cost = quantity * price;
+        if (quantity <= 0 || cost > cash) {
+            return false;
+        }
+
+        if (position == null) {
+            position = new PortfolioItem(symbol, symbol, price, quantity, cost);
+        } else {
+            position.addShares(quantity, cost);
+        }
+        cash -= cost;
+        trades++;
+        return true;
+    }
+
+    /**
+     * Sell at the current close
+     * @return False if the position is smaller than the quantity
+     */
+    public boolean sell(int quantity) {
+        if (quantity <= 0 || position == null || quantity > position.getQuantity()) {
+            return false;
+        }
+
+        if (price > position.getAvgPurchasePrice()) {
+            winningSells++;
+        }
+        position.removeShares(quantity);
+        cash += quantity * price;
+        trades++;
+        sells++;
+        return true;
+    }
+
+    /**
+     * Buy as many shares as the cash allows
+     */
+    public boolean buyAll() {
+        return price > 0 && buy((int) Math.floor(cash / price));
+    }
+
+    public boolean sellAll() {
+        return sell(getQuantity());
+    }
+
+    public int getQuantity() {
+        return position != null ? position.getQuantity() : 0;
+    }
+
+    public double getCash() { return cash; }
+    public double getPrice() { return price; }
+
+    public double getEquity() {
+        return cash + (position != null ? position.getCurrentValue() : 0);
+    }
+
+    int getTrades() { return trades; }
+    int getSells() { return sells; }
+    int getWinningSells() { return winningSells; }
+}
@@ -0,0 +1,43 @@
+package com.aryan.edenic.backtest;
+
+import com.aryan.edenic.analytics.SimpleMovingAverage;
+
+/**
+ * Goes fully long when the fast average crosses above the slow one and exits on the opposite cross
+ */
+public class SmaCrossStrategy implements Strategy {
+    private final SimpleMovingAverage fast;
+    private final SimpleMovingAverage slow;
+    private double previousSpread = Double.NaN;
+
+    public SmaCrossStrategy(int fastPeriod, int slowPeriod) {
+        this.fast = new SimpleMovingAverage(fastPeriod);
+        this.slow = new SimpleMovingAverage(slowPeriod);
+    }
+
+    public static Strategy.Factory factory(int fastPeriod, int slowPeriod) {
+        return () -> new SmaCrossStrategy(fastPeriod, slowPeriod);
+    }
+
+    @Override
+    public String getName() {
+        return "SMA " + fast.getPeriod() + "/" + slow.getPeriod();
+    }
+
+    @Override
+    public void onBar(int index, double close, SimulatedBroker broker) {
+        fast.update(close);
+        slow.update(close);
+        if (!slow.isReady()) return;
+
+        double spread = fast.getValue() - slow.getValue();
+        if (!Double.isNaN(previousSpread)) {
+            if (previousSpread <= 0 && spread > 0 && broker.getQuantity() == 0) {
+                broker.buyAll();
+            } else if (previousSpread >= 0 && spread < 0 && broker.getQuantity() > 0) {
+                broker.sellAll();
+            }
+        }
+        previousSpread = spread;
+    }
+}
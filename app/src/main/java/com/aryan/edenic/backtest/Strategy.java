@@ -0,0 +1,22 @@
+package com.aryan.edenic.backtest;
+
+/**
+ * A trading strategy driven one daily bar at a time.
+ * A new instance is created for every backtest run, so implementations can keep state in fields.
+ */
+public interface Strategy {
+    String getName();
+
+    /**
+     * Called for each bar in order, after the broker has been marked to this bar's close.
+     * Orders placed here fill at the bar's close.
+     */
+    void onBar(int index, double close, SimulatedBroker broker);
+
+    /**
+     * Creates fresh strategy instances for parallel runs
+     */
+    interface Factory {
+        Strategy create();
+    }
+}
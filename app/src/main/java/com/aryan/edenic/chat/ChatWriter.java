@@ -0,0 +1,50 @@
+package com.aryan.edenic.chat;
+
+import com.aryan.edenic.models.ChatMessage;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sends chat messages. The message and both participants' contact metadata go out as one
+ * atomic multi-path write, so sending needs no read. Messages are stamped with the server's
+ * clock, not the device's, so the order that sync pages by is the same on every device.
+ * Sending also moves the sender's read watermark (see {@link ReadReceipts}) to the message,
+ * since they have seen the conversation up to it; the recipient's stays behind, which is
+ * what makes the conversation unread for them.
+ */
+public final class ChatWriter {
+
+    private ChatWriter() {}
+
+    /**
+     * Conversation id of two users: both ids in alphabetical order
+     */
+    public static String chatIdFor(String userId, String otherUserId) {
+        return userId.compareTo(otherUserId) < 0 ?
+                userId + "_" + otherUserId : otherUserId + "_" + userId;
+    }
+
+    public static Task<Void> send(String senderId, String recipientId, ChatMessage message) {
+        String chatId = chatIdFor(senderId, recipientId);
+        String senderContact = "chats/" + senderId + "/contacts/" + recipientId + "/";
+        String recipientContact = "chats/" + recipientId + "/contacts/" + senderId + "/";
+
+        Map<String, Object> values = message.toMap();
+        values.put("timestamp", ServerValue.TIMESTAMP);
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("messages/" + chatId + "/" + message.getMessageId(), values);
+        updates.put(senderContact + "lastMessage", message.getContent());
+        updates.put(senderContact + "lastMessageTime", ServerValue.TIMESTAMP);
+        updates.put(recipientContact + "lastMessage", message.getContent());
+        updates.put(recipientContact + "lastMessageTime", ServerValue.TIMESTAMP);
+        updates.put(senderContact + "lastReadTime", ServerValue.TIMESTAMP);
+        updates.put("chatReads/" + chatId + "/" + senderId, ServerValue.TIMESTAMP);
+
+        return FirebaseDatabase.getInstance().getReference().updateChildren(updates);
+    }
+}
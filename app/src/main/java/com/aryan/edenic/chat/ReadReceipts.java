@@ -0,0 +1,112 @@
+package com.aryan.edenic.chat;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Read state of a conversation as one watermark per participant, stored at
+ * {@code chatReads/{chatId}/{uid}}: the timestamp of the newest message that user has read.
+ * A message is read by the contact if it is not newer than the contact's watermark, so
+ * marking a whole conversation as read is a single write however many messages it has.
+ * The user's own watermark is mirrored to their contact entry as {@code lastReadTime}, and
+ * the chat list shows a conversation as unread while its {@code lastMessageTime} is newer.
+ */
+public class ReadReceipts {
+    private static final String TAG = "ReadReceipts";
+
+    public interface WatermarkListener {
+        void onContactReadChanged(long previousLastRead, long contactLastRead);
+    }
+
+    private final String chatId;
+    private final String userId;
+    private final String contactId;
+    private final DatabaseReference readsRef;
+
+    private ValueEventListener valueListener;
+    private boolean loaded = false;
+    private long myLastRead = 0;
+    private long contactLastRead = 0;
+    private long pendingRead = 0; // Marked before the watermarks loaded
+
+    public ReadReceipts(String chatId, String userId, String contactId) {
+        this.chatId = chatId;
+        this.userId = userId;
+        this.contactId = contactId;
+        this.readsRef = FirebaseDatabase.getInstance().getReference("chatReads").child(chatId);
+    }
+
+    /**
+     * Follow both participants' watermarks. The listener is called when the contact's changes.
+     */
+    public void start(WatermarkListener listener) {
+        if (valueListener != null) return;
+        valueListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Long mine = snapshot.child(userId).getValue(Long.class);
+                Long theirs = snapshot.child(contactId).getValue(Long.class);
+                myLastRead = Math.max(myLastRead, mine != null ? mine : 0);
+
+                long previous = contactLastRead;
+                contactLastRead = theirs != null ? theirs : 0;
+                if (contactLastRead != previous) {
+                    listener.onContactReadChanged(previous, contactLastRead);
+                }
+
+                if (!loaded) {
+                    loaded = true;
+                    if (pendingRead > 0) {
+                        markReadUpTo(pendingRead);
+                    }
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading read receipts", error.toException());
+            }
+        };
+        readsRef.addValueEventListener(valueListener);
+    }
+
+    public void stop() {
+        if (valueListener != null) {
+            readsRef.removeEventListener(valueListener);
+            valueListener = null;
+        }
+    }
+
+    /**
+     * Record that everything up to a message timestamp has been read. Writes only when the
+     * watermark moves forward; the watermark and its copy on the contact entry go out together.
+     */
+    public void markReadUpTo(long timestamp) {
+        if (!loaded) {
+            pendingRead = Math.max(pendingRead, timestamp);
+            return;
+        }
+        if (timestamp <= myLastRead) {
+            return;
+        }
+        myLastRead = timestamp;
+
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("chatReads/" + chatId + "/" + userId, timestamp);
+        String contactPath = "chats/" + userId + "/contacts/" + contactId;
+        updates.put(contactPath + "/lastReadTime", timestamp);
+        updates.put(contactPath + "/unreadCount", null); // Counter from before the watermark
+        FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                .addOnFailureListener(e -> Log.e(TAG, "Error updating read watermark", e));
+    }
+}
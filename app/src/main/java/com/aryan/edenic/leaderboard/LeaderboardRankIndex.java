@@ -0,0 +1,84 @@
+package com.aryan.edenic.leaderboard;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rank index for the leaderboard, so a user's position doesn't require downloading it.
+ *
+ * Portfolio values are grouped into logarithmic buckets 0.1% wide, and the number of users
+ * per bucket is kept as a Fenwick tree under {@code leaderboardRank/tree/{i}}, indexed from
+ * the highest bucket down (see {@link RankBuckets}). Each user's current bucket is kept at
+ * {@code leaderboardRank/members/{uid}}. A rank is the prefix sum over the buckets above
+ * theirs (O(log B) tiny reads) plus the users above them in their own bucket.
+ *
+ * The worker is the only writer: it rebuilds the counts from every user's value on each
+ * revaluation and writes the nodes that differ, so the index can't drift and users who never
+ * write again are still counted. A value a client wrote since the last revaluation is ranked
+ * against the index as of that revaluation until the next one.
+ */
+public final class LeaderboardRankIndex {
+    private static final String ROOT = "leaderboardRank";
+
+    public interface RankListener {
+        /** @param rank 1-based position, or -1 if the user isn't on the leaderboard */
+        void onRankLoaded(int rank);
+        void onError(Exception e);
+    }
+
+    private LeaderboardRankIndex() {}
+
+    /**
+     * Look up a user's leaderboard position
+     */
+    public static void loadRank(String userId, RankListener listener) {
+        DatabaseReference leaderboardRef = FirebaseDatabase.getInstance().getReference("leaderboard");
+        leaderboardRef.child(userId).child("portfolioValue").get()
+                .addOnSuccessListener(valueSnapshot -> {
+                    Double value = valueSnapshot.getValue(Double.class);
+                    if (value == null) {
+                        listener.onRankLoaded(-1);
+                        return;
+                    }
+                    int bucket = RankBuckets.bucketOf(value);
+
+                    // Users in higher buckets: Fenwick prefix sum over the indexes above ours
+                    List<Task<DataSnapshot>> nodes = new ArrayList<>();
+                    for (int i : RankBuckets.indexesAbove(bucket)) {
+                        nodes.add(rankRef().child("tree").child(String.valueOf(i)).get());
+                    }
+
+                    // Users above us in our own bucket
+                    Query inBucket = leaderboardRef.orderByChild("portfolioValue").startAfter(value);
+                    if (bucket < RankBuckets.BUCKET_COUNT - 1) {
+                        inBucket = inBucket.endBefore(RankBuckets.lowerBound(bucket + 1));
+                    }
+                    Task<DataSnapshot> sameBucket = inBucket.get();
+
+                    List<Task<?>> all = new ArrayList<>(nodes);
+                    all.add(sameBucket);
+                    Tasks.whenAllSuccess(all)
+                            .addOnSuccessListener(results -> {
+                                long above = sameBucket.getResult().getChildrenCount();
+                                for (Task<DataSnapshot> node : nodes) {
+                                    Long count = node.getResult().getValue(Long.class);
+                                    above += count != null ? count : 0;
+                                }
+                                listener.onRankLoaded((int) above + 1);
+                            })
+                            .addOnFailureListener(listener::onError);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    private static DatabaseReference rankRef() {
+        return FirebaseDatabase.getInstance().getReference(ROOT);
+    }
+}
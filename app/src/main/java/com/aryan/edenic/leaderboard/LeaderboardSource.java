@@ -0,0 +1,182 @@
+package com.aryan.edenic.leaderboard;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.local.ReadMetrics;
+import com.aryan.edenic.models.LeaderboardEntry;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * The one subscription to the top of the leaderboard, shared by every screen that shows it.
+ *
+ * Child events keep a sorted set up to date one entry at a time, and listeners receive
+ * an unmodifiable top-N list, published at most once per main-thread pass so a burst of
+ * changes costs one update. The Firebase listener is attached while anyone is listening.
+ * All methods must be called on the main thread.
+ */
+public class LeaderboardSource {
+    private static final String TAG = "LeaderboardSource";
+    public static final int TOP_N = 20;
+
+    private static LeaderboardSource instance;
+
+    public interface LeaderboardListener {
+        /** @param topEntries Highest portfolio value first; must not be modified */
+        void onLeaderboardChanged(List<LeaderboardEntry> topEntries);
+    }
+
+    // Highest value first, user id breaks ties so distinct users never compare equal
+    private static final Comparator<LeaderboardEntry> BY_VALUE = (a, b) -> {
+        int byValue = Double.compare(b.getPortfolioValue(), a.getPortfolioValue());
+        return byValue != 0 ? byValue : a.getUserId().compareTo(b.getUserId());
+    };
+
+    private final Query query = FirebaseDatabase.getInstance().getReference("leaderboard")
+            .orderByChild("portfolioValue").limitToLast(TOP_N);
+    private final TreeSet<LeaderboardEntry> ordered = new TreeSet<>(BY_VALUE);
+    private final Map<String, LeaderboardEntry> byUser = new HashMap<>();
+    private final List<LeaderboardListener> listeners = new ArrayList<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private ChildEventListener childListener;
+    private ReadMetrics.Timer firstEntry; // Until the first entry arrives
+    private List<LeaderboardEntry> snapshot;
+    private boolean publishScheduled = false;
+
+    private LeaderboardSource() {}
+
+    public static synchronized LeaderboardSource getInstance() {
+        if (instance == null) {
+            instance = new LeaderboardSource();
+        }
+        return instance;
+    }
+
+    public void addListener(LeaderboardListener listener) {
+        if (listeners.contains(listener)) return;
+        listeners.add(listener);
+        if (snapshot != null) {
+            listener.onLeaderboardChanged(snapshot);
+        }
+        if (childListener == null) {
+            attach();
+        }
+    }
+
+    public void removeListener(LeaderboardListener listener) {
+        listeners.remove(listener);
+        if (listeners.isEmpty() && childListener != null) {
+            query.removeEventListener(childListener);
+            childListener = null;
+            handler.removeCallbacks(publishRunnable);
+            publishScheduled = false;
+            ordered.clear();
+            byUser.clear();
+            snapshot = null;
+        }
+    }
+
+    private void attach() {
+        firstEntry = ReadMetrics.begin("leaderboard");
+        childListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot child, @Nullable String previousChildName) {
+                put(child);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot child, @Nullable String previousChildName) {
+                put(child);
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot child) {
+                LeaderboardEntry old = byUser.remove(child.getKey());
+                if (old != null) {
+                    ordered.remove(old);
+                    schedulePublish();
+                }
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot child, @Nullable String previousChildName) {
+                // The set orders itself; the matching change event already updated it
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading leaderboard", error.toException());
+            }
+        };
+        query.addChildEventListener(childListener);
+    }
+
+    // Remove the stale copy before inserting, since its position depends on the old value
+    private void put(DataSnapshot child) {
+        if (firstEntry != null) {
+            firstEntry.finish();
+            firstEntry = null;
+        }
+        LeaderboardEntry entry = parse(child);
+        LeaderboardEntry old = byUser.remove(child.getKey());
+        if (old != null) {
+            ordered.remove(old);
+        }
+        if (entry != null) {
+            byUser.put(entry.getUserId(), entry);
+            ordered.add(entry);
+        }
+        schedulePublish();
+    }
+
+    private void schedulePublish() {
+        if (!publishScheduled) {
+            publishScheduled = true;
+            handler.post(publishRunnable);
+        }
+    }
+
+    private final Runnable publishRunnable = () -> {
+        publishScheduled = false;
+        snapshot = Collections.unmodifiableList(new ArrayList<>(ordered));
+        for (LeaderboardListener listener : new ArrayList<>(listeners)) {
+            listener.onLeaderboardChanged(snapshot);
+        }
+    };
+
+    private static LeaderboardEntry parse(DataSnapshot child) {
+        try {
+            String name = child.child("name").getValue(String.class);
+            Double portfolioValue = child.child("portfolioValue").getValue(Double.class);
+            if (name == null || portfolioValue == null) {
+                return null;
+            }
+            Double dailyChangePercent = child.child("dailyChangePercent").getValue(Double.class);
+            LeaderboardEntry entry = new LeaderboardEntry(name,
+                    child.child("photoUrl").getValue(String.class), portfolioValue,
+                    dailyChangePercent != null ? dailyChangePercent : 0.0);
+            entry.setUserId(child.getKey());
+            return entry;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing leaderboard entry " + child.getKey(), e);
+            return null;
+        }
+    }
+}
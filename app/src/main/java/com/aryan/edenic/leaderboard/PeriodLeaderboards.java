@@ -0,0 +1,113 @@
+package com.aryan.edenic.leaderboard;
+
+import com.aryan.edenic.models.LeaderboardEntry;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Daily, weekly and monthly leaderboards ranked by return over the period.
+ *
+ * The worker owns these nodes. On its first cycle in a new period it snapshots every user's
+ * value at the boundary as their start value in {@code users/{uid}/periodMarks}, and every
+ * revaluation refreshes their row in {@code periodLeaderboards/{period}/{key}/{uid}} with the
+ * return against that snapshot, so a period ranking is one ordered query and never touches
+ * other users' portfolios. The finished period is then compacted into a top-N summary under
+ * {@code periodArchive/{period}/{key}} and its rows deleted. The worker publishes the current
+ * and previous keys at {@code periodKeys/{period}}, so no key here depends on the device clock.
+ * The daily return is also the user's {@code dailyChangePercent}.
+ */
+public final class PeriodLeaderboards {
+    private static final String BOARDS = "periodLeaderboards";
+    private static final String ARCHIVE = "periodArchive";
+    private static final String KEYS = "periodKeys";
+
+    public interface PeriodListener {
+        /**
+         * @param entries Best return first; each entry's daily change holds its period return
+         */
+        void onLoaded(List<LeaderboardEntry> entries);
+        void onError(Exception e);
+    }
+
+    private PeriodLeaderboards() {}
+
+    /**
+     * Ranking of the current period, empty until the worker has opened it
+     */
+    public static void loadCurrent(LeaderboardPeriod period, int limit, PeriodListener listener) {
+        keysRef(period).child("current").get()
+                .addOnSuccessListener(keySnapshot -> {
+                    String key = keySnapshot.getValue(String.class);
+                    if (key == null) {
+                        listener.onLoaded(new ArrayList<>());
+                        return;
+                    }
+                    FirebaseDatabase.getInstance().getReference(BOARDS).child(period.getId()).child(key)
+                            .orderByChild("returnPercent").limitToLast(limit).get()
+                            .addOnSuccessListener(snapshot -> {
+                                List<LeaderboardEntry> entries = new ArrayList<>();
+                                for (DataSnapshot row : snapshot.getChildren()) {
+                                    LeaderboardEntry entry = parseRow(row);
+                                    entry.setUserId(row.getKey());
+                                    entries.add(entry);
+                                }
+                                Collections.reverse(entries); // Ascending from Firebase
+                                listener.onLoaded(entries);
+                            })
+                            .addOnFailureListener(listener::onError);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    /**
+     * Summary of the last finished period, empty if there is none yet
+     */
+    public static void loadPrevious(LeaderboardPeriod period, PeriodListener listener) {
+        keysRef(period).child("previous").get()
+                .addOnSuccessListener(keySnapshot -> {
+                    String key = keySnapshot.getValue(String.class);
+                    if (key == null) {
+                        listener.onLoaded(new ArrayList<>());
+                    } else {
+                        loadArchived(period, key, listener);
+                    }
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    /**
+     * Summary of a finished period, empty if it hasn't been archived
+     */
+    public static void loadArchived(LeaderboardPeriod period, String key, PeriodListener listener) {
+        FirebaseDatabase.getInstance().getReference(ARCHIVE).child(period.getId()).child(key).child("top").get()
+                .addOnSuccessListener(snapshot -> {
+                    List<LeaderboardEntry> entries = new ArrayList<>();
+                    for (DataSnapshot row : snapshot.getChildren()) {
+                        LeaderboardEntry entry = parseRow(row);
+                        entry.setUserId(row.child("userId").getValue(String.class));
+                        entries.add(entry);
+                    }
+                    listener.onLoaded(entries);
+                })
+                .addOnFailureListener(listener::onError);
+    }
+
+    private static LeaderboardEntry parseRow(DataSnapshot row) {
+        Double portfolioValue = row.child("portfolioValue").getValue(Double.class);
+        Double returnPercent = row.child("returnPercent").getValue(Double.class);
+        return new LeaderboardEntry(
+                row.child("name").getValue(String.class),
+                row.child("photoUrl").getValue(String.class),
+                portfolioValue != null ? portfolioValue : 0.0,
+                returnPercent != null ? returnPercent : 0.0);
+    }
+
+    private static DatabaseReference keysRef(LeaderboardPeriod period) {
+        return FirebaseDatabase.getInstance().getReference(KEYS).child(period.getId());
+    }
+}
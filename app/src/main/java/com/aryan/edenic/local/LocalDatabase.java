@@ -0,0 +1,44 @@
+package com.aryan.edenic.local;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+
+/**
+ * On-device SQLite database holding local mirrors of Firebase data, plus the trade journal.
+ * The mirrors can be re-downloaded, so upgrades simply rebuild them; the journal is kept.
+ */
+public class LocalDatabase extends SQLiteOpenHelper {
+    private static final String TAG = "LocalDatabase";
+    private static final String DATABASE_NAME = "edenic.db";
+    private static final int DATABASE_VERSION = 5;
+
+    private static LocalDatabase instance;
+
+    private LocalDatabase(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized LocalDatabase getInstance(Context context) {
+        if (instance == null) {
+            instance = new LocalDatabase(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        TransactionLedger.createTables(db);
+        MessageStore.createTables(db);
+        TradeJournal.createTables(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        Log.d(TAG, "Rebuilding local mirror from version " + oldVersion + " to " + newVersion);
+        TransactionLedger.dropTables(db);
+        MessageStore.dropTables(db);
+        onCreate(db); // Unsynced trades in the journal survive
+    }
+}
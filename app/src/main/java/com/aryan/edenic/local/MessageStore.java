@@ -0,0 +1,318 @@
+package com.aryan.edenic.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.models.ChatMessage;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local SQLite copy of the newest part of each conversation under {@code messages/{chatId}}.
+ *
+ * The stored messages are always a contiguous run ending at the newest synced one, so a chat
+ * renders from disk straight away, syncing only asks Firebase for messages from shortly before
+ * the newest stored one, and older pages come from disk until they run out and then from
+ * Firebase. Pages are ordered oldest first, like the chat list.
+ *
+ * Messages carry server timestamps (see {@link com.aryan.edenic.chat.ChatWriter}), but a
+ * stored copy can hold the SDK's local estimate of one, and older messages were stamped by
+ * the sender's clock, so sync re-reads {@link #SYNC_OVERLAP_MS} before the newest stored
+ * message rather than starting right after it. Re-read messages replace their stored copy.
+ */
+public class MessageStore {
+    private static final String TAG = "MessageStore";
+    private static final String TABLE_MESSAGES = "messages";
+    // How far before the newest stored message a sync starts, to cover clock differences
+    private static final long SYNC_OVERLAP_MS = 5 * 60 * 1000L;
+
+    private static MessageStore instance;
+
+    public interface PageListener {
+        void onPageLoaded(List<ChatMessage> page, boolean hasMore);
+    }
+
+    public interface SyncListener {
+        /** A message from the sync window, already stored; may repeat one already shown */
+        void onMessageAdded(ChatMessage message);
+        /** A synced message was edited, e.g. its read flag or shared stock price */
+        void onMessageChanged(ChatMessage message);
+        void onError(Exception e);
+    }
+
+    private final LocalDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Live listeners per chat, only touched on the main thread
+    private final Map<String, Query> liveQueries = new HashMap<>();
+    private final Map<String, ChildEventListener> liveListeners = new HashMap<>();
+    private final Set<String> syncing = new HashSet<>();
+
+    private MessageStore(Context context) {
+        this.database = LocalDatabase.getInstance(context);
+    }
+
+    public static synchronized MessageStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new MessageStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_MESSAGES + " (" +
+                "chat_id TEXT NOT NULL, " +
+                "message_id TEXT NOT NULL, " +
+                "sender_id TEXT, " +
+                "sender_name TEXT, " +
+                "content TEXT, " +
+                "timestamp INTEGER NOT NULL, " +
+                "type TEXT, " +
+                "stock_symbol TEXT, " +
+                "stock_price REAL NOT NULL DEFAULT 0, " +
+                "read INTEGER NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (chat_id, message_id))");
+        db.execSQL("CREATE INDEX idx_messages_time ON " + TABLE_MESSAGES +
+                " (chat_id, timestamp, message_id)");
+    }
+
+    static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MESSAGES);
+    }
+
+    /**
+     * Newest stored messages of a chat, without touching the network
+     */
+    public void loadLatest(String chatId, int limit, PageListener listener) {
+        executor.execute(() -> {
+            List<ChatMessage> page = queryBefore(chatId, null, null, limit);
+            mainHandler.post(() -> listener.onPageLoaded(page, true));
+        });
+    }
+
+    /**
+     * Messages before the given one: from disk while there are any, then from Firebase
+     */
+    public void loadOlder(String chatId, ChatMessage oldest, int limit, PageListener listener) {
+        long beforeTimestamp = oldest.getTimestamp();
+        String beforeId = oldest.getMessageId();
+
+        executor.execute(() -> {
+            List<ChatMessage> page = queryBefore(chatId, beforeTimestamp, beforeId, limit);
+            if (!page.isEmpty()) {
+                mainHandler.post(() -> listener.onPageLoaded(page, true));
+                return;
+            }
+
+            mainHandler.post(() -> messagesRef(chatId).orderByChild("timestamp")
+                    .endBefore(beforeTimestamp, beforeId).limitToLast(limit).get()
+                    .addOnSuccessListener(snapshot -> executor.execute(() -> {
+                        List<ChatMessage> remote = new ArrayList<>();
+                        for (DataSnapshot child : snapshot.getChildren()) {
+                            ChatMessage message = parse(child);
+                            if (message != null) {
+                                remote.add(message);
+                            }
+                        }
+                        insertAll(chatId, remote);
+                        Log.d(TAG, "Fetched " + remote.size() + " older messages for " + chatId);
+                        mainHandler.post(() -> listener.onPageLoaded(remote, remote.size() >= limit));
+                    }))
+                    .addOnFailureListener(e -> {
+                        // Stop paging rather than retry on every scroll; reopening the chat tries again
+                        Log.e(TAG, "Error loading older messages", e);
+                        listener.onPageLoaded(new ArrayList<>(), false);
+                    }));
+        });
+    }
+
+    /**
+     * Listen for messages from the overlap window before the newest stored one (or the last
+     * page, for a chat that was never opened here) until {@link #stopSync(String)}.
+     * Calls happen on the main thread.
+     */
+    public void startSync(String chatId, int initialLimit, SyncListener listener) {
+        stopSync(chatId);
+        syncing.add(chatId);
+        Query byTimestamp = messagesRef(chatId).orderByChild("timestamp");
+
+        executor.execute(() -> {
+            ChatMessage newest = queryNewest(chatId);
+            mainHandler.post(() -> {
+                if (!syncing.contains(chatId) || liveListeners.containsKey(chatId)) return;
+                Query query = newest != null ?
+                        byTimestamp.startAt(newest.getTimestamp() - SYNC_OVERLAP_MS) :
+                        byTimestamp.limitToLast(initialLimit);
+                ChildEventListener childListener = createListener(chatId, listener);
+                query.addChildEventListener(childListener);
+                liveQueries.put(chatId, query);
+                liveListeners.put(chatId, childListener);
+            });
+        });
+    }
+
+    public void stopSync(String chatId) {
+        syncing.remove(chatId);
+        Query query = liveQueries.remove(chatId);
+        ChildEventListener childListener = liveListeners.remove(chatId);
+        if (query != null && childListener != null) {
+            query.removeEventListener(childListener);
+        }
+    }
+
+    private ChildEventListener createListener(String chatId, SyncListener listener) {
+        return new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                ChatMessage message = parse(snapshot);
+                if (message == null) return;
+                executor.execute(() -> {
+                    insert(database.getWritableDatabase(), chatId, message);
+                    mainHandler.post(() -> {
+                        if (liveListeners.containsKey(chatId)) {
+                            listener.onMessageAdded(message);
+                        }
+                    });
+                });
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                ChatMessage message = parse(snapshot);
+                if (message == null) return;
+                executor.execute(() -> {
+                    insert(database.getWritableDatabase(), chatId, message);
+                    mainHandler.post(() -> {
+                        if (liveListeners.containsKey(chatId)) {
+                            listener.onMessageChanged(message);
+                        }
+                    });
+                });
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Messages are never deleted
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Order is by timestamp, which doesn't change
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Message listener cancelled", error.toException());
+                listener.onError(error.toException());
+            }
+        };
+    }
+
+    private void insertAll(String chatId, List<ChatMessage> messages) {
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (ChatMessage message : messages) {
+                insert(db, chatId, message);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private static void insert(SQLiteDatabase db, String chatId, ChatMessage message) {
+        ContentValues values = new ContentValues();
+        values.put("chat_id", chatId);
+        values.put("message_id", message.getMessageId());
+        values.put("sender_id", message.getSenderId());
+        values.put("sender_name", message.getSenderName());
+        values.put("content", message.getContent());
+        values.put("timestamp", message.getTimestamp());
+        values.put("type", message.getType() != null ? message.getType().name() : null);
+        values.put("stock_symbol", message.getStockSymbol());
+        values.put("stock_price", message.getStockPrice());
+        values.put("read", message.isRead() ? 1 : 0);
+        db.insertWithOnConflict(TABLE_MESSAGES, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    // Up to limit messages before the cursor (or the newest ones), oldest first
+    private List<ChatMessage> queryBefore(String chatId, Long beforeTimestamp, String beforeId, int limit) {
+        String selection = "chat_id = ?";
+        String[] args = {chatId};
+        if (beforeTimestamp != null) {
+            selection += " AND (timestamp < ? OR (timestamp = ? AND message_id < ?))";
+            args = new String[]{chatId, String.valueOf(beforeTimestamp), String.valueOf(beforeTimestamp), beforeId};
+        }
+
+        List<ChatMessage> page = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(TABLE_MESSAGES, null, selection, args,
+                null, null, "timestamp DESC, message_id DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                page.add(fromCursor(cursor));
+            }
+        }
+        Collections.reverse(page);
+        return page;
+    }
+
+    private ChatMessage queryNewest(String chatId) {
+        List<ChatMessage> newest = queryBefore(chatId, null, null, 1);
+        return newest.isEmpty() ? null : newest.get(0);
+    }
+
+    private static ChatMessage fromCursor(Cursor cursor) {
+        ChatMessage message = new ChatMessage();
+        message.setMessageId(cursor.getString(cursor.getColumnIndexOrThrow("message_id")));
+        message.setSenderId(cursor.getString(cursor.getColumnIndexOrThrow("sender_id")));
+        message.setSenderName(cursor.getString(cursor.getColumnIndexOrThrow("sender_name")));
+        message.setContent(cursor.getString(cursor.getColumnIndexOrThrow("content")));
+        message.setTimestamp(cursor.getLong(cursor.getColumnIndexOrThrow("timestamp")));
+        String type = cursor.getString(cursor.getColumnIndexOrThrow("type"));
+        message.setType(type != null ? ChatMessage.MessageType.valueOf(type) : ChatMessage.MessageType.TEXT);
+        message.setStockSymbol(cursor.getString(cursor.getColumnIndexOrThrow("stock_symbol")));
+        message.setStockPrice(cursor.getDouble(cursor.getColumnIndexOrThrow("stock_price")));
+        message.setRead(cursor.getInt(cursor.getColumnIndexOrThrow("read")) != 0);
+        return message;
+    }
+
+    private static ChatMessage parse(DataSnapshot snapshot) {
+        try {
+            ChatMessage message = snapshot.getValue(ChatMessage.class);
+            if (message != null && message.getMessageId() == null) {
+                message.setMessageId(snapshot.getKey());
+            }
+            return message;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing message " + snapshot.getKey(), e);
+            return null;
+        }
+    }
+
+    private static DatabaseReference messagesRef(String chatId) {
+        return FirebaseDatabase.getInstance().getReference("messages").child(chatId);
+    }
+}
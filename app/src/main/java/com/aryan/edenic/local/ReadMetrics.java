@@ -0,0 +1,200 @@
+package com.aryan.edenic.local;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Times screen reads of the Realtime Database, to first data, by the connection state each
+ * read ran under.
+ *
+ * The SDK doesn't say whether data came from disk or the network, so nothing here guesses:
+ * a read is counted as offline only when the database was known to be disconnected from its
+ * start to its first data, which means the disk cache served it. Reads started before the
+ * first connection event are counted apart as cold start. That is the first screen of every
+ * launch: mostly served from disk, but the state is unknown, so it must not be read as
+ * either a cache or a network figure. Everything else is counted as online.
+ * A summary is logged every {@link #LOG_EVERY} reads.
+ */
+public final class ReadMetrics {
+    private static final String TAG = "ReadMetrics";
+    private static final int LOG_EVERY = 20;
+
+    /** Connection state a read ran under */
+    public enum State {
+        COLD_START, OFFLINE, ONLINE
+    }
+
+    private static final Map<String, Stats> statsByRead = new HashMap<>();
+    private static int readsSinceLog = 0;
+    private static volatile Boolean connected = null; // Null until the first event
+    private static boolean started = false;
+
+    public static class Stats {
+        private final int[] reads = new int[State.values().length];
+        private final long[] millis = new long[State.values().length];
+
+        public int getReads(State state) { return reads[state.ordinal()]; }
+
+        public long getAverageMillis(State state) {
+            int count = reads[state.ordinal()];
+            return count > 0 ? millis[state.ordinal()] / count : 0;
+        }
+
+        Stats copy() {
+            Stats copy = new Stats();
+            System.arraycopy(reads, 0, copy.reads, 0, reads.length);
+            System.arraycopy(millis, 0, copy.millis, 0, millis.length);
+            return copy;
+        }
+    }
+
+    /**
+     * One read in progress, holding its start time and the connection state then
+     */
+    public static final class Timer {
+        private final String name;
+        private final long start = SystemClock.elapsedRealtime();
+        private final Boolean connectedAtStart = connected;
+        private boolean finished = false;
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /** Record the time to first data; later calls do nothing */
+        public void finish() {
+            if (finished) return;
+            finished = true;
+            State state;
+            if (connectedAtStart == null) {
+                state = State.COLD_START;
+            } else if (!connectedAtStart && Boolean.FALSE.equals(connected)) {
+                state = State.OFFLINE;
+            } else {
+                state = State.ONLINE;
+            }
+            record(name, SystemClock.elapsedRealtime() - start, state);
+        }
+    }
+
+    private ReadMetrics() {}
+
+    /**
+     * Start following the connection state. Safe to call more than once.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+        FirebaseDatabase.getInstance().getReference(".info/connected")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        connected = Boolean.TRUE.equals(snapshot.getValue(Boolean.class));
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Error watching connection state", error.toException());
+                    }
+                });
+    }
+
+    /**
+     * Read once, from the cache when the node is there (fresh if it's kept synced), timed
+     */
+    public static Task<DataSnapshot> read(String name, Query query) {
+        TaskCompletionSource<DataSnapshot> result = new TaskCompletionSource<>();
+        query.addListenerForSingleValueEvent(timed(name, new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                result.trySetResult(snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                result.trySetException(error.toException());
+            }
+        }));
+        return result.getTask();
+    }
+
+    /**
+     * Wrap a listener so the time to its first data is recorded. Keep the returned
+     * listener if it has to be removed later.
+     */
+    public static ValueEventListener timed(String name, ValueEventListener listener) {
+        Timer timer = begin(name);
+        return new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                timer.finish();
+                listener.onDataChange(snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                listener.onCancelled(error);
+            }
+        };
+    }
+
+    /**
+     * Start timing a read that isn't made through this class; call {@link Timer#finish()}
+     * when its first data arrives
+     */
+    public static Timer begin(String name) {
+        return new Timer(name);
+    }
+
+    private static void record(String name, long latencyMillis, State state) {
+        synchronized (statsByRead) {
+            Stats stats = statsByRead.computeIfAbsent(name, key -> new Stats());
+            stats.reads[state.ordinal()]++;
+            stats.millis[state.ordinal()] += latencyMillis;
+            if (++readsSinceLog >= LOG_EVERY) {
+                readsSinceLog = 0;
+                logSummary();
+            }
+        }
+    }
+
+    /**
+     * @return A copy of the counts so far, by read name
+     */
+    public static Map<String, Stats> getStats() {
+        Map<String, Stats> copy = new TreeMap<>();
+        synchronized (statsByRead) {
+            for (Map.Entry<String, Stats> entry : statsByRead.entrySet()) {
+                copy.put(entry.getKey(), entry.getValue().copy());
+            }
+        }
+        return copy;
+    }
+
+    // Called with statsByRead held
+    private static void logSummary() {
+        for (Map.Entry<String, Stats> entry : new TreeMap<>(statsByRead).entrySet()) {
+            Stats stats = entry.getValue();
+            StringBuilder line = new StringBuilder(entry.getKey()).append(':');
+            for (State state : State.values()) {
+                line.append(String.format(" %s %d (avg %d ms)", state.name().toLowerCase(),
+                        stats.getReads(state), stats.getAverageMillis(state)));
+            }
+            Log.d(TAG, line.toString());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.aryan.edenic.local;
+
+import android.util.Log;
+
+import com.aryan.edenic.leaderboard.LeaderboardSource;
+import com.aryan.edenic.orders.TradeService;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the Realtime Database keeps on disk and keeps fresh.
+ *
+ * Disk persistence is on with a bounded cache, so a screen opens from the last data it saw.
+ * The hot nodes of the signed-in user (their account, chats, orders and alerts), and the
+ * top of the leaderboard, are kept synced: the SDK holds them current in the background,
+ * so reading them costs no round trip and reopening the app downloads only what changed.
+ *
+ * {@code transactions/{uid}} is deliberately not kept synced: the history is mirrored in
+ * SQLite by {@link TransactionLedger}, which already downloads only newer records.
+ */
+public final class SyncPolicy {
+    private static final String TAG = "SyncPolicy";
+    // Least recently used data beyond this is evicted from disk; kept synced data never is
+    private static final long CACHE_SIZE_BYTES = 20L * 1024 * 1024;
+
+    private static final List<Query> userSynced = new ArrayList<>();
+    private static String syncedUserId;
+    private static boolean started = false;
+
+    private SyncPolicy() {}
+
+    /**
+     * Must run before anything else uses the database, i.e. first thing in the application.
+     */
+    public static synchronized void start() {
+        if (started) return;
+        started = true;
+
+        FirebaseDatabase database = FirebaseDatabase.getInstance();
+        database.setPersistenceEnabled(true);
+        database.setPersistenceCacheSizeBytes(CACHE_SIZE_BYTES);
+
+        database.getReference("leaderboard").orderByChild("portfolioValue")
+                .limitToLast(LeaderboardSource.TOP_N).keepSynced(true);
+        ReadMetrics.start();
+
+        FirebaseAuth.getInstance().addAuthStateListener(auth -> applyTo(auth.getCurrentUser()));
+    }
+
+    // Follow the signed-in user's nodes, and stop following the previous user's
+    private static synchronized void applyTo(FirebaseUser user) {
+        String userId = user != null ? user.getUid() : null;
+        if (userId != null ? userId.equals(syncedUserId) : syncedUserId == null) return;
+
+        for (Query query : userSynced) {
+            query.keepSynced(false);
+        }
+        userSynced.clear();
+        syncedUserId = userId;
+        if (userId == null) return;
+
+        DatabaseReference root = FirebaseDatabase.getInstance().getReference();
+        // Cash and holdings only; the rest of the user node grows with period marks
+        userSynced.add(root.child("users").child(userId).child(TradeService.ACCOUNT));
+        userSynced.add(root.child("chats").child(userId).child("contacts"));
+        userSynced.add(root.child("chats").child(userId).child("requests"));
+        userSynced.add(root.child("orders").child(userId));
+        userSynced.add(root.child("alerts").child(userId));
+        for (Query query : userSynced) {
+            query.keepSynced(true);
+        }
+        Log.d(TAG, "Keeping " + userSynced.size() + " nodes synced for " + userId);
+    }
+}
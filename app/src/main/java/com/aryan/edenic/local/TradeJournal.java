@@ -0,0 +1,116 @@
+package com.aryan.edenic.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import com.aryan.edenic.models.Transaction;
+import com.aryan.edenic.orders.TradeService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Durable on-device journal of trades not yet applied in Firebase.
+ *
+ * A trade is written here before anything else happens, so it survives losing the network
+ * or the process; {@link com.aryan.edenic.orders.TradeSyncer} removes it once the database
+ * has applied or refused it. Unlike the mirrors in {@link LocalDatabase} this can't be
+ * re-downloaded, so its table is kept across upgrades.
+ * All methods block and must be called off the main thread.
+ */
+public class TradeJournal {
+    private static final String TABLE_JOURNAL = "trade_journal";
+
+    private static TradeJournal instance;
+
+    private final LocalDatabase database;
+
+    private TradeJournal(Context context) {
+        this.database = LocalDatabase.getInstance(context);
+    }
+
+    public static synchronized TradeJournal getInstance(Context context) {
+        if (instance == null) {
+            instance = new TradeJournal(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE IF NOT EXISTS " + TABLE_JOURNAL + " (" +
+                "id TEXT PRIMARY KEY, " +
+                "user_id TEXT NOT NULL, " +
+                "side TEXT NOT NULL, " +
+                "symbol TEXT NOT NULL, " +
+                "company_name TEXT, " +
+                "quantity INTEGER NOT NULL, " +
+                "price REAL NOT NULL, " +
+                "time INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX IF NOT EXISTS idx_trade_journal_time ON " + TABLE_JOURNAL +
+                " (user_id, time)");
+    }
+
+    public void append(String userId, TradeService.Trade trade) {
+        ContentValues values = new ContentValues();
+        values.put("id", trade.getId());
+        values.put("user_id", userId);
+        values.put("side", trade.getSide().toString());
+        values.put("symbol", trade.getSymbol());
+        values.put("company_name", trade.getCompanyName());
+        values.put("quantity", trade.getQuantity());
+        values.put("price", trade.getPrice());
+        values.put("time", trade.getTime());
+        database.getWritableDatabase().insertWithOnConflict(TABLE_JOURNAL, null, values,
+                SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * @return The user's oldest unsynced trades, in the order they were made
+     */
+    public List<TradeService.Trade> pending(String userId, int limit) {
+        return query("user_id = ?", new String[]{userId}, limit);
+    }
+
+    /**
+     * @return The user's unsynced trades made before the given time, oldest first
+     */
+    public List<TradeService.Trade> madeBefore(String userId, long timeMillis) {
+        return query("user_id = ? AND time < ?", new String[]{userId, String.valueOf(timeMillis)},
+                Integer.MAX_VALUE);
+    }
+
+    public void remove(List<String> tradeIds) {
+        if (tradeIds.isEmpty()) return;
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (String tradeId : tradeIds) {
+                db.delete(TABLE_JOURNAL, "id = ?", new String[]{tradeId});
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<TradeService.Trade> query(String selection, String[] args, int limit) {
+        List<TradeService.Trade> trades = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT id, side, symbol, company_name, quantity, price, time FROM " + TABLE_JOURNAL +
+                        " WHERE " + selection + " ORDER BY time, id LIMIT " + limit, args)) {
+            while (cursor.moveToNext()) {
+                trades.add(new TradeService.Trade(
+                        cursor.getString(0),
+                        Transaction.Type.valueOf(cursor.getString(1)),
+                        cursor.getString(2),
+                        cursor.getString(3),
+                        cursor.getInt(4),
+                        cursor.getDouble(5),
+                        cursor.getLong(6)));
+            }
+        }
+        return trades;
+    }
+}
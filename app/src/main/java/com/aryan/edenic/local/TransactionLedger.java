@@ -0,0 +1,633 @@
+package com.aryan.edenic.local;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.models.Transaction;
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local SQLite mirror of {@code transactions/{uid}}.
+ *
+ * Rows are indexed by type, outcome (profit or loss) and symbol, each together with
+ * the timestamp, so every history filter is a keyset-paged index scan. Account and
+ * per-symbol totals are kept in their own tables and updated as each row is inserted,
+ * so summaries are a single-row read.
+ *
+ * Syncing follows {@code recordedAt}, the server time a record was written, not the trade's
+ * own timestamp: trades made offline, recovered from their account marker or made on another
+ * device are written long after they happened, and must still be picked up.
+ *
+ * An empty mirror downloads the newest page first, so the screen fills at once, then
+ * backfills older pages behind it; the backfill cursor is stored with each page, so an
+ * interrupted backfill resumes. Afterwards only records from a short overlap window before
+ * the newest mirrored one onwards are downloaded, oldest first in pages.
+ */
+public class TransactionLedger {
+    private static final String TAG = "TransactionLedger";
+
+    private static final String TABLE_TRANSACTIONS = "transactions";
+    private static final String TABLE_STATS = "ledger_stats";
+    private static final String TABLE_SYMBOL_STATS = "symbol_stats";
+    private static final String TABLE_BACKFILL = "ledger_backfill";
+
+    private static final int OUTCOME_NONE = 0;
+    private static final int OUTCOME_PROFIT = 1;
+    private static final int OUTCOME_LOSS = -1;
+
+    // Records written while the last sync was reading can carry a slightly older recordedAt;
+    // each sync re-reads this window and duplicates are ignored on insert
+    private static final long SYNC_OVERLAP_MS = 5 * 60 * 1000L;
+    private static final int SYNC_PAGE_SIZE = 200;
+
+    private static TransactionLedger instance;
+
+    /**
+     * History filters, each backed by an index
+     */
+    public enum Filter {
+        ALL, BUY, SELL, PROFIT, LOSS;
+
+        public boolean matches(Transaction transaction) {
+            switch (this) {
+                case BUY:
+                    return transaction.getType() == Transaction.Type.BUY;
+                case SELL:
+                    return transaction.getType() == Transaction.Type.SELL;
+                case PROFIT:
+                    return outcomeOf(transaction) == OUTCOME_PROFIT;
+                case LOSS:
+                    return outcomeOf(transaction) == OUTCOME_LOSS;
+                default:
+                    return true;
+            }
+        }
+    }
+
+    /**
+     * Totals for an account, or for one symbol of it
+     */
+    public static class Summary {
+        private final long tradeCount;
+        private final long buyCount;
+        private final long sellCount;
+        private final int sharesBought;
+        private final int sharesSold;
+        private final double realizedProfitLoss;
+
+        Summary(long tradeCount, long buyCount, long sellCount, int sharesBought, int sharesSold,
+                double realizedProfitLoss) {
+            this.tradeCount = tradeCount;
+            this.buyCount = buyCount;
+            this.sellCount = sellCount;
+            this.sharesBought = sharesBought;
+            this.sharesSold = sharesSold;
+            this.realizedProfitLoss = realizedProfitLoss;
+        }
+
+        public long getTradeCount() { return tradeCount; }
+        public long getBuyCount() { return buyCount; }
+        public long getSellCount() { return sellCount; }
+        public int getSharesBought() { return sharesBought; }
+        public int getSharesSold() { return sharesSold; }
+        public double getRealizedProfitLoss() { return realizedProfitLoss; }
+    }
+
+    public interface PageListener {
+        void onPageLoaded(List<Transaction> page, boolean hasMore);
+    }
+
+    public interface SummaryListener {
+        void onSummaryLoaded(Summary summary);
+    }
+
+    public interface SyncListener {
+        /** Missing records were downloaded; pages and summaries should be reloaded */
+        void onSynced();
+        /** A page of older records was backfilled behind those already shown */
+        void onOlderSynced();
+        /** A trade made while syncing, already stored */
+        void onTransactionAdded(Transaction transaction);
+        void onError(Exception e);
+    }
+
+    private final LocalDatabase database;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Live listener, only touched on the main thread
+    private Query liveQuery;
+    private ChildEventListener liveListener;
+    private int syncGeneration = 0;
+
+    private TransactionLedger(Context context) {
+        this.database = LocalDatabase.getInstance(context);
+    }
+
+    public static synchronized TransactionLedger getInstance(Context context) {
+        if (instance == null) {
+            instance = new TransactionLedger(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    static void createTables(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_TRANSACTIONS + " (" +
+                "id TEXT PRIMARY KEY, " +
+                "user_id TEXT NOT NULL, " +
+                "symbol TEXT, " +
+                "company_name TEXT, " +
+                "type TEXT NOT NULL, " +
+                "quantity INTEGER NOT NULL, " +
+                "price REAL NOT NULL, " +
+                "total_value REAL NOT NULL, " +
+                "timestamp INTEGER NOT NULL, " +
+                "recorded_at INTEGER, " +
+                "profit_loss REAL NOT NULL, " +
+                "profit_loss_percent REAL NOT NULL, " +
+                "outcome INTEGER NOT NULL)");
+        db.execSQL("CREATE INDEX idx_transactions_time ON " + TABLE_TRANSACTIONS +
+                " (user_id, timestamp, id)");
+        db.execSQL("CREATE INDEX idx_transactions_recorded ON " + TABLE_TRANSACTIONS +
+                " (user_id, recorded_at)");
+        db.execSQL("CREATE INDEX idx_transactions_type ON " + TABLE_TRANSACTIONS +
+                " (user_id, type, timestamp, id)");
+        db.execSQL("CREATE INDEX idx_transactions_outcome ON " + TABLE_TRANSACTIONS +
+                " (user_id, outcome, timestamp, id)");
+        db.execSQL("CREATE INDEX idx_transactions_symbol ON " + TABLE_TRANSACTIONS +
+                " (user_id, symbol, timestamp, id)");
+
+        db.execSQL("CREATE TABLE " + TABLE_STATS + " (" +
+                "user_id TEXT PRIMARY KEY, " +
+                "trade_count INTEGER NOT NULL DEFAULT 0, " +
+                "buy_count INTEGER NOT NULL DEFAULT 0, " +
+                "sell_count INTEGER NOT NULL DEFAULT 0, " +
+                "shares_bought INTEGER NOT NULL DEFAULT 0, " +
+                "shares_sold INTEGER NOT NULL DEFAULT 0, " +
+                "realized_pl REAL NOT NULL DEFAULT 0)");
+        db.execSQL("CREATE TABLE " + TABLE_SYMBOL_STATS + " (" +
+                "user_id TEXT NOT NULL, " +
+                "symbol TEXT NOT NULL, " +
+                "trade_count INTEGER NOT NULL DEFAULT 0, " +
+                "buy_count INTEGER NOT NULL DEFAULT 0, " +
+                "sell_count INTEGER NOT NULL DEFAULT 0, " +
+                "shares_bought INTEGER NOT NULL DEFAULT 0, " +
+                "shares_sold INTEGER NOT NULL DEFAULT 0, " +
+                "realized_pl REAL NOT NULL DEFAULT 0, " +
+                "PRIMARY KEY (user_id, symbol))");
+        // Oldest record downloaded newest-first; present only while older ones are missing
+        db.execSQL("CREATE TABLE " + TABLE_BACKFILL + " (" +
+                "user_id TEXT PRIMARY KEY, " +
+                "recorded_at INTEGER, " +
+                "record_id TEXT NOT NULL)");
+    }
+
+    static void dropTables(SQLiteDatabase db) {
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_TRANSACTIONS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_STATS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_SYMBOL_STATS);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_BACKFILL);
+    }
+
+    /**
+     * Download records newer than the local mirror, then keep listening for new trades
+     * until {@link #stopSync()} while older records are backfilled. Listener calls happen
+     * on the main thread.
+     */
+    public void startSync(String userId, SyncListener listener) {
+        stopSync();
+        int generation = ++syncGeneration;
+        Query byRecorded = FirebaseDatabase.getInstance().getReference("transactions")
+                .child(userId).orderByChild("recordedAt");
+
+        executor.execute(() -> {
+            boolean empty = isEmpty(userId);
+            Query first = empty ? null : syncStart(userId, byRecorded);
+            mainHandler.post(() -> {
+                if (generation != syncGeneration) return;
+                if (empty) {
+                    downloadNewest(userId, byRecorded, generation, listener);
+                } else {
+                    downloadPage(userId, byRecorded, first.limitToFirst(SYNC_PAGE_SIZE), generation, 0, listener);
+                }
+            });
+        });
+    }
+
+    // First open: the newest page, then older pages behind it
+    private void downloadNewest(String userId, Query byRecorded, int generation, SyncListener listener) {
+        byRecorded.limitToLast(SYNC_PAGE_SIZE).get()
+                .addOnSuccessListener(snapshot -> executor.execute(() -> {
+                    storePage(userId, snapshot, true);
+                    Long newest = newestRecordedAt(userId);
+                    mainHandler.post(() -> {
+                        if (generation != syncGeneration) return;
+                        Log.d(TAG, "Mirrored the newest " + snapshot.getChildrenCount() + " transactions");
+                        listenFrom(userId, byRecorded, newest, listener);
+                        listener.onSynced();
+                        backfill(userId, byRecorded, generation, listener);
+                    });
+                }))
+                .addOnFailureListener(e -> onSyncFailed(e, generation, listener));
+    }
+
+    // Store one page of the download, then request the next one after its last record
+    private void downloadPage(String userId, Query byRecorded, Query page, int generation, int added,
+                              SyncListener listener) {
+        page.get()
+                .addOnSuccessListener(snapshot -> executor.execute(() -> {
+                    int total = added + storePage(userId, snapshot, false);
+                    DataSnapshot last = null;
+                    for (DataSnapshot child : snapshot.getChildren()) {
+                        last = child;
+                    }
+                    // Records written before recordedAt existed have none and sort first, by key
+                    Long lastRecordedAt = last != null ? recordedAt(last) : null;
+                    String lastKey = last != null ? last.getKey() : null;
+                    boolean hasMore = snapshot.getChildrenCount() >= SYNC_PAGE_SIZE;
+                    Long newest = hasMore ? null : newestRecordedAt(userId);
+                    mainHandler.post(() -> {
+                        if (generation != syncGeneration) return;
+                        if (hasMore) {
+                            Query next = (lastRecordedAt != null ? byRecorded.startAfter(lastRecordedAt, lastKey) :
+                                    byRecorded.startAfter((String) null, lastKey)).limitToFirst(SYNC_PAGE_SIZE);
+                            downloadPage(userId, byRecorded, next, generation, total, listener);
+                            return;
+                        }
+                        Log.d(TAG, "Mirrored " + total + " new transactions");
+                        listenFrom(userId, byRecorded, newest, listener);
+                        listener.onSynced();
+                        backfill(userId, byRecorded, generation, listener);
+                    });
+                }))
+                .addOnFailureListener(e -> onSyncFailed(e, generation, listener));
+    }
+
+    // Download the page before the backfill cursor, if a backfill is still pending
+    private void backfill(String userId, Query byRecorded, int generation, SyncListener listener) {
+        executor.execute(() -> {
+            Query before;
+            try (Cursor cursor = database.getReadableDatabase().query(TABLE_BACKFILL,
+                    new String[]{"recorded_at", "record_id"}, "user_id = ?", new String[]{userId},
+                    null, null, null)) {
+                if (!cursor.moveToFirst()) return;
+                String key = cursor.getString(1);
+                before = cursor.isNull(0) ? byRecorded.endBefore((String) null, key) :
+                        byRecorded.endBefore(cursor.getLong(0), key);
+            }
+            mainHandler.post(() -> {
+                if (generation != syncGeneration) return;
+                before.limitToLast(SYNC_PAGE_SIZE).get()
+                        .addOnSuccessListener(snapshot -> executor.execute(() -> {
+                            storePage(userId, snapshot, true);
+                            mainHandler.post(() -> {
+                                if (generation != syncGeneration) return;
+                                listener.onOlderSynced();
+                                backfill(userId, byRecorded, generation, listener);
+                            });
+                        }))
+                        .addOnFailureListener(e -> onSyncFailed(e, generation, listener));
+            });
+        });
+    }
+
+    /**
+     * Store a downloaded page in one SQLite transaction. A page downloaded newest-first also
+     * moves the backfill cursor to its oldest record, or clears it if the page wasn't full.
+     * @return Number of records that weren't mirrored yet
+     */
+    private int storePage(String userId, DataSnapshot snapshot, boolean newestFirst) {
+        int added = 0;
+        DataSnapshot oldest = null;
+        SQLiteDatabase db = database.getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (DataSnapshot child : snapshot.getChildren()) {
+                if (oldest == null) {
+                    oldest = child;
+                }
+                Transaction transaction = parse(child);
+                if (transaction != null && insert(db, userId, transaction, recordedAt(child))) {
+                    added++;
+                }
+            }
+            if (newestFirst) {
+                if (snapshot.getChildrenCount() >= SYNC_PAGE_SIZE && oldest != null) {
+                    ContentValues values = new ContentValues();
+                    values.put("user_id", userId);
+                    values.put("recorded_at", recordedAt(oldest));
+                    values.put("record_id", oldest.getKey());
+                    db.insertWithOnConflict(TABLE_BACKFILL, null, values, SQLiteDatabase.CONFLICT_REPLACE);
+                } else {
+                    db.delete(TABLE_BACKFILL, "user_id = ?", new String[]{userId});
+                }
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+        return added;
+    }
+
+    private void onSyncFailed(Exception e, int generation, SyncListener listener) {
+        // Stored pages stay; the next sync resumes from them
+        Log.e(TAG, "Error syncing transactions", e);
+        if (generation == syncGeneration) {
+            listener.onError(e);
+        }
+    }
+
+    private void listenFrom(String userId, Query byRecorded, @Nullable Long newest, SyncListener listener) {
+        // Only records that have a recordedAt can still arrive
+        listenForNew(userId, byRecorded.startAt(newest != null ? newest - SYNC_OVERLAP_MS : 0), listener);
+    }
+
+    public void stopSync() {
+        syncGeneration++;
+        if (liveListener != null) {
+            liveQuery.removeEventListener(liveListener);
+            liveListener = null;
+        }
+    }
+
+    /**
+     * Load a page of transactions, newest first, older than the given cursor.
+     * Pass a null cursor for the first page.
+     */
+    public void loadPage(String userId, Filter filter, @Nullable Transaction before, int limit,
+                         PageListener listener) {
+        Long beforeTimestamp = before != null ? before.getTimestamp().getTime() : null;
+        String beforeId = before != null ? before.getId() : null;
+
+        executor.execute(() -> {
+            List<Transaction> page = queryPage(userId, filter, beforeTimestamp, beforeId, limit);
+            mainHandler.post(() -> listener.onPageLoaded(page, page.size() >= limit));
+        });
+    }
+
+    public void loadSummary(String userId, SummaryListener listener) {
+        executor.execute(() -> {
+            Summary summary = querySummary(TABLE_STATS, "user_id = ?", new String[]{userId});
+            mainHandler.post(() -> listener.onSummaryLoaded(summary));
+        });
+    }
+
+    public void loadSymbolSummary(String userId, String symbol, SummaryListener listener) {
+        executor.execute(() -> {
+            Summary summary = querySummary(TABLE_SYMBOL_STATS, "user_id = ? AND symbol = ?",
+                    new String[]{userId, symbol});
+            mainHandler.post(() -> listener.onSummaryLoaded(summary));
+        });
+    }
+
+    private void listenForNew(String userId, Query query, SyncListener listener) {
+        liveQuery = query;
+        liveListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                Transaction transaction = parse(snapshot);
+                if (transaction == null) return;
+                int generation = syncGeneration;
+                executor.execute(() -> {
+                    if (insert(database.getWritableDatabase(), userId, transaction, recordedAt(snapshot))) {
+                        mainHandler.post(() -> {
+                            if (generation == syncGeneration) {
+                                listener.onTransactionAdded(transaction);
+                            }
+                        });
+                    }
+                });
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Transactions are never edited
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                // Transactions are never deleted
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, @Nullable String previousChildName) {
+                // Order is by recordedAt, which doesn't change
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Transaction listener cancelled", error.toException());
+                listener.onError(error.toException());
+            }
+        };
+        liveQuery.addChildEventListener(liveListener);
+    }
+
+    // Where a download starts: the overlap window before the newest mirrored record, after the
+    // last mirrored record from before recordedAt existed (those sort first, by key), or the start
+    private Query syncStart(String userId, Query byRecorded) {
+        Long newest = newestRecordedAt(userId);
+        if (newest != null) {
+            return byRecorded.startAt(newest - SYNC_OVERLAP_MS);
+        }
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT MAX(id) FROM " + TABLE_TRANSACTIONS + " WHERE user_id = ? AND recorded_at IS NULL",
+                new String[]{userId})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ?
+                    byRecorded.startAfter((String) null, cursor.getString(0)) : byRecorded;
+        }
+    }
+
+    private boolean isEmpty(String userId) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT 1 FROM " + TABLE_TRANSACTIONS + " WHERE user_id = ? LIMIT 1", new String[]{userId})) {
+            return !cursor.moveToFirst();
+        }
+    }
+
+    @Nullable
+    private Long newestRecordedAt(String userId) {
+        try (Cursor cursor = database.getReadableDatabase().rawQuery(
+                "SELECT MAX(recorded_at) FROM " + TABLE_TRANSACTIONS + " WHERE user_id = ?",
+                new String[]{userId})) {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getLong(0) : null;
+        }
+    }
+
+    /**
+     * Store a record and fold it into the totals in one SQLite transaction
+     * @return False if the record was already mirrored
+     */
+    private static boolean insert(SQLiteDatabase db, String userId, Transaction transaction,
+                                  @Nullable Long recordedAt) {
+        boolean sell = transaction.getType() == Transaction.Type.SELL;
+        ContentValues values = new ContentValues();
+        values.put("id", transaction.getId());
+        values.put("user_id", userId);
+        values.put("symbol", transaction.getSymbol());
+        values.put("company_name", transaction.getCompanyName());
+        values.put("type", transaction.getType().name());
+        values.put("quantity", transaction.getQuantity());
+        values.put("price", transaction.getPrice());
+        values.put("total_value", transaction.getTotalValue());
+        values.put("timestamp", transaction.getTimestamp().getTime());
+        values.put("recorded_at", recordedAt);
+        values.put("profit_loss", sell ? transaction.getProfitLoss() : 0);
+        values.put("profit_loss_percent", sell ? transaction.getProfitLossPercentage() : 0);
+        values.put("outcome", outcomeOf(transaction));
+
+        db.beginTransaction();
+        try {
+            if (db.insertWithOnConflict(TABLE_TRANSACTIONS, null, values, SQLiteDatabase.CONFLICT_IGNORE) == -1) {
+                return false;
+            }
+
+            Object[] deltas = {
+                    sell ? 0 : 1, sell ? 1 : 0,
+                    sell ? 0 : transaction.getQuantity(), sell ? transaction.getQuantity() : 0,
+                    sell ? transaction.getProfitLoss() : 0
+            };
+            String increments = " SET trade_count = trade_count + 1, buy_count = buy_count + ?, " +
+                    "sell_count = sell_count + ?, shares_bought = shares_bought + ?, " +
+                    "shares_sold = shares_sold + ?, realized_pl = realized_pl + ?";
+
+            db.execSQL("INSERT OR IGNORE INTO " + TABLE_STATS + " (user_id) VALUES (?)",
+                    new Object[]{userId});
+            db.execSQL("UPDATE " + TABLE_STATS + increments + " WHERE user_id = ?",
+                    append(deltas, userId));
+
+            if (transaction.getSymbol() != null) {
+                db.execSQL("INSERT OR IGNORE INTO " + TABLE_SYMBOL_STATS + " (user_id, symbol) VALUES (?, ?)",
+                        new Object[]{userId, transaction.getSymbol()});
+                db.execSQL("UPDATE " + TABLE_SYMBOL_STATS + increments + " WHERE user_id = ? AND symbol = ?",
+                        append(append(deltas, userId), transaction.getSymbol()));
+            }
+
+            db.setTransactionSuccessful();
+            return true;
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    private List<Transaction> queryPage(String userId, Filter filter, Long beforeTimestamp,
+                                        String beforeId, int limit) {
+        StringBuilder selection = new StringBuilder("user_id = ?");
+        List<String> args = new ArrayList<>();
+        args.add(userId);
+
+        switch (filter) {
+            case BUY:
+            case SELL:
+                selection.append(" AND type = ?");
+                args.add(filter == Filter.BUY ? Transaction.Type.BUY.name() : Transaction.Type.SELL.name());
+                break;
+            case PROFIT:
+            case LOSS:
+                selection.append(" AND outcome = ?");
+                args.add(String.valueOf(filter == Filter.PROFIT ? OUTCOME_PROFIT : OUTCOME_LOSS));
+                break;
+            default:
+                break;
+        }
+
+        // Keyset cursor, so deep pages cost the same as the first one
+        if (beforeTimestamp != null) {
+            selection.append(" AND (timestamp < ? OR (timestamp = ? AND id < ?))");
+            args.add(String.valueOf(beforeTimestamp));
+            args.add(String.valueOf(beforeTimestamp));
+            args.add(beforeId);
+        }
+
+        List<Transaction> page = new ArrayList<>();
+        try (Cursor cursor = database.getReadableDatabase().query(TABLE_TRANSACTIONS, null,
+                selection.toString(), args.toArray(new String[0]), null, null,
+                "timestamp DESC, id DESC", String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                page.add(fromCursor(cursor));
+            }
+        }
+        return page;
+    }
+
+    private Summary querySummary(String table, String selection, String[] args) {
+        try (Cursor cursor = database.getReadableDatabase().query(table,
+                new String[]{"trade_count", "buy_count", "sell_count", "shares_bought", "shares_sold", "realized_pl"},
+                selection, args, null, null, null)) {
+            if (!cursor.moveToFirst()) {
+                return new Summary(0, 0, 0, 0, 0, 0);
+            }
+            return new Summary(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2),
+                    cursor.getInt(3), cursor.getInt(4), cursor.getDouble(5));
+        }
+    }
+
+    private static Transaction fromCursor(Cursor cursor) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("id", cursor.getString(cursor.getColumnIndexOrThrow("id")));
+        data.put("symbol", cursor.getString(cursor.getColumnIndexOrThrow("symbol")));
+        data.put("companyName", cursor.getString(cursor.getColumnIndexOrThrow("company_name")));
+        data.put("type", cursor.getString(cursor.getColumnIndexOrThrow("type")));
+        data.put("quantity", cursor.getLong(cursor.getColumnIndexOrThrow("quantity")));
+        data.put("price", cursor.getDouble(cursor.getColumnIndexOrThrow("price")));
+        data.put("totalValue", cursor.getDouble(cursor.getColumnIndexOrThrow("total_value")));
+        data.put("timestamp", cursor.getLong(cursor.getColumnIndexOrThrow("timestamp")));
+        data.put("profitLoss", cursor.getDouble(cursor.getColumnIndexOrThrow("profit_loss")));
+        data.put("profitLossPercentage", cursor.getDouble(cursor.getColumnIndexOrThrow("profit_loss_percent")));
+        return Transaction.fromMap(data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Transaction parse(DataSnapshot snapshot) {
+        try {
+            Object value = snapshot.getValue();
+            if (!(value instanceof Map)) return null;
+            Transaction transaction = Transaction.fromMap((Map<String, Object>) value);
+            if (transaction.getId() == null) {
+                transaction.setId(snapshot.getKey());
+            }
+            return transaction;
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing transaction " + snapshot.getKey(), e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Long recordedAt(DataSnapshot snapshot) {
+        return snapshot.child("recordedAt").getValue(Long.class);
+    }
+
+    private static int outcomeOf(Transaction transaction) {
+        if (transaction.getType() != Transaction.Type.SELL || transaction.getProfitLoss() == 0) {
+            return OUTCOME_NONE;
+        }
+        return transaction.getProfitLoss() > 0 ? OUTCOME_PROFIT : OUTCOME_LOSS;
+    }
+
+    private static Object[] append(Object[] values, Object value) {
+        Object[] result = new Object[values.length + 1];
+        System.arraycopy(values, 0, result, 0, values.length);
+        result[values.length] = value;
+        return result;
+    }
+}
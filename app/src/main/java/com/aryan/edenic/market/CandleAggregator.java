@@ -0,0 +1,85 @@
+package com.aryan.edenic.market;
+
+import com.aryan.edenic.models.Candle;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams ticks into OHLC bars of one interval.
+ * The open bar is kept in primitives and only turned into a {@link Candle} once it closes.
+ * Not thread-safe; callers synchronize.
+ */
+public class CandleAggregator {
+    private final CandleInterval interval;
+    private final int maxBars;
+    private final ArrayDeque<Candle> completed;
+
+    // Bar currently being built
+    private long barStart = -1;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private int ticks;
+
+    public CandleAggregator(CandleInterval interval, int maxBars) {
+        this.interval = interval;
+        this.maxBars = maxBars;
+        this.completed = new ArrayDeque<>(maxBars);
+    }
+
+    /**
+     * Add a tick. Ticks must arrive in time order; older ones are ignored.
+     * @return The bar that was closed by this tick, or null if the tick fell in the open bar
+     */
+    public Candle onTick(long timestamp, double price) {
+        long start = interval.bucketStart(timestamp);
+        if (barStart >= 0 && start < barStart) {
+            return null;
+        }
+
+        Candle closed = null;
+        if (start != barStart) {
+            closed = closeBar();
+            barStart = start;
+            open = price;
+            high = price;
+            low = price;
+            ticks = 0;
+        }
+
+        if (price > high) high = price;
+        if (price < low) low = price;
+        close = price;
+        ticks++;
+        return closed;
+    }
+
+    /**
+     * @return Completed bars, oldest first, followed by the open bar if there is one
+     */
+    public List<Candle> getCandles() {
+        List<Candle> candles = new ArrayList<>(completed.size() + 1);
+        candles.addAll(completed);
+        if (barStart >= 0) {
+            candles.add(new Candle(barStart, open, high, low, close, ticks));
+        }
+        return candles;
+    }
+
+    public CandleInterval getInterval() { return interval; }
+
+    private Candle closeBar() {
+        if (barStart < 0) {
+            return null;
+        }
+        Candle candle = new Candle(barStart, open, high, low, close, ticks);
+        if (completed.size() == maxBars) {
+            completed.removeFirst();
+        }
+        completed.addLast(candle);
+        return candle;
+    }
+}
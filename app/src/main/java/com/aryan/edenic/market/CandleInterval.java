@@ -0,0 +1,22 @@
+package com.aryan.edenic.market;
+
+public enum CandleInterval {
+    ONE_MINUTE(60 * 1000),
+    FIVE_MINUTES(5 * 60 * 1000),
+    ONE_HOUR(60 * 60 * 1000);
+
+    private final long millis;
+
+    CandleInterval(long millis) {
+        this.millis = millis;
+    }
+
+    public long getMillis() { return millis; }
+
+    /**
+     * @return Start of the bar containing the given time
+     */
+    public long bucketStart(long timestamp) {
+        return timestamp - Math.floorMod(timestamp, millis);
+    }
+}
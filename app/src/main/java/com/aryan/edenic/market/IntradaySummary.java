@@ -0,0 +1,52 @@
+package com.aryan.edenic.market;
+
+import android.app.Activity;
+import android.view.View;
+import android.widget.TextView;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.analytics.IndicatorEngine;
+import com.aryan.edenic.analytics.IndicatorSet;
+import com.aryan.edenic.models.Candle;
+import com.aryan.edenic.views.SparklineView;
+
+import java.util.List;
+
+/**
+ * Fills the trade dialog's intraday chart and indicator line from ticks the app has
+ * already recorded, so neither needs a network request
+ */
+public class IntradaySummary {
+
+    private IntradaySummary() {}
+
+    public static void bind(Activity activity, View dialogView, String symbol) {
+        SparklineView chart = dialogView.findViewById(R.id.dialog_intraday_chart);
+        TextView indicators = dialogView.findViewById(R.id.dialog_indicators);
+
+        TickRecorder.getInstance(activity).loadCandles(symbol, CandleInterval.FIVE_MINUTES, candles -> {
+            if (activity.isFinishing()) return;
+
+            if (candles.size() >= 2) {
+                chart.setSeries(closes(candles));
+                chart.setVisibility(View.VISIBLE);
+            }
+
+            // Seeded from the 5 minute bars by the replay that loaded the candles
+            IndicatorSet.Snapshot snapshot = IndicatorEngine.getInstance().getSnapshot(symbol);
+            String text = snapshot != null ? snapshot.describe() : null;
+            if (text != null) {
+                indicators.setText("5m " + text);
+                indicators.setVisibility(View.VISIBLE);
+            }
+        });
+    }
+
+    private static float[] closes(List<Candle> candles) {
+        float[] closes = new float[candles.size()];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = (float) candles.get(i).getClose();
+        }
+        return closes;
+    }
+}
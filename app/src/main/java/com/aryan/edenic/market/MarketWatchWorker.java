@@ -0,0 +1,100 @@
+package com.aryan.edenic.market;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.aryan.edenic.alerts.AlertManager;
+import com.aryan.edenic.orders.OrderManager;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks resting orders and price alerts while the app is in the background.
+ * Every symbol with an open order or alert is priced once per cycle through {@link QuoteFeed}.
+ */
+public class MarketWatchWorker extends Worker {
+    private static final String TAG = "MarketWatchWorker";
+    private static final String WORK_NAME = "market_watch";
+
+    public MarketWatchWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedule the periodic check. Safe to call on every launch; an existing schedule is kept.
+     */
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+
+        // 15 minutes is the shortest period WorkManager allows
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(
+                MarketWatchWorker.class, 15, TimeUnit.MINUTES)
+                .setConstraints(constraints)
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) {
+            return Result.success();
+        }
+
+        try {
+            OrderManager orderManager = OrderManager.getInstance(getApplicationContext());
+            AlertManager alertManager = AlertManager.getInstance(getApplicationContext());
+            orderManager.loadBlocking(user.getUid());
+            alertManager.loadBlocking(user.getUid());
+
+            Set<String> symbols = new HashSet<>(orderManager.getSymbols());
+            symbols.addAll(alertManager.getSymbols());
+            if (symbols.isEmpty()) {
+                return Result.success();
+            }
+
+            // Keeps the worker publishing these symbols, so the next run reads them from there
+            QuoteFeed quoteFeed = QuoteFeed.getInstance(getApplicationContext());
+            quoteFeed.registerInterest(symbols);
+            Map<String, Double> prices = quoteFeed.getPricesBlocking(symbols);
+            int filled = 0;
+            List<Task<Void>> alertWrites = new ArrayList<>();
+            for (Map.Entry<String, Double> price : prices.entrySet()) {
+                filled += orderManager.evaluateBlocking(price.getKey(), price.getValue());
+                alertWrites.add(alertManager.evaluate(price.getKey(), price.getValue()));
+            }
+
+            // Make sure fired alerts are deleted before the process can be stopped
+            Tasks.await(Tasks.whenAll(alertWrites));
+            Log.d(TAG, "Checked " + symbols.size() + " symbols, filled " + filled + " orders");
+            return Result.success();
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking orders and alerts", e);
+            return Result.retry();
+        }
+    }
+}
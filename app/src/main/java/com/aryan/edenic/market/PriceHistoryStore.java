@@ -0,0 +1,267 @@
+package com.aryan.edenic.market;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.aryan.edenic.yahoo_finance.Result;
+import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
+import com.aryan.edenic.yahoo_finance.YahooResponse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import retrofit2.Response;
+
+/**
+ * Five years of daily closes per symbol, cached in memory and on disk, enough for
+ * multi-year backtests; analytics that want a shorter window take a {@link PriceSeries#tail}.
+ * Cached history is refreshed at most every few hours, and stale history is still served
+ * when the network is unavailable so analytics keep working offline.
+ */
+public class PriceHistoryStore {
+    private static final String TAG = "PriceHistoryStore";
+    private static final String DIRECTORY = "history";
+    private static final long CACHE_EXPIRY = 6 * 60 * 60 * 1000; // 6 hours
+    private static final String INTERVAL = "1d";
+    private static final String RANGE = "5y";
+
+    private static PriceHistoryStore instance;
+
+    public interface HistoryListener {
+        void onHistoryLoaded(Map<String, PriceSeries> history);
+    }
+
+    private final File directory;
+    private final Map<String, CachedSeries> memoryCache = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // Separate from the load executor so a load waiting on its fetches can't starve them
+    private final ExecutorService fetchExecutor = Executors.newFixedThreadPool(4);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private PriceHistoryStore(Context context) {
+        directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create history directory");
+        }
+    }
+
+    public static synchronized PriceHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new PriceHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Load history for several symbols. The listener is called on the main thread with
+     * every symbol that could be loaded; symbols with no data are left out.
+     */
+    public void load(Collection<String> symbols, HistoryListener listener) {
+        List<String> requested = new ArrayList<>(symbols);
+        executor.execute(() -> {
+            Map<String, PriceSeries> history = loadBlocking(requested);
+            mainHandler.post(() -> listener.onHistoryLoaded(history));
+        });
+    }
+
+    /**
+     * Load history on the calling thread, fetching stale symbols in parallel.
+     * Must not be called on the main thread.
+     */
+    public Map<String, PriceSeries> loadBlocking(Collection<String> symbols) {
+        Map<String, Future<PriceSeries>> pending = new HashMap<>();
+        for (String symbol : symbols) {
+            pending.put(symbol, fetchExecutor.submit(() -> get(symbol)));
+        }
+
+        Map<String, PriceSeries> history = new HashMap<>();
+        for (Map.Entry<String, Future<PriceSeries>> entry : pending.entrySet()) {
+            try {
+                PriceSeries series = entry.getValue().get();
+                if (series != null && series.size() > 1) {
+                    history.put(entry.getKey(), series);
+                }
+            } catch (ExecutionException e) {
+                Log.e(TAG, "Error loading history for " + entry.getKey(), e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Load whatever history is cached, however old, without touching the network.
+     * Must not be called on the main thread.
+     */
+    public Map<String, PriceSeries> loadCached(Collection<String> symbols) {
+        Map<String, PriceSeries> history = new HashMap<>();
+        for (String symbol : symbols) {
+            CachedSeries cached = memoryCache.get(symbol);
+            if (cached == null) {
+                cached = readFromDisk(symbol);
+                if (cached != null) {
+                    memoryCache.put(symbol, cached);
+                }
+            }
+            if (cached != null && cached.series.size() > 1) {
+                history.put(symbol, cached.series);
+            }
+        }
+        return history;
+    }
+
+    private PriceSeries get(String symbol) {
+        CachedSeries cached = memoryCache.get(symbol);
+        if (cached == null) {
+            cached = readFromDisk(symbol);
+            if (cached != null) {
+                memoryCache.put(symbol, cached);
+            }
+        }
+        if (cached != null && System.currentTimeMillis() - cached.fetchedAt < CACHE_EXPIRY) {
+            return cached.series;
+        }
+
+        PriceSeries fetched = fetch(symbol);
+        if (fetched != null) {
+            CachedSeries fresh = new CachedSeries(fetched, System.currentTimeMillis());
+            memoryCache.put(symbol, fresh);
+            writeToDisk(symbol, fresh);
+            return fetched;
+        }
+
+        // Offline or Yahoo failed: fall back to whatever we had
+        return cached != null ? cached.series : null;
+    }
+
+    private PriceSeries fetch(String symbol) {
+        try {
+            Response<YahooResponse> response = YahooFinanceClient.getInstance()
+                    .getStockData(symbol, INTERVAL, RANGE).execute();
+            YahooResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.chart == null ||
+                    body.chart.result == null || body.chart.result.isEmpty()) {
+                Log.e(TAG, "No history returned for " + symbol);
+                return null;
+            }
+            return toSeries(symbol, body.chart.result.get(0));
+        } catch (IOException e) {
+            Log.e(TAG, "Error fetching history for " + symbol, e);
+            return null;
+        }
+    }
+
+    // Flatten timestamps and closes into primitive arrays, skipping days Yahoo reports as null
+    private static PriceSeries toSeries(String symbol, Result result) {
+        if (result.timestamp == null || result.indicators == null || result.indicators.quote == null ||
+                result.indicators.quote.isEmpty() || result.indicators.quote.get(0).close == null) {
+            return null;
+        }
+
+        List<Long> timestamps = result.timestamp;
+        List<Double> closes = result.indicators.quote.get(0).close;
+        int length = Math.min(timestamps.size(), closes.size());
+        long[] times = new long[length];
+        double[] values = new double[length];
+        int count = 0;
+        for (int i = 0; i < length; i++) {
+            Long time = timestamps.get(i);
+            Double close = closes.get(i);
+            if (time != null && close != null && close > 0) {
+                times[count] = time;
+                values[count] = close;
+                count++;
+            }
+        }
+
+        long[] trimmedTimes = new long[count];
+        double[] trimmedValues = new double[count];
+        System.arraycopy(times, 0, trimmedTimes, 0, count);
+        System.arraycopy(values, 0, trimmedValues, 0, count);
+        return new PriceSeries(symbol, trimmedTimes, trimmedValues);
+    }
+
+    private File fileFor(String symbol) {
+        // The range is part of the name, so caches of a shorter range are never read as this one
+        return new File(directory, symbol.replaceAll("[^A-Za-z0-9.-]", "_") + "_" + RANGE + ".hist");
+    }
+
+    private CachedSeries readFromDisk(String symbol) {
+        File file = fileFor(symbol);
+        if (!file.exists()) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            long fetchedAt = in.readLong();
+            int count = in.readInt();
+            long[] times = new long[count];
+            double[] closes = new double[count];
+            for (int i = 0; i < count; i++) {
+                times[i] = in.readLong();
+                closes[i] = in.readDouble();
+            }
+            return new CachedSeries(new PriceSeries(symbol, times, closes), fetchedAt);
+        } catch (IOException e) {
+            Log.e(TAG, "Error reading cached history for " + symbol, e);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String symbol, CachedSeries cached) {
+        // Write beside the cache and rename over it, so a crash mid-write never leaves a
+        // truncated file that reads back as a shorter history
+        PriceSeries series = cached.series;
+        File file = fileFor(symbol);
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temp)))) {
+            out.writeLong(cached.fetchedAt);
+            out.writeInt(series.size());
+            for (int i = 0; i < series.size(); i++) {
+                out.writeLong(series.getTimestamps()[i]);
+                out.writeDouble(series.getCloses()[i]);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Error caching history for " + symbol, e);
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            Log.e(TAG, "Could not replace cached history for " + symbol);
+            temp.delete();
+        }
+    }
+
+    /**
+     * Class to hold a cached series with its fetch time
+     */
+    private static class CachedSeries {
+        final PriceSeries series;
+        final long fetchedAt;
+
+        CachedSeries(PriceSeries series, long fetchedAt) {
+            this.series = series;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.aryan.edenic.market;
+
+/**
+ * Daily closing prices for one symbol, oldest first
+ */
+public class PriceSeries {
+    private final String symbol;
+    private final long[] timestamps; // Epoch seconds
+    private final double[] closes;
+
+    public PriceSeries(String symbol, long[] timestamps, double[] closes) {
+        if (timestamps.length != closes.length) {
+            throw new IllegalArgumentException("Timestamps and closes must have the same length");
+        }
+        this.symbol = symbol;
+        this.timestamps = timestamps;
+        this.closes = closes;
+    }
+
+    // Getters
+    public String getSymbol() { return symbol; }
+    public long[] getTimestamps() { return timestamps; }
+    public double[] getCloses() { return closes; }
+
+    public int size() {
+        return closes.length;
+    }
+
+    /**
+     * The most recent closes, or this series if it has no more than that
+     */
+    public PriceSeries tail(int count) {
+        if (count >= closes.length) return this;
+        int from = closes.length - count;
+        long[] tailTimestamps = new long[count];
+        double[] tailCloses = new double[count];
+        System.arraycopy(timestamps, from, tailTimestamps, 0, count);
+        System.arraycopy(closes, from, tailCloses, 0, count);
+        return new PriceSeries(symbol, tailTimestamps, tailCloses);
+    }
+
+    public double lastClose() {
+        return closes.length > 0 ? closes[closes.length - 1] : 0;
+    }
+}
@@ -0,0 +1,453 @@
+package com.aryan.edenic.market;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.aryan.edenic.yahoo_finance.Meta;
+import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
+import com.aryan.edenic.yahoo_finance.YahooResponse;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.ValueEventListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Live quotes pushed from {@code quotes/{symbol}}, where the worker publishes each symbol
+ * once for every client. One database listener per symbol is shared by all screens
+ * watching it, and every quote is recorded as a tick. All price reads in the app go
+ * through here, so the worker's quotes are used wherever they are fresh.
+ *
+ * The worker stamps {@code quoteStatus/publishedAt} with server time on every cycle. While
+ * that is older than {@link #STALE_AFTER_MS} the worker is taken to be down, and every
+ * watched symbol is fetched from Yahoo each {@link #FALLBACK_INTERVAL_MS} instead.
+ * A symbol the worker doesn't publish yet is fetched the same way, and registered under
+ * {@code quoteInterest/{symbol}} so it joins the published set on the next refresh.
+ * A quote older than the one already held, by its market time, is ignored.
+ * Call on the main thread; listeners are called there too.
+ */
+public class QuoteFeed {
+    private static final String TAG = "QuoteFeed";
+    private static final long STALE_AFTER_MS = 5 * 60 * 1000; // Five missed publish cycles
+    private static final long FALLBACK_INTERVAL_MS = 60 * 1000;
+    private static final String PREFS_NAME = "quote_interest";
+    // The worker forgets interest after 7 days; renewing daily keeps it well inside that
+    private static final long INTEREST_REFRESH_MS = 24 * 60 * 60 * 1000;
+
+    private static QuoteFeed instance;
+
+    public interface QuoteListener {
+        void onQuote(Quote quote);
+    }
+
+    public static class Quote {
+        private final String symbol;
+        private final double price;
+        private final double changePercent;
+        private final long time;
+
+        Quote(String symbol, double price, double changePercent, long time) {
+            this.symbol = symbol;
+            this.price = price;
+            this.changePercent = changePercent;
+            this.time = time;
+        }
+
+        public String getSymbol() { return symbol; }
+        public double getPrice() { return price; }
+        public double getChangePercent() { return changePercent; }
+        public long getTime() { return time; }
+    }
+
+    private final Context context;
+    private final DatabaseReference quotesRef = FirebaseDatabase.getInstance().getReference("quotes");
+    private final DatabaseReference publishedAtRef =
+            FirebaseDatabase.getInstance().getReference("quoteStatus").child("publishedAt");
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Map<String, List<QuoteListener>> subscribers = new HashMap<>();
+    private final Map<QuoteListener, Set<String>> symbolsByListener = new HashMap<>();
+    private final Map<String, ValueEventListener> databaseListeners = new HashMap<>();
+    private final Map<String, Quote> latest = new HashMap<>();
+    private final Set<String> unpublished = new HashSet<>(); // Published node is empty
+    private final Map<String, Long> fetchedAt = new HashMap<>(); // Last fallback, elapsed realtime
+    private final Set<String> fetching = new HashSet<>();
+
+    private volatile long publishedAt = 0; // Server time of the worker's last cycle, 0 if unknown
+    private volatile long serverTimeOffset = 0;
+    private ValueEventListener publishedAtListener;
+    private final Runnable fallbackCheck = new Runnable() {
+        @Override
+        public void run() {
+            refreshFallbacks();
+            if (!subscribers.isEmpty()) {
+                mainHandler.postDelayed(this, FALLBACK_INTERVAL_MS);
+            }
+        }
+    };
+
+    private QuoteFeed(Context context) {
+        this.context = context;
+        FirebaseDatabase.getInstance().getReference(".info/serverTimeOffset")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        Long offset = snapshot.getValue(Long.class);
+                        serverTimeOffset = offset != null ? offset : 0;
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Error reading server time offset", error.toException());
+                    }
+                });
+    }
+
+    public static synchronized QuoteFeed getInstance(Context context) {
+        if (instance == null) {
+            instance = new QuoteFeed(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Make a listener follow exactly these symbols, subscribing and unsubscribing the difference.
+     * Quotes already known are delivered straight away.
+     */
+    public void setSymbols(QuoteListener listener, Collection<String> symbols) {
+        Set<String> wanted = new HashSet<>(symbols);
+        Set<String> current = symbolsByListener.get(listener);
+        if (current != null) {
+            for (String symbol : new ArrayList<>(current)) {
+                if (!wanted.contains(symbol)) {
+                    unsubscribe(listener, symbol);
+                }
+            }
+        }
+        for (String symbol : wanted) {
+            subscribe(listener, symbol);
+        }
+    }
+
+    public void subscribe(QuoteListener listener, String symbol) {
+        Set<String> symbols = symbolsByListener.computeIfAbsent(listener, key -> new HashSet<>());
+        if (!symbols.add(symbol)) return;
+
+        if (subscribers.isEmpty()) {
+            startWatchingPublisher();
+        }
+        List<QuoteListener> listeners = subscribers.computeIfAbsent(symbol, key -> new ArrayList<>());
+        listeners.add(listener);
+        Quote known = latest.get(symbol);
+        if (known != null) {
+            listener.onQuote(known);
+        }
+        if (listeners.size() == 1) {
+            attach(symbol);
+        }
+    }
+
+    public void unsubscribe(QuoteListener listener, String symbol) {
+        Set<String> symbols = symbolsByListener.get(listener);
+        if (symbols == null || !symbols.remove(symbol)) return;
+        if (symbols.isEmpty()) {
+            symbolsByListener.remove(listener);
+        }
+
+        List<QuoteListener> listeners = subscribers.get(symbol);
+        listeners.remove(listener);
+        if (listeners.isEmpty()) {
+            subscribers.remove(symbol);
+            unpublished.remove(symbol);
+            ValueEventListener databaseListener = databaseListeners.remove(symbol);
+            if (databaseListener != null) {
+                quotesRef.child(symbol).removeEventListener(databaseListener);
+            }
+            if (subscribers.isEmpty()) {
+                stopWatchingPublisher();
+            }
+        }
+    }
+
+    public void unsubscribeAll(QuoteListener listener) {
+        Set<String> symbols = symbolsByListener.get(listener);
+        if (symbols == null) return;
+        for (String symbol : new ArrayList<>(symbols)) {
+            unsubscribe(listener, symbol);
+        }
+    }
+
+    /**
+     * Deliver one quote for a symbol: the held one if the worker is live, otherwise the next
+     * to arrive, or the held one after all if nothing newer comes within a fallback interval.
+     * The listener always gets exactly one call; the quote is null if there was none to give.
+     */
+    public void get(String symbol, QuoteListener listener) {
+        Quote known = latest.get(symbol);
+        if (known != null && isPublisherLive() && !unpublished.contains(symbol)) {
+            listener.onQuote(known);
+            return;
+        }
+        OneQuote once = new OneQuote(symbol, known, listener);
+        subscribe(once, symbol);
+        mainHandler.postDelayed(once::giveUp, FALLBACK_INTERVAL_MS);
+    }
+
+    /**
+     * @return The newest quote seen this session, or null
+     */
+    public Quote getLatest(String symbol) {
+        return latest.get(symbol);
+    }
+
+    /**
+     * Current prices on the calling thread, for background work: the worker's published
+     * quotes while it is live, and one batched Yahoo request for the rest.
+     * Blocks on Firebase and the network, so never call it from the main thread.
+     * @return Prices by symbol; symbols that failed are left out
+     */
+    public Map<String, Double> getPricesBlocking(Collection<String> symbols)
+            throws ExecutionException, InterruptedException, IOException {
+        Long stamp = Tasks.await(publishedAtRef.get()).getValue(Long.class);
+        boolean live = stamp != null && serverNow() - stamp < STALE_AFTER_MS;
+
+        Map<String, Task<DataSnapshot>> reads = new HashMap<>();
+        if (live) {
+            for (String symbol : symbols) {
+                if (isPublishable(symbol)) {
+                    reads.put(symbol, quotesRef.child(symbol).get());
+                }
+            }
+            Tasks.await(Tasks.whenAllComplete(reads.values()));
+        }
+
+        Map<String, Double> prices = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        List<String> unregistered = new ArrayList<>();
+        for (String symbol : symbols) {
+            Task<DataSnapshot> read = reads.get(symbol);
+            Double price = read != null && read.isSuccessful() ?
+                    read.getResult().child("price").getValue(Double.class) : null;
+            if (price != null && price > 0) {
+                prices.put(symbol, price);
+            } else {
+                missing.add(symbol);
+                if (read != null && read.isSuccessful()) {
+                    unregistered.add(symbol);
+                }
+            }
+        }
+        if (!missing.isEmpty()) {
+            prices.putAll(YahooFinanceClient.getCurrentPrices(missing));
+        }
+        registerInterest(unregistered);
+        return prices;
+    }
+
+    /**
+     * Ask the worker to publish these symbols, e.g. because an order or alert watches them.
+     * Each symbol is written at most once a day from this device.
+     */
+    public void registerInterest(Collection<String> symbols) {
+        SharedPreferences prefs = context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        SharedPreferences.Editor editor = prefs.edit();
+        long now = System.currentTimeMillis();
+        Map<String, Object> updates = new HashMap<>();
+        for (String symbol : symbols) {
+            if (isPublishable(symbol) && now - prefs.getLong(symbol, 0) >= INTEREST_REFRESH_MS) {
+                updates.put(symbol, ServerValue.TIMESTAMP);
+                editor.putLong(symbol, now);
+            }
+        }
+        if (updates.isEmpty()) return;
+        editor.apply();
+        FirebaseDatabase.getInstance().getReference("quoteInterest").updateChildren(updates)
+                .addOnFailureListener(e -> Log.e(TAG, "Error registering interest in " + updates.keySet(), e));
+    }
+
+    private void attach(String symbol) {
+        if (!isPublishable(symbol)) {
+            fetch(symbol);
+            return;
+        }
+        ValueEventListener databaseListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Double price = snapshot.child("price").getValue(Double.class);
+                if (price == null || price <= 0) {
+                    unpublished.add(symbol);
+                    registerInterest(Collections.singleton(symbol));
+                    fetch(symbol);
+                    return;
+                }
+                unpublished.remove(symbol);
+                Double changePercent = snapshot.child("changePercent").getValue(Double.class);
+                Long time = snapshot.child("time").getValue(Long.class);
+                publish(new Quote(symbol, price, changePercent != null ? changePercent : 0,
+                        time != null ? time : System.currentTimeMillis()));
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error listening to quote for " + symbol, error.toException());
+            }
+        };
+        databaseListeners.put(symbol, databaseListener);
+        quotesRef.child(symbol).addValueEventListener(databaseListener);
+    }
+
+    private void publish(Quote quote) {
+        Quote known = latest.get(quote.getSymbol());
+        if (known != null && quote.getTime() < known.getTime()) {
+            return; // E.g. a stale published quote after a fresher fallback
+        }
+        latest.put(quote.getSymbol(), quote);
+        TickRecorder.getInstance(context).record(quote.getSymbol(), quote.getPrice(), quote.getTime());
+
+        List<QuoteListener> listeners = subscribers.get(quote.getSymbol());
+        if (listeners == null) return;
+        for (QuoteListener listener : new ArrayList<>(listeners)) {
+            listener.onQuote(quote);
+        }
+    }
+
+    private void startWatchingPublisher() {
+        publishedAtListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                Long stamp = snapshot.getValue(Long.class);
+                publishedAt = stamp != null ? stamp : 0;
+                if (!isPublisherLive()) {
+                    refreshFallbacks();
+                }
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error watching quote publisher", error.toException());
+            }
+        };
+        publishedAtRef.addValueEventListener(publishedAtListener);
+        mainHandler.postDelayed(fallbackCheck, FALLBACK_INTERVAL_MS);
+    }
+
+    private void stopWatchingPublisher() {
+        mainHandler.removeCallbacks(fallbackCheck);
+        if (publishedAtListener != null) {
+            publishedAtRef.removeEventListener(publishedAtListener);
+            publishedAtListener = null;
+        }
+    }
+
+    // Fetch what the worker isn't keeping fresh, each symbol at most once per interval
+    private void refreshFallbacks() {
+        boolean live = isPublisherLive();
+        for (String symbol : subscribers.keySet()) {
+            boolean pushed = databaseListeners.containsKey(symbol) && !unpublished.contains(symbol);
+            if (!pushed || !live) {
+                fetch(symbol);
+            }
+        }
+    }
+
+    private boolean isPublisherLive() {
+        return publishedAt > 0 && serverNow() - publishedAt < STALE_AFTER_MS;
+    }
+
+    private long serverNow() {
+        return System.currentTimeMillis() + serverTimeOffset;
+    }
+
+    private void fetch(String symbol) {
+        Long last = fetchedAt.get(symbol);
+        long now = SystemClock.elapsedRealtime();
+        if ((last != null && now - last < FALLBACK_INTERVAL_MS) || !fetching.add(symbol)) return;
+        fetchedAt.put(symbol, now);
+
+        YahooFinanceClient.getInstance().getStockData(symbol, "1d", "1d")
+                .enqueue(new Callback<YahooResponse>() {
+                    @Override
+                    public void onResponse(Call<YahooResponse> call, Response<YahooResponse> response) {
+                        fetching.remove(symbol);
+                        YahooResponse body = response.body();
+                        if (!response.isSuccessful() || body == null || body.chart == null ||
+                                body.chart.result == null || body.chart.result.isEmpty() ||
+                                body.chart.result.get(0).meta == null) {
+                            return;
+                        }
+                        Meta meta = body.chart.result.get(0).meta;
+                        if (meta.regularMarketPrice <= 0) {
+                            return;
+                        }
+                        double changePercent = meta.previousClose > 0 ?
+                                ((meta.regularMarketPrice - meta.previousClose) / meta.previousClose) * 100 : 0;
+                        publish(new Quote(symbol, meta.regularMarketPrice, changePercent,
+                                meta.regularMarketTime * 1000));
+                    }
+
+                    @Override
+                    public void onFailure(Call<YahooResponse> call, Throwable t) {
+                        fetching.remove(symbol);
+                        Log.e(TAG, "Error fetching price for " + symbol, t);
+                    }
+                });
+    }
+
+    // Follows a symbol until a quote newer than the held one arrives, then stops
+    private class OneQuote implements QuoteListener {
+        private final String symbol;
+        private final Quote stale;
+        private final QuoteListener listener;
+        private boolean delivered = false;
+
+        OneQuote(String symbol, Quote stale, QuoteListener listener) {
+            this.symbol = symbol;
+            this.stale = stale;
+            this.listener = listener;
+        }
+
+        @Override
+        public void onQuote(Quote quote) {
+            if (delivered || quote == stale) return;
+            delivered = true;
+            listener.onQuote(quote);
+            // Not from inside the delivery loop
+            mainHandler.post(() -> unsubscribe(this, symbol));
+        }
+
+        void giveUp() {
+            if (delivered) return;
+            delivered = true;
+            unsubscribe(this, symbol);
+            listener.onQuote(stale);
+        }
+    }
+
+    // Database keys can't contain these characters
+    private static boolean isPublishable(String symbol) {
+        return !symbol.isEmpty() && symbol.chars().noneMatch(c -> ".#$[]/".indexOf(c) >= 0);
+    }
+}
@@ -0,0 +1,203 @@
+package com.aryan.edenic.market;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.aryan.edenic.analytics.IndicatorEngine;
+import com.aryan.edenic.models.Candle;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Records every observed quote into a per-symbol {@link TickRingBuffer} and streams the
+ * ticks into 1m/5m/1h candles. On first use of a symbol the mapped file is replayed, so
+ * candles and indicators are restored after a restart without going to the network.
+ * Closed 5 minute bars are fed to the {@link IndicatorEngine}.
+ */
+public class TickRecorder {
+    private static final String TAG = "TickRecorder";
+    private static final String DIRECTORY = "ticks";
+    private static final int TICK_CAPACITY = 8192; // 128 KB per symbol
+    private static final int MAX_BARS = 500;
+
+    private static TickRecorder instance;
+
+    public interface TickListener {
+        void onTick(String symbol, long timestamp, double price);
+    }
+
+    public interface CandlesListener {
+        void onCandlesLoaded(List<Candle> candles);
+    }
+
+    private final File directory;
+    private final Map<String, SymbolSeries> series = new ConcurrentHashMap<>();
+    private final List<TickListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private TickRecorder(Context context) {
+        directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create tick directory");
+        }
+    }
+
+    public static synchronized TickRecorder getInstance(Context context) {
+        if (instance == null) {
+            instance = new TickRecorder(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Record a quote. Disk work happens on a background thread.
+     * @param timestamp Quote time in millis; 0 or less uses the current time
+     */
+    public void record(String symbol, double price, long timestamp) {
+        if (symbol == null || price <= 0) {
+            return;
+        }
+        long time = timestamp > 0 ? timestamp : System.currentTimeMillis();
+
+        executor.execute(() -> {
+            SymbolSeries symbolSeries = getSeries(symbol);
+            if (symbolSeries == null || !symbolSeries.append(time, price)) {
+                return;
+            }
+            // Listeners are called on the main thread, like the rest of the UI callbacks
+            mainHandler.post(() -> {
+                for (TickListener listener : listeners) {
+                    listener.onTick(symbol, time, price);
+                }
+            });
+        });
+    }
+
+    public void record(String symbol, double price) {
+        record(symbol, price, 0);
+    }
+
+    /**
+     * Get candles for a symbol, oldest first. The first call for a symbol replays its
+     * tick file, so avoid calling this on the main thread.
+     */
+    public List<Candle> getCandles(String symbol, CandleInterval interval) {
+        SymbolSeries symbolSeries = getSeries(symbol);
+        if (symbolSeries == null) {
+            return Collections.emptyList();
+        }
+        return symbolSeries.getCandles(interval);
+    }
+
+    /**
+     * Get candles on the recording thread, which also replays the tick file and so seeds the
+     * symbol's indicators. The listener is called on the main thread.
+     */
+    public void loadCandles(String symbol, CandleInterval interval, CandlesListener listener) {
+        executor.execute(() -> {
+            List<Candle> candles = getCandles(symbol, interval);
+            mainHandler.post(() -> listener.onCandlesLoaded(candles));
+        });
+    }
+
+    public void addListener(TickListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(TickListener listener) {
+        listeners.remove(listener);
+    }
+
+    private SymbolSeries getSeries(String symbol) {
+        SymbolSeries existing = series.get(symbol);
+        if (existing != null) {
+            return existing;
+        }
+
+        synchronized (series) {
+            existing = series.get(symbol);
+            if (existing != null) {
+                return existing;
+            }
+            try {
+                SymbolSeries created = new SymbolSeries(symbol,
+                        new TickRingBuffer(new File(directory, fileName(symbol)), TICK_CAPACITY));
+                series.put(symbol, created);
+                return created;
+            } catch (IOException e) {
+                Log.e(TAG, "Error opening tick file for " + symbol, e);
+                return null;
+            }
+        }
+    }
+
+    // Symbols like ^GSPC or BRK-B need to be safe as file names
+    private static String fileName(String symbol) {
+        return symbol.replaceAll("[^A-Za-z0-9.-]", "_") + ".ticks";
+    }
+
+    /**
+     * Ring buffer plus aggregators for one symbol
+     */
+    private static class SymbolSeries {
+        private final String symbol;
+        private final TickRingBuffer ticks;
+        private final Map<CandleInterval, CandleAggregator> aggregators = new EnumMap<>(CandleInterval.class);
+        private long lastTimestamp = -1;
+        private double lastPrice = Double.NaN;
+
+        SymbolSeries(String symbol, TickRingBuffer ticks) {
+            this.symbol = symbol;
+            this.ticks = ticks;
+            for (CandleInterval interval : CandleInterval.values()) {
+                aggregators.put(interval, new CandleAggregator(interval, MAX_BARS));
+            }
+
+            // Rebuild candles and indicators from what was recorded before the restart
+            ticks.replay(this::aggregate);
+            Log.d(TAG, "Replayed " + ticks.size() + " ticks for " + symbol);
+        }
+
+        /**
+         * @return False if the tick was a duplicate or out of order
+         */
+        synchronized boolean append(long timestamp, double price) {
+            // Refreshes often return the same quote again; only keep new information
+            if (timestamp < lastTimestamp || (timestamp == lastTimestamp && price == lastPrice)) {
+                return false;
+            }
+            ticks.append(timestamp, price);
+            aggregate(timestamp, price);
+            return true;
+        }
+
+        synchronized List<Candle> getCandles(CandleInterval interval) {
+            return aggregators.get(interval).getCandles();
+        }
+
+        private void aggregate(long timestamp, double price) {
+            for (CandleAggregator aggregator : aggregators.values()) {
+                Candle closed = aggregator.onTick(timestamp, price);
+                if (closed != null && aggregator.getInterval() == CandleInterval.FIVE_MINUTES) {
+                    IndicatorEngine.getInstance().onPrice(symbol, closed.getClose());
+                }
+            }
+            lastTimestamp = timestamp;
+            lastPrice = price;
+        }
+    }
+}
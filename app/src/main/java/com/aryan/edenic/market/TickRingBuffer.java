@@ -0,0 +1,95 @@
+package com.aryan.edenic.market;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Fixed-size ring of (timestamp, price) ticks stored in a memory-mapped file.
+ * Appends are plain memory writes, and the OS flushes the pages, so ticks survive
+ * app restarts without any explicit save.
+ *
+ * Layout: a 32 byte header (magic, version, capacity, total ticks written) followed by
+ * {@code capacity} records of 16 bytes (long timestamp millis, double price).
+ */
+public class TickRingBuffer implements Closeable {
+    private static final int MAGIC = 0x45544B31; // "ETK1"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 16;
+    private static final int OFFSET_CAPACITY = 8;
+    private static final int OFFSET_COUNT = 16;
+
+    public interface TickVisitor {
+        void onTick(long timestamp, double price);
+    }
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+    private long count;
+
+    public TickRingBuffer(File path, int capacity) throws IOException {
+        this.file = new RandomAccessFile(path, "rw");
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        boolean fresh = file.length() != size;
+        if (fresh) {
+            // New file, or written with a different capacity: start over
+            file.setLength(0);
+            file.setLength(size);
+        }
+        this.buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        this.capacity = capacity;
+
+        if (fresh || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION ||
+                buffer.getInt(OFFSET_CAPACITY) != capacity) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(OFFSET_CAPACITY, capacity);
+            buffer.putLong(OFFSET_COUNT, 0);
+        }
+        this.count = buffer.getLong(OFFSET_COUNT);
+    }
+
+    public synchronized void append(long timestamp, double price) {
+        int offset = HEADER_SIZE + (int) (count % capacity) * RECORD_SIZE;
+        buffer.putLong(offset, timestamp);
+        buffer.putDouble(offset + 8, price);
+        count++;
+        // Bump the count last so a crash mid-write never exposes a torn record
+        buffer.putLong(OFFSET_COUNT, count);
+    }
+
+    /**
+     * Visit the stored ticks from oldest to newest
+     */
+    public synchronized void replay(TickVisitor visitor) {
+        int stored = size();
+        long first = count - stored;
+        for (long i = first; i < count; i++) {
+            int offset = HEADER_SIZE + (int) (i % capacity) * RECORD_SIZE;
+            visitor.onTick(buffer.getLong(offset), buffer.getDouble(offset + 8));
+        }
+    }
+
+    /**
+     * @return Timestamp of the newest tick, or -1 if empty
+     */
+    public synchronized long lastTimestamp() {
+        if (count == 0) return -1;
+        return buffer.getLong(HEADER_SIZE + (int) ((count - 1) % capacity) * RECORD_SIZE);
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        file.close();
+    }
+}
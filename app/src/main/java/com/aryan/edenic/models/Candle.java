@@ -0,0 +1,34 @@
+package com.aryan.edenic.models;
+
+/**
+ * One OHLC bar built from recorded ticks
+ */
+public class Candle {
+    private final long startTime;
+    private final double open;
+    private final double high;
+    private final double low;
+    private final double close;
+    private final int tickCount;
+
+    public Candle(long startTime, double open, double high, double low, double close, int tickCount) {
+        this.startTime = startTime;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.tickCount = tickCount;
+    }
+
+    // Getters
+    public long getStartTime() { return startTime; }
+    public double getOpen() { return open; }
+    public double getHigh() { return high; }
+    public double getLow() { return low; }
+    public double getClose() { return close; }
+    public int getTickCount() { return tickCount; }
+
+    public boolean isUp() {
+        return close >= open;
+    }
+}
@@ -7,7 +7,7 @@ public class ChatContact {
     private String email;
     private String lastMessage;
     private long lastMessageTime;
-    private int unreadCount;
+    private long lastReadTime; // Server time of the newest message this user has read
     private boolean isConnected; // Whether user has accepted connection
     private boolean pendingRequest; // Whether there's a pending request
 
@@ -22,7 +22,7 @@ public class ChatContact {
         this.email = email;
         this.lastMessage = "";
         this.lastMessageTime = 0;
-        this.unreadCount = 0;
+        this.lastReadTime = 0;
         this.isConnected = false;
         this.pendingRequest = false;
     }
@@ -46,8 +46,11 @@ public class ChatContact {
     public long getLastMessageTime() { return lastMessageTime; }
     public void setLastMessageTime(long lastMessageTime) { this.lastMessageTime = lastMessageTime; }
 
-    public int getUnreadCount() { return unreadCount; }
-    public void setUnreadCount(int unreadCount) { this.unreadCount = unreadCount; }
+    public long getLastReadTime() { return lastReadTime; }
+    public void setLastReadTime(long lastReadTime) { this.lastReadTime = lastReadTime; }
+
+    // Derived from the two times, so there is no counter to reset or race over
+    public boolean hasUnread() { return lastMessageTime > lastReadTime; }
 
     public boolean isConnected() { return isConnected; }
     public void setConnected(boolean connected) { isConnected = connected; }
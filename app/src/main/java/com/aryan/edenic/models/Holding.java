@@ -0,0 +1,58 @@
+package com.aryan.edenic.models;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact stored form of a position, kept at {@code users/{uid}/account/holdings/{symbol}}.
+ * Only the quantity and total cost are stored; the symbol is the key, the average price
+ * is derived, and the company name and market price are looked up when needed.
+ */
+public class Holding {
+    private final String symbol;
+    private final int quantity;
+    private final double cost;
+
+    public Holding(String symbol, int quantity, double cost) {
+        this.symbol = symbol;
+        this.quantity = quantity;
+        this.cost = cost;
+    }
+
+    public static Holding from(PortfolioItem item) {
+        return new Holding(item.getSymbol(), item.getQuantity(), item.getInvestedAmount());
+    }
+
+    // Getters
+    public String getSymbol() { return symbol; }
+    public int getQuantity() { return quantity; }
+    public double getCost() { return cost; }
+
+    public double getAvgPrice() {
+        return quantity > 0 ? cost / quantity : 0;
+    }
+
+    /**
+     * Expand into a portfolio item. Until a quote arrives the average price stands in
+     * for the market price.
+     */
+    public PortfolioItem toPortfolioItem(String companyName, double currentPrice) {
+        return new PortfolioItem(symbol, companyName,
+                currentPrice > 0 ? currentPrice : getAvgPrice(), quantity, cost);
+    }
+
+    // Method to convert to a Map for Firebase
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("qty", quantity);
+        map.put("cost", cost);
+        return map;
+    }
+
+    // Factory method to create from Firebase data
+    public static Holding fromMap(String symbol, Map<String, Object> map) {
+        int quantity = map.get("qty") instanceof Number ? ((Number) map.get("qty")).intValue() : 0;
+        double cost = map.get("cost") instanceof Number ? ((Number) map.get("cost")).doubleValue() : 0;
+        return new Holding(symbol, quantity, cost);
+    }
+}
@@ -0,0 +1,133 @@
+package com.aryan.edenic.models;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Model class for a resting limit, stop or stop-limit order
+ */
+public class PendingOrder {
+    public enum OrderType {
+        LIMIT, STOP, STOP_LIMIT
+    }
+
+    private String id;
+    private String symbol;
+    private String companyName;
+    private Transaction.Type side;
+    private OrderType orderType;
+    private int quantity;
+    private double limitPrice;
+    private double stopPrice;
+    private boolean stopTriggered; // Stop-limit orders become limit orders once the stop is hit
+    private long createdAt;
+
+    public PendingOrder(String symbol, String companyName, Transaction.Type side, OrderType orderType,
+                        int quantity, double limitPrice, double stopPrice) {
+        this.id = UUID.randomUUID().toString();
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.side = side;
+        this.orderType = orderType;
+        this.quantity = quantity;
+        this.limitPrice = limitPrice;
+        this.stopPrice = stopPrice;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    private PendingOrder() {}
+
+    // Getters
+    public String getId() { return id; }
+    public String getSymbol() { return symbol; }
+    public String getCompanyName() { return companyName; }
+    public Transaction.Type getSide() { return side; }
+    public OrderType getOrderType() { return orderType; }
+    public int getQuantity() { return quantity; }
+    public double getLimitPrice() { return limitPrice; }
+    public double getStopPrice() { return stopPrice; }
+    public boolean isStopTriggered() { return stopTriggered; }
+    public long getCreatedAt() { return createdAt; }
+
+    public void setStopTriggered(boolean stopTriggered) {
+        this.stopTriggered = stopTriggered;
+    }
+
+    /**
+     * @return True while the order is waiting on its limit price rather than its stop price
+     */
+    public boolean isLimitPhase() {
+        return orderType == OrderType.LIMIT || (orderType == OrderType.STOP_LIMIT && stopTriggered);
+    }
+
+    /**
+     * @return The price the order is currently waiting for
+     */
+    public double getTriggerPrice() {
+        return isLimitPhase() ? limitPrice : stopPrice;
+    }
+
+    /**
+     * Buy limits and sell stops fire when the price falls to the trigger;
+     * sell limits and buy stops fire when it rises to it.
+     */
+    public boolean firesAtOrBelow() {
+        return isLimitPhase() == (side == Transaction.Type.BUY);
+    }
+
+    public boolean isTriggeredBy(double price) {
+        return firesAtOrBelow() ? price <= getTriggerPrice() : price >= getTriggerPrice();
+    }
+
+    public String getDescription() {
+        String side = this.side == Transaction.Type.BUY ? "Buy" : "Sell";
+        switch (orderType) {
+            case LIMIT:
+                return String.format("%s %d %s limit $%.2f", side, quantity, symbol, limitPrice);
+            case STOP:
+                return String.format("%s %d %s stop $%.2f", side, quantity, symbol, stopPrice);
+            default:
+                return String.format("%s %d %s stop $%.2f limit $%.2f", side, quantity, symbol,
+                        stopPrice, limitPrice);
+        }
+    }
+
+    // Method to convert to a Map for Firebase
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("symbol", symbol);
+        map.put("companyName", companyName);
+        map.put("side", side.toString());
+        map.put("orderType", orderType.toString());
+        map.put("quantity", quantity);
+        map.put("limitPrice", limitPrice);
+        map.put("stopPrice", stopPrice);
+        map.put("stopTriggered", stopTriggered);
+        map.put("createdAt", createdAt);
+        return map;
+    }
+
+    // Factory method to create from Firebase data
+    public static PendingOrder fromMap(Map<String, Object> map) {
+        PendingOrder order = new PendingOrder();
+        order.id = (String) map.get("id");
+        order.symbol = (String) map.get("symbol");
+        order.companyName = (String) map.get("companyName");
+        order.side = Transaction.Type.valueOf((String) map.get("side"));
+        order.orderType = OrderType.valueOf((String) map.get("orderType"));
+        order.quantity = ((Number) map.get("quantity")).intValue();
+        order.limitPrice = getDoubleValue(map.get("limitPrice"));
+        order.stopPrice = getDoubleValue(map.get("stopPrice"));
+        order.stopTriggered = Boolean.TRUE.equals(map.get("stopTriggered"));
+        order.createdAt = map.get("createdAt") instanceof Number ?
+                ((Number) map.get("createdAt")).longValue() : System.currentTimeMillis();
+        return order;
+    }
+
+    // Helper method to safely convert to double
+    private static double getDoubleValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
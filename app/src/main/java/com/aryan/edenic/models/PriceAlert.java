@@ -0,0 +1,116 @@
+package com.aryan.edenic.models;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Model class for a user-defined price alert.
+ * Percent alerts are measured from the price when the alert was created,
+ * so every alert reduces to a fixed threshold price.
+ */
+public class PriceAlert {
+    public enum AlertType {
+        PRICE_ABOVE, PRICE_BELOW, PERCENT_UP, PERCENT_DOWN
+    }
+
+    private String id;
+    private String symbol;
+    private String companyName;
+    private AlertType alertType;
+    private double target; // Price for price alerts, percent for percent alerts
+    private double referencePrice;
+    private long createdAt;
+
+    public PriceAlert(String symbol, String companyName, AlertType alertType,
+                      double target, double referencePrice) {
+        this.id = UUID.randomUUID().toString();
+        this.symbol = symbol;
+        this.companyName = companyName;
+        this.alertType = alertType;
+        this.target = target;
+        this.referencePrice = referencePrice;
+        this.createdAt = System.currentTimeMillis();
+    }
+
+    private PriceAlert() {}
+
+    // Getters
+    public String getId() { return id; }
+    public String getSymbol() { return symbol; }
+    public String getCompanyName() { return companyName; }
+    public AlertType getAlertType() { return alertType; }
+    public double getTarget() { return target; }
+    public double getReferencePrice() { return referencePrice; }
+    public long getCreatedAt() { return createdAt; }
+
+    /**
+     * @return True if the alert fires when the price rises to its threshold
+     */
+    public boolean isUpper() {
+        return alertType == AlertType.PRICE_ABOVE || alertType == AlertType.PERCENT_UP;
+    }
+
+    /**
+     * @return The price at which the alert fires
+     */
+    public double getThresholdPrice() {
+        switch (alertType) {
+            case PERCENT_UP:
+                return referencePrice * (1 + target / 100);
+            case PERCENT_DOWN:
+                return referencePrice * (1 - target / 100);
+            default:
+                return target;
+        }
+    }
+
+    public boolean isTriggeredBy(double price) {
+        return isUpper() ? price >= getThresholdPrice() : price <= getThresholdPrice();
+    }
+
+    public String getDescription() {
+        switch (alertType) {
+            case PRICE_ABOVE:
+                return String.format("%s above $%.2f", symbol, target);
+            case PRICE_BELOW:
+                return String.format("%s below $%.2f", symbol, target);
+            case PERCENT_UP:
+                return String.format("%s up %.1f%% ($%.2f)", symbol, target, getThresholdPrice());
+            default:
+                return String.format("%s down %.1f%% ($%.2f)", symbol, target, getThresholdPrice());
+        }
+    }
+
+    // Method to convert to a Map for Firebase
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("id", id);
+        map.put("symbol", symbol);
+        map.put("companyName", companyName);
+        map.put("alertType", alertType.toString());
+        map.put("target", target);
+        map.put("referencePrice", referencePrice);
+        map.put("createdAt", createdAt);
+        return map;
+    }
+
+    // Factory method to create from Firebase data
+    public static PriceAlert fromMap(Map<String, Object> map) {
+        PriceAlert alert = new PriceAlert();
+        alert.id = (String) map.get("id");
+        alert.symbol = (String) map.get("symbol");
+        alert.companyName = (String) map.get("companyName");
+        alert.alertType = AlertType.valueOf((String) map.get("alertType"));
+        alert.target = getDoubleValue(map.get("target"));
+        alert.referencePrice = getDoubleValue(map.get("referencePrice"));
+        alert.createdAt = map.get("createdAt") instanceof Number ?
+                ((Number) map.get("createdAt")).longValue() : System.currentTimeMillis();
+        return alert;
+    }
+
+    // Helper method to safely convert to double
+    private static double getDoubleValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
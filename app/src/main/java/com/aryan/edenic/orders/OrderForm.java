@@ -0,0 +1,80 @@
+package com.aryan.edenic.orders;
+
+import android.view.View;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.models.PendingOrder;
+import com.aryan.edenic.models.Stock;
+import com.aryan.edenic.models.Transaction;
+
+/**
+ * Binds the order type controls of the trade dialog and builds a {@link PendingOrder} from them
+ */
+public class OrderForm {
+    private final RadioGroup orderTypeGroup;
+    private final View stopPriceLayout;
+    private final View limitPriceLayout;
+    private final EditText stopPriceInput;
+    private final EditText limitPriceInput;
+
+    public OrderForm(View dialogView) {
+        orderTypeGroup = dialogView.findViewById(R.id.order_type_group);
+        stopPriceLayout = dialogView.findViewById(R.id.stop_price_layout);
+        limitPriceLayout = dialogView.findViewById(R.id.limit_price_layout);
+        stopPriceInput = dialogView.findViewById(R.id.stop_price_input);
+        limitPriceInput = dialogView.findViewById(R.id.limit_price_input);
+
+        // Show only the price fields the selected order type needs
+        orderTypeGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            stopPriceLayout.setVisibility(checkedId == R.id.radio_stop ||
+                    checkedId == R.id.radio_stop_limit ? View.VISIBLE : View.GONE);
+            limitPriceLayout.setVisibility(checkedId == R.id.radio_limit ||
+                    checkedId == R.id.radio_stop_limit ? View.VISIBLE : View.GONE);
+        });
+    }
+
+    public boolean isMarketOrder() {
+        return orderTypeGroup.getCheckedRadioButtonId() == R.id.radio_market;
+    }
+
+    /**
+     * Build a resting order from the form
+     * @return The order, or null if a required price is missing (the field shows the error)
+     */
+    public PendingOrder buildOrder(Stock stock, boolean isBuy, int quantity) {
+        int checkedId = orderTypeGroup.getCheckedRadioButtonId();
+        PendingOrder.OrderType orderType = checkedId == R.id.radio_limit ? PendingOrder.OrderType.LIMIT :
+                checkedId == R.id.radio_stop ? PendingOrder.OrderType.STOP : PendingOrder.OrderType.STOP_LIMIT;
+
+        double stopPrice = 0;
+        double limitPrice = 0;
+        if (orderType != PendingOrder.OrderType.LIMIT) {
+            stopPrice = readPrice(stopPriceInput);
+            if (stopPrice <= 0) return null;
+        }
+        if (orderType != PendingOrder.OrderType.STOP) {
+            limitPrice = readPrice(limitPriceInput);
+            if (limitPrice <= 0) return null;
+        }
+
+        return new PendingOrder(stock.getSymbol(), stock.getName(),
+                isBuy ? Transaction.Type.BUY : Transaction.Type.SELL,
+                orderType, quantity, limitPrice, stopPrice);
+    }
+
+    private double readPrice(EditText input) {
+        try {
+            double price = Double.parseDouble(input.getText().toString().trim());
+            if (price > 0) {
+                input.setError(null);
+                return price;
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below
+        }
+        input.setError("Enter a valid price");
+        return 0;
+    }
+}
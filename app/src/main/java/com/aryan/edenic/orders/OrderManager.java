@@ -0,0 +1,307 @@
+package com.aryan.edenic.orders;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.core.app.NotificationCompat;
+import androidx.core.app.NotificationManagerCompat;
+import androidx.core.content.ContextCompat;
+
+import com.aryan.edenic.R;
+import com.aryan.edenic.market.QuoteFeed;
+import com.aryan.edenic.market.TickRecorder;
+import com.aryan.edenic.models.PendingOrder;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps the signed-in user's resting orders in per-symbol {@link TriggerBook}s and fills
+ * them when a price crosses their trigger. Orders are persisted under {@code orders/{uid}},
+ * evaluated on every recorded tick while the app runs, and by
+ * {@link com.aryan.edenic.market.MarketWatchWorker} in the background.
+ */
+public class OrderManager implements TickRecorder.TickListener {
+    private static final String TAG = "OrderManager";
+
+    private static OrderManager instance;
+
+    public interface OrderListener {
+        void onOrderFilled(PendingOrder order, double price);
+    }
+
+    private final Context context;
+    private final Map<String, TriggerBook> books = new HashMap<>();
+    private final Map<String, PendingOrder> ordersById = new HashMap<>();
+    private final List<OrderListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private String userId;
+
+    private OrderManager(Context context) {
+        this.context = context;
+        TickRecorder.getInstance(context).addListener(this);
+    }
+
+    public static synchronized OrderManager getInstance(Context context) {
+        if (instance == null) {
+            instance = new OrderManager(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Load a user's open orders into the trigger books
+     */
+    public void load(String userId) {
+        synchronized (this) {
+            this.userId = userId;
+        }
+        ordersRef(userId).addListenerForSingleValueEvent(new ValueEventListener() {
+            @Override
+            public void onDataChange(@NonNull DataSnapshot snapshot) {
+                rebuild(userId, snapshot);
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Error loading orders", error.toException());
+            }
+        });
+    }
+
+    /**
+     * Load a user's open orders on the calling thread (used by background work)
+     */
+    public void loadBlocking(String userId) throws ExecutionException, InterruptedException {
+        rebuild(userId, Tasks.await(ordersRef(userId).get()));
+    }
+
+    /**
+     * Save an order for a user. It rests in the trigger books if that user's orders are the
+     * ones loaded; otherwise {@link #load(String)} picks it up.
+     */
+    public Task<Void> place(String userId, PendingOrder order) {
+        boolean tracked;
+        synchronized (this) {
+            if (this.userId == null) {
+                this.userId = userId;
+            }
+            tracked = userId.equals(this.userId);
+            if (tracked) {
+                add(order);
+            }
+        }
+        // Keep the worker publishing this symbol while the order rests
+        QuoteFeed.getInstance(context).registerInterest(Collections.singleton(order.getSymbol()));
+        return ordersRef(userId).child(order.getId()).setValue(order.toMap())
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error saving order", e);
+                    if (tracked) {
+                        synchronized (this) {
+                            remove(order);
+                        }
+                    }
+                });
+    }
+
+    public Task<Void> cancel(String userId, PendingOrder order) {
+        synchronized (this) {
+            if (userId.equals(this.userId)) {
+                remove(order);
+            }
+        }
+        return ordersRef(userId).child(order.getId()).removeValue();
+    }
+
+    public synchronized List<PendingOrder> getOpenOrders() {
+        return new ArrayList<>(ordersById.values());
+    }
+
+    public synchronized Set<String> getSymbols() {
+        Set<String> symbols = new HashSet<>();
+        for (Map.Entry<String, TriggerBook> entry : books.entrySet()) {
+            if (entry.getValue().size() > 0) {
+                symbols.add(entry.getKey());
+            }
+        }
+        return symbols;
+    }
+
+    public void addListener(OrderListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(OrderListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void onTick(String symbol, long timestamp, double price) {
+        // Cheap check on the main thread; fills go to the background
+        synchronized (this) {
+            TriggerBook book = books.get(symbol);
+            if (book == null || book.size() == 0) return;
+        }
+        executor.execute(() -> evaluateBlocking(symbol, price));
+    }
+
+    /**
+     * Fire and fill every order triggered by a price. Blocks on Firebase, so call it off the main thread.
+     * @return Number of orders filled
+     */
+    public int evaluateBlocking(String symbol, double price) {
+        TriggerBook.Result result;
+        String user;
+        synchronized (this) {
+            TriggerBook book = books.get(symbol);
+            if (book == null || userId == null) return 0;
+            result = book.onPrice(price);
+            for (PendingOrder order : result.fired) {
+                ordersById.remove(order.getId());
+            }
+            user = userId;
+        }
+
+        // Persist stop-limits that are now resting on their limit price. One that can't be
+        // saved goes back to waiting on its stop, so memory never runs ahead of the database.
+        for (PendingOrder order : result.converted) {
+            if (!result.fired.contains(order) && !saveStopTriggered(user, order)) {
+                synchronized (this) {
+                    if (ordersById.containsKey(order.getId())) {
+                        remove(order);
+                        order.setStopTriggered(false);
+                        add(order);
+                    }
+                }
+            }
+        }
+
+        int filled = 0;
+        for (PendingOrder order : result.fired) {
+            TradeExecutor.Outcome outcome = TradeExecutor.fill(user, order, price);
+            if (outcome == TradeExecutor.Outcome.FILLED) {
+                filled++;
+                showOrderNotification("Order Filled", order.getDescription() +
+                        String.format(" filled at $%.2f", price));
+                mainHandler.post(() -> {
+                    for (OrderListener listener : listeners) {
+                        listener.onOrderFilled(order, price);
+                    }
+                });
+            } else if (outcome == TradeExecutor.Outcome.FAILED) {
+                // Network trouble: keep the order for the next tick, with its stop recorded
+                // if it was hit on this one
+                boolean stopSaved = !result.converted.contains(order) || saveStopTriggered(user, order);
+                synchronized (this) {
+                    if (!stopSaved) {
+                        order.setStopTriggered(false);
+                    }
+                    if (user.equals(userId)) {
+                        add(order);
+                    }
+                }
+            } else {
+                showOrderNotification("Order Cancelled", order.getDescription() +
+                        (outcome == TradeExecutor.Outcome.INSUFFICIENT_FUNDS ?
+                                " cancelled: not enough balance" : " cancelled: not enough shares"));
+            }
+        }
+        return filled;
+    }
+
+    private synchronized void rebuild(String userId, DataSnapshot snapshot) {
+        this.userId = userId;
+        books.clear();
+        ordersById.clear();
+
+        for (DataSnapshot orderSnapshot : snapshot.getChildren()) {
+            try {
+                Map<String, Object> data = new HashMap<>();
+                for (DataSnapshot child : orderSnapshot.getChildren()) {
+                    data.put(child.getKey(), child.getValue());
+                }
+                add(PendingOrder.fromMap(data));
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing order " + orderSnapshot.getKey(), e);
+            }
+        }
+        Log.d(TAG, "Loaded " + ordersById.size() + " open orders");
+    }
+
+    private void add(PendingOrder order) {
+        ordersById.put(order.getId(), order);
+        TriggerBook book = books.get(order.getSymbol());
+        if (book == null) {
+            book = new TriggerBook();
+            books.put(order.getSymbol(), book);
+        }
+        book.add(order);
+    }
+
+    private void remove(PendingOrder order) {
+        ordersById.remove(order.getId());
+        TriggerBook book = books.get(order.getSymbol());
+        if (book != null) {
+            book.remove(order);
+        }
+    }
+
+    private boolean saveStopTriggered(String userId, PendingOrder order) {
+        try {
+            Tasks.await(ordersRef(userId).child(order.getId()).child("stopTriggered").setValue(true));
+            return true;
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error saving stop for order " + order.getId(), e);
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private DatabaseReference ordersRef(String userId) {
+        return FirebaseDatabase.getInstance().getReference("orders").child(userId);
+    }
+
+    private void showOrderNotification(String title, String message) {
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(context, "transactions")
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentTitle(title)
+                .setContentText(message)
+                .setPriority(NotificationCompat.PRIORITY_DEFAULT)
+                .setAutoCancel(true);
+
+        // Check for notification permission
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.TIRAMISU ||
+                ContextCompat.checkSelfPermission(context, Manifest.permission.POST_NOTIFICATIONS) ==
+                        PackageManager.PERMISSION_GRANTED) {
+            NotificationManagerCompat.from(context)
+                    .notify((int) (System.currentTimeMillis() % Integer.MAX_VALUE), builder.build());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.aryan.edenic.orders;
+
+import android.util.Log;
+
+import com.aryan.edenic.models.PendingOrder;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Fills triggered orders through the same atomic ledger as manual trades.
+ * The order id is the trade id, so an order that fires again after a lost removal
+ * is recognised as already filled instead of trading twice.
+ * All methods block and must be called off the main thread.
+ */
+public class TradeExecutor {
+    private static final String TAG = "TradeExecutor";
+
+    public enum Outcome {
+        FILLED, INSUFFICIENT_FUNDS, INSUFFICIENT_SHARES, FAILED
+    }
+
+    /**
+     * Fill an order at the given price and remove it from the user's open orders
+     */
+    public static Outcome fill(String userId, PendingOrder order, double price) {
+        TradeService.Trade trade = new TradeService.Trade(order.getId(), order.getSide(), order.getSymbol(),
+                order.getCompanyName(), order.getQuantity(), price, System.currentTimeMillis());
+        TradeService.Result result = TradeService.executeBatchBlocking(userId,
+                Collections.singletonList(trade)).get(0);
+
+        Outcome outcome;
+        switch (result.getOutcome()) {
+            case FILLED:
+            case DUPLICATE:
+                outcome = Outcome.FILLED;
+                break;
+            case INSUFFICIENT_FUNDS:
+                outcome = Outcome.INSUFFICIENT_FUNDS;
+                break;
+            case INSUFFICIENT_SHARES:
+                outcome = Outcome.INSUFFICIENT_SHARES;
+                break;
+            default:
+                return Outcome.FAILED; // Keep the order for the next tick
+        }
+
+        // Filled orders are done, and ones that can no longer be filled are cancelled
+        // rather than retried on every tick
+        DatabaseReference orderRef = FirebaseDatabase.getInstance().getReference("orders")
+                .child(userId).child(order.getId());
+        try {
+            Tasks.await(orderRef.removeValue());
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Error removing order " + order.getId(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Log.d(TAG, order.getDescription() + ": " + outcome + (outcome == Outcome.FILLED ? " at $" + price : ""));
+        return outcome;
+    }
+}
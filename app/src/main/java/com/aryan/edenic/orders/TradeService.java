@@ -0,0 +1,440 @@
+package com.aryan.edenic.orders;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.local.ReadMetrics;
+import com.aryan.edenic.models.Holding;
+import com.aryan.edenic.utils.HoldingsMigrator;
+import com.aryan.edenic.utils.TradeStats;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+import com.google.firebase.database.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies trades atomically against the user's cash and holdings.
+ *
+ * The account lives in its own subtree, {@code users/{uid}/account/{cash, holdings, appliedTrades}},
+ * and every batch of trades is one transaction on it that checks and moves cash and holdings
+ * together, so trades from several devices or the order book serialize instead of overwriting
+ * each other. Profile and leaderboard writes to the rest of the user node never contend with it.
+ * Each trade carries an id; the transaction marks it under {@code appliedTrades/{id}},
+ * so retrying a trade with the same id never applies it twice.
+ *
+ * The transaction record and trade stats live outside the account. They are kept in the
+ * marker until written, so a trade whose record was lost is recorded on the next account load.
+ */
+public final class TradeService {
+    private static final String TAG = "TradeService";
+    public static final double STARTING_BALANCE = 10000;
+    public static final String ACCOUNT = "account";
+    private static final String APPLIED = "appliedTrades";
+    private static final long BLOCKING_TIMEOUT_SECONDS = 30;
+
+    /** How long a trade id is remembered, and so how long a trade may be retried */
+    public static final long TRADE_RETENTION_MS = 7 * 24 * 60 * 60 * 1000L;
+
+    public enum Outcome {
+        FILLED, DUPLICATE, INSUFFICIENT_FUNDS, INSUFFICIENT_SHARES, FAILED
+    }
+
+    /**
+     * A buy or sell at a fixed price. The id makes retries safe, so keep it for the same trade.
+     */
+    public static class Trade {
+        private final String id;
+        private final com.aryan.edenic.models.Transaction.Type side;
+        private final String symbol;
+        private final String companyName;
+        private final int quantity;
+        private final double price;
+        private final long time;
+
+        public Trade(String id, com.aryan.edenic.models.Transaction.Type side, String symbol,
+                     String companyName, int quantity, double price, long time) {
+            this.id = id;
+            this.side = side;
+            this.symbol = symbol;
+            this.companyName = companyName;
+            this.quantity = quantity;
+            this.price = price;
+            this.time = time;
+        }
+
+        /**
+         * A new trade made now, with a fresh id
+         */
+        public static Trade create(com.aryan.edenic.models.Transaction.Type side, String symbol,
+                                   String companyName, int quantity, double price) {
+            String id = FirebaseDatabase.getInstance().getReference(APPLIED).push().getKey();
+            return new Trade(id, side, symbol, companyName, quantity, price, System.currentTimeMillis());
+        }
+
+        // Getters
+        public String getId() { return id; }
+        public com.aryan.edenic.models.Transaction.Type getSide() { return side; }
+        public String getSymbol() { return symbol; }
+        public String getCompanyName() { return companyName; }
+        public int getQuantity() { return quantity; }
+        public double getPrice() { return price; }
+        public long getTime() { return time; }
+    }
+
+    public static class Result {
+        private final Outcome outcome;
+        private final double cash;
+        private final Holding holding;
+
+        Result(Outcome outcome, double cash, Holding holding) {
+            this.outcome = outcome;
+            this.cash = cash;
+            this.holding = holding;
+        }
+
+        public Outcome getOutcome() { return outcome; }
+
+        /** Whether the trade is in the account, by this call or an earlier one with its id */
+        public boolean isApplied() {
+            return outcome == Outcome.FILLED || outcome == Outcome.DUPLICATE;
+        }
+
+        /** Cash after the trade */
+        public double getCash() { return cash; }
+
+        /** Position after the trade, or null when there is none */
+        @Nullable
+        public Holding getHolding() { return holding; }
+    }
+
+    public interface AccountListener {
+        /**
+         * @param appliedTradeIds Trades the database has already applied
+         */
+        void onAccountLoaded(double cash, Map<String, Holding> holdings, Set<String> appliedTradeIds);
+        void onError(Exception e);
+    }
+
+    private TradeService() {}
+
+    /**
+     * Apply a trade to a cash balance and position, without touching the database.
+     * The same accounting the database transaction uses, so optimistic local state matches it.
+     */
+    public static Result apply(Trade trade, double cash, @Nullable Holding holding) {
+        int heldQuantity = holding != null ? holding.getQuantity() : 0;
+        double heldCost = holding != null ? holding.getCost() : 0;
+        double amount = trade.getQuantity() * trade.getPrice();
+
+        if (trade.getSide() == com.aryan.edenic.models.Transaction.Type.BUY) {
+            if (amount > cash) {
+                return new Result(Outcome.INSUFFICIENT_FUNDS, cash, holding);
+            }
+            return new Result(Outcome.FILLED, cash - amount,
+                    new Holding(trade.getSymbol(), heldQuantity + trade.getQuantity(), heldCost + amount));
+        }
+        if (heldQuantity < trade.getQuantity()) {
+            return new Result(Outcome.INSUFFICIENT_SHARES, cash, holding);
+        }
+        int remaining = heldQuantity - trade.getQuantity();
+        return new Result(Outcome.FILLED, cash + amount, remaining > 0 ?
+                new Holding(trade.getSymbol(), remaining, (heldCost / heldQuantity) * remaining) : null);
+    }
+
+    /**
+     * Apply one trade. The task completes on the main thread and never fails:
+     * rejected trades and database errors complete with their outcome.
+     */
+    public static Task<Result> execute(String userId, Trade trade) {
+        return executeBatch(userId, Collections.singletonList(trade))
+                .continueWith(results -> results.getResult().get(0));
+    }
+
+    /**
+     * Apply trades in order in one transaction. Each is accepted or rejected on its own,
+     * and later trades see the effect of earlier ones. Results are in the same order.
+     */
+    public static Task<List<Result>> executeBatch(String userId, List<Trade> trades) {
+        TaskCompletionSource<List<Result>> results = new TaskCompletionSource<>();
+        accountRef(userId).runTransaction(new TradeHandler(userId, new ArrayList<>(trades), results, false), false);
+        return results.getTask();
+    }
+
+    /**
+     * Same as {@link #executeBatch}, on the calling thread (used by background work).
+     * Trades still unconfirmed after a while are reported as failed; retrying them is safe.
+     */
+    public static List<Result> executeBatchBlocking(String userId, List<Trade> trades) {
+        try {
+            return Tasks.await(executeBatch(userId, trades), BLOCKING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            Log.e(TAG, "Error executing trades", e);
+        }
+        return failed(trades.size());
+    }
+
+    /**
+     * Load the user's cash, holdings and the ids of trades already applied, all from one
+     * snapshot of the account, so they always agree. Accounts not opened yet are opened from
+     * the legacy nodes first. Also records any trade whose record didn't get written.
+     */
+    public static void loadAccount(String userId, AccountListener listener) {
+        ReadMetrics.read("account", accountRef(userId))
+                .continueWithTask(read -> read.getResult().exists() ?
+                        read : HoldingsMigrator.openAccount(userId))
+                .addOnSuccessListener(account -> {
+                    Set<String> appliedIds = new HashSet<>();
+                    for (DataSnapshot marker : account.child(APPLIED).getChildren()) {
+                        appliedIds.add(marker.getKey());
+                        if (marker.hasChild("record")) {
+                            recordTrade(userId, marker.getKey());
+                        }
+                    }
+                    Map<String, Holding> holdings = HoldingsMigrator.fromAccount(account);
+                    Double stored = account.child("cash").getValue(Double.class);
+                    listener.onAccountLoaded(stored != null ? stored :
+                            STARTING_BALANCE - HoldingsMigrator.totalCost(holdings), holdings, appliedIds);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Error loading account", e);
+                    listener.onError(e);
+                });
+    }
+
+    /**
+     * Whether a trade is in the user's history, i.e. applied and recorded. Unlike its mark in
+     * the account this is never forgotten. Blocks, so only call it from background work.
+     */
+    public static boolean isRecordedBlocking(String userId, String tradeId) throws Exception {
+        return Tasks.await(FirebaseDatabase.getInstance().getReference("transactions")
+                .child(userId).child(tradeId).get(), BLOCKING_TIMEOUT_SECONDS, TimeUnit.SECONDS).exists();
+    }
+
+    /**
+     * @return {@code users/{uid}/account}, the only node trades touch
+     */
+    public static DatabaseReference accountRef(String userId) {
+        return FirebaseDatabase.getInstance().getReference("users").child(userId).child(ACCOUNT);
+    }
+
+    private static class TradeHandler implements Transaction.Handler {
+        private final String userId;
+        private final List<Trade> trades;
+        private final TaskCompletionSource<List<Result>> results;
+        private final boolean opened;
+
+        // Decided by the last run of doTransaction, which may run several times
+        private List<Result> outcomes;
+
+        TradeHandler(String userId, List<Trade> trades, TaskCompletionSource<List<Result>> results,
+                     boolean opened) {
+            this.userId = userId;
+            this.trades = trades;
+            this.results = results;
+            this.opened = opened;
+        }
+
+        @NonNull
+        @Override
+        public Transaction.Result doTransaction(@NonNull MutableData account) {
+            outcomes = new ArrayList<>();
+            if (account.getValue() == null) {
+                // Nothing cached, or no account yet: the server runs it again with what it has
+                outcomes = failed(trades.size());
+                return Transaction.success(account);
+            }
+
+            Object storedCash = account.child("cash").getValue();
+            double cash = storedCash != null ? doubleValue(storedCash) : STARTING_BALANCE - totalCost(account);
+            MutableData applied = account.child(APPLIED);
+            long now = System.currentTimeMillis();
+
+            for (Trade trade : trades) {
+                MutableData holdingData = account.child("holdings").child(trade.getSymbol());
+                int heldQuantity = intValue(holdingData.child("qty").getValue());
+                Holding holding = heldQuantity > 0 ? new Holding(trade.getSymbol(), heldQuantity,
+                        doubleValue(holdingData.child("cost").getValue())) : null;
+
+                if (applied.child(trade.getId()).getValue() != null) {
+                    outcomes.add(new Result(Outcome.DUPLICATE, cash, holding));
+                    continue;
+                }
+                Result result = apply(trade, cash, holding);
+                outcomes.add(result);
+                if (result.getOutcome() != Outcome.FILLED) {
+                    continue;
+                }
+
+                cash = result.getCash();
+                holdingData.setValue(result.getHolding() != null ? result.getHolding().toMap() : null);
+
+                Map<String, Object> marker = new HashMap<>();
+                marker.put("at", now);
+                marker.put("record", record(trade, holding).toMap());
+                applied.child(trade.getId()).setValue(marker);
+            }
+            account.child("cash").setValue(cash);
+
+            // Forget recorded marks old enough that no retry is coming
+            for (MutableData marker : applied.getChildren()) {
+                long at = longValue(marker.child("at").getValue());
+                if (now - at > TRADE_RETENTION_MS && marker.child("record").getValue() == null) {
+                    marker.setValue(null);
+                }
+            }
+            // Committed even when every trade was refused, so the server checks refusals
+            // against its own copy of the account rather than a stale cached one
+            return Transaction.success(account);
+        }
+
+        @Override
+        public void onComplete(@Nullable DatabaseError error, boolean committed,
+                               @Nullable DataSnapshot currentData) {
+            if (error != null) {
+                Log.e(TAG, "Error applying trades", error.toException());
+                results.trySetResult(failed(trades.size()));
+                return;
+            }
+            if (committed && !opened && (currentData == null || !currentData.exists())) {
+                // The server has no account either: open it from the legacy nodes, then trade
+                HoldingsMigrator.openAccount(userId).addOnCompleteListener(open -> accountRef(userId)
+                        .runTransaction(new TradeHandler(userId, trades, results, true), false));
+                return;
+            }
+            if (currentData != null) {
+                // Record the trades of this batch, and finish those of earlier attempts
+                for (int i = 0; i < trades.size(); i++) {
+                    Outcome outcome = outcomes.get(i).getOutcome();
+                    String tradeId = trades.get(i).getId();
+                    if (((outcome == Outcome.FILLED && committed) || outcome == Outcome.DUPLICATE) &&
+                            currentData.child(APPLIED).child(tradeId).hasChild("record")) {
+                        recordTrade(userId, tradeId);
+                    }
+                }
+            }
+            Log.d(TAG, "Applied batch of " + trades.size() + " trades, committed: " + committed);
+            results.trySetResult(outcomes);
+        }
+    }
+
+    /**
+     * Moves a trade's record out of its marker. Only the writer whose transaction clears the
+     * record writes it and its stats, so loads and trades racing on the same marker can't
+     * count a trade twice. The write is queued by the SDK and survives a restart.
+     */
+    private static class RecordHandler implements Transaction.Handler {
+        private final String userId;
+        private final String tradeId;
+
+        // Taken by the last run of doTransaction
+        private Map<String, Object> taken;
+
+        RecordHandler(String userId, String tradeId) {
+            this.userId = userId;
+            this.tradeId = tradeId;
+        }
+
+        @NonNull
+        @Override
+        public Transaction.Result doTransaction(@NonNull MutableData record) {
+            taken = null;
+            Object value = record.getValue();
+            if (value instanceof Map) {
+                taken = new HashMap<>();
+                for (Map.Entry<?, ?> field : ((Map<?, ?>) value).entrySet()) {
+                    taken.put(String.valueOf(field.getKey()), field.getValue());
+                }
+                record.setValue(null);
+            }
+            // Nothing here is checked against the server too, in case the cache is behind
+            return Transaction.success(record);
+        }
+
+        @Override
+        public void onComplete(@Nullable DatabaseError error, boolean committed,
+                               @Nullable DataSnapshot currentData) {
+            if (error != null) {
+                Log.e(TAG, "Error recording trade " + tradeId, error.toException());
+                return;
+            }
+            if (!committed || taken == null) return;
+
+            com.aryan.edenic.models.Transaction transaction = com.aryan.edenic.models.Transaction.fromMap(taken);
+            // The trade's timestamp can be long past by now (offline, recovered or from another
+            // device); the ledger syncs by when the record actually reached the server
+            taken.put("recordedAt", ServerValue.TIMESTAMP);
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("transactions/" + userId + "/" + tradeId, taken);
+            updates.putAll(TradeStats.increments(userId, transaction));
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error recording trade " + tradeId, e));
+        }
+    }
+
+    private static com.aryan.edenic.models.Transaction record(Trade trade, @Nullable Holding before) {
+        com.aryan.edenic.models.Transaction record;
+        if (trade.getSide() == com.aryan.edenic.models.Transaction.Type.BUY) {
+            record = new com.aryan.edenic.models.Transaction(trade.getSymbol(), trade.getCompanyName(),
+                    trade.getQuantity(), trade.getPrice());
+        } else {
+            record = new com.aryan.edenic.models.Transaction(trade.getSymbol(), trade.getCompanyName(),
+                    trade.getQuantity(), trade.getPrice(), before != null ? before.getAvgPrice() : 0);
+        }
+        record.setId(trade.getId());
+        record.setTimestamp(new Date(trade.getTime()));
+        return record;
+    }
+
+    private static List<Result> failed(int count) {
+        List<Result> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            results.add(new Result(Outcome.FAILED, 0, null));
+        }
+        return results;
+    }
+
+    private static void recordTrade(String userId, String tradeId) {
+        accountRef(userId).child(APPLIED).child(tradeId).child("record")
+                .runTransaction(new RecordHandler(userId, tradeId), false);
+    }
+
+    private static double totalCost(MutableData account) {
+        double total = 0;
+        for (MutableData holding : account.child("holdings").getChildren()) {
+            total += doubleValue(holding.child("cost").getValue());
+        }
+        return total;
+    }
+
+    private static int intValue(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static long longValue(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    private static double doubleValue(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
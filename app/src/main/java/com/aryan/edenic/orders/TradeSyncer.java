@@ -0,0 +1,311 @@
+package com.aryan.edenic.orders;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.aryan.edenic.local.TradeJournal;
+import com.aryan.edenic.models.Holding;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind sync of the {@link TradeJournal}.
+ *
+ * A trade is journaled on disk first and applied to the screen once it is there; the syncer
+ * then sends the journal to {@link TradeService} in batches, each one transaction, whenever
+ * the database is connected. Trade ids make resending safe, so a batch whose outcome is
+ * unknown just stays in the journal for the next flush. Trades the database refuses are
+ * reported to listeners, which reload the account to reconcile.
+ *
+ * The account only remembers trade ids for {@link TradeService#TRADE_RETENTION_MS}. A trade
+ * journaled for half that long, going by the device clock, is looked up in the history
+ * before it is sent again, so neither a long outage nor a wrong clock drops or repeats it.
+ */
+public class TradeSyncer {
+    private static final String TAG = "TradeSyncer";
+    private static final int BATCH_SIZE = 20;
+    // Leaves room for the device clock to be days off
+    private static final long VERIFY_AFTER_MS = TradeService.TRADE_RETENTION_MS / 2;
+    // Far longer than any account read takes
+    private static final long RECENT_MS = 10 * 60 * 1000;
+
+    private static TradeSyncer instance;
+
+    public interface SyncListener {
+        /** A journaled trade the database refused; what the screen shows is out of date */
+        void onTradeRejected(TradeService.Trade trade, TradeService.Outcome outcome);
+    }
+
+    public interface SubmitListener {
+        /** The trade is on disk and will reach the database; apply it to the screen now */
+        void onJournaled();
+        void onError(Exception e);
+    }
+
+    public interface AccountListener {
+        void onAccountLoaded(double cash, Map<String, Holding> holdings);
+        void onError(Exception e);
+    }
+
+    private final TradeJournal journal;
+    // Journal writes never wait behind a flush stuck on a slow network
+    private final ExecutorService journalExecutor = Executors.newSingleThreadExecutor();
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<SyncListener> listeners = new ArrayList<>(); // Main thread only
+    private final AtomicBoolean flushQueued = new AtomicBoolean(false);
+    // Trades applied and taken out of the journal lately, oldest first
+    private final List<Synced> recentlySynced = new ArrayList<>();
+
+    private volatile boolean connected = false;
+    private boolean started = false;
+
+    private TradeSyncer(Context context) {
+        this.journal = TradeJournal.getInstance(context);
+    }
+
+    public static synchronized TradeSyncer getInstance(Context context) {
+        if (instance == null) {
+            instance = new TradeSyncer(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Flush now and whenever the connection comes back. Safe to call more than once.
+     */
+    public synchronized void start() {
+        if (started) return;
+        started = true;
+        FirebaseDatabase.getInstance().getReference(".info/connected")
+                .addValueEventListener(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        connected = Boolean.TRUE.equals(snapshot.getValue(Boolean.class));
+                        if (connected) {
+                            flush();
+                        }
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        Log.e(TAG, "Error watching connection state", error.toException());
+                    }
+                });
+    }
+
+    public void addListener(SyncListener listener) {
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    public void removeListener(SyncListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Journal a trade and send it when possible. The listener is called on the main thread
+     * once the trade is on disk; only then should the caller show it as done.
+     */
+    public void submit(String userId, TradeService.Trade trade, SubmitListener listener) {
+        journalExecutor.execute(() -> {
+            try {
+                journal.append(userId, trade);
+            } catch (Exception e) {
+                Log.e(TAG, "Error journaling trade " + trade.getId(), e);
+                mainHandler.post(() -> listener.onError(e));
+                return;
+            }
+            mainHandler.post(listener::onJournaled);
+            flush();
+        });
+    }
+
+    /**
+     * The user's account as the database has it, with unsynced trades applied on top.
+     * The listener is called on the main thread.
+     */
+    public void loadAccount(String userId, AccountListener listener) {
+        TradeService.loadAccount(userId, new TradeService.AccountListener() {
+            @Override
+            public void onAccountLoaded(double cash, Map<String, Holding> holdings, Set<String> appliedTradeIds) {
+                journalExecutor.execute(() -> {
+                    // A trade synced after the account was read has left the journal, but is
+                    // still recent; one synced before it is among the applied ids. Synced
+                    // trades were sent oldest first, so they go before those still waiting.
+                    Map<String, TradeService.Trade> unsynced = new LinkedHashMap<>();
+                    for (TradeService.Trade trade : recentlySynced(userId)) {
+                        unsynced.put(trade.getId(), trade);
+                    }
+                    for (TradeService.Trade trade : journal.pending(userId, Integer.MAX_VALUE)) {
+                        unsynced.putIfAbsent(trade.getId(), trade);
+                    }
+
+                    Map<String, Holding> current = new HashMap<>(holdings);
+                    double balance = replay(cash, current, unsynced.values(), appliedTradeIds);
+                    mainHandler.post(() -> listener.onAccountLoaded(balance, current));
+                });
+            }
+
+            @Override
+            public void onError(Exception e) {
+                listener.onError(e);
+            }
+        });
+    }
+
+    /**
+     * Apply unsynced trades on top of a loaded account, in order, skipping those the account
+     * already has. Holdings are updated in place.
+     * @return The cash balance after them
+     */
+    static double replay(double cash, Map<String, Holding> holdings, Collection<TradeService.Trade> trades,
+                         Set<String> appliedTradeIds) {
+        double balance = cash;
+        for (TradeService.Trade trade : trades) {
+            if (appliedTradeIds.contains(trade.getId())) {
+                continue; // Already in the loaded state; the next flush drops it
+            }
+            TradeService.Result result = TradeService.apply(trade, balance, holdings.get(trade.getSymbol()));
+            if (result.getOutcome() == TradeService.Outcome.FILLED) {
+                balance = result.getCash();
+                if (result.getHolding() != null) {
+                    holdings.put(trade.getSymbol(), result.getHolding());
+                } else {
+                    holdings.remove(trade.getSymbol());
+                }
+            }
+        }
+        return balance;
+    }
+
+    private void flush() {
+        if (!connected || !flushQueued.compareAndSet(false, true)) return;
+        syncExecutor.execute(() -> {
+            flushQueued.set(false);
+            FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+            if (user != null) {
+                flushPending(user.getUid());
+            }
+        });
+    }
+
+    // Send the journal oldest first; stop at the first batch that doesn't get through
+    private void flushPending(String userId) {
+        if (!dropRecorded(userId)) return;
+
+        while (connected) {
+            List<TradeService.Trade> batch = journal.pending(userId, BATCH_SIZE);
+            if (batch.isEmpty()) return;
+
+            List<TradeService.Result> results = TradeService.executeBatchBlocking(userId, batch);
+            List<String> done = new ArrayList<>();
+            for (int i = 0; i < batch.size(); i++) {
+                TradeService.Trade trade = batch.get(i);
+                TradeService.Outcome outcome = results.get(i).getOutcome();
+                if (outcome == TradeService.Outcome.FAILED) {
+                    continue;
+                }
+                done.add(trade.getId());
+                if (!results.get(i).isApplied()) {
+                    Log.d(TAG, "Trade " + trade.getId() + " refused: " + outcome);
+                    mainHandler.post(() -> {
+                        for (SyncListener listener : new ArrayList<>(listeners)) {
+                            listener.onTradeRejected(trade, outcome);
+                        }
+                    });
+                }
+            }
+            // Remembered before leaving the journal, so an account load always sees it in one
+            rememberSynced(userId, batch, results);
+            journal.remove(done);
+            Log.d(TAG, "Synced " + done.size() + " of " + batch.size() + " journaled trades");
+            if (done.size() < batch.size()) return; // Retried on the next flush
+        }
+    }
+
+    // Old trades may have been applied and had their marks forgotten; those in the history
+    // are done, the rest are sent as usual. False if the history couldn't be checked.
+    private boolean dropRecorded(String userId) {
+        List<String> recorded = new ArrayList<>();
+        try {
+            for (TradeService.Trade trade : journal.madeBefore(userId, System.currentTimeMillis() - VERIFY_AFTER_MS)) {
+                if (TradeService.isRecordedBlocking(userId, trade.getId())) {
+                    recorded.add(trade.getId());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            Log.e(TAG, "Error checking old trades against history", e);
+            return false;
+        } finally {
+            journal.remove(recorded);
+        }
+        if (!recorded.isEmpty()) {
+            Log.d(TAG, "Dropped " + recorded.size() + " old journaled trades already in the history");
+        }
+        return true;
+    }
+
+    private void rememberSynced(String userId, List<TradeService.Trade> batch, List<TradeService.Result> results) {
+        long now = SystemClock.elapsedRealtime();
+        synchronized (recentlySynced) {
+            for (int i = 0; i < batch.size(); i++) {
+                if (results.get(i).isApplied()) {
+                    recentlySynced.add(new Synced(userId, batch.get(i), now));
+                }
+            }
+        }
+    }
+
+    private List<TradeService.Trade> recentlySynced(String userId) {
+        long now = SystemClock.elapsedRealtime();
+        List<TradeService.Trade> trades = new ArrayList<>();
+        synchronized (recentlySynced) {
+            while (!recentlySynced.isEmpty() && now - recentlySynced.get(0).at > RECENT_MS) {
+                recentlySynced.remove(0);
+            }
+            for (Synced synced : recentlySynced) {
+                if (synced.userId.equals(userId)) {
+                    trades.add(synced.trade);
+                }
+            }
+        }
+        return trades;
+    }
+
+    private static class Synced {
+        final String userId;
+        final TradeService.Trade trade;
+        final long at;
+
+        Synced(String userId, TradeService.Trade trade, long at) {
+            this.userId = userId;
+            this.trade = trade;
+            this.at = at;
+        }
+    }
+}
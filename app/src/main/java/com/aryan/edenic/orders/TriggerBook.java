@@ -0,0 +1,89 @@
+package com.aryan.edenic.orders;
+
+import com.aryan.edenic.models.PendingOrder;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Resting orders for one symbol, indexed by trigger price.
+ * Orders that fire when the price falls are kept apart from orders that fire when it rises,
+ * so a tick only visits the matching price range: O(log n + k) for k fired orders.
+ * Not thread-safe; {@link OrderManager} synchronizes access.
+ */
+class TriggerBook {
+    private final TreeMap<Double, List<PendingOrder>> firesAtOrBelow = new TreeMap<>();
+    private final TreeMap<Double, List<PendingOrder>> firesAtOrAbove = new TreeMap<>();
+    private int size = 0;
+
+    /**
+     * Orders released by one price
+     */
+    static class Result {
+        final List<PendingOrder> fired = new ArrayList<>();
+        final List<PendingOrder> converted = new ArrayList<>(); // Stop-limits that moved to their limit phase
+    }
+
+    void add(PendingOrder order) {
+        TreeMap<Double, List<PendingOrder>> side = order.firesAtOrBelow() ? firesAtOrBelow : firesAtOrAbove;
+        side.computeIfAbsent(order.getTriggerPrice(), price -> new ArrayList<>(1)).add(order);
+        size++;
+    }
+
+    boolean remove(PendingOrder order) {
+        TreeMap<Double, List<PendingOrder>> side = order.firesAtOrBelow() ? firesAtOrBelow : firesAtOrAbove;
+        List<PendingOrder> atPrice = side.get(order.getTriggerPrice());
+        if (atPrice == null || !atPrice.remove(order)) {
+            return false;
+        }
+        if (atPrice.isEmpty()) {
+            side.remove(order.getTriggerPrice());
+        }
+        size--;
+        return true;
+    }
+
+    Result onPrice(double price) {
+        Result result = new Result();
+        // Triggers at or above the price fire for falling-price orders, and vice versa
+        drain(firesAtOrBelow.tailMap(price, true), result, price);
+        drain(firesAtOrAbove.headMap(price, true), result, price);
+        return result;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void drain(NavigableMap<Double, List<PendingOrder>> range, Result result, double price) {
+        if (range.isEmpty()) return;
+
+        List<PendingOrder> released = new ArrayList<>();
+        Iterator<Map.Entry<Double, List<PendingOrder>>> iterator = range.entrySet().iterator();
+        while (iterator.hasNext()) {
+            List<PendingOrder> orders = iterator.next().getValue();
+            released.addAll(orders);
+            size -= orders.size();
+            iterator.remove();
+        }
+
+        for (PendingOrder order : released) {
+            if (order.getOrderType() == PendingOrder.OrderType.STOP_LIMIT && !order.isStopTriggered()) {
+                // Stop hit: rest as a limit order, or fill now if the limit is already marketable
+                order.setStopTriggered(true);
+                result.converted.add(order);
+                if (order.isTriggeredBy(price)) {
+                    result.fired.add(order);
+                } else {
+                    add(order);
+                }
+            } else {
+                result.fired.add(order);
+            }
+        }
+    }
+}
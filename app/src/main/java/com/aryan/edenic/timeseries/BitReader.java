@@ -0,0 +1,31 @@
+package com.aryan.edenic.timeseries;
+
+/**
+ * Reads values written by {@link BitWriter}
+ */
+public class BitReader {
+    private final byte[] bytes;
+    private long position = 0;
+
+    public BitReader(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public boolean readBit() {
+        int index = (int) (position >>> 3);
+        if (index >= bytes.length) {
+            throw new IllegalStateException("Read past end of data");
+        }
+        boolean bit = (bytes[index] & (0x80 >>> (position & 7))) != 0;
+        position++;
+        return bit;
+    }
+
+    public long readBits(int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++) {
+            value = (value << 1) | (readBit() ? 1 : 0);
+        }
+        return value;
+    }
+}
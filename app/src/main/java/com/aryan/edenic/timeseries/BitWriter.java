@@ -0,0 +1,58 @@
+package com.aryan.edenic.timeseries;
+
+import java.util.Arrays;
+
+/**
+ * Appends values of arbitrary bit width to a growing byte array, most significant bit first
+ */
+public class BitWriter {
+    private byte[] bytes;
+    private long bitCount = 0;
+
+    public BitWriter() {
+        this(64);
+    }
+
+    public BitWriter(int initialBytes) {
+        bytes = new byte[Math.max(8, initialBytes)];
+    }
+
+    public void writeBit(boolean bit) {
+        ensureCapacity(1);
+        if (bit) {
+            bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+        }
+        bitCount++;
+    }
+
+    /**
+     * Write the lowest {@code width} bits of a value
+     */
+    public void writeBits(long value, int width) {
+        ensureCapacity(width);
+        for (int i = width - 1; i >= 0; i--) {
+            if (((value >>> i) & 1) != 0) {
+                bytes[(int) (bitCount >>> 3)] |= (byte) (0x80 >>> (bitCount & 7));
+            }
+            bitCount++;
+        }
+    }
+
+    public long getBitCount() {
+        return bitCount;
+    }
+
+    /**
+     * @return A copy of the written bytes, with the last byte zero-padded
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, (int) ((bitCount + 7) >>> 3));
+    }
+
+    private void ensureCapacity(int extraBits) {
+        long neededBytes = (bitCount + extraBits + 7) >>> 3;
+        if (neededBytes > bytes.length) {
+            bytes = Arrays.copyOf(bytes, (int) Math.max(neededBytes, bytes.length * 2L));
+        }
+    }
+}
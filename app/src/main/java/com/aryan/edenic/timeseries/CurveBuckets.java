@@ -0,0 +1,45 @@
+package com.aryan.edenic.timeseries;
+
+/**
+ * Downsamples time-ordered samples into a fixed number of equal time buckets, keeping the
+ * last value in each and carrying it across empty ones (e.g. nights and weekends).
+ * Only the last sample of a bucket matters, so a run of samples that falls inside one
+ * bucket can be added as just its last sample.
+ */
+class CurveBuckets {
+    private final long first;
+    private final long span;
+    private final float[] values;
+    private int filled = 0;
+
+    /**
+     * @param first Timestamp of the first sample
+     * @param last Timestamp of the last sample
+     */
+    CurveBuckets(long first, long last, int maxPoints) {
+        this.first = first;
+        this.span = Math.max(1, last - first);
+        this.values = new float[maxPoints];
+    }
+
+    int bucketOf(long timestamp) {
+        return (int) Math.min(values.length - 1, (timestamp - first) * values.length / span);
+    }
+
+    /**
+     * Add the next sample; timestamps must not go backwards
+     */
+    void add(long timestamp, double value) {
+        int bucket = bucketOf(timestamp);
+        while (filled < bucket) {
+            values[filled] = filled > 0 ? values[filled - 1] : (float) value;
+            filled++;
+        }
+        values[bucket] = (float) value;
+        filled = bucket + 1;
+    }
+
+    float[] getValues() {
+        return values;
+    }
+}
@@ -0,0 +1,481 @@
+package com.aryan.edenic.timeseries;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local history of a user's account value (cash plus holdings), stored as one
+ * Gorilla-compressed block per day.
+ *
+ * Closed days are appended to {@code equity/{uid}.gor}; the current day lives in
+ * {@code equity/{uid}.open} and is rewritten on each sample. {@code equity/{uid}.idx} holds
+ * each closed block's offset, time range and last value, so a load seeks straight to the
+ * blocks it needs and skips decoding any block that falls inside one display bucket.
+ * A daily close/high/low summary is synced to {@code equityCurves/{uid}/{yyyyMMdd}} in Firebase.
+ */
+public class EquityCurveStore {
+    private static final String TAG = "EquityCurveStore";
+    private static final String DIRECTORY = "equity";
+    private static final long MIN_SAMPLE_INTERVAL = 60; // Seconds, at most one sample per minute
+    private static final long SYNC_INTERVAL = 30 * 60 * 1000; // Push today's summary every 30 minutes
+    private static final int BLOCK_HEADER = 8; // Sample count and data length
+
+    private static final Map<String, EquityCurveStore> instances = new HashMap<>();
+
+    public interface CurveListener {
+        void onCurveLoaded(float[] values);
+    }
+
+    private final String userId;
+    private final File closedFile;
+    private final File openFile;
+    private final File indexFile;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final SimpleDateFormat dayFormat = new SimpleDateFormat("yyyyMMdd", Locale.US);
+
+    // Current day, only touched on the executor
+    private boolean loaded = false;
+    private final List<BlockEntry> closedBlocks = new ArrayList<>();
+    private String openDay;
+    private GorillaEncoder openBlock;
+    private long lastTimestamp = -1;
+    private double dayHigh;
+    private double dayLow;
+    private double dayClose;
+    private long lastSyncTime = 0;
+
+    private EquityCurveStore(Context context, String userId) {
+        File directory = new File(context.getFilesDir(), DIRECTORY);
+        if (!directory.exists() && !directory.mkdirs()) {
+            Log.e(TAG, "Could not create equity directory");
+        }
+        this.userId = userId;
+        this.closedFile = new File(directory, userId + ".gor");
+        this.openFile = new File(directory, userId + ".open");
+        this.indexFile = new File(directory, userId + ".idx");
+    }
+
+    public static synchronized EquityCurveStore getInstance(Context context, String userId) {
+        EquityCurveStore store = instances.get(userId);
+        if (store == null) {
+            store = new EquityCurveStore(context.getApplicationContext(), userId);
+            instances.put(userId, store);
+        }
+        return store;
+    }
+
+    /**
+     * Record the current account value. Samples less than a minute after the previous one are dropped.
+     */
+    public void record(double value) {
+        if (value <= 0 || Double.isNaN(value)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+
+        executor.execute(() -> {
+            try {
+                ensureLoaded();
+
+                long timestamp = now / 1000;
+                if (lastTimestamp >= 0 && timestamp - lastTimestamp < MIN_SAMPLE_INTERVAL) {
+                    return;
+                }
+
+                String day = dayFormat.format(new Date(now));
+                if (openBlock != null && !day.equals(openDay)) {
+                    // New day: seal yesterday's block and publish its final summary
+                    sealOpenBlock();
+                }
+                if (openBlock == null) {
+                    openDay = day;
+                    openBlock = new GorillaEncoder();
+                    dayHigh = value;
+                    dayLow = value;
+                }
+
+                openBlock.append(timestamp, value);
+                lastTimestamp = timestamp;
+                dayHigh = Math.max(dayHigh, value);
+                dayLow = Math.min(dayLow, value);
+                dayClose = value;
+                writeBlock(openFile, openBlock, false);
+
+                if (now - lastSyncTime >= SYNC_INTERVAL) {
+                    syncDay(openDay, timestamp);
+                    lastSyncTime = now;
+                }
+            } catch (IOException e) {
+                Log.e(TAG, "Error recording equity sample", e);
+            }
+        });
+    }
+
+    /**
+     * Load the curve since a point in time, downsampled for display.
+     * @param sinceMillis Start of the range, or 0 for everything
+     * @param maxPoints Number of points to return at most; each is the last value in its time bucket
+     */
+    public void loadCurve(long sinceMillis, int maxPoints, CurveListener listener) {
+        executor.execute(() -> {
+            float[] curve = new float[0];
+            try {
+                ensureLoaded();
+                curve = downsample(sinceMillis / 1000, maxPoints);
+            } catch (IOException e) {
+                Log.e(TAG, "Error loading equity curve", e);
+            }
+            float[] result = curve;
+            mainHandler.post(() -> listener.onCurveLoaded(result));
+        });
+    }
+
+    private void ensureLoaded() throws IOException {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        loadIndex();
+
+        if (!openFile.exists()) {
+            return;
+        }
+
+        // Rebuild the encoder for today's block; one day of samples decodes in well under a millisecond
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(openFile)))) {
+            int count = in.readInt();
+            byte[] data = new byte[in.readInt()];
+            in.readFully(data);
+
+            GorillaDecoder decoder = new GorillaDecoder(data, count);
+            openBlock = new GorillaEncoder();
+            while (decoder.next()) {
+                double value = decoder.getValue();
+                if (openBlock.getCount() == 0) {
+                    if (isSealed(decoder.getTimestamp())) {
+                        // A seal appended this day but died before deleting the open block
+                        Log.d(TAG, "Open block was already sealed, discarding it");
+                        openBlock = null;
+                        lastTimestamp = closedBlocks.get(closedBlocks.size() - 1).lastTimestamp;
+                        break;
+                    }
+                    openDay = dayFormat.format(new Date(decoder.getTimestamp() * 1000));
+                    dayHigh = value;
+                    dayLow = value;
+                }
+                openBlock.append(decoder.getTimestamp(), value);
+                lastTimestamp = decoder.getTimestamp();
+                dayHigh = Math.max(dayHigh, value);
+                dayLow = Math.min(dayLow, value);
+                dayClose = value;
+            }
+            if (openBlock != null && openBlock.getCount() == 0) {
+                openBlock = null;
+            }
+        } catch (EOFException e) {
+            Log.e(TAG, "Truncated open block, starting a new one", e);
+            openBlock = null;
+        }
+        if (openBlock == null && !openFile.delete()) {
+            Log.e(TAG, "Could not delete open block");
+        }
+    }
+
+    // Whether a sample at this time is already in the closed file; days are sealed in order
+    private boolean isSealed(long timestamp) {
+        return !closedBlocks.isEmpty() && closedBlocks.get(closedBlocks.size() - 1).lastTimestamp >= timestamp;
+    }
+
+    private void loadIndex() throws IOException {
+        long indexed = 0;
+        if (indexFile.exists()) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+                while (true) {
+                    BlockEntry block;
+                    try {
+                        block = BlockEntry.read(in);
+                    } catch (EOFException e) {
+                        break;
+                    }
+                    if (block.end() > closedFile.length()) {
+                        break;
+                    }
+                    closedBlocks.add(block);
+                    indexed = block.end();
+                }
+            }
+        }
+        if (closedFile.length() <= indexed) {
+            return;
+        }
+
+        // Blocks sealed before the index existed, or by a run that died before indexing them
+        try (RandomAccessFile file = new RandomAccessFile(closedFile, "rw")) {
+            long offset = indexed;
+            while (offset + BLOCK_HEADER <= file.length()) {
+                file.seek(offset);
+                int count = file.readInt();
+                int length = file.readInt();
+                if (offset + BLOCK_HEADER + length > file.length()) {
+                    break;
+                }
+                byte[] data = new byte[length];
+                file.readFully(data);
+                closedBlocks.add(BlockEntry.summarize(offset, count, data));
+                offset += BLOCK_HEADER + length;
+            }
+            if (offset < file.length()) {
+                Log.e(TAG, "Dropping a truncated block at " + offset);
+                file.setLength(offset);
+            }
+        }
+        writeIndex();
+        Log.d(TAG, "Indexed " + closedBlocks.size() + " equity blocks");
+    }
+
+    private void writeIndex() throws IOException {
+        File temp = new File(indexFile.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+            for (BlockEntry block : closedBlocks) {
+                block.write(out);
+            }
+        }
+        if (!temp.renameTo(indexFile)) {
+            throw new IOException("Could not replace " + indexFile.getName());
+        }
+    }
+
+    /**
+     * Append the open day to the closed file and index, then delete the open file.
+     * A crash before the delete leaves a day that is both sealed and open; the next load
+     * sees it in the closed blocks and drops the open copy, so it is never appended twice.
+     */
+    private void sealOpenBlock() throws IOException {
+        long offset = closedFile.length();
+        writeBlock(closedFile, openBlock, true);
+        BlockEntry block = BlockEntry.summarize(offset, openBlock.getCount(), openBlock.toByteArray());
+        closedBlocks.add(block);
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(indexFile, true)))) {
+            block.write(out);
+        }
+        syncDay(openDay, lastTimestamp);
+        if (!openFile.delete()) {
+            Log.e(TAG, "Could not delete open block");
+        }
+        openBlock = null;
+    }
+
+    private void writeBlock(File file, GorillaEncoder block, boolean append) throws IOException {
+        // Rewrites go through a temp file so a crash never leaves a half-written open block
+        File target = append ? file : new File(file.getPath() + ".tmp");
+        byte[] data = block.toByteArray();
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(target, append)))) {
+            out.writeInt(block.getCount());
+            out.writeInt(data.length);
+            out.write(data);
+        }
+        if (!append && !target.renameTo(file)) {
+            throw new IOException("Could not replace " + file.getName());
+        }
+    }
+
+    private float[] downsample(long sinceSeconds, int maxPoints) throws IOException {
+        // Closed blocks that reach into the range; one that starts before it is decoded and cut
+        List<BlockEntry> blocks = new ArrayList<>();
+        for (BlockEntry block : closedBlocks) {
+            if (block.lastTimestamp >= sinceSeconds) {
+                blocks.add(block);
+            }
+        }
+        SampleBuffer open = new SampleBuffer();
+        if (openBlock != null) {
+            decodeInto(new GorillaDecoder(openBlock.toByteArray(), openBlock.getCount()), sinceSeconds, open);
+        }
+
+        try (RandomAccessFile file = blocks.isEmpty() ? null : new RandomAccessFile(closedFile, "r")) {
+            SampleBuffer head = new SampleBuffer();
+            if (!blocks.isEmpty() && blocks.get(0).firstTimestamp < sinceSeconds) {
+                decodeInto(readBlock(file, blocks.remove(0)), sinceSeconds, head);
+            }
+
+            int total = head.size + open.size;
+            for (BlockEntry block : blocks) {
+                total += block.count;
+            }
+            if (total == 0) {
+                return new float[0];
+            }
+
+            if (total <= maxPoints) {
+                SampleBuffer samples = head;
+                for (BlockEntry block : blocks) {
+                    decodeInto(readBlock(file, block), sinceSeconds, samples);
+                }
+                for (int i = 0; i < open.size; i++) {
+                    samples.add(open.timestamps[i], open.values[i]);
+                }
+                float[] values = new float[samples.size];
+                for (int i = 0; i < samples.size; i++) {
+                    values[i] = (float) samples.values[i];
+                }
+                return values;
+            }
+
+            long first = head.size > 0 ? head.timestamps[0] :
+                    !blocks.isEmpty() ? blocks.get(0).firstTimestamp : open.timestamps[0];
+            long last = open.size > 0 ? open.timestamps[open.size - 1] :
+                    !blocks.isEmpty() ? blocks.get(blocks.size() - 1).lastTimestamp : head.timestamps[head.size - 1];
+            CurveBuckets buckets = new CurveBuckets(first, last, maxPoints);
+            addAll(head, buckets);
+            for (BlockEntry block : blocks) {
+                if (buckets.bucketOf(block.firstTimestamp) == buckets.bucketOf(block.lastTimestamp)) {
+                    // Only the block's last value survives bucketing, and the index has it
+                    buckets.add(block.lastTimestamp, block.lastValue);
+                } else {
+                    GorillaDecoder decoder = readBlock(file, block);
+                    while (decoder.next()) {
+                        buckets.add(decoder.getTimestamp(), decoder.getValue());
+                    }
+                }
+            }
+            addAll(open, buckets);
+            return buckets.getValues();
+        }
+    }
+
+    private static GorillaDecoder readBlock(RandomAccessFile file, BlockEntry block) throws IOException {
+        file.seek(block.offset + BLOCK_HEADER);
+        byte[] data = new byte[block.length];
+        file.readFully(data);
+        return new GorillaDecoder(data, block.count);
+    }
+
+    private static void addAll(SampleBuffer samples, CurveBuckets buckets) {
+        for (int i = 0; i < samples.size; i++) {
+            buckets.add(samples.timestamps[i], samples.values[i]);
+        }
+    }
+
+    private static void decodeInto(GorillaDecoder decoder, long sinceSeconds, SampleBuffer samples) {
+        while (decoder.next()) {
+            if (decoder.getTimestamp() >= sinceSeconds) {
+                samples.add(decoder.getTimestamp(), decoder.getValue());
+            }
+        }
+    }
+
+    private void syncDay(String day, long timestamp) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("close", dayClose);
+        summary.put("high", dayHigh);
+        summary.put("low", dayLow);
+        summary.put("time", timestamp * 1000);
+
+        FirebaseDatabase.getInstance().getReference("equityCurves")
+                .child(userId)
+                .child(day)
+                .setValue(summary)
+                .addOnFailureListener(e -> Log.e(TAG, "Error syncing equity summary", e));
+    }
+
+    /**
+     * Where a closed block sits in the .gor file and what a load needs to know without decoding it
+     */
+    private static class BlockEntry {
+        final long offset;
+        final int count;
+        final int length; // Bytes of encoded data after the header
+        final long firstTimestamp;
+        final long lastTimestamp;
+        final double lastValue;
+
+        BlockEntry(long offset, int count, int length, long firstTimestamp, long lastTimestamp, double lastValue) {
+            this.offset = offset;
+            this.count = count;
+            this.length = length;
+            this.firstTimestamp = firstTimestamp;
+            this.lastTimestamp = lastTimestamp;
+            this.lastValue = lastValue;
+        }
+
+        static BlockEntry summarize(long offset, int count, byte[] data) {
+            GorillaDecoder decoder = new GorillaDecoder(data, count);
+            long firstTimestamp = -1;
+            long lastTimestamp = -1;
+            double lastValue = 0;
+            while (decoder.next()) {
+                if (firstTimestamp < 0) {
+                    firstTimestamp = decoder.getTimestamp();
+                }
+                lastTimestamp = decoder.getTimestamp();
+                lastValue = decoder.getValue();
+            }
+            return new BlockEntry(offset, count, data.length, firstTimestamp, lastTimestamp, lastValue);
+        }
+
+        static BlockEntry read(DataInputStream in) throws IOException {
+            return new BlockEntry(in.readLong(), in.readInt(), in.readInt(), in.readLong(), in.readLong(),
+                    in.readDouble());
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeLong(offset);
+            out.writeInt(count);
+            out.writeInt(length);
+            out.writeLong(firstTimestamp);
+            out.writeLong(lastTimestamp);
+            out.writeDouble(lastValue);
+        }
+
+        long end() {
+            return offset + BLOCK_HEADER + length;
+        }
+    }
+
+    /**
+     * Growable primitive arrays for decoded samples
+     */
+    private static class SampleBuffer {
+        long[] timestamps = new long[1024];
+        double[] values = new double[1024];
+        int size = 0;
+
+        void add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+        }
+    }
+}
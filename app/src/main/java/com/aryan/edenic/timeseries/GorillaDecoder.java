@@ -0,0 +1,77 @@
+package com.aryan.edenic.timeseries;
+
+/**
+ * Iterates over a block written by {@link GorillaEncoder}
+ */
+public class GorillaDecoder {
+    private final BitReader in;
+    private final int count;
+    private int read = 0;
+
+    private long timestamp;
+    private long delta;
+    private long valueBits;
+    private int leading;
+    private int trailing;
+
+    public GorillaDecoder(byte[] data, int count) {
+        this.in = new BitReader(data);
+        this.count = count;
+    }
+
+    /**
+     * Advance to the next sample
+     * @return False once all samples have been read
+     */
+    public boolean next() {
+        if (read >= count) {
+            return false;
+        }
+
+        if (read == 0) {
+            timestamp = in.readBits(64);
+            valueBits = in.readBits(64);
+        } else {
+            delta += readDeltaOfDelta();
+            timestamp += delta;
+            readValue();
+        }
+        read++;
+        return true;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public double getValue() {
+        return Double.longBitsToDouble(valueBits);
+    }
+
+    private long readDeltaOfDelta() {
+        if (!in.readBit()) return 0;
+        if (!in.readBit()) return signExtend(in.readBits(7), 7);
+        if (!in.readBit()) return signExtend(in.readBits(9), 9);
+        if (!in.readBit()) return signExtend(in.readBits(12), 12);
+        return in.readBits(64);
+    }
+
+    private void readValue() {
+        if (!in.readBit()) {
+            return; // Same value as before
+        }
+        if (in.readBit()) {
+            leading = (int) in.readBits(5);
+            int significant = (int) in.readBits(6);
+            if (significant == 0) significant = 64;
+            trailing = 64 - leading - significant;
+        }
+        int significant = 64 - leading - trailing;
+        valueBits ^= in.readBits(significant) << trailing;
+    }
+
+    private static long signExtend(long value, int width) {
+        int shift = 64 - width;
+        return (value << shift) >> shift;
+    }
+}
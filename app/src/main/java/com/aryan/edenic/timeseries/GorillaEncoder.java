@@ -0,0 +1,94 @@
+package com.aryan.edenic.timeseries;
+
+/**
+ * Compresses a block of (timestamp, value) samples as described in Facebook's Gorilla paper.
+ * Timestamps are stored as delta-of-deltas with variable-length prefixes, and values as the
+ * XOR with the previous value, reusing the previous window of meaningful bits when possible.
+ * Regular, slowly changing samples cost only a couple of bits each.
+ *
+ * Timestamps are in seconds and must not decrease.
+ */
+public class GorillaEncoder {
+    private final BitWriter out = new BitWriter();
+    private int count = 0;
+
+    private long previousTimestamp;
+    private long previousDelta;
+    private long previousValueBits;
+    private int previousLeading = Integer.MAX_VALUE;
+    private int previousTrailing = 0;
+
+    public void append(long timestamp, double value) {
+        long valueBits = Double.doubleToRawLongBits(value);
+
+        if (count == 0) {
+            // The first sample is stored raw
+            out.writeBits(timestamp, 64);
+            out.writeBits(valueBits, 64);
+        } else {
+            long delta = timestamp - previousTimestamp;
+            if (delta < 0) {
+                throw new IllegalArgumentException("Timestamps must not decrease");
+            }
+            writeTimestamp(delta - previousDelta);
+            writeValue(valueBits ^ previousValueBits);
+            previousDelta = delta;
+        }
+
+        previousTimestamp = timestamp;
+        previousValueBits = valueBits;
+        count++;
+    }
+
+    private void writeTimestamp(long deltaOfDelta) {
+        if (deltaOfDelta == 0) {
+            out.writeBit(false);
+        } else if (deltaOfDelta >= -64 && deltaOfDelta <= 63) {
+            out.writeBits(0b10, 2);
+            out.writeBits(deltaOfDelta, 7);
+        } else if (deltaOfDelta >= -256 && deltaOfDelta <= 255) {
+            out.writeBits(0b110, 3);
+            out.writeBits(deltaOfDelta, 9);
+        } else if (deltaOfDelta >= -2048 && deltaOfDelta <= 2047) {
+            out.writeBits(0b1110, 4);
+            out.writeBits(deltaOfDelta, 12);
+        } else {
+            out.writeBits(0b1111, 4);
+            out.writeBits(deltaOfDelta, 64);
+        }
+    }
+
+    private void writeValue(long xor) {
+        if (xor == 0) {
+            out.writeBit(false);
+            return;
+        }
+        out.writeBit(true);
+
+        int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+        int trailing = Long.numberOfTrailingZeros(xor);
+
+        if (leading >= previousLeading && trailing >= previousTrailing) {
+            // Meaningful bits fit inside the previous window
+            out.writeBit(false);
+            out.writeBits(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+        } else {
+            int significant = 64 - leading - trailing;
+            out.writeBit(true);
+            out.writeBits(leading, 5);
+            // 64 significant bits would overflow 6 bits; store it as 0
+            out.writeBits(significant == 64 ? 0 : significant, 6);
+            out.writeBits(xor >>> trailing, significant);
+            previousLeading = leading;
+            previousTrailing = trailing;
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public byte[] toByteArray() {
+        return out.toByteArray();
+    }
+}
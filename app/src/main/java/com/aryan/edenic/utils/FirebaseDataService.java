@@ -4,9 +4,11 @@ import android.util.Log;
 
 import androidx.annotation.NonNull;
 
+import com.aryan.edenic.leaderboard.LeaderboardSource;
+import com.aryan.edenic.models.Holding;
 import com.aryan.edenic.models.LeaderboardEntry;
 import com.aryan.edenic.models.PortfolioItem;
-import com.aryan.edenic.models.StockHolding;
+import com.aryan.edenic.orders.TradeService;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.database.DataSnapshot;
@@ -17,7 +19,6 @@ import com.google.firebase.database.ServerValue;
 import com.google.firebase.database.ValueEventListener;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,7 @@ public class FirebaseDataService {
     private final String userId;
     private final DatabaseReference userRef;
     private final DatabaseReference leaderboardRef;
+    private LeaderboardSource.LeaderboardListener leaderboardSourceListener;
 
     public interface LeaderboardListener {
         void onLeaderboardUpdated(List<LeaderboardEntry> topEntries, LeaderboardEntry currentUserEntry, int currentUserPosition);
@@ -97,14 +99,13 @@ public class FirebaseDataService {
     }
 
     /**
-     * Update portfolio data in Firebase
+     * Update portfolio data in Firebase. The daily change follows from the value.
      */
-    public void updatePortfolio(double portfolioValue, double dailyChangePercent) {
+    public void updatePortfolio(double portfolioValue) {
         if (userRef == null) return;
 
         Map<String, Object> updates = new HashMap<>();
         updates.put("portfolioValue", portfolioValue);
-        updates.put("dailyChangePercent", dailyChangePercent);
         updates.put("lastUpdated", ServerValue.TIMESTAMP);
 
         userRef.updateChildren(updates)
@@ -114,13 +115,7 @@ public class FirebaseDataService {
                     // Also update leaderboard
                     FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
                     if (user != null) {
-                        LeaderboardEntry entry = new LeaderboardEntry(
-                                user.getDisplayName(),
-                                user.getPhotoUrl() != null ? user.getPhotoUrl().toString() : "",
-                                portfolioValue,
-                                dailyChangePercent
-                        );
-                        leaderboardRef.child(userId).setValue(entry);
+                        database.getReference().updateChildren(PortfolioWrites.leaderboardUpdates(user, portfolioValue));
                     }
                 })
                 .addOnFailureListener(e ->
@@ -133,14 +128,13 @@ public class FirebaseDataService {
     public void updateStockHolding(String symbol, int quantity, double avgPrice) {
         if (userRef == null) return;
 
-        DatabaseReference stockRef = userRef.child("stocks").child(symbol);
+        DatabaseReference stockRef = userRef.child(TradeService.ACCOUNT).child("holdings").child(symbol);
 
         if (quantity <= 0) {
             // Remove stock if quantity is zero or negative
             stockRef.removeValue();
         } else {
-            StockHolding holding = new StockHolding(quantity, avgPrice);
-            stockRef.setValue(holding);
+            stockRef.setValue(new Holding(symbol, quantity, avgPrice * quantity).toMap());
         }
     }
 
@@ -163,28 +157,17 @@ public class FirebaseDataService {
 
                 List<PortfolioItem> items = new ArrayList<>();
 
-                // Get stock holdings
-                if (snapshot.child("stocks").exists()) {
-                    for (DataSnapshot stockSnapshot : snapshot.child("stocks").getChildren()) {
-                        try {
-                            String symbol = stockSnapshot.getKey();
-                            StockHolding holding = stockSnapshot.getValue(StockHolding.class);
-
-                            if (symbol != null && holding != null) {
-                                PortfolioItem item = new PortfolioItem.Builder()
-                                        .setSymbol(symbol)
-                                        .setCompanyName(symbol) // You can fetch company name separately
-                                        .setCurrentPrice(holding.getAvgPrice()) // Current price will be updated later
-                                        .setQuantity(holding.getQty())
-                                        .setInvestedAmount(holding.getAvgPrice() * holding.getQty())
-                                        .build();
-
-                                items.add(item);
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "Error parsing stock holding", e);
-                        }
-                    }
+                // Get stock holdings (legacy records are migrated on first read)
+                for (Holding holding : HoldingsMigrator.fromUserSnapshot(userId, snapshot).values()) {
+                    PortfolioItem item = new PortfolioItem.Builder()
+                            .setSymbol(holding.getSymbol())
+                            .setCompanyName(StockDirectory.getCompanyName(holding.getSymbol()))
+                            .setCurrentPrice(holding.getAvgPrice()) // Current price will be updated later
+                            .setQuantity(holding.getQuantity())
+                            .setInvestedAmount(holding.getCost())
+                            .build();
+
+                    items.add(item);
                 }
 
                 listener.onPortfolioUpdated(portfolioValue, dailyChangePercent, items);
@@ -199,76 +182,41 @@ public class FirebaseDataService {
     }
 
     /**
-     * Listen to leaderboard updates
+     * Listen to leaderboard updates through the shared leaderboard subscription
      */
     public void setupLeaderboardListener(LeaderboardListener listener) {
         if (leaderboardRef == null) return;
-
-        // Use limitToLast to get the highest values first, since Firebase orders ascending by default
-        leaderboardRef.orderByChild("portfolioValue").limitToLast(20).addValueEventListener(new ValueEventListener() {
-            @Override
-            public void onDataChange(@NonNull DataSnapshot snapshot) {
-                List<LeaderboardEntry> allEntries = new ArrayList<>();
-                LeaderboardEntry currentUserEntry = null;
-
-                // 1. Collect all entries and find current user
-                for (DataSnapshot userSnapshot : snapshot.getChildren()) {
-                    try {
-                        LeaderboardEntry entry = userSnapshot.getValue(LeaderboardEntry.class);
-                        if (entry != null) {
-                            entry.setUserId(userSnapshot.getKey());
-
-                            // Check if this is the current user
-                            if (userSnapshot.getKey().equals(userId)) {
-                                currentUserEntry = entry;
-                            }
-
-                            allEntries.add(entry);
-                        }
-                    } catch (Exception e) {
-                        Log.e(TAG, "Error parsing leaderboard entry", e);
-                    }
-                }
-
-                // Since Firebase returns in ascending order with limitToLast, we need to reverse
-                Collections.reverse(allEntries);
-
-                // Double-check sort by portfolio value (descending)
-                allEntries.sort((o1, o2) -> {
-                    double val1 = o1.getPortfolioValue();
-                    double val2 = o2.getPortfolioValue();
-                    Log.d(TAG, "Comparing: " + o1.getName() + "($" + val1 +
-                            ") vs " + o2.getName() + "($" + val2 + ")");
-                    return Double.compare(val2, val1);
-                });
-
-                // Find current user's position (if found)
-                int currentUserPosition = -1;
-                if (currentUserEntry != null) {
-                    for (int i = 0; i < allEntries.size(); i++) {
-                        if (allEntries.get(i).getUserId().equals(userId)) {
-                            currentUserPosition = i + 1; // 1-based position
-                            currentUserEntry.setPosition(currentUserPosition);
-                            break;
-                        }
-                    }
-                }
-
-                // Get top 10 entries (or less if not enough)
-                List<LeaderboardEntry> topEntries = new ArrayList<>();
-                int topCount = Math.min(10, allEntries.size());
-                for (int i = 0; i < topCount; i++) {
-                    topEntries.add(allEntries.get(i));
+        stopLeaderboardListener();
+
+        leaderboardSourceListener = entries -> {
+            // Find current user's position (if found)
+            LeaderboardEntry currentUserEntry = null;
+            int currentUserPosition = -1;
+            for (int i = 0; i < entries.size(); i++) {
+                LeaderboardEntry entry = entries.get(i);
+                if (entry.getUserId().equals(userId)) {
+                    currentUserPosition = i + 1; // 1-based position
+
+                    // Entries are shared with other screens, so position a copy
+                    currentUserEntry = new LeaderboardEntry(entry.getName(), entry.getPhotoUrl(),
+                            entry.getPortfolioValue(), entry.getDailyChangePercent());
+                    currentUserEntry.setUserId(userId);
+                    currentUserEntry.setPosition(currentUserPosition);
+                    break;
                 }
-
-                // Deliver results
-                listener.onLeaderboardUpdated(topEntries, currentUserEntry, currentUserPosition);
             }
 
-            @Override
-            public void onCancelled(@NonNull DatabaseError error) {
-                Log.e(TAG, "Error loading leaderboard", error.toException());
-            }
-        });
+            // Top 10 entries (or less if not enough)
+            List<LeaderboardEntry> topEntries = entries.subList(0, Math.min(10, entries.size()));
+            listener.onLeaderboardUpdated(topEntries, currentUserEntry, currentUserPosition);
+        };
+        LeaderboardSource.getInstance().addListener(leaderboardSourceListener);
+    }
+
+    public void stopLeaderboardListener() {
+        if (leaderboardSourceListener != null) {
+            LeaderboardSource.getInstance().removeListener(leaderboardSourceListener);
+            leaderboardSourceListener = null;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,148 @@
+package com.aryan.edenic.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects Realtime Database writes and sends them as one atomic multi-path
+ * {@code updateChildren} on the root. Later writes to a path replace earlier ones,
+ * so a trade that saves the same node several times still costs one round-trip.
+ * A failed write is staged again under anything staged since and retried with a growing
+ * delay, up to {@link #MAX_RETRIES} times in a row.
+ * Not thread-safe; use it from the main thread.
+ */
+public class FirebaseWriteBatch {
+    private static final String TAG = "FirebaseWriteBatch";
+    private static final int MAX_RETRIES = 3;
+    private static final long RETRY_DELAY_MS = 5000;
+
+    private final Map<String, Object> updates = new LinkedHashMap<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean commitScheduled = false;
+    private int failedCommits = 0;
+
+    /**
+     * Stage a value at an absolute path like {@code users/uid/portfolioValue}
+     */
+    public FirebaseWriteBatch set(String path, Object value) {
+        // A write replaces everything staged below it
+        String prefix = path + "/";
+        Iterator<String> keys = updates.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+            }
+        }
+
+        // Firebase rejects a path next to one of its ancestors, so merge into the staged ancestor
+        for (Map.Entry<String, Object> entry : updates.entrySet()) {
+            String ancestor = entry.getKey();
+            if (path.startsWith(ancestor + "/")) {
+                entry.setValue(mergeInto(entry.getValue(), path.substring(ancestor.length() + 1), value));
+                return this;
+            }
+        }
+
+        // Re-insert so the path keeps its latest position
+        updates.remove(path);
+        updates.put(path, value);
+        return this;
+    }
+
+    /**
+     * Stage a delete at an absolute path
+     */
+    public FirebaseWriteBatch remove(String path) {
+        return set(path, null);
+    }
+
+    public boolean isEmpty() {
+        return updates.isEmpty();
+    }
+
+    public int size() {
+        return updates.size();
+    }
+
+    /**
+     * Send everything staged so far in one write and empty the batch
+     */
+    public Task<Void> commit() {
+        handler.removeCallbacks(commitRunnable);
+        commitScheduled = false;
+
+        if (updates.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        Map<String, Object> toWrite = new LinkedHashMap<>(updates);
+        updates.clear();
+        Log.d(TAG, "Committing " + toWrite.size() + " paths");
+        return FirebaseDatabase.getInstance().getReference().updateChildren(new HashMap<>(toWrite))
+                .addOnSuccessListener(aVoid -> failedCommits = 0)
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Batched write failed", e);
+                    restage(toWrite);
+                });
+    }
+
+    /**
+     * Commit once the current main-thread work is done, so every write staged while
+     * handling one event (e.g. a trade) goes out together
+     */
+    public void commitLater() {
+        if (!commitScheduled) {
+            commitScheduled = true;
+            handler.post(commitRunnable);
+        }
+    }
+
+    private final Runnable commitRunnable = this::commit;
+
+    // Put failed writes back beneath what was staged since, so newer values still win
+    private void restage(Map<String, Object> failed) {
+        if (++failedCommits > MAX_RETRIES) {
+            Log.e(TAG, "Dropping " + failed.size() + " paths after " + MAX_RETRIES + " retries");
+            failedCommits = 0;
+            return;
+        }
+
+        Map<String, Object> newer = new LinkedHashMap<>(updates);
+        updates.clear();
+        for (Map.Entry<String, Object> entry : failed.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+        for (Map.Entry<String, Object> entry : newer.entrySet()) {
+            set(entry.getKey(), entry.getValue());
+        }
+
+        handler.removeCallbacks(commitRunnable);
+        commitScheduled = true;
+        handler.postDelayed(commitRunnable, RETRY_DELAY_MS * failedCommits);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object mergeInto(Object node, String relativePath, Object value) {
+        Map<String, Object> map = node instanceof Map ?
+                new HashMap<>((Map<String, Object>) node) : new HashMap<>();
+
+        int slash = relativePath.indexOf('/');
+        if (slash < 0) {
+            map.put(relativePath, value);
+        } else {
+            String key = relativePath.substring(0, slash);
+            map.put(key, mergeInto(map.get(key), relativePath.substring(slash + 1), value));
+        }
+        return map;
+    }
+}
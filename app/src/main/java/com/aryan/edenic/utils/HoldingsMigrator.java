@@ -0,0 +1,215 @@
+package com.aryan.edenic.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.models.Holding;
+import com.aryan.edenic.models.StockHolding;
+import com.aryan.edenic.orders.TradeService;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.Transaction;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Reads a user's holdings from their account, {@code users/{uid}/account/holdings/{symbol}{qty,cost}},
+ * and opens the account on first read from the nodes it replaces: the compact {@code holdings/},
+ * cash and trade marks that used to sit on the user node, and the two legacy copies
+ * ({@code stocks/} and {@code portfolioItems/}). Compact records win over legacy ones; once the
+ * account exists the old nodes are deleted, so later reads of them are empty and cost nothing.
+ */
+public final class HoldingsMigrator {
+    private static final String TAG = "HoldingsMigrator";
+
+    private HoldingsMigrator() {}
+
+    /**
+     * Load a user's holdings on the calling thread (used by background work)
+     */
+    public static Map<String, Holding> loadBlocking(String userId) throws ExecutionException, InterruptedException {
+        DataSnapshot account = Tasks.await(TradeService.accountRef(userId).get());
+        if (!account.exists()) {
+            account = Tasks.await(openAccount(userId));
+        }
+        return fromAccount(account);
+    }
+
+    /**
+     * Read holdings from an already downloaded user node
+     */
+    public static Map<String, Holding> fromUserSnapshot(String userId, DataSnapshot user) {
+        if (user.hasChild(TradeService.ACCOUNT)) {
+            return fromAccount(user.child(TradeService.ACCOUNT));
+        }
+        openAccount(userId);
+        return merge(user.child("holdings"), user.child("portfolioItems"), user.child("stocks"));
+    }
+
+    /**
+     * Holdings of a downloaded {@code users/{uid}/account} node
+     */
+    public static Map<String, Holding> fromAccount(DataSnapshot account) {
+        Map<String, Holding> result = new LinkedHashMap<>();
+        for (DataSnapshot child : account.child("holdings").getChildren()) {
+            Holding holding = parseHolding(child);
+            if (holding != null && holding.getQuantity() > 0) {
+                result.put(holding.getSymbol(), holding);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create the account from the user's older nodes, unless it already exists.
+     * Cash is the stored balance if there is one, or else the starting balance less the cost
+     * of the holdings. Completes with the account as the database has it.
+     */
+    public static Task<DataSnapshot> openAccount(String userId) {
+        DatabaseReference userRef = FirebaseDatabase.getInstance().getReference("users").child(userId);
+        Task<DataSnapshot> holdings = userRef.child("holdings").get();
+        Task<DataSnapshot> items = userRef.child("portfolioItems").get();
+        Task<DataSnapshot> legacy = userRef.child("stocks").get();
+        Task<DataSnapshot> cash = userRef.child("cash").get();
+        Task<DataSnapshot> applied = userRef.child("appliedTrades").get();
+
+        TaskCompletionSource<DataSnapshot> opened = new TaskCompletionSource<>();
+        Tasks.whenAllSuccess(holdings, items, legacy, cash, applied)
+                .addOnSuccessListener(results -> {
+                    Map<String, Holding> merged = merge(holdings.getResult(), items.getResult(), legacy.getResult());
+                    Double storedCash = cash.getResult().getValue(Double.class);
+
+                    Map<String, Object> account = new HashMap<>();
+                    account.put("cash", storedCash != null ? storedCash : TradeService.STARTING_BALANCE - totalCost(merged));
+                    Map<String, Object> holdingValues = new HashMap<>();
+                    for (Holding holding : merged.values()) {
+                        holdingValues.put(holding.getSymbol(), holding.toMap());
+                    }
+                    account.put("holdings", holdingValues);
+                    account.put("appliedTrades", applied.getResult().getValue());
+
+                    TradeService.accountRef(userId).runTransaction(
+                            new OpenHandler(userId, account, merged.size(), opened), false);
+                })
+                .addOnFailureListener(opened::trySetException);
+        return opened.getTask();
+    }
+
+    /**
+     * @return Total cost of all holdings, used to derive the cash balance
+     */
+    public static double totalCost(Map<String, Holding> holdings) {
+        double total = 0;
+        for (Holding holding : holdings.values()) {
+            total += holding.getCost();
+        }
+        return total;
+    }
+
+    private static Map<String, Holding> merge(DataSnapshot holdings, DataSnapshot items, DataSnapshot legacy) {
+        Map<String, Holding> result = new LinkedHashMap<>();
+        for (DataSnapshot child : holdings.getChildren()) {
+            Holding holding = parseHolding(child);
+            if (holding != null && holding.getQuantity() > 0) {
+                result.put(holding.getSymbol(), holding);
+            }
+        }
+
+        // portfolioItems carries the exact invested amount, so prefer it over avgPrice * qty
+        for (DataSnapshot child : items.getChildren()) {
+            Integer quantity = child.child("quantity").getValue(Integer.class);
+            Double invested = child.child("investedAmount").getValue(Double.class);
+            if (quantity != null && invested != null && quantity > 0 && !result.containsKey(child.getKey())) {
+                result.put(child.getKey(), new Holding(child.getKey(), quantity, invested));
+            }
+        }
+        for (DataSnapshot child : legacy.getChildren()) {
+            try {
+                StockHolding stock = child.getValue(StockHolding.class);
+                if (stock != null && stock.getQty() > 0 && !result.containsKey(child.getKey())) {
+                    result.put(child.getKey(),
+                            new Holding(child.getKey(), stock.getQty(), stock.getAvgPrice() * stock.getQty()));
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Error parsing legacy holding " + child.getKey(), e);
+            }
+        }
+        return result;
+    }
+
+    // Creates the account only where there is none, then retires the nodes it replaces
+    private static class OpenHandler implements Transaction.Handler {
+        private final String userId;
+        private final Map<String, Object> account;
+        private final int migrated;
+        private final TaskCompletionSource<DataSnapshot> opened;
+
+        OpenHandler(String userId, Map<String, Object> account, int migrated,
+                    TaskCompletionSource<DataSnapshot> opened) {
+            this.userId = userId;
+            this.account = account;
+            this.migrated = migrated;
+            this.opened = opened;
+        }
+
+        @NonNull
+        @Override
+        public Transaction.Result doTransaction(@NonNull MutableData currentData) {
+            if (currentData.getValue() != null) {
+                return Transaction.abort(); // Opened by another device or an earlier run
+            }
+            currentData.setValue(account);
+            return Transaction.success(currentData);
+        }
+
+        @Override
+        public void onComplete(@Nullable DatabaseError error, boolean committed,
+                               @Nullable DataSnapshot currentData) {
+            if (error != null || currentData == null) {
+                Log.e(TAG, "Error opening account", error != null ? error.toException() : null);
+                opened.trySetException(error != null ? error.toException() : new IllegalStateException("No account"));
+                return;
+            }
+
+            // The account is authoritative now, whoever created it
+            String userPath = "users/" + userId;
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(userPath + "/holdings", null);
+            updates.put(userPath + "/stocks", null);
+            updates.put(userPath + "/portfolioItems", null);
+            updates.put(userPath + "/cash", null);
+            updates.put(userPath + "/appliedTrades", null);
+            FirebaseDatabase.getInstance().getReference().updateChildren(updates)
+                    .addOnFailureListener(e -> Log.e(TAG, "Error removing migrated nodes", e));
+
+            if (committed) {
+                Log.d(TAG, "Opened account with " + migrated + " migrated holdings");
+            }
+            opened.trySetResult(currentData);
+        }
+    }
+
+    private static Holding parseHolding(DataSnapshot child) {
+        try {
+            Map<String, Object> data = new HashMap<>();
+            for (DataSnapshot field : child.getChildren()) {
+                data.put(field.getKey(), field.getValue());
+            }
+            return Holding.fromMap(child.getKey(), data);
+        } catch (Exception e) {
+            Log.e(TAG, "Error parsing holding " + child.getKey(), e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package com.aryan.edenic.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.text.TextUtils;
+import android.util.Log;
+
+import com.aryan.edenic.yahoo_finance.Result;
+import com.aryan.edenic.yahoo_finance.SparkResponse;
+import com.aryan.edenic.yahoo_finance.SparkResult;
+import com.aryan.edenic.yahoo_finance.YahooFinanceClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+/**
+ * Shared cache of intraday mini-series used for sparklines on stock cards.
+ * Symbols requested in the same frame are coalesced into one batched spark request,
+ * and each symbol is fetched at most once per cache period. Only the most recently used
+ * symbols are kept.
+ * All methods must be called on the main thread.
+ */
+public class MiniSeriesStore {
+    private static final String TAG = "MiniSeriesStore";
+    private static final long CACHE_EXPIRY = 5 * 60 * 1000; // 5 minutes, same as price cache
+    private static final long FAILURE_RETRY_DELAY = 60 * 1000; // Don't hammer Yahoo after a failed batch
+    private static final long BATCH_WINDOW = 50; // Collect binds from one scroll frame
+    private static final int MAX_SYMBOLS_PER_REQUEST = 20;
+    private static final int MAX_CACHED_SYMBOLS = 200; // A few screens of cards, ~80 points each
+    private static final String INTERVAL = "5m";
+    private static final String RANGE = "1d";
+
+    private static MiniSeriesStore instance;
+
+    public interface SeriesListener {
+        void onSeriesLoaded(String symbol, float[] series);
+    }
+
+    // Access-ordered, so browsing the whole directory evicts the symbols seen longest ago
+    private final Map<String, CachedSeries> cache =
+            new LinkedHashMap<String, CachedSeries>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CachedSeries> eldest) {
+                    return size() > MAX_CACHED_SYMBOLS;
+                }
+            };
+    private final Map<String, List<SeriesListener>> waiting = new HashMap<>();
+    private final Set<String> queued = new LinkedHashSet<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private boolean flushScheduled = false;
+
+    private MiniSeriesStore() {}
+
+    public static MiniSeriesStore getInstance() {
+        if (instance == null) {
+            instance = new MiniSeriesStore();
+        }
+        return instance;
+    }
+
+    /**
+     * Get a cached series without triggering a fetch
+     * @return The series, or null if nothing fresh is cached
+     */
+    public float[] getCached(String symbol) {
+        CachedSeries cached = cache.get(symbol);
+        if (cached != null && cached.isFresh() && cached.series.length > 1) {
+            return cached.series;
+        }
+        return null;
+    }
+
+    /**
+     * Request the series for a symbol. The listener is called right away on a cache hit,
+     * otherwise once the batch containing the symbol completes. Registering the same
+     * listener twice for a symbol is a no-op, so adapters can pass themselves on every bind.
+     */
+    public void load(String symbol, SeriesListener listener) {
+        CachedSeries cached = cache.get(symbol);
+        if (cached != null && cached.isFresh()) {
+            if (cached.series.length > 1) {
+                listener.onSeriesLoaded(symbol, cached.series);
+            }
+            return;
+        }
+
+        List<SeriesListener> listeners = waiting.get(symbol);
+        if (listeners == null) {
+            // First request for this symbol, queue it for the next batch
+            listeners = new ArrayList<>();
+            waiting.put(symbol, listeners);
+            queued.add(symbol);
+            scheduleFlush();
+        }
+
+        if (!listeners.contains(listener)) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Drop a listener from all pending requests (e.g. when an adapter is detached)
+     */
+    public void removeListener(SeriesListener listener) {
+        for (List<SeriesListener> listeners : waiting.values()) {
+            listeners.remove(listener);
+        }
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            handler.postDelayed(this::flush, BATCH_WINDOW);
+        }
+    }
+
+    private void flush() {
+        flushScheduled = false;
+
+        List<String> batch = new ArrayList<>(MAX_SYMBOLS_PER_REQUEST);
+        for (String symbol : queued) {
+            batch.add(symbol);
+            if (batch.size() == MAX_SYMBOLS_PER_REQUEST) {
+                fetchBatch(batch);
+                batch = new ArrayList<>(MAX_SYMBOLS_PER_REQUEST);
+            }
+        }
+        if (!batch.isEmpty()) {
+            fetchBatch(batch);
+        }
+        queued.clear();
+    }
+
+    private void fetchBatch(List<String> symbols) {
+        Log.d(TAG, "Fetching sparklines for " + symbols.size() + " symbols");
+
+        YahooFinanceClient.getInstance().getSparkData(TextUtils.join(",", symbols), INTERVAL, RANGE)
+                .enqueue(new Callback<SparkResponse>() {
+                    @Override
+                    public void onResponse(Call<SparkResponse> call, Response<SparkResponse> response) {
+                        Map<String, float[]> loaded = new HashMap<>();
+
+                        if (response.isSuccessful() && response.body() != null &&
+                                response.body().spark != null && response.body().spark.result != null) {
+                            for (SparkResult sparkResult : response.body().spark.result) {
+                                if (sparkResult.symbol != null && sparkResult.response != null &&
+                                        !sparkResult.response.isEmpty()) {
+                                    loaded.put(sparkResult.symbol, toSeries(sparkResult.response.get(0)));
+                                }
+                            }
+                        } else {
+                            Log.e(TAG, "Spark request failed with code " + response.code());
+                        }
+
+                        deliver(symbols, loaded);
+                    }
+
+                    @Override
+                    public void onFailure(Call<SparkResponse> call, Throwable t) {
+                        Log.e(TAG, "Error fetching sparklines", t);
+                        deliver(symbols, new HashMap<>());
+                    }
+                });
+    }
+
+    private void deliver(List<String> symbols, Map<String, float[]> loaded) {
+        long now = System.currentTimeMillis();
+
+        for (String symbol : symbols) {
+            float[] series = loaded.get(symbol);
+            if (series != null) {
+                cache.put(symbol, new CachedSeries(series, now + CACHE_EXPIRY));
+            } else {
+                // Remember the miss for a short while so recycled views don't retry every frame
+                cache.put(symbol, new CachedSeries(new float[0], now + FAILURE_RETRY_DELAY));
+            }
+
+            List<SeriesListener> listeners = waiting.remove(symbol);
+            if (listeners != null && series != null && series.length > 1) {
+                for (SeriesListener listener : listeners) {
+                    listener.onSeriesLoaded(symbol, series);
+                }
+            }
+        }
+    }
+
+    // Flatten the close prices into a primitive array, skipping gaps Yahoo reports as null
+    private static float[] toSeries(Result result) {
+        if (result.indicators == null || result.indicators.quote == null ||
+                result.indicators.quote.isEmpty() || result.indicators.quote.get(0).close == null) {
+            return new float[0];
+        }
+
+        List<Double> closes = result.indicators.quote.get(0).close;
+        float[] series = new float[closes.size()];
+        int count = 0;
+        for (Double close : closes) {
+            if (close != null && close > 0) {
+                series[count++] = close.floatValue();
+            }
+        }
+
+        if (count == series.length) {
+            return series;
+        }
+        float[] trimmed = new float[count];
+        System.arraycopy(series, 0, trimmed, 0, count);
+        return trimmed;
+    }
+
+    /**
+     * Class to hold a cached series
+     */
+    private static class CachedSeries {
+        final float[] series;
+        final long expiresAt;
+
+        CachedSeries(float[] series, long expiresAt) {
+            this.series = series;
+            this.expiresAt = expiresAt;
+        }
+
+        boolean isFresh() {
+            return System.currentTimeMillis() < expiresAt;
+        }
+    }
+}
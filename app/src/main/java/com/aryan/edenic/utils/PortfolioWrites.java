@@ -0,0 +1,57 @@
+package com.aryan.edenic.utils;
+
+import com.aryan.edenic.models.PortfolioItem;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stages the database writes of a portfolio save into a {@link FirebaseWriteBatch}:
+ * profile totals and the leaderboard entry. Holdings and cash are only written by
+ * {@link com.aryan.edenic.orders.TradeService}, so a stale screen can't overwrite a trade.
+ */
+public final class PortfolioWrites {
+
+    private PortfolioWrites() {}
+
+    /**
+     * Stage the whole portfolio
+     * @return The total portfolio value that was staged
+     */
+    public static double stagePortfolio(FirebaseWriteBatch batch, FirebaseUser user, List<PortfolioItem> items) {
+        String userPath = "users/" + user.getUid();
+
+        double portfolioValue = 0;
+        for (PortfolioItem item : items) {
+            portfolioValue += item.getCurrentValue();
+        }
+
+        batch.set(userPath + "/portfolioValue", portfolioValue);
+        batch.set(userPath + "/lastUpdated", ServerValue.TIMESTAMP);
+
+        for (Map.Entry<String, Object> field : leaderboardUpdates(user, portfolioValue).entrySet()) {
+            batch.set(field.getKey(), field.getValue());
+        }
+
+        return portfolioValue;
+    }
+
+    /**
+     * Leaderboard fields a portfolio save owns, as paths from the root. The daily change,
+     * the rank index and the period leaderboards aren't among them: the worker owns those,
+     * and picks up this value on its next revaluation.
+     */
+    public static Map<String, Object> leaderboardUpdates(FirebaseUser user, double portfolioValue) {
+        String entryPath = "leaderboard/" + user.getUid() + "/";
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(entryPath + "name", user.getDisplayName());
+        updates.put(entryPath + "displayName", user.getDisplayName());
+        updates.put(entryPath + "photoUrl", user.getPhotoUrl() != null ? user.getPhotoUrl().toString() : "");
+        updates.put(entryPath + "portfolioValue", portfolioValue);
+        updates.put(entryPath + "position", -1); // Position will be calculated when displaying the leaderboard
+        return updates;
+    }
+}
@@ -0,0 +1,60 @@
+package com.aryan.edenic.utils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Static symbol to company name lookup, so stored records don't need to carry the name
+ */
+public final class StockDirectory {
+
+    private static final Map<String, String> COMPANY_NAMES = new HashMap<String, String>() {{
+        put("AAPL", "Apple Inc.");
+        put("MSFT", "Microsoft Corporation");
+        put("GOOGL", "Alphabet Inc.");
+        put("AMZN", "Amazon.com Inc.");
+        put("META", "Meta Platforms Inc.");
+        put("TSLA", "Tesla Inc.");
+        put("NVDA", "NVIDIA Corporation");
+        put("JPM", "JPMorgan Chase & Co.");
+        put("V", "Visa Inc.");
+        put("WMT", "Walmart Inc.");
+        put("PG", "Procter & Gamble Co.");
+        put("JNJ", "Johnson & Johnson");
+        put("UNH", "UnitedHealth Group Inc.");
+        put("HD", "Home Depot Inc.");
+        put("BAC", "Bank of America Corp.");
+        put("PFE", "Pfizer Inc.");
+        put("CSCO", "Cisco Systems Inc.");
+        put("VZ", "Verizon Communications Inc.");
+        put("INTC", "Intel Corporation");
+        put("NFLX", "Netflix Inc.");
+        put("DIS", "The Walt Disney Company");
+        put("ADBE", "Adobe Inc.");
+        put("PYPL", "PayPal Holdings Inc.");
+        put("CRM", "Salesforce Inc.");
+        put("CMCSA", "Comcast Corporation");
+        put("PEP", "PepsiCo Inc.");
+        put("COST", "Costco Wholesale Corporation");
+        put("ABT", "Abbott Laboratories");
+        put("TMO", "Thermo Fisher Scientific Inc.");
+        put("MCD", "McDonald's Corporation");
+        put("ACN", "Accenture plc");
+        put("NKE", "Nike Inc.");
+        put("AVGO", "Broadcom Inc.");
+        put("TXN", "Texas Instruments Incorporated");
+        put("QCOM", "Qualcomm Incorporated");
+        put("LLY", "Eli Lilly and Company");
+        put("DHR", "Danaher Corporation");
+        put("NEE", "NextEra Energy Inc.");
+        put("T", "AT&T Inc.");
+        put("CVX", "Chevron Corporation");
+    }};
+
+    private StockDirectory() {}
+
+    public static String getCompanyName(String symbol) {
+        String name = COMPANY_NAMES.get(symbol);
+        return name != null ? name : symbol + " Inc.";
+    }
+}
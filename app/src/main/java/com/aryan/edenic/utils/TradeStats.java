@@ -0,0 +1,136 @@
+package com.aryan.edenic.utils;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.aryan.edenic.models.Transaction;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.MutableData;
+import com.google.firebase.database.ServerValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals of a user's trades at {@code tradeStats/{uid}}, so screens can show the
+ * trade count and realized profit/loss without downloading the whole history.
+ * Every trade write increments them in the same multi-path update as the transaction record.
+ */
+public final class TradeStats {
+    private static final String TAG = "TradeStats";
+
+    public static final String COUNT = "count";
+    public static final String REALIZED_PROFIT_LOSS = "realizedProfitLoss";
+    // Version of the backfill that produced the totals; the first one could lose concurrent trades
+    public static final String BACKFILL_VERSION = "backfillVersion";
+    private static final int CURRENT_BACKFILL_VERSION = 2;
+    private static final String LEGACY_BACKFILLED = "backfilled";
+    private static final int MAX_BACKFILL_ATTEMPTS = 3;
+
+    private TradeStats() {}
+
+    /**
+     * @return Increments for one trade, keyed by absolute path
+     */
+    public static Map<String, Object> increments(String userId, Transaction transaction) {
+        String statsPath = "tradeStats/" + userId + "/";
+        Map<String, Object> updates = new HashMap<>();
+        updates.put(statsPath + COUNT, ServerValue.increment(1));
+        if (transaction.getType() == Transaction.Type.SELL) {
+            updates.put(statsPath + REALIZED_PROFIT_LOSS, ServerValue.increment(transaction.getProfitLoss()));
+        }
+        return updates;
+    }
+
+    public static boolean isBackfilled(DataSnapshot stats) {
+        Object version = stats.child(BACKFILL_VERSION).getValue();
+        return version instanceof Number && ((Number) version).intValue() >= CURRENT_BACKFILL_VERSION;
+    }
+
+    /**
+     * Compute the totals once from the full history for accounts that traded before
+     * the stats existed. Only done while the stats are not marked with the current version.
+     *
+     * Every trade writes its record and its increments in one update, so the count only ever
+     * grows, by one per record. The count is read before the history and the totals are
+     * written only if it is unchanged when the transaction commits: then the history holds
+     * exactly the trades the stats hold, and no increment is overwritten. If a trade landed
+     * in between, the backfill starts over.
+     */
+    public static void backfill(String userId) {
+        backfill(userId, 1);
+    }
+
+    private static void backfill(String userId, int attempt) {
+        DatabaseReference statsRef = FirebaseDatabase.getInstance().getReference("tradeStats").child(userId);
+        // The whole node, so the transaction below starts from it rather than an empty guess
+        statsRef.get()
+                .addOnSuccessListener(stats -> {
+                    Long countBefore = stats.child(COUNT).getValue(Long.class);
+                    FirebaseDatabase.getInstance().getReference("transactions").child(userId).get()
+                            .addOnSuccessListener(snapshot -> {
+                                long count = 0;
+                                double realized = 0;
+                                for (DataSnapshot child : snapshot.getChildren()) {
+                                    count++;
+                                    Double profitLoss = child.child("profitLoss").getValue(Double.class);
+                                    if ("SELL".equals(child.child("type").getValue(String.class)) && profitLoss != null) {
+                                        realized += profitLoss;
+                                    }
+                                }
+                                writeBackfill(userId, attempt, statsRef,
+                                        countBefore != null ? countBefore : 0, count, realized);
+                            })
+                            .addOnFailureListener(e -> Log.e(TAG, "Error reading history for stats", e));
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Error reading trade stats", e));
+    }
+
+    private static void writeBackfill(String userId, int attempt, DatabaseReference statsRef,
+                                      long countBefore, long count, double realized) {
+        statsRef.runTransaction(new com.google.firebase.database.Transaction.Handler() {
+            private boolean traded = false;
+
+            @NonNull
+            @Override
+            public com.google.firebase.database.Transaction.Result doTransaction(@NonNull MutableData currentData) {
+                traded = false;
+                if (currentData.getValue() == null && countBefore > 0) {
+                    return com.google.firebase.database.Transaction.success(currentData); // Local guess; retried with the server's data
+                }
+                Object version = currentData.child(BACKFILL_VERSION).getValue();
+                if (version instanceof Number && ((Number) version).intValue() >= CURRENT_BACKFILL_VERSION) {
+                    return com.google.firebase.database.Transaction.abort();
+                }
+                Object current = currentData.child(COUNT).getValue();
+                long currentCount = current instanceof Number ? ((Number) current).longValue() : 0;
+                if (currentCount != countBefore) {
+                    traded = true; // A trade landed after the count was read
+                    return com.google.firebase.database.Transaction.abort();
+                }
+                currentData.child(COUNT).setValue(count);
+                currentData.child(REALIZED_PROFIT_LOSS).setValue(realized);
+                currentData.child(BACKFILL_VERSION).setValue(CURRENT_BACKFILL_VERSION);
+                currentData.child(LEGACY_BACKFILLED).setValue(null);
+                return com.google.firebase.database.Transaction.success(currentData);
+            }
+
+            @Override
+            public void onComplete(@Nullable DatabaseError error, boolean committed,
+                                   @Nullable DataSnapshot currentData) {
+                if (error != null) {
+                    Log.e(TAG, "Error backfilling trade stats", error.toException());
+                } else if (committed) {
+                    Log.d(TAG, "Backfilled trade stats: " + count + " trades");
+                } else if (traded && attempt < MAX_BACKFILL_ATTEMPTS) {
+                    backfill(userId, attempt + 1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,111 @@
+package com.aryan.edenic.views;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.util.AttributeSet;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import com.aryan.edenic.R;
+
+/**
+ * Lightweight line chart for small price series.
+ * The path is rebuilt only when the data or size changes, so onDraw never allocates.
+ */
+public class SparklineView extends View {
+    private final Paint linePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Path path = new Path();
+    private final int upColor;
+    private final int downColor;
+
+    private float[] series;
+
+    public SparklineView(Context context) {
+        this(context, null);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public SparklineView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        upColor = ContextCompat.getColor(context, R.color.green);
+        downColor = ContextCompat.getColor(context, R.color.red);
+
+        linePaint.setStyle(Paint.Style.STROKE);
+        linePaint.setStrokeWidth(1.5f * getResources().getDisplayMetrics().density);
+        linePaint.setStrokeJoin(Paint.Join.ROUND);
+        linePaint.setStrokeCap(Paint.Cap.ROUND);
+        linePaint.setColor(upColor);
+    }
+
+    /**
+     * Set the series to draw. The array is not copied and must not be modified afterwards.
+     * @param series Values in chronological order, or null to clear the chart
+     */
+    public void setSeries(@Nullable float[] series) {
+        if (this.series == series) return;
+        this.series = series;
+        rebuildPath();
+        invalidate();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        rebuildPath();
+    }
+
+    private void rebuildPath() {
+        path.reset();
+
+        int width = getWidth() - getPaddingLeft() - getPaddingRight();
+        int height = getHeight() - getPaddingTop() - getPaddingBottom();
+        if (series == null || series.length < 2 || width <= 0 || height <= 0) {
+            return;
+        }
+
+        float min = series[0];
+        float max = series[0];
+        for (float value : series) {
+            if (value < min) min = value;
+            if (value > max) max = value;
+        }
+
+        // Keep the stroke inside the bounds and draw a flat line for constant series
+        float inset = linePaint.getStrokeWidth() / 2;
+        float range = max - min;
+        float xStep = (width - 2 * inset) / (series.length - 1);
+        float yScale = range > 0 ? (height - 2 * inset) / range : 0;
+        float left = getPaddingLeft() + inset;
+        float bottom = getPaddingTop() + height - inset;
+        float flatY = getPaddingTop() + height / 2f;
+
+        for (int i = 0; i < series.length; i++) {
+            float x = left + i * xStep;
+            float y = range > 0 ? bottom - (series[i] - min) * yScale : flatY;
+            if (i == 0) {
+                path.moveTo(x, y);
+            } else {
+                path.lineTo(x, y);
+            }
+        }
+
+        linePaint.setColor(series[series.length - 1] >= series[0] ? upColor : downColor);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        if (!path.isEmpty()) {
+            canvas.drawPath(path, linePaint);
+        }
+    }
+}
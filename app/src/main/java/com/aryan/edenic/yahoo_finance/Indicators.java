@@ -0,0 +1,10 @@
+package com.aryan.edenic.yahoo_finance;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class Indicators {
+    @SerializedName("quote")
+    public List<Quote> quote;
+}
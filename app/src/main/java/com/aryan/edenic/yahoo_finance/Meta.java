@@ -10,4 +10,6 @@ public class Meta {
     public double regularMarketPrice;
     @SerializedName("previousClose")
     public double previousClose;
+    @SerializedName("regularMarketTime")
+    public long regularMarketTime; // Epoch seconds
 }
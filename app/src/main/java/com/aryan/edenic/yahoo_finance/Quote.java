@@ -0,0 +1,18 @@
+package com.aryan.edenic.yahoo_finance;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class Quote {
+    @SerializedName("open")
+    public List<Double> open;
+    @SerializedName("high")
+    public List<Double> high;
+    @SerializedName("low")
+    public List<Double> low;
+    @SerializedName("close")
+    public List<Double> close;
+    @SerializedName("volume")
+    public List<Double> volume;
+}
@@ -2,7 +2,13 @@ package com.aryan.edenic.yahoo_finance;
 
 import com.google.gson.annotations.SerializedName;
 
+import java.util.List;
+
 public class Result {
     @SerializedName("meta")
     public Meta meta;
+    @SerializedName("timestamp")
+    public List<Long> timestamp;
+    @SerializedName("indicators")
+    public Indicators indicators;
 }
@@ -0,0 +1,12 @@
+package com.aryan.edenic.yahoo_finance;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class Spark {
+    @SerializedName("result")
+    public List<SparkResult> result;
+    @SerializedName("error")
+    public Object error;
+}
@@ -0,0 +1,8 @@
+package com.aryan.edenic.yahoo_finance;
+
+import com.google.gson.annotations.SerializedName;
+
+public class SparkResponse {
+    @SerializedName("spark")
+    public Spark spark;
+}
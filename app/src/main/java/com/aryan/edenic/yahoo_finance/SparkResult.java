@@ -0,0 +1,12 @@
+package com.aryan.edenic.yahoo_finance;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.List;
+
+public class SparkResult {
+    @SerializedName("symbol")
+    public String symbol;
+    @SerializedName("response")
+    public List<Result> response;
+}
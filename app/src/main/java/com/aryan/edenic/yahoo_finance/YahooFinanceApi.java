@@ -12,4 +12,12 @@ public interface YahooFinanceApi {
             @Query("interval") String interval,
             @Query("range") String range
     );
+
+    // Batched chart data for several comma-separated symbols in one request
+    @GET("v7/finance/spark")
+    Call<SparkResponse> getSparkData(
+            @Query("symbols") String symbols,
+            @Query("interval") String interval,
+            @Query("range") String range
+    );
 }
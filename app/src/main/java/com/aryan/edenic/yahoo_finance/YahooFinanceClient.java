@@ -3,8 +3,12 @@ package com.aryan.edenic.yahoo_finance;
 import android.util.Log;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -23,8 +27,9 @@ public class YahooFinanceClient {
     private static YahooFinanceApi instance;
 
     // Cache for stock prices to minimize API calls
-    private static final Map<String, CachedPrice> priceCache = new HashMap<>();
+    private static final Map<String, CachedPrice> priceCache = new ConcurrentHashMap<>();
     private static final long CACHE_EXPIRY = 5 * 60 * 1000; // 5 minutes cache validity
+    private static final int MAX_SYMBOLS_PER_REQUEST = 20;
 
     public static YahooFinanceApi getInstance() {
         if (instance == null) {
@@ -39,7 +44,7 @@ public class YahooFinanceClient {
 
     /**
      * Gets the current price for a stock symbol
-     * This method can be called synchronously from PortfolioManager
+     * This method can be called synchronously from background work
      *
      * @param symbol Stock symbol to fetch the price for
      * @return Current stock price or 0 if an error occurs
@@ -90,6 +95,56 @@ public class YahooFinanceClient {
         return priceRef.get();
     }
 
+    /**
+     * Gets current prices for several symbols using batched spark requests.
+     * Blocks on the network, so it must not be called from the main thread.
+     *
+     * @param symbols Stock symbols to fetch prices for
+     * @return Prices by symbol; symbols that failed are left out
+     * @throws IOException If there's a network issue
+     */
+    public static Map<String, Double> getCurrentPrices(Collection<String> symbols) throws IOException {
+        Map<String, Double> prices = new HashMap<>();
+        List<String> toFetch = new ArrayList<>();
+
+        // Serve what we can from the cache
+        long now = System.currentTimeMillis();
+        for (String symbol : symbols) {
+            CachedPrice cachedPrice = priceCache.get(symbol);
+            if (cachedPrice != null && now - cachedPrice.timestamp < CACHE_EXPIRY) {
+                prices.put(symbol, cachedPrice.price);
+            } else {
+                toFetch.add(symbol);
+            }
+        }
+
+        for (int start = 0; start < toFetch.size(); start += MAX_SYMBOLS_PER_REQUEST) {
+            List<String> batch = toFetch.subList(start, Math.min(toFetch.size(), start + MAX_SYMBOLS_PER_REQUEST));
+            Response<SparkResponse> response = getInstance()
+                    .getSparkData(String.join(",", batch), "1d", "1d").execute();
+
+            SparkResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.spark == null || body.spark.result == null) {
+                Log.e("YahooFinance", "Batch price request failed with code " + response.code());
+                continue;
+            }
+
+            for (SparkResult sparkResult : body.spark.result) {
+                if (sparkResult.symbol == null || sparkResult.response == null ||
+                        sparkResult.response.isEmpty() || sparkResult.response.get(0).meta == null) {
+                    continue;
+                }
+                double price = sparkResult.response.get(0).meta.regularMarketPrice;
+                if (price > 0) {
+                    prices.put(sparkResult.symbol, price);
+                    priceCache.put(sparkResult.symbol, new CachedPrice(price, now));
+                }
+            }
+        }
+
+        return prices;
+    }
+
     /**
      * Class to hold a cached stock price
      */
@@ -110,5 +165,13 @@ public class YahooFinanceClient {
                 @Query("interval") String interval,
                 @Query("range") String range
         );
+
+        // Batched chart data for several comma-separated symbols in one request
+        @GET("v7/finance/spark")
+        Call<SparkResponse> getSparkData(
+                @Query("symbols") String symbols,
+                @Query("interval") String interval,
+                @Query("range") String range
+        );
     }
 }
\ No newline at end of file
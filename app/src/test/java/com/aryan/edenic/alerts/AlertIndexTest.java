@@ -0,0 +1,111 @@
+package com.aryan.edenic.alerts;
+
+import com.aryan.edenic.models.PriceAlert;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Which alerts a price releases from an {@link AlertIndex}, checked against each alert's own test
+ */
+public class AlertIndexTest {
+    private static PriceAlert alert(PriceAlert.AlertType type, double target, double reference) {
+        return new PriceAlert("AAPL", "Apple Inc.", type, target, reference);
+    }
+
+    @Test
+    public void priceAlerts_fireOnTheirSideOfTheThreshold() {
+        AlertIndex index = new AlertIndex();
+        PriceAlert above = alert(PriceAlert.AlertType.PRICE_ABOVE, 110, 0);
+        PriceAlert below = alert(PriceAlert.AlertType.PRICE_BELOW, 90, 0);
+        index.add(above);
+        index.add(below);
+
+        assertFalse(index.wouldFire(100));
+        assertTrue(index.onPrice(100).isEmpty());
+        assertTrue(index.wouldFire(110));
+        List<PriceAlert> fired = index.onPrice(110);
+        assertEquals(1, fired.size());
+        assertTrue(fired.contains(above));
+        assertEquals(1, index.size());
+        assertTrue(index.onPrice(89).contains(below));
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void percentAlerts_useTheirReferencePrice() {
+        AlertIndex index = new AlertIndex();
+        PriceAlert up = alert(PriceAlert.AlertType.PERCENT_UP, 10, 200);
+        PriceAlert down = alert(PriceAlert.AlertType.PERCENT_DOWN, 5, 200);
+        index.add(up);
+        index.add(down);
+
+        assertTrue(index.onPrice(219).isEmpty());
+        assertTrue(index.onPrice(220.01).contains(up));
+        assertTrue(index.onPrice(191).isEmpty());
+        assertTrue(index.onPrice(190).contains(down));
+    }
+
+    @Test
+    public void alerts_areOneShot() {
+        AlertIndex index = new AlertIndex();
+        index.add(alert(PriceAlert.AlertType.PRICE_ABOVE, 50, 0));
+        index.add(alert(PriceAlert.AlertType.PRICE_ABOVE, 50, 0));
+
+        assertEquals(2, index.onPrice(60).size());
+        assertTrue(index.onPrice(60).isEmpty());
+        assertFalse(index.wouldFire(1000));
+    }
+
+    @Test
+    public void remove_dropsOnlyThatAlert() {
+        AlertIndex index = new AlertIndex();
+        PriceAlert first = alert(PriceAlert.AlertType.PRICE_BELOW, 80, 0);
+        PriceAlert second = alert(PriceAlert.AlertType.PRICE_BELOW, 80, 0);
+        index.add(first);
+        index.add(second);
+
+        assertTrue(index.remove(first));
+        assertFalse(index.remove(first));
+        assertEquals(1, index.size());
+        List<PriceAlert> fired = index.onPrice(70);
+        assertEquals(1, fired.size());
+        assertTrue(fired.contains(second));
+    }
+
+    @Test
+    public void randomQuotes_fireExactlyTheTriggeredAlerts() {
+        Random random = new Random(11);
+        PriceAlert.AlertType[] types = PriceAlert.AlertType.values();
+        AlertIndex index = new AlertIndex();
+        List<PriceAlert> open = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            PriceAlert alert = alert(types[random.nextInt(types.length)],
+                    random.nextInt(2) == 0 ? 50 + random.nextDouble() * 100 : random.nextDouble() * 30,
+                    100);
+            index.add(alert);
+            open.add(alert);
+        }
+
+        double price = 100;
+        for (int step = 0; step < 200; step++) {
+            price = Math.max(1, price + random.nextGaussian() * 5);
+            List<PriceAlert> expected = new ArrayList<>();
+            for (PriceAlert alert : open) {
+                if (alert.isTriggeredBy(price)) {
+                    expected.add(alert);
+                }
+            }
+            List<PriceAlert> fired = index.onPrice(price);
+            assertEquals(expected.size(), fired.size());
+            assertTrue(fired.containsAll(expected));
+            open.removeAll(expected);
+            assertEquals(open.size(), index.size());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.aryan.edenic.analytics;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Incremental indicators against values computed from scratch
+ */
+public class IndicatorsTest {
+    private static double mean(double[] prices, int end, int period) {
+        double sum = 0;
+        for (int i = end - period + 1; i <= end; i++) {
+            sum += prices[i];
+        }
+        return sum / period;
+    }
+
+    private static double[] randomWalk(int length, double start, long seed) {
+        Random random = new Random(seed);
+        double[] prices = new double[length];
+        double price = start;
+        for (int i = 0; i < length; i++) {
+            price = Math.max(1, price + random.nextGaussian() * start * 0.01);
+            prices[i] = price;
+        }
+        return prices;
+    }
+
+    @Test
+    public void sma_warmsUpThenMatchesTheWindowMean() {
+        SimpleMovingAverage sma = new SimpleMovingAverage(3);
+        assertTrue(Double.isNaN(sma.update(1)));
+        assertTrue(Double.isNaN(sma.update(2)));
+        assertEquals(2, sma.update(3), 1e-12);
+        assertEquals(3, sma.update(4), 1e-12);
+    }
+
+    @Test
+    public void sma_staysExactOverALongFeed() {
+        double[] prices = randomWalk(200000, 50000, 1);
+        SimpleMovingAverage sma = new SimpleMovingAverage(20);
+        for (double price : prices) {
+            sma.update(price);
+        }
+        int last = prices.length - 1;
+        assertEquals(mean(prices, last, 20), sma.getValue(), 1e-9);
+    }
+
+    @Test
+    public void bollinger_matchesStandardDeviationOverALongFeed() {
+        double[] prices = randomWalk(200000, 50000, 2);
+        BollingerBands bands = new BollingerBands(20, 2);
+        for (double price : prices) {
+            bands.update(price);
+        }
+
+        int last = prices.length - 1;
+        double mean = mean(prices, last, 20);
+        double squares = 0;
+        for (int i = last - 19; i <= last; i++) {
+            squares += (prices[i] - mean) * (prices[i] - mean);
+        }
+        double deviation = Math.sqrt(squares / 20);
+        assertEquals(mean, bands.getValue(), 1e-9);
+        assertEquals(deviation, bands.getStandardDeviation(), 1e-6);
+        assertEquals(mean + 2 * deviation, bands.getUpper(), 1e-6);
+    }
+
+    @Test
+    public void ema_seedsWithTheSimpleAverage() {
+        ExponentialMovingAverage ema = new ExponentialMovingAverage(3);
+        ema.update(2);
+        ema.update(4);
+        assertFalse(ema.isReady());
+        assertEquals(4, ema.update(6), 1e-12);
+        assertEquals(4 + 0.5 * (8 - 4), ema.update(8), 1e-12);
+    }
+
+    @Test
+    public void rsi_isHundredWhenPricesOnlyRise() {
+        RelativeStrengthIndex rsi = new RelativeStrengthIndex(14);
+        for (int i = 0; i <= 14; i++) {
+            rsi.update(100 + i);
+        }
+        assertEquals(100, rsi.getValue(), 1e-12);
+    }
+
+    @Test
+    public void rsi_balancesEqualGainsAndLosses() {
+        RelativeStrengthIndex rsi = new RelativeStrengthIndex(4);
+        double[] prices = {10, 11, 10, 11, 10};
+        for (double price : prices) {
+            rsi.update(price);
+        }
+        assertEquals(50, rsi.getValue(), 1e-9);
+    }
+
+    @Test
+    public void ringBuffer_returnsEvictedValuesOldestFirst() {
+        RingBuffer ring = new RingBuffer(2);
+        assertTrue(Double.isNaN(ring.add(1)));
+        assertTrue(Double.isNaN(ring.add(2)));
+        assertEquals(1, ring.add(3), 0);
+        assertEquals(2, ring.get(0), 0);
+        assertEquals(3, ring.newest(), 0);
+        assertEquals(5, ring.sum(), 0);
+        assertEquals(13, ring.sumOfSquares(), 0);
+    }
+
+    @Test
+    public void engine_seedReplacesEarlierState() {
+        IndicatorEngine engine = IndicatorEngine.getInstance();
+        engine.onPrice("TEST", 1000);
+        double[] closes = new double[30];
+        for (int i = 0; i < closes.length; i++) {
+            closes[i] = 10;
+        }
+
+        IndicatorSet.Snapshot snapshot = engine.seed("TEST", closes);
+        assertEquals(30, snapshot.bars);
+        assertEquals("RSI 50  •  SMA 20 $10.00  •  Bands $10.00–$10.00", snapshot.describe());
+        assertEquals(10, snapshot.sma20, 1e-12);
+        assertEquals(10, snapshot.bollingerUpper, 1e-12);
+        engine.remove("TEST");
+        assertNull(engine.getSnapshot("TEST"));
+    }
+}
@@ -0,0 +1,109 @@
+package com.aryan.edenic.analytics;
+
+import org.junit.Test;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Projections against closed-form growth, and the Cholesky factor against its product
+ */
+public class MonteCarloEngineTest {
+
+    @Test
+    public void withoutVolatility_everyPathGrowsAtTheMeanReturn() {
+        MonteCarloResult result = new MonteCarloEngine().simulate(
+                new double[]{1000, 3000}, new double[]{0.10, 0.05}, new double[]{0, 0},
+                new double[]{1, 0, 0, 1}, 2000, 252, 21, 1);
+
+        assertEquals(12, result.getCheckpointCount());
+        assertEquals(4000, result.initialValue, 1e-9);
+        for (int c = 0; c < result.getCheckpointCount(); c++) {
+            double years = (c + 1) * 21 / 252.0;
+            double expected = 1000 * Math.exp(0.10 * years) + 3000 * Math.exp(0.05 * years);
+            for (int p = 0; p < MonteCarloResult.PERCENTILES.length; p++) {
+                assertEquals(expected, result.getValue(c, p), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void medianOfOneHolding_matchesLognormalMedian() {
+        double value = 10000;
+        double mean = 0.08;
+        double volatility = 0.25;
+        MonteCarloResult result = new MonteCarloEngine().simulate(
+                new double[]{value}, new double[]{mean}, new double[]{volatility},
+                new double[]{1}, 20000, 252, 252, 42);
+
+        // After a year the median is V * exp(mu - sigma^2 / 2)
+        double median = value * Math.exp(mean - volatility * volatility / 2);
+        assertEquals(median, result.getMedian(0), median * 0.01);
+        // And the 5th percentile sits 1.645 sigma below it
+        double fifth = median * Math.exp(-1.645 * volatility);
+        assertEquals(fifth, result.getValue(0, 0), fifth * 0.02);
+    }
+
+    @Test
+    public void bands_areOrderedAndWidenOverTime() {
+        MonteCarloResult result = new MonteCarloEngine().simulate(
+                new double[]{500, 500, 500}, new double[]{0.07, 0.09, 0.05},
+                new double[]{0.2, 0.3, 0.15},
+                new double[]{1, 0.6, 0.2, 0.6, 1, 0.4, 0.2, 0.4, 1}, 5000, 126, 21, 7);
+
+        double previousWidth = 0;
+        for (int c = 0; c < result.getCheckpointCount(); c++) {
+            for (int p = 1; p < MonteCarloResult.PERCENTILES.length; p++) {
+                assertTrue(result.getValue(c, p) >= result.getValue(c, p - 1));
+            }
+            double width = result.getValue(c, 4) - result.getValue(c, 0);
+            assertTrue(width > previousWidth);
+            previousWidth = width;
+        }
+    }
+
+    @Test
+    public void sameSeed_givesTheSameResultOnAnyPool() {
+        double[] values = {1000, 2000};
+        double[] mean = {0.06, 0.1};
+        double[] volatility = {0.2, 0.35};
+        double[] correlation = {1, 0.3, 0.3, 1};
+        MonteCarloResult serial = new MonteCarloEngine(new ForkJoinPool(1))
+                .simulate(values, mean, volatility, correlation, 6000, 63, 21, 99);
+        MonteCarloResult parallel = new MonteCarloEngine(new ForkJoinPool(4))
+                .simulate(values, mean, volatility, correlation, 6000, 63, 21, 99);
+
+        for (int c = 0; c < serial.getCheckpointCount(); c++) {
+            for (int p = 0; p < MonteCarloResult.PERCENTILES.length; p++) {
+                assertEquals(serial.getValue(c, p), parallel.getValue(c, p), 0);
+            }
+        }
+    }
+
+    @Test
+    public void cholesky_reproducesTheMatrix() {
+        double[] matrix = {1, 0.5, 0.3, 0.5, 1, 0.2, 0.3, 0.2, 1};
+        double[] lower = MonteCarloEngine.cholesky(matrix, 3);
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                double product = 0;
+                for (int k = 0; k < 3; k++) {
+                    product += lower[i * 3 + k] * lower[j * 3 + k];
+                }
+                assertEquals(matrix[i * 3 + j], product, 1e-12);
+            }
+            for (int j = i + 1; j < 3; j++) {
+                assertEquals(0, lower[i * 3 + j], 0);
+            }
+        }
+    }
+
+    @Test
+    public void cholesky_ofAnImpossibleMatrix_fallsBackToIndependence() {
+        // Pairwise correlations no real returns can have
+        double[] matrix = {1, 0.9, -0.9, 0.9, 1, 0.9, -0.9, 0.9, 1};
+        assertArrayEquals(new double[]{1, 0, 0, 0, 1, 0, 0, 0, 1},
+                MonteCarloEngine.cholesky(matrix, 3), 0);
+    }
+}
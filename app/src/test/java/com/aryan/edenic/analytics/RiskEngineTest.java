@@ -0,0 +1,178 @@
+package com.aryan.edenic.analytics;
+
+import com.aryan.edenic.market.PriceSeries;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+/**
+ * Risk figures against series with known relationships and a naive correlation
+ */
+public class RiskEngineTest {
+    private static final long DAY = 24 * 60 * 60;
+    private static final long START = 1700006400L; // 2023-11-15 00:00 UTC
+
+    private static double[] randomReturns(int length, long seed) {
+        Random random = new Random(seed);
+        double[] returns = new double[length];
+        for (int i = 0; i < length; i++) {
+            returns[i] = random.nextGaussian() * 0.01;
+        }
+        return returns;
+    }
+
+    // Daily closes that produce exactly the given returns
+    private static PriceSeries series(String symbol, double[] returns) {
+        long[] times = new long[returns.length + 1];
+        double[] closes = new double[returns.length + 1];
+        closes[0] = 100;
+        for (int i = 0; i <= returns.length; i++) {
+            times[i] = START + i * DAY + 16 * 60 * 60;
+            if (i > 0) {
+                closes[i] = closes[i - 1] * (1 + returns[i - 1]);
+            }
+        }
+        return new PriceSeries(symbol, times, closes);
+    }
+
+    private static double correlation(double[] a, double[] b) {
+        double meanA = 0, meanB = 0;
+        for (int i = 0; i < a.length; i++) {
+            meanA += a[i] / a.length;
+            meanB += b[i] / b.length;
+        }
+        double cov = 0, varA = 0, varB = 0;
+        for (int i = 0; i < a.length; i++) {
+            cov += (a[i] - meanA) * (b[i] - meanB);
+            varA += (a[i] - meanA) * (a[i] - meanA);
+            varB += (b[i] - meanB) * (b[i] - meanB);
+        }
+        return cov / Math.sqrt(varA * varB);
+    }
+
+    @Test
+    public void trackerOfTheBenchmark_hasBetaAndCorrelationOne() {
+        double[] returns = randomReturns(100, 1);
+        double[] doubled = new double[returns.length];
+        for (int i = 0; i < returns.length; i++) {
+            doubled[i] = returns[i] * 2;
+        }
+        Map<String, PriceSeries> history = new HashMap<>();
+        history.put("SPY", series("SPY", returns));
+        history.put("SSO", series("SSO", doubled));
+        history.put("^GSPC", series("^GSPC", returns));
+        Map<String, Double> values = new HashMap<>();
+        values.put("SPY", 1000.0);
+        values.put("SSO", 1000.0);
+
+        RiskReport report = new RiskEngine().analyze(history, values, "^GSPC");
+        assertNotNull(report);
+        assertEquals(100, report.observations);
+        int spy = report.symbols[0].equals("SPY") ? 0 : 1;
+        int sso = 1 - spy;
+        assertEquals(1, report.beta[spy], 1e-9);
+        assertEquals(2, report.beta[sso], 1e-9);
+        assertEquals(1, report.getCorrelation(spy, sso), 1e-9);
+        assertEquals(1.5, report.portfolioBeta, 1e-9);
+        assertEquals(report.volatility[spy] * 2, report.volatility[sso], 1e-9);
+    }
+
+    @Test
+    public void correlationMatrix_matchesNaivePearsonAcrossTiles() {
+        // More symbols than one tile, so off-diagonal tile pairs are exercised
+        int n = 19;
+        double[] market = randomReturns(60, 99);
+        double[][] returns = new double[n][];
+        Map<String, PriceSeries> history = new HashMap<>();
+        Map<String, Double> values = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            double[] own = randomReturns(60, i);
+            returns[i] = new double[60];
+            for (int k = 0; k < 60; k++) {
+                returns[i][k] = own[k] + market[k] * (i % 3);
+            }
+            history.put("S" + i, series("S" + i, returns[i]));
+            values.put("S" + i, 100.0 + i);
+        }
+        history.put("^GSPC", series("^GSPC", market));
+
+        RiskReport report = new RiskEngine(new ForkJoinPool(4), 0.04).analyze(history, values, "^GSPC");
+        assertNotNull(report);
+        for (int i = 0; i < n; i++) {
+            int a = Integer.parseInt(report.symbols[i].substring(1));
+            assertEquals(1, report.getCorrelation(i, i), 0);
+            for (int j = 0; j < n; j++) {
+                int b = Integer.parseInt(report.symbols[j].substring(1));
+                assertEquals(correlation(returns[a], returns[b]), report.getCorrelation(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void onlyCommonDaysAreCompared() {
+        double[] returns = randomReturns(80, 5);
+        PriceSeries full = series("AAPL", returns);
+        // The benchmark is missing its first 30 days
+        long[] times = new long[full.size() - 30];
+        double[] closes = new double[times.length];
+        System.arraycopy(full.getTimestamps(), 30, times, 0, times.length);
+        System.arraycopy(full.getCloses(), 30, closes, 0, closes.length);
+
+        Map<String, PriceSeries> history = new HashMap<>();
+        history.put("AAPL", full);
+        history.put("^GSPC", new PriceSeries("^GSPC", times, closes));
+        Map<String, Double> values = new HashMap<>();
+        values.put("AAPL", 500.0);
+
+        RiskReport report = new RiskEngine().analyze(history, values, "^GSPC");
+        assertNotNull(report);
+        assertEquals(50, report.observations);
+        assertEquals(1, report.beta[0], 1e-9);
+    }
+
+    @Test
+    public void valueAtRisk_isTheFifthPercentileLossOnTheValueHeld() {
+        double[] returns = new double[100];
+        for (int i = 0; i < returns.length; i++) {
+            returns[i] = (i % 10 - 5) * 0.01; // -5% .. +4%, ten of each
+        }
+        Map<String, PriceSeries> history = new HashMap<>();
+        history.put("AAPL", series("AAPL", returns));
+        history.put("^GSPC", series("^GSPC", randomReturns(100, 3)));
+        Map<String, Double> values = new HashMap<>();
+        values.put("AAPL", 2000.0);
+
+        RiskReport report = new RiskEngine().analyze(history, values, "^GSPC");
+        assertNotNull(report);
+        assertEquals(0.05 * 2000, report.valueAtRisk95, 1e-6);
+    }
+
+    @Test
+    public void unpricedPositionsAndShortHistory_areLeftOut() {
+        Map<String, PriceSeries> history = new HashMap<>();
+        history.put("AAPL", series("AAPL", randomReturns(100, 7)));
+        history.put("MSFT", series("MSFT", randomReturns(100, 8)));
+        history.put("^GSPC", series("^GSPC", randomReturns(100, 9)));
+        Map<String, Double> values = new HashMap<>();
+        values.put("AAPL", 1000.0);
+        values.put("MSFT", 0.0);
+        values.put("TSLA", 1000.0); // No history
+
+        RiskReport report = new RiskEngine().analyze(history, values, "^GSPC");
+        assertNotNull(report);
+        assertArrayEquals(new String[]{"AAPL"}, report.symbols);
+
+        values.put("AAPL", 0.0);
+        assertNull(new RiskEngine().analyze(history, values, "^GSPC"));
+
+        history.put("AAPL", series("AAPL", randomReturns(10, 7)));
+        values.put("AAPL", 1000.0);
+        assertNull(new RiskEngine().analyze(history, values, "^GSPC"));
+    }
+}
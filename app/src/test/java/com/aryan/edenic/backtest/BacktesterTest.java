@@ -0,0 +1,92 @@
+package com.aryan.edenic.backtest;
+
+import com.aryan.edenic.market.PriceSeries;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replaying closes through strategies and the statistics of each run
+ */
+public class BacktesterTest {
+    private static PriceSeries series(String symbol, double... closes) {
+        long[] timestamps = new long[closes.length];
+        for (int i = 0; i < closes.length; i++) {
+            timestamps[i] = i * 86400L;
+        }
+        return new PriceSeries(symbol, timestamps, closes);
+    }
+
+    // Buys everything on the first bar and holds
+    private static Strategy buyAndHold() {
+        return new Strategy() {
+            @Override
+            public String getName() {
+                return "Hold";
+            }
+
+            @Override
+            public void onBar(int index, double close, SimulatedBroker broker) {
+                if (index == 0) {
+                    broker.buyAll();
+                }
+            }
+        };
+    }
+
+    @Test
+    public void buyAndHold_followsThePrice() {
+        BacktestResult result = new Backtester(1000).run(buyAndHold(), series("AAPL", 100, 120, 90, 110));
+
+        assertEquals(1, result.trades);
+        assertEquals(1100, result.equity[3], 1e-9);
+        assertEquals(0.10, result.totalReturn, 1e-9);
+        assertEquals(0.25, result.maxDrawdown, 1e-9); // 1200 down to 900
+    }
+
+    @Test
+    public void cashThatCantBuyAShare_staysFlat() {
+        BacktestResult result = new Backtester(50).run(buyAndHold(), series("AAPL", 100, 200));
+
+        assertEquals(0, result.trades);
+        assertEquals(0, result.totalReturn, 1e-9);
+    }
+
+    @Test
+    public void broker_countsWinningSells() {
+        SimulatedBroker broker = new SimulatedBroker("AAPL", 1000);
+        broker.markToMarket(100);
+        assertTrue(broker.buy(5));
+        assertFalse(broker.buy(6)); // Only 500 left
+        broker.markToMarket(120);
+        assertTrue(broker.sell(2));
+        assertFalse(broker.sell(4));
+        broker.markToMarket(80);
+        assertTrue(broker.sellAll());
+
+        assertEquals(3, broker.getTrades());
+        assertEquals(2, broker.getSells());
+        assertEquals(1, broker.getWinningSells());
+        assertEquals(500 + 240 + 240, broker.getCash(), 1e-9);
+    }
+
+    @Test
+    public void runAll_runsEveryStrategyOnEverySymbol() {
+        Map<String, PriceSeries> history = new HashMap<>();
+        history.put("AAPL", series("AAPL", 100, 101, 102));
+        history.put("MSFT", series("MSFT", 300, 290, 310));
+        List<Strategy.Factory> strategies = Arrays.asList(BacktesterTest::buyAndHold,
+                SmaCrossStrategy.factory(1, 2));
+
+        List<BacktestResult> results = new Backtester(1000).runAll(strategies, history);
+        assertEquals(4, results.size());
+        assertEquals("Hold", results.get(0).strategy);
+        assertEquals("SMA 1/2", results.get(3).strategy);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aryan.edenic.market;
+
+import com.aryan.edenic.models.Candle;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Streaming ticks into OHLC bars
+ */
+public class CandleAggregatorTest {
+    private static final long MINUTE = 60 * 1000;
+
+    @Test
+    public void ticksInOneInterval_buildOneBar() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.ONE_MINUTE, 10);
+        assertNull(aggregator.onTick(0, 10));
+        assertNull(aggregator.onTick(10000, 12));
+        assertNull(aggregator.onTick(20000, 9));
+        assertNull(aggregator.onTick(30000, 11));
+
+        List<Candle> candles = aggregator.getCandles();
+        assertEquals(1, candles.size());
+        Candle open = candles.get(0);
+        assertEquals(10, open.getOpen(), 0);
+        assertEquals(12, open.getHigh(), 0);
+        assertEquals(9, open.getLow(), 0);
+        assertEquals(11, open.getClose(), 0);
+        assertEquals(4, open.getTickCount());
+    }
+
+    @Test
+    public void tickInNextInterval_closesTheBar() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.FIVE_MINUTES, 10);
+        aggregator.onTick(MINUTE, 100);
+        aggregator.onTick(4 * MINUTE, 101);
+
+        Candle closed = aggregator.onTick(5 * MINUTE, 102);
+        assertNotNull(closed);
+        assertEquals(0, closed.getStartTime());
+        assertEquals(101, closed.getClose(), 0);
+        assertEquals(2, aggregator.getCandles().size());
+    }
+
+    @Test
+    public void olderTicks_areIgnored() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.ONE_MINUTE, 10);
+        aggregator.onTick(2 * MINUTE, 100);
+        assertNull(aggregator.onTick(MINUTE, 50));
+        assertEquals(100, aggregator.getCandles().get(0).getLow(), 0);
+    }
+
+    @Test
+    public void completedBars_areCapped() {
+        CandleAggregator aggregator = new CandleAggregator(CandleInterval.ONE_MINUTE, 2);
+        for (int i = 0; i < 5; i++) {
+            aggregator.onTick(i * MINUTE, 100 + i);
+        }
+
+        // Two completed bars plus the open one, the oldest dropped
+        List<Candle> candles = aggregator.getCandles();
+        assertEquals(3, candles.size());
+        assertEquals(2 * MINUTE, candles.get(0).getStartTime());
+        assertEquals(104, candles.get(2).getClose(), 0);
+    }
+}
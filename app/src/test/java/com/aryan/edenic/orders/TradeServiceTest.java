@@ -0,0 +1,81 @@
+package com.aryan.edenic.orders;
+
+import com.aryan.edenic.models.Holding;
+import com.aryan.edenic.models.Transaction;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * The accounting {@link TradeService#apply} shares between the account transaction and the
+ * optimistic state on screen.
+ */
+public class TradeServiceTest {
+    private static TradeService.Trade trade(Transaction.Type side, int quantity, double price) {
+        return new TradeService.Trade("t1", side, "AAPL", "Apple Inc.", quantity, price, 0);
+    }
+
+    @Test
+    public void buy_movesCashIntoCost() {
+        TradeService.Result result = TradeService.apply(trade(Transaction.Type.BUY, 10, 150), 10000, null);
+
+        assertEquals(TradeService.Outcome.FILLED, result.getOutcome());
+        assertTrue(result.isApplied());
+        assertEquals(8500, result.getCash(), 1e-9);
+        assertEquals(10, result.getHolding().getQuantity());
+        assertEquals(1500, result.getHolding().getCost(), 1e-9);
+    }
+
+    @Test
+    public void buy_addsToExistingPosition() {
+        Holding held = new Holding("AAPL", 10, 1000);
+        TradeService.Result result = TradeService.apply(trade(Transaction.Type.BUY, 5, 200), 5000, held);
+
+        assertEquals(4000, result.getCash(), 1e-9);
+        assertEquals(15, result.getHolding().getQuantity());
+        assertEquals(2000, result.getHolding().getCost(), 1e-9);
+    }
+
+    @Test
+    public void buy_refusedWithoutFunds() {
+        Holding held = new Holding("AAPL", 1, 100);
+        TradeService.Result result = TradeService.apply(trade(Transaction.Type.BUY, 10, 150), 1000, held);
+
+        assertEquals(TradeService.Outcome.INSUFFICIENT_FUNDS, result.getOutcome());
+        assertFalse(result.isApplied());
+        assertEquals(1000, result.getCash(), 1e-9);
+        assertSame(held, result.getHolding());
+    }
+
+    @Test
+    public void sell_keepsAverageCostOfRemainder() {
+        Holding held = new Holding("AAPL", 10, 1200); // Average 120
+        TradeService.Result result = TradeService.apply(trade(Transaction.Type.SELL, 4, 150), 100, held);
+
+        assertEquals(TradeService.Outcome.FILLED, result.getOutcome());
+        assertEquals(700, result.getCash(), 1e-9);
+        assertEquals(6, result.getHolding().getQuantity());
+        assertEquals(720, result.getHolding().getCost(), 1e-9);
+    }
+
+    @Test
+    public void sell_ofWholePositionClosesIt() {
+        Holding held = new Holding("AAPL", 10, 1200);
+        TradeService.Result result = TradeService.apply(trade(Transaction.Type.SELL, 10, 100), 0, held);
+
+        assertEquals(1000, result.getCash(), 1e-9);
+        assertNull(result.getHolding());
+    }
+
+    @Test
+    public void sell_refusedWithoutShares() {
+        TradeService.Result none = TradeService.apply(trade(Transaction.Type.SELL, 1, 100), 500, null);
+        TradeService.Result tooMany = TradeService.apply(trade(Transaction.Type.SELL, 11, 100), 500,
+                new Holding("AAPL", 10, 1000));
+
+        assertEquals(TradeService.Outcome.INSUFFICIENT_SHARES, none.getOutcome());
+        assertEquals(TradeService.Outcome.INSUFFICIENT_SHARES, tooMany.getOutcome());
+        assertEquals(500, tooMany.getCash(), 1e-9);
+    }
+}
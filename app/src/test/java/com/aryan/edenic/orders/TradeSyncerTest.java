@@ -0,0 +1,79 @@
+package com.aryan.edenic.orders;
+
+import com.aryan.edenic.models.Holding;
+import com.aryan.edenic.models.Transaction;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Replay of journaled trades over a loaded account, as the screens show it
+ */
+public class TradeSyncerTest {
+    private static TradeService.Trade trade(String id, Transaction.Type side, String symbol, int quantity, double price) {
+        return new TradeService.Trade(id, side, symbol, symbol, quantity, price, 0);
+    }
+
+    @Test
+    public void replay_appliesUnsyncedTradesInOrder() {
+        Map<String, Holding> holdings = new HashMap<>();
+        List<TradeService.Trade> trades = Arrays.asList(
+                trade("a", Transaction.Type.BUY, "AAPL", 10, 100),
+                trade("b", Transaction.Type.SELL, "AAPL", 4, 150));
+
+        double cash = TradeSyncer.replay(5000, holdings, trades, Collections.emptySet());
+
+        assertEquals(5000 - 1000 + 600, cash, 1e-9);
+        assertEquals(6, holdings.get("AAPL").getQuantity());
+        assertEquals(600, holdings.get("AAPL").getCost(), 1e-9);
+    }
+
+    @Test
+    public void replay_skipsTradesTheAccountAlreadyHas() {
+        Map<String, Holding> holdings = new HashMap<>();
+        holdings.put("AAPL", new Holding("AAPL", 10, 1000));
+        List<TradeService.Trade> trades = Arrays.asList(
+                trade("a", Transaction.Type.BUY, "AAPL", 10, 100),
+                trade("b", Transaction.Type.BUY, "MSFT", 1, 300));
+
+        double cash = TradeSyncer.replay(4000, holdings, trades, new HashSet<>(Collections.singletonList("a")));
+
+        assertEquals(3700, cash, 1e-9);
+        assertEquals(10, holdings.get("AAPL").getQuantity());
+        assertEquals(1, holdings.get("MSFT").getQuantity());
+    }
+
+    @Test
+    public void replay_leavesOutTradesTheAccountWouldRefuse() {
+        Map<String, Holding> holdings = new HashMap<>();
+        List<TradeService.Trade> trades = Arrays.asList(
+                trade("a", Transaction.Type.BUY, "AAPL", 10, 100),
+                trade("b", Transaction.Type.SELL, "MSFT", 1, 300),
+                trade("c", Transaction.Type.BUY, "TSLA", 1, 200));
+
+        double cash = TradeSyncer.replay(1100, holdings, trades, Collections.emptySet());
+
+        assertEquals(100, cash, 1e-9);
+        assertEquals(1, holdings.size());
+    }
+
+    @Test
+    public void replay_removesClosedPositions() {
+        Map<String, Holding> holdings = new HashMap<>();
+        holdings.put("AAPL", new Holding("AAPL", 5, 500));
+
+        double cash = TradeSyncer.replay(0, holdings,
+                Collections.singletonList(trade("a", Transaction.Type.SELL, "AAPL", 5, 120)), Collections.emptySet());
+
+        assertEquals(600, cash, 1e-9);
+        assertTrue(holdings.isEmpty());
+    }
+}
@@ -0,0 +1,102 @@
+package com.aryan.edenic.orders;
+
+import com.aryan.edenic.models.PendingOrder;
+import com.aryan.edenic.models.Transaction;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Which resting orders a price releases from a {@link TriggerBook}
+ */
+public class TriggerBookTest {
+    private static PendingOrder order(Transaction.Type side, PendingOrder.OrderType type,
+                                      double limitPrice, double stopPrice) {
+        return new PendingOrder("AAPL", "Apple Inc.", side, type, 1, limitPrice, stopPrice);
+    }
+
+    @Test
+    public void buyLimit_firesWhenPriceFallsToIt() {
+        TriggerBook book = new TriggerBook();
+        PendingOrder order = order(Transaction.Type.BUY, PendingOrder.OrderType.LIMIT, 100, 0);
+        book.add(order);
+
+        assertTrue(book.onPrice(100.5).fired.isEmpty());
+        assertEquals(1, book.size());
+        assertTrue(book.onPrice(100).fired.contains(order));
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    public void sellLimitAndBuyStop_fireWhenPriceRises() {
+        TriggerBook book = new TriggerBook();
+        PendingOrder sellLimit = order(Transaction.Type.SELL, PendingOrder.OrderType.LIMIT, 110, 0);
+        PendingOrder buyStop = order(Transaction.Type.BUY, PendingOrder.OrderType.STOP, 0, 120);
+        book.add(sellLimit);
+        book.add(buyStop);
+
+        TriggerBook.Result result = book.onPrice(115);
+        assertEquals(1, result.fired.size());
+        assertTrue(result.fired.contains(sellLimit));
+        assertTrue(book.onPrice(125).fired.contains(buyStop));
+    }
+
+    @Test
+    public void price_onlyReleasesCrossedTriggers() {
+        TriggerBook book = new TriggerBook();
+        PendingOrder near = order(Transaction.Type.SELL, PendingOrder.OrderType.STOP, 0, 95);
+        PendingOrder far = order(Transaction.Type.SELL, PendingOrder.OrderType.STOP, 0, 80);
+        book.add(near);
+        book.add(far);
+
+        TriggerBook.Result result = book.onPrice(90);
+        assertEquals(1, result.fired.size());
+        assertTrue(result.fired.contains(near));
+        assertEquals(1, book.size());
+    }
+
+    @Test
+    public void stopLimit_restsOnItsLimitAfterTheStop() {
+        TriggerBook book = new TriggerBook();
+        // Sell if the price drops to 95, but not below 97
+        PendingOrder order = order(Transaction.Type.SELL, PendingOrder.OrderType.STOP_LIMIT, 97, 95);
+        book.add(order);
+
+        TriggerBook.Result result = book.onPrice(94);
+        assertTrue(result.converted.contains(order));
+        assertTrue(result.fired.isEmpty());
+        assertTrue(order.isStopTriggered());
+        assertEquals(1, book.size());
+
+        assertTrue(book.onPrice(96).fired.isEmpty());
+        assertTrue(book.onPrice(97).fired.contains(order));
+    }
+
+    @Test
+    public void stopLimit_firesAtOnceWhenTheLimitIsMarketable() {
+        TriggerBook book = new TriggerBook();
+        PendingOrder order = order(Transaction.Type.BUY, PendingOrder.OrderType.STOP_LIMIT, 110, 105);
+        book.add(order);
+
+        TriggerBook.Result result = book.onPrice(106);
+        assertTrue(result.converted.contains(order));
+        assertTrue(result.fired.contains(order));
+        assertEquals(0, book.size());
+    }
+
+    @Test
+    public void remove_dropsOnlyThatOrder() {
+        TriggerBook book = new TriggerBook();
+        PendingOrder first = order(Transaction.Type.BUY, PendingOrder.OrderType.LIMIT, 100, 0);
+        PendingOrder second = order(Transaction.Type.BUY, PendingOrder.OrderType.LIMIT, 100, 0);
+        book.add(first);
+        book.add(second);
+
+        assertTrue(book.remove(first));
+        assertFalse(book.remove(first));
+        TriggerBook.Result result = book.onPrice(99);
+        assertEquals(1, result.fired.size());
+        assertTrue(result.fired.contains(second));
+    }
+}
@@ -0,0 +1,99 @@
+package com.aryan.edenic.timeseries;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through the delta-of-delta timestamp and XOR value encoding
+ */
+public class GorillaCodecTest {
+    private static void assertRoundTrip(long[] timestamps, double[] values) {
+        GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < timestamps.length; i++) {
+            encoder.append(timestamps[i], values[i]);
+        }
+        assertEquals(timestamps.length, encoder.getCount());
+
+        GorillaDecoder decoder = new GorillaDecoder(encoder.toByteArray(), encoder.getCount());
+        for (int i = 0; i < timestamps.length; i++) {
+            assertTrue(decoder.next());
+            assertEquals(timestamps[i], decoder.getTimestamp());
+            assertEquals(Double.doubleToLongBits(values[i]), Double.doubleToLongBits(decoder.getValue()));
+        }
+        assertFalse(decoder.next());
+    }
+
+    @Test
+    public void regularMinuteSamples_roundTripInFewBytes() {
+        int count = 1440;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = 1700000000L + i * 60;
+            values[i] = 10000 + (i / 30) * 0.5; // Changes every half hour
+        }
+        assertRoundTrip(timestamps, values);
+
+        GorillaEncoder encoder = new GorillaEncoder();
+        for (int i = 0; i < count; i++) {
+            encoder.append(timestamps[i], values[i]);
+        }
+        // Well under the 16 bytes per sample of raw storage
+        assertTrue(encoder.toByteArray().length < count * 2);
+    }
+
+    @Test
+    public void irregularGapsAndNoisyValues_roundTrip() {
+        Random random = new Random(7);
+        int count = 2000;
+        long[] timestamps = new long[count];
+        double[] values = new double[count];
+        long time = 1700000000L;
+        for (int i = 0; i < count; i++) {
+            time += 60 + (random.nextInt(10) == 0 ? random.nextInt(100000) : random.nextInt(5));
+            timestamps[i] = time;
+            values[i] = 5000 + random.nextGaussian() * 250;
+        }
+        assertRoundTrip(timestamps, values);
+    }
+
+    @Test
+    public void singleSample_roundTrips() {
+        assertRoundTrip(new long[]{1700000000L}, new double[]{12345.67});
+    }
+
+    @Test
+    public void repeatedTimestamps_roundTrip() {
+        assertRoundTrip(new long[]{100, 100, 160, 160, 220}, new double[]{1, 2, 2, 3, -4.5});
+    }
+
+    @Test
+    public void curveBuckets_keepTheLastValuePerBucketAndCarryGaps() {
+        CurveBuckets buckets = new CurveBuckets(0, 100, 4);
+        buckets.add(0, 1);
+        buckets.add(10, 2);
+        buckets.add(80, 5); // Buckets 1 and 2 are empty
+        buckets.add(100, 6);
+        assertArrayEquals(new float[]{2, 2, 2, 6}, buckets.getValues(), 0);
+    }
+
+    @Test
+    public void curveBuckets_lastSampleOfARunIsEnough() {
+        CurveBuckets all = new CurveBuckets(0, 1000, 10);
+        CurveBuckets skipped = new CurveBuckets(0, 1000, 10);
+        for (long t = 0; t <= 1000; t += 10) {
+            all.add(t, t * 2);
+        }
+        // Add only the last sample of each run that stays inside one bucket
+        for (long t = 0; t <= 1000; t += 10) {
+            long next = t + 10;
+            if (next > 1000 || skipped.bucketOf(next) != skipped.bucketOf(t)) {
+                skipped.add(t, t * 2);
+            }
+        }
+        assertArrayEquals(all.getValues(), skipped.getValues(), 0);
+    }
+}
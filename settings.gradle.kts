@@ -21,4 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Edenic"
 include(":app")
+include(":worker")
+include(":shared")
  
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.aryan.edenic.leaderboard;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.temporal.IsoFields;
+import java.util.Locale;
+
+/**
+ * Ranking periods of the leaderboard. Boundaries fall at midnight US Eastern time, so
+ * a trading day never straddles two periods; weeks start on Monday.
+ * Shared by the app, which reads the period boards, and the worker, which writes them.
+ */
+public enum LeaderboardPeriod {
+    DAILY("daily"),
+    WEEKLY("weekly"),
+    MONTHLY("monthly");
+
+    private static final ZoneId MARKET_ZONE = ZoneId.of("America/New_York");
+
+    private final String id;
+
+    LeaderboardPeriod(String id) {
+        this.id = id;
+    }
+
+    /**
+     * Name of the period in database paths
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Key of the period containing a time, e.g. 2024-03-15, 2024-W11 or 2024-03
+     */
+    public String keyAt(long timeMillis) {
+        LocalDate date = dateAt(timeMillis);
+        switch (this) {
+            case WEEKLY:
+                return String.format(Locale.US, "%d-W%02d",
+                        date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTHLY:
+                return YearMonth.from(date).toString();
+            default:
+                return date.toString();
+        }
+    }
+
+    /**
+     * Start of the period containing a time
+     */
+    public long startAt(long timeMillis) {
+        LocalDate date = dateAt(timeMillis);
+        switch (this) {
+            case WEEKLY:
+                date = date.with(DayOfWeek.MONDAY);
+                break;
+            case MONTHLY:
+                date = date.withDayOfMonth(1);
+                break;
+            default:
+                break;
+        }
+        return date.atStartOfDay(MARKET_ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Key of the period before the one containing a time
+     */
+    public String previousKeyAt(long timeMillis) {
+        return keyAt(startAt(timeMillis) - 1);
+    }
+
+    private static LocalDate dateAt(long timeMillis) {
+        return Instant.ofEpochMilli(timeMillis).atZone(MARKET_ZONE).toLocalDate();
+    }
+}
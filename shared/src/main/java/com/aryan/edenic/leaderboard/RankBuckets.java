@@ -0,0 +1,77 @@
+package com.aryan.edenic.leaderboard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Layout of the leaderboard rank index under {@code leaderboardRank/}: portfolio values
+ * grouped into logarithmic buckets 0.1% wide, and the number of users per bucket kept as a
+ * Fenwick tree indexed from the highest bucket down. The worker builds the tree and the app
+ * reads prefix sums of it, so both use this class.
+ */
+public final class RankBuckets {
+    public static final double MIN_VALUE = 100;
+    public static final double STEP = 1.001;
+    public static final int BUCKET_COUNT = 11520; // Top bucket starts near $10M
+    private static final double LOG_STEP = Math.log(STEP);
+
+    private RankBuckets() {}
+
+    public static int bucketOf(double value) {
+        if (value < MIN_VALUE) return 0;
+        int bucket = Math.min(1 + (int) Math.floor(Math.log(value / MIN_VALUE) / LOG_STEP), BUCKET_COUNT - 1);
+
+        // Agree exactly with lowerBound, which the in-bucket query relies on
+        if (bucket < BUCKET_COUNT - 1 && value >= lowerBound(bucket + 1)) {
+            bucket++;
+        } else if (bucket > 1 && value < lowerBound(bucket)) {
+            bucket--;
+        }
+        return bucket;
+    }
+
+    /**
+     * Smallest value in a bucket
+     */
+    public static double lowerBound(int bucket) {
+        return bucket <= 0 ? 0 : MIN_VALUE * Math.pow(STEP, bucket - 1);
+    }
+
+    /**
+     * Fenwick index of a bucket, 1 for the top bucket
+     */
+    public static int treeIndex(int bucket) {
+        return BUCKET_COUNT - bucket;
+    }
+
+    /**
+     * Fenwick tree of the number of users per bucket, from each user's bucket.
+     * Index 0 is unused.
+     */
+    public static long[] buildTree(Collection<Integer> buckets) {
+        long[] tree = new long[BUCKET_COUNT + 1];
+        for (int bucket : buckets) {
+            tree[treeIndex(bucket)]++;
+        }
+        // Push each node's sum into its parent, in O(B)
+        for (int i = 1; i <= BUCKET_COUNT; i++) {
+            int parent = i + (i & -i);
+            if (parent <= BUCKET_COUNT) {
+                tree[parent] += tree[i];
+            }
+        }
+        return tree;
+    }
+
+    /**
+     * Tree indexes whose counts add up to the users in buckets above this one
+     */
+    public static List<Integer> indexesAbove(int bucket) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = treeIndex(bucket) - 1; i > 0; i -= i & -i) {
+            indexes.add(i);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,38 @@
+package com.aryan.edenic.leaderboard;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LeaderboardPeriodTest {
+    private static final long FRIDAY_NIGHT_UTC = 1710550800000L; // 2024-03-16 01:00 UTC, still the 15th in New York
+    private static final long MONDAY_MORNING = 1709553600000L; // Monday 2024-03-04, 07:00 in New York
+
+    @Test
+    public void keyAt_usesMarketTime() {
+        assertEquals("2024-03-15", LeaderboardPeriod.DAILY.keyAt(FRIDAY_NIGHT_UTC));
+        assertEquals("2024-W11", LeaderboardPeriod.WEEKLY.keyAt(FRIDAY_NIGHT_UTC));
+        assertEquals("2024-03", LeaderboardPeriod.MONTHLY.keyAt(FRIDAY_NIGHT_UTC));
+    }
+
+    @Test
+    public void startAt_isMidnightInNewYork() {
+        assertEquals(1709528400000L, LeaderboardPeriod.DAILY.startAt(MONDAY_MORNING)); // 2024-03-04 05:00 UTC
+        assertEquals(1709528400000L, LeaderboardPeriod.WEEKLY.startAt(MONDAY_MORNING));
+        assertEquals(1709269200000L, LeaderboardPeriod.MONTHLY.startAt(MONDAY_MORNING)); // 2024-03-01 05:00 UTC
+    }
+
+    @Test
+    public void previousKeyAt_crossesBoundaries() {
+        assertEquals("2024-03-03", LeaderboardPeriod.DAILY.previousKeyAt(MONDAY_MORNING));
+        assertEquals("2024-W09", LeaderboardPeriod.WEEKLY.previousKeyAt(MONDAY_MORNING));
+        assertEquals("2024-02", LeaderboardPeriod.MONTHLY.previousKeyAt(MONDAY_MORNING));
+    }
+
+    @Test
+    public void weeklyKey_followsIsoWeekYear() {
+        long newYearsEve = 1735678800000L; // 2024-12-31 16:00 in New York, ISO week 1 of 2025
+        assertEquals("2025-W01", LeaderboardPeriod.WEEKLY.keyAt(newYearsEve));
+        assertEquals("2024-12", LeaderboardPeriod.MONTHLY.keyAt(newYearsEve));
+    }
+}
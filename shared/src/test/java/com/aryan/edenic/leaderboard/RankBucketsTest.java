@@ -0,0 +1,63 @@
+package com.aryan.edenic.leaderboard;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The rank buckets and the Fenwick tree the worker rebuilds every cycle, read the way the
+ * app's LeaderboardRankIndex reads them.
+ */
+public class RankBucketsTest {
+    private static long usersAbove(long[] tree, int bucket) {
+        long above = 0;
+        for (int i : RankBuckets.indexesAbove(bucket)) {
+            above += tree[i];
+        }
+        return above;
+    }
+
+    @Test
+    public void bucketOf_agreesWithLowerBound() {
+        for (double value : new double[]{100, 150.37, 1000, 9999.99, 10000, 123456.78}) {
+            int bucket = RankBuckets.bucketOf(value);
+            assertTrue(value >= RankBuckets.lowerBound(bucket));
+            assertTrue(value < RankBuckets.lowerBound(bucket + 1));
+        }
+        assertEquals(0, RankBuckets.bucketOf(50));
+        assertEquals(RankBuckets.BUCKET_COUNT - 1, RankBuckets.bucketOf(1e12));
+    }
+
+    @Test
+    public void buildTree_prefixSumsCountHigherBuckets() {
+        List<Integer> buckets = Arrays.asList(0, 5, 5, 17, 2300, 2301, 11519, 11519, 11519);
+        long[] tree = RankBuckets.buildTree(buckets);
+
+        for (int bucket : new int[]{0, 4, 5, 6, 17, 2300, 11518, 11519}) {
+            long expected = 0;
+            for (int other : buckets) {
+                if (other > bucket) expected++;
+            }
+            assertEquals("bucket " + bucket, expected, usersAbove(tree, bucket));
+        }
+    }
+
+    @Test
+    public void buildTree_rootCoversEveryone() {
+        long[] tree = RankBuckets.buildTree(Arrays.asList(1, 2, 3, 4000, 11000));
+        // The prefix sum over every index counts every user
+        long covered = 0;
+        for (int i = RankBuckets.BUCKET_COUNT; i > 0; i -= i & -i) {
+            covered += tree[i];
+        }
+        assertEquals(5, covered);
+    }
+
+    @Test
+    public void indexesAbove_topBucketHasNone() {
+        assertTrue(RankBuckets.indexesAbove(RankBuckets.BUCKET_COUNT - 1).isEmpty());
+    }
+}
@@ -0,0 +1,23 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass.set("com.aryan.edenic.worker.WorkerMain")
+}
+
+dependencies {
+    implementation(project(":shared"))
+    implementation(libs.firebase.admin)
+
+    //Yahoo Finance Implementation
+    implementation(libs.retrofit)
+    implementation(libs.converter.gson)
+
+    testImplementation(libs.junit)
+}
@@ -0,0 +1,38 @@
+package com.aryan.edenic.worker;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact quote as published at {@code quotes/{symbol}} and read by the app's QuoteFeed
+ */
+public class Quote {
+    private final double price;
+    private final double changePercent;
+    private final long time;
+
+    public Quote(double price, double changePercent, long time) {
+        this.price = price;
+        this.changePercent = changePercent;
+        this.time = time;
+    }
+
+    public double getPrice() { return price; }
+    public double getChangePercent() { return changePercent; }
+    public long getTime() { return time; }
+
+    /**
+     * @return True if publishing this over the other would tell clients nothing new
+     */
+    boolean sameAs(Quote other) {
+        return other != null && other.price == price && other.time == time;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("price", price);
+        map.put("changePercent", changePercent);
+        map.put("time", time);
+        return map;
+    }
+}
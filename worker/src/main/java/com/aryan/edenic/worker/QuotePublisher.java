@@ -0,0 +1,141 @@
+package com.aryan.edenic.worker;
+
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ServerValue;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Fetches quotes once per cycle for every symbol someone cares about and publishes them at
+ * {@code quotes/{symbol}}, where every client's QuoteFeed listens.
+ *
+ * The published set is the app's popular list, symbols held as of the recent revaluation
+ * cycles, and symbols clients registered under {@code quoteInterest/{symbol}}; clients
+ * register the symbols of their resting orders and price alerts there, so no user's orders
+ * or alerts are downloaded here. Only quotes that changed are written, so closed markets
+ * cost no writes and push nothing, but every cycle stamps {@code quoteStatus/publishedAt}
+ * with server time, which clients use to tell a quiet market from a stopped worker.
+ * Revaluation reads its prices from here too.
+ */
+public class QuotePublisher implements QuoteSource {
+    private static final Logger LOG = Logger.getLogger("QuotePublisher");
+    private static final long UNIVERSE_REFRESH_MS = TimeUnit.MINUTES.toMillis(10);
+    private static final long INTEREST_TTL_MS = TimeUnit.DAYS.toMillis(7);
+    // A symbol no revaluation has asked for in this long is no longer held by anyone
+    private static final long HELD_TTL_MS = TimeUnit.MINUTES.toMillis(30);
+
+    // Listed on the app's Home and Discover screens
+    private static final List<String> POPULAR = Arrays.asList(
+            "AAPL", "MSFT", "GOOGL", "AMZN", "META", "TSLA", "NVDA",
+            "JPM", "V", "WMT", "PG", "JNJ", "UNH", "HD", "BAC", "PFE",
+            "CSCO", "VZ", "INTC", "NFLX", "DIS", "ADBE", "PYPL", "CRM",
+            "CMCSA", "PEP", "COST", "ABT", "TMO", "MCD", "ACN", "NKE",
+            "AVGO", "TXN", "QCOM", "LLY", "DHR", "NEE", "T", "CVX");
+
+    private final FirebaseDatabase database;
+    private final QuoteSource upstream;
+    private final Map<String, Long> held = new ConcurrentHashMap<>(); // Symbol to last time asked for
+    private final Map<String, Quote> published = new ConcurrentHashMap<>();
+    private volatile Set<String> watched = new HashSet<>();
+    private long universeRefreshedAt = 0;
+
+    public QuotePublisher(FirebaseDatabase database, QuoteSource upstream) {
+        this.database = database;
+        this.upstream = upstream;
+    }
+
+    /**
+     * Run one publishing cycle on the calling thread
+     * @return Number of quotes written
+     */
+    public synchronized int publish() throws Exception {
+        long now = System.currentTimeMillis();
+        if (now - universeRefreshedAt > UNIVERSE_REFRESH_MS) {
+            watched = loadWatched(now);
+            universeRefreshedAt = now;
+        }
+
+        held.values().removeIf(askedAt -> now - askedAt > HELD_TTL_MS);
+        Set<String> universe = new TreeSet<>(POPULAR);
+        universe.addAll(held.keySet());
+        universe.addAll(watched);
+        universe.removeIf(symbol -> !isValidKey(symbol));
+
+        Map<String, Quote> fresh = upstream.fetchQuotes(universe);
+        Map<String, Object> updates = new HashMap<>();
+        for (Map.Entry<String, Quote> quote : fresh.entrySet()) {
+            if (!quote.getValue().sameAs(published.get(quote.getKey()))) {
+                updates.put("quotes/" + quote.getKey(), quote.getValue().toMap());
+            }
+        }
+        int changed = updates.size();
+        updates.put("quoteStatus/publishedAt", ServerValue.TIMESTAMP);
+        database.getReference().updateChildrenAsync(updates).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        published.putAll(fresh);
+
+        LOG.info(String.format("Published %d changed of %d/%d quotes",
+                changed, fresh.size(), universe.size()));
+        return changed;
+    }
+
+    /**
+     * Latest published quotes, fetching only symbols not published yet.
+     * The symbols are added to the published set from now on.
+     */
+    @Override
+    public Map<String, Quote> fetchQuotes(Collection<String> symbols) throws IOException {
+        long now = System.currentTimeMillis();
+        for (String symbol : symbols) {
+            held.put(symbol, now);
+        }
+        Map<String, Quote> quotes = new HashMap<>();
+        Set<String> missing = new HashSet<>();
+        for (String symbol : symbols) {
+            Quote quote = published.get(symbol);
+            if (quote != null) {
+                quotes.put(symbol, quote);
+            } else {
+                missing.add(symbol);
+            }
+        }
+        if (!missing.isEmpty()) {
+            quotes.putAll(upstream.fetchQuotes(missing));
+        }
+        return quotes;
+    }
+
+    // Symbols of recent client interest; stale interest is dropped
+    private Set<String> loadWatched(long now) throws Exception {
+        Set<String> symbols = new HashSet<>();
+        Map<String, Object> expired = new HashMap<>();
+        for (DataSnapshot interest : DatabaseReads.read(database.getReference("quoteInterest")).getChildren()) {
+            Object since = interest.getValue();
+            if (since instanceof Number && now - ((Number) since).longValue() < INTEREST_TTL_MS) {
+                symbols.add(interest.getKey());
+            } else {
+                expired.put("quoteInterest/" + interest.getKey(), null);
+            }
+        }
+        if (!expired.isEmpty()) {
+            database.getReference().updateChildrenAsync(expired);
+        }
+        return symbols;
+    }
+
+    // Database keys can't contain these characters
+    static boolean isValidKey(String symbol) {
+        return !symbol.isEmpty() && symbol.chars().noneMatch(c -> ".#$[]/".indexOf(c) >= 0);
+    }
+}
@@ -0,0 +1,15 @@
+package com.aryan.edenic.worker;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Where the worker gets its quotes from
+ */
+public interface QuoteSource {
+    /**
+     * @return Quotes by symbol; symbols that couldn't be priced are left out
+     */
+    Map<String, Quote> fetchQuotes(Collection<String> symbols) throws IOException;
+}
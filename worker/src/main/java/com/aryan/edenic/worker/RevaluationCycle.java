@@ -0,0 +1,312 @@
+package com.aryan.edenic.worker;
+
+import com.aryan.edenic.leaderboard.LeaderboardPeriod;
+import com.aryan.edenic.leaderboard.RankBuckets;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.Query;
+import com.google.firebase.database.ServerValue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * One revaluation pass over every user.
+ *
+ * Users come from a {@link UserMirror}, which follows only the nodes a cycle needs, the
+ * distinct symbols they hold are priced once, and users are then revalued in parallel batches. Each batch is a single multi-path update of
+ * profile values, leaderboard entries, rank buckets and period leaderboard rows, and
+ * users whose value hasn't moved are left out of it.
+ *
+ * The worker is the only writer of the rank index. Each cycle places every user with a
+ * value, including users without holdings who will never be revalued, rebuilds the bucket
+ * counts from scratch and writes only the tree nodes that differ from what is stored.
+ * The stored index is read once and then tracked in memory; after a failed cycle it is
+ * read again, so a partial write is repaired by the next cycle.
+ *
+ * The period leaderboards are the worker's too. Keys come from the database server's clock.
+ * The first cycle of a period snapshots every user's start value, and then the finished
+ * period is archived as a top-N summary and its rows deleted.
+ */
+public class RevaluationCycle {
+    private static final Logger LOG = Logger.getLogger("RevaluationCycle");
+    private static final int WRITE_BATCH_SIZE = 250;
+    private static final double MIN_CHANGE = 0.005; // Below a cent is not a change
+    private static final int ARCHIVE_SIZE = 50; // Rows kept of a finished period
+
+    private final FirebaseDatabase database;
+    private final QuoteSource quotes;
+    private final ExecutorService executor;
+    private final UserMirror users;
+
+    // Rank index as last written, null until read
+    private Map<String, Integer> rankMembers;
+    private long[] rankTree;
+
+    public RevaluationCycle(FirebaseDatabase database, QuoteSource quotes, int threads) {
+        this.database = database;
+        this.quotes = quotes;
+        this.executor = Executors.newFixedThreadPool(threads);
+        this.users = new UserMirror(database);
+    }
+
+    /**
+     * Run a full cycle on the calling thread
+     * @return Number of users whose value changed
+     */
+    public int run() throws Exception {
+        long started = System.currentTimeMillis();
+        long now = serverTime();
+        Map<LeaderboardPeriod, String> periodKeys = new HashMap<>();
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            periodKeys.put(period, period.keyAt(now));
+        }
+        List<UserPortfolio> users = this.users.load();
+        if (rankMembers == null) {
+            rankMembers = loadRankMembers();
+            rankTree = loadRankTree();
+        }
+        Map<String, Integer> buckets = new ConcurrentHashMap<>();
+
+        Set<String> symbols = new HashSet<>();
+        for (UserPortfolio user : users) {
+            symbols.addAll(user.quantities.keySet());
+        }
+        Map<String, Double> prices = new HashMap<>();
+        for (Map.Entry<String, Quote> quote : quotes.fetchQuotes(symbols).entrySet()) {
+            prices.put(quote.getKey(), quote.getValue().getPrice());
+        }
+
+        List<Callable<Integer>> batches = new ArrayList<>();
+        for (int start = 0; start < users.size(); start += WRITE_BATCH_SIZE) {
+            List<UserPortfolio> batch = users.subList(start, Math.min(users.size(), start + WRITE_BATCH_SIZE));
+            batches.add(() -> writeBatch(batch, prices, periodKeys, buckets));
+        }
+        int changed = 0;
+        try {
+            for (Future<Integer> result : executor.invokeAll(batches)) {
+                changed += result.get();
+            }
+            writeRankTree(buckets);
+        } catch (Exception e) {
+            rankMembers = null; // Read the stored index again next cycle
+            rankTree = null;
+            throw e;
+        }
+        // After every user has been snapshotted into the new period
+        compactPeriods(periodKeys, now);
+
+        LOG.info(String.format("Revalued %d users (%d changed) from %d/%d prices in %d ms",
+                users.size(), changed, prices.size(), symbols.size(), System.currentTimeMillis() - started));
+        return changed;
+    }
+
+    public void shutdown() {
+        users.stop();
+        executor.shutdown();
+    }
+
+    private Map<String, Integer> loadRankMembers() throws Exception {
+        Map<String, Integer> buckets = new HashMap<>();
+        for (DataSnapshot member : DatabaseReads.read(database.getReference("leaderboardRank/members")).getChildren()) {
+            Object bucket = member.getValue();
+            if (bucket instanceof Number) {
+                buckets.put(member.getKey(), ((Number) bucket).intValue());
+            }
+        }
+        return buckets;
+    }
+
+    private long[] loadRankTree() throws Exception {
+        long[] tree = new long[RankBuckets.BUCKET_COUNT + 1];
+        for (DataSnapshot node : DatabaseReads.read(database.getReference("leaderboardRank/tree")).getChildren()) {
+            Object count = node.getValue();
+            int index = Integer.parseInt(node.getKey());
+            if (count instanceof Number && index > 0 && index <= RankBuckets.BUCKET_COUNT) {
+                tree[index] = ((Number) count).longValue();
+            }
+        }
+        return tree;
+    }
+
+    // Counts rebuilt from this cycle's buckets; members that no longer exist are dropped
+    private void writeRankTree(Map<String, Integer> buckets) throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        for (String uid : rankMembers.keySet()) {
+            if (!buckets.containsKey(uid)) {
+                updates.put("leaderboardRank/members/" + uid, null);
+            }
+        }
+        long[] tree = RankBuckets.buildTree(buckets.values());
+        for (int i = 1; i < tree.length; i++) {
+            if (tree[i] != rankTree[i]) {
+                updates.put("leaderboardRank/tree/" + i, tree[i] != 0 ? tree[i] : null);
+            }
+        }
+        if (!updates.isEmpty()) {
+            database.getReference().updateChildrenAsync(updates).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        rankMembers = new HashMap<>(buckets);
+        rankTree = tree;
+    }
+
+    private int writeBatch(List<UserPortfolio> batch, Map<String, Double> prices,
+                           Map<LeaderboardPeriod, String> periodKeys, Map<String, Integer> buckets) throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        int changed = 0;
+
+        for (UserPortfolio user : batch) {
+            String uid = user.userId;
+            Double value = user.hasHoldings() ? Double.valueOf(user.valueAt(prices)) : user.storedValue;
+            if (value == null) {
+                continue; // Never valued, so not on the leaderboard
+            }
+
+            int bucket = RankBuckets.bucketOf(value);
+            buckets.put(uid, bucket);
+            if (!Integer.valueOf(bucket).equals(rankMembers.get(uid))) {
+                updates.put("leaderboardRank/members/" + uid, bucket);
+            }
+            if (stageUser(updates, user, value, periodKeys)) {
+                changed++;
+            }
+        }
+
+        if (!updates.isEmpty()) {
+            database.getReference().updateChildrenAsync(updates).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        }
+        return changed;
+    }
+
+    /**
+     * Stage one user's profile value, leaderboard entry and period rows.
+     * The value is written when it moved; the period rows when it moved since they were
+     * last written or a period has begun, so every user is snapshotted at the boundary.
+     * @param periodKeys Key of the current period by period name
+     * @return Whether the user's value changed
+     */
+    static boolean stageUser(Map<String, Object> updates, UserPortfolio user, double value,
+                             Map<LeaderboardPeriod, String> periodKeys) {
+        boolean valueChanged = user.hasHoldings() &&
+                (user.storedValue == null || Math.abs(value - user.storedValue) >= MIN_CHANGE);
+        boolean rowsStale = user.lastValue == null || Math.abs(value - user.lastValue) >= MIN_CHANGE;
+        boolean periodBegun = false;
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            if (!periodKeys.get(period).equals(user.periodKeys.get(period))) {
+                periodBegun = true;
+            }
+        }
+        if (!valueChanged && !rowsStale && !periodBegun) {
+            return false;
+        }
+
+        String uid = user.userId;
+        if (valueChanged) {
+            updates.put("users/" + uid + "/portfolioValue", value);
+            updates.put("users/" + uid + "/lastUpdated", ServerValue.TIMESTAMP);
+
+            // Same fields the app's PortfolioWrites.leaderboardUpdates writes
+            String entryPath = "leaderboard/" + uid + "/";
+            updates.put(entryPath + "name", user.name);
+            updates.put(entryPath + "displayName", user.name);
+            updates.put(entryPath + "photoUrl", user.photoUrl != null ? user.photoUrl : "");
+            updates.put(entryPath + "portfolioValue", value);
+            updates.put(entryPath + "position", -1);
+        }
+        stagePeriodRows(updates, user, value, periodKeys);
+        return valueChanged;
+    }
+
+    // A new period starts from the value the last cycle recorded, i.e. the value at the boundary
+    private static void stagePeriodRows(Map<String, Object> updates, UserPortfolio user, double value,
+                                        Map<LeaderboardPeriod, String> periodKeys) {
+        String uid = user.userId;
+        String marksPath = "users/" + uid + "/periodMarks/";
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            String key = periodKeys.get(period);
+            Double startValue = user.periodStartValues.get(period);
+            if (!key.equals(user.periodKeys.get(period)) || startValue == null) {
+                startValue = user.lastValue != null ? user.lastValue : value;
+                updates.put(marksPath + period.getId() + "/key", key);
+                updates.put(marksPath + period.getId() + "/startValue", startValue);
+            }
+            double returnPercent = startValue > 0 ? ((value - startValue) / startValue) * 100 : 0;
+
+            Map<String, Object> row = new HashMap<>();
+            row.put("name", user.name);
+            row.put("photoUrl", user.photoUrl != null ? user.photoUrl : "");
+            row.put("startValue", startValue);
+            row.put("portfolioValue", value);
+            row.put("returnPercent", returnPercent);
+            updates.put("periodLeaderboards/" + period.getId() + "/" + key + "/" + uid, row);
+
+            if (period == LeaderboardPeriod.DAILY) {
+                updates.put("users/" + uid + "/dailyChangePercent", returnPercent);
+                updates.put("leaderboard/" + uid + "/dailyChangePercent", returnPercent);
+            }
+        }
+        updates.put(marksPath + "lastValue", value);
+    }
+
+    /**
+     * Archive the top rows of each period that has ended and delete its board, in the same
+     * write that publishes the new keys. Until that write succeeds the stored keys still
+     * name the old period, so a failed compaction is retried by the next cycle.
+     */
+    private void compactPeriods(Map<LeaderboardPeriod, String> periodKeys, long now) throws Exception {
+        DataSnapshot stored = DatabaseReads.read(database.getReference("periodKeys"));
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            String current = periodKeys.get(period);
+            String storedCurrent = stored.child(period.getId()).child("current").getValue(String.class);
+            if (current.equals(storedCurrent)) continue;
+
+            // Only ever a period before the current one; the live board is never touched
+            String finished = storedCurrent != null ? storedCurrent : period.previousKeyAt(now);
+            Map<String, Object> updates = new HashMap<>();
+            if (!finished.equals(current)) {
+                String boardPath = "periodLeaderboards/" + period.getId() + "/" + finished;
+                List<Map<String, Object>> top = new ArrayList<>();
+                Query best = database.getReference(boardPath).orderByChild("returnPercent")
+                        .limitToLast(ARCHIVE_SIZE);
+                for (DataSnapshot row : DatabaseReads.read(best).getChildren()) {
+                    Map<String, Object> summary = new HashMap<>();
+                    summary.put("userId", row.getKey());
+                    summary.put("name", row.child("name").getValue());
+                    summary.put("photoUrl", row.child("photoUrl").getValue());
+                    summary.put("startValue", row.child("startValue").getValue());
+                    summary.put("portfolioValue", row.child("portfolioValue").getValue());
+                    summary.put("returnPercent", row.child("returnPercent").getValue());
+                    top.add(summary);
+                }
+                Collections.reverse(top); // Best first
+                if (!top.isEmpty()) {
+                    updates.put("periodArchive/" + period.getId() + "/" + finished + "/top", top);
+                    updates.put("periodArchive/" + period.getId() + "/" + finished + "/archivedAt", ServerValue.TIMESTAMP);
+                }
+                updates.put(boardPath, null);
+            }
+            updates.put("periodKeys/" + period.getId() + "/current", current);
+            updates.put("periodKeys/" + period.getId() + "/previous", finished.equals(current) ? null : finished);
+            database.getReference().updateChildrenAsync(updates).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            LOG.info("Opened " + period.getId() + " " + current + ", archived " + finished);
+        }
+    }
+
+    // Period keys follow the database server's clock, not this host's
+    private long serverTime() throws Exception {
+        Object offset = DatabaseReads.read(database.getReference(".info/serverTimeOffset")).getValue();
+        return System.currentTimeMillis() + (offset instanceof Number ? ((Number) offset).longValue() : 0);
+    }
+}
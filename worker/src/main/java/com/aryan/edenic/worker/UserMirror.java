@@ -0,0 +1,165 @@
+package com.aryan.edenic.worker;
+
+import com.google.firebase.database.ChildEventListener;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.DatabaseError;
+import com.google.firebase.database.DatabaseReference;
+import com.google.firebase.database.FirebaseDatabase;
+import com.google.firebase.database.ValueEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory copy of what a cycle needs of every user, kept current by listeners.
+ *
+ * Users are the entries of {@code leaderboard/}, which hold the profile and stored value;
+ * everyone who has traded has one. For each of them only {@code users/{uid}/account/holdings}
+ * and {@code users/{uid}/periodMarks} are followed, so the rest of a user node is never
+ * downloaded, and once the first cycle has loaded everything later cycles only receive what
+ * changed. A user whose account the app hasn't opened yet has no holdings here and keeps
+ * their stored value until it does.
+ */
+class UserMirror {
+    private static final Logger LOG = Logger.getLogger("UserMirror");
+
+    private final FirebaseDatabase database;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private ChildEventListener leaderboardListener;
+
+    // One followed user; parts stay null until their first event
+    private class Entry {
+        final String userId;
+        final DatabaseReference holdingsRef;
+        final DatabaseReference marksRef;
+        final CompletableFuture<Void> holdingsLoaded = new CompletableFuture<>();
+        final CompletableFuture<Void> marksLoaded = new CompletableFuture<>();
+        volatile DataSnapshot profile;
+        volatile DataSnapshot holdings;
+        volatile DataSnapshot marks;
+
+        final ValueEventListener holdingsListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                holdings = snapshot;
+                holdingsLoaded.complete(null);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                holdingsLoaded.completeExceptionally(error.toException());
+            }
+        };
+
+        final ValueEventListener marksListener = new ValueEventListener() {
+            @Override
+            public void onDataChange(DataSnapshot snapshot) {
+                marks = snapshot;
+                marksLoaded.complete(null);
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                marksLoaded.completeExceptionally(error.toException());
+            }
+        };
+
+        Entry(String userId) {
+            this.userId = userId;
+            DatabaseReference userRef = database.getReference("users").child(userId);
+            this.holdingsRef = userRef.child("account").child("holdings");
+            this.marksRef = userRef.child("periodMarks");
+        }
+
+        void follow() {
+            holdingsRef.addValueEventListener(holdingsListener);
+            marksRef.addValueEventListener(marksListener);
+        }
+
+        void unfollow() {
+            holdingsRef.removeEventListener(holdingsListener);
+            marksRef.removeEventListener(marksListener);
+        }
+    }
+
+    UserMirror(FirebaseDatabase database) {
+        this.database = database;
+    }
+
+    /**
+     * Every user as of now. The first call starts following and waits for the initial data.
+     */
+    List<UserPortfolio> load() throws Exception {
+        if (leaderboardListener == null) {
+            start();
+        }
+        List<UserPortfolio> users = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            CompletableFuture.allOf(entry.holdingsLoaded, entry.marksLoaded)
+                    .get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            users.add(UserPortfolio.from(entry.profile, entry.holdings, entry.marks));
+        }
+        return users;
+    }
+
+    void stop() {
+        if (leaderboardListener != null) {
+            database.getReference("leaderboard").removeEventListener(leaderboardListener);
+            leaderboardListener = null;
+        }
+        for (Entry entry : entries.values()) {
+            entry.unfollow();
+        }
+        entries.clear();
+    }
+
+    private void start() throws Exception {
+        DatabaseReference leaderboardRef = database.getReference("leaderboard");
+        leaderboardListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(DataSnapshot snapshot, String previousChildName) {
+                Entry entry = new Entry(snapshot.getKey());
+                entry.profile = snapshot;
+                entries.put(entry.userId, entry);
+                entry.follow();
+            }
+
+            @Override
+            public void onChildChanged(DataSnapshot snapshot, String previousChildName) {
+                Entry entry = entries.get(snapshot.getKey());
+                if (entry != null) {
+                    entry.profile = snapshot;
+                }
+            }
+
+            @Override
+            public void onChildRemoved(DataSnapshot snapshot) {
+                Entry entry = entries.remove(snapshot.getKey());
+                if (entry != null) {
+                    entry.unfollow();
+                }
+            }
+
+            @Override
+            public void onChildMoved(DataSnapshot snapshot, String previousChildName) {
+                // Unordered
+            }
+
+            @Override
+            public void onCancelled(DatabaseError error) {
+                LOG.log(Level.SEVERE, "Leaderboard listener cancelled", error.toException());
+            }
+        };
+        leaderboardRef.addChildEventListener(leaderboardListener);
+
+        // Value events follow the child events of the same data, so every entry exists after this
+        DatabaseReads.read(leaderboardRef);
+        LOG.info("Following " + entries.size() + " users");
+    }
+}
@@ -0,0 +1,88 @@
+package com.aryan.edenic.worker;
+
+import com.aryan.edenic.leaderboard.LeaderboardPeriod;
+import com.google.firebase.database.DataSnapshot;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What a cycle needs of one user: profile, compact holdings and period marks
+ */
+class UserPortfolio {
+    final String userId;
+    final String name;
+    final String photoUrl;
+    final Double storedValue;
+
+    // Quantity and total cost by symbol, from users/{uid}/account/holdings/{symbol}{qty,cost}
+    final Map<String, Integer> quantities = new HashMap<>();
+    final Map<String, Double> costs = new HashMap<>();
+
+    // users/{uid}/periodMarks, as the last cycle wrote them
+    final Double lastValue;
+    final Map<LeaderboardPeriod, String> periodKeys = new HashMap<>();
+    final Map<LeaderboardPeriod, Double> periodStartValues = new HashMap<>();
+
+    UserPortfolio(String userId, String name, String photoUrl, Double storedValue, Double lastValue) {
+        this.userId = userId;
+        this.name = name;
+        this.photoUrl = photoUrl;
+        this.storedValue = storedValue;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * @param entry {@code leaderboard/{uid}}, for the profile and stored value
+     * @param holdings {@code users/{uid}/account/holdings}
+     * @param marks {@code users/{uid}/periodMarks}
+     */
+    static UserPortfolio from(DataSnapshot entry, DataSnapshot holdings, DataSnapshot marks) {
+        UserPortfolio user = new UserPortfolio(entry.getKey(),
+                entry.child("name").getValue(String.class),
+                entry.child("photoUrl").getValue(String.class),
+                number(entry.child("portfolioValue")),
+                number(marks.child("lastValue")));
+
+        for (DataSnapshot holding : holdings.getChildren()) {
+            Double quantity = number(holding.child("qty"));
+            Double cost = number(holding.child("cost"));
+            if (quantity != null && quantity > 0) {
+                user.quantities.put(holding.getKey(), quantity.intValue());
+                user.costs.put(holding.getKey(), cost != null ? cost : 0);
+            }
+        }
+
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            String key = marks.child(period.getId()).child("key").getValue(String.class);
+            Double startValue = number(marks.child(period.getId()).child("startValue"));
+            if (key != null && startValue != null) {
+                user.periodKeys.put(period, key);
+                user.periodStartValues.put(period, startValue);
+            }
+        }
+        return user;
+    }
+
+    boolean hasHoldings() {
+        return !quantities.isEmpty();
+    }
+
+    /**
+     * Market value of the holdings. A symbol without a price counts at its cost, as the
+     * app shows it until a quote arrives.
+     */
+    double valueAt(Map<String, Double> prices) {
+        double value = 0;
+        for (Map.Entry<String, Integer> position : quantities.entrySet()) {
+            Double price = prices.get(position.getKey());
+            value += price != null ? price * position.getValue() : costs.get(position.getKey());
+        }
+        return value;
+    }
+
+    private static Double number(DataSnapshot snapshot) {
+        Object value = snapshot.getValue();
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+}
@@ -0,0 +1,88 @@
+package com.aryan.edenic.worker;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.database.FirebaseDatabase;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Headless market worker. It publishes quotes for every client at {@code quotes/} and
+ * revalues every portfolio on its own schedule, from the same published prices, so each
+ * symbol is fetched once per cycle instead of once per client.
+ *
+ * Configured through the environment:
+ * <ul>
+ *   <li>{@code FIREBASE_DATABASE_URL}: database to revalue, e.g. https://edenic-default-rtdb.firebaseio.com</li>
+ *   <li>{@code FIREBASE_DATABASE_EMULATOR_HOST}: e.g. 127.0.0.1:9000 to run against the emulator,
+ *       which needs no credentials</li>
+ *   <li>{@code GOOGLE_APPLICATION_CREDENTIALS}: service account key, outside the emulator</li>
+ *   <li>{@code WORKER_INTERVAL_SECONDS}: time between revaluations, default 300; 0 publishes
+ *       quotes and revalues once, then exits</li>
+ *   <li>{@code QUOTE_INTERVAL_SECONDS}: time between quote publications, default 60</li>
+ * </ul>
+ */
+public class WorkerMain {
+    private static final Logger LOG = Logger.getLogger("WorkerMain");
+    private static final long DEFAULT_INTERVAL_SECONDS = 300;
+    private static final long DEFAULT_QUOTE_INTERVAL_SECONDS = 60;
+
+    public static void main(String[] args) throws Exception {
+        String databaseUrl = System.getenv("FIREBASE_DATABASE_URL");
+        if (databaseUrl == null || databaseUrl.isEmpty()) {
+            System.err.println("FIREBASE_DATABASE_URL is not set");
+            System.exit(1);
+        }
+        long intervalSeconds = seconds("WORKER_INTERVAL_SECONDS", DEFAULT_INTERVAL_SECONDS);
+        long quoteIntervalSeconds = seconds("QUOTE_INTERVAL_SECONDS", DEFAULT_QUOTE_INTERVAL_SECONDS);
+
+        // The emulator accepts the "owner" token as an admin
+        GoogleCredentials credentials = System.getenv("FIREBASE_DATABASE_EMULATOR_HOST") != null ?
+                GoogleCredentials.create(new AccessToken("owner", null)) :
+                GoogleCredentials.getApplicationDefault();
+        FirebaseApp app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                .setCredentials(credentials)
+                .setDatabaseUrl(databaseUrl)
+                .build());
+
+        FirebaseDatabase database = FirebaseDatabase.getInstance(app);
+        QuotePublisher publisher = new QuotePublisher(database, new YahooQuoteSource());
+        RevaluationCycle cycle = new RevaluationCycle(database, publisher,
+                Runtime.getRuntime().availableProcessors());
+
+        if (intervalSeconds <= 0) {
+            publisher.publish();
+            cycle.run();
+            cycle.shutdown();
+            app.delete();
+            return;
+        }
+
+        ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                publisher.publish();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Quote publication failed", e);
+            }
+        }, 0, quoteIntervalSeconds, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                cycle.run();
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Revaluation cycle failed", e);
+            }
+        }, 0, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    private static long seconds(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+}
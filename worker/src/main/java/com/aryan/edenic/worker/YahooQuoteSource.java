@@ -0,0 +1,99 @@
+package com.aryan.edenic.worker;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import retrofit2.Call;
+import retrofit2.Response;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+import retrofit2.http.GET;
+import retrofit2.http.Query;
+
+/**
+ * Quotes from Yahoo Finance's batched spark endpoint, the same one the app uses
+ */
+public class YahooQuoteSource implements QuoteSource {
+    private static final Logger LOG = Logger.getLogger("YahooQuoteSource");
+    private static final String BASE_URL = "https://query1.finance.yahoo.com/";
+    private static final int MAX_SYMBOLS_PER_REQUEST = 20;
+
+    private final SparkApi api = new Retrofit.Builder()
+            .baseUrl(BASE_URL)
+            .addConverterFactory(GsonConverterFactory.create())
+            .build()
+            .create(SparkApi.class);
+
+    @Override
+    public Map<String, Quote> fetchQuotes(Collection<String> symbols) throws IOException {
+        Map<String, Quote> quotes = new HashMap<>();
+        List<String> toFetch = new ArrayList<>(symbols);
+
+        for (int start = 0; start < toFetch.size(); start += MAX_SYMBOLS_PER_REQUEST) {
+            List<String> batch = toFetch.subList(start, Math.min(toFetch.size(), start + MAX_SYMBOLS_PER_REQUEST));
+            Response<SparkResponse> response = api.getSparkData(String.join(",", batch), "1d", "1d").execute();
+
+            SparkResponse body = response.body();
+            if (!response.isSuccessful() || body == null || body.spark == null || body.spark.result == null) {
+                LOG.warning("Batch price request failed with code " + response.code());
+                continue;
+            }
+
+            for (SparkResult result : body.spark.result) {
+                if (result.symbol == null || result.response == null ||
+                        result.response.isEmpty() || result.response.get(0).meta == null) {
+                    continue;
+                }
+                Meta meta = result.response.get(0).meta;
+                if (meta.regularMarketPrice <= 0) {
+                    continue;
+                }
+                double previousClose = meta.previousClose > 0 ? meta.previousClose : meta.chartPreviousClose;
+                double changePercent = previousClose > 0 ?
+                        ((meta.regularMarketPrice - previousClose) / previousClose) * 100 : 0;
+                quotes.put(result.symbol, new Quote(meta.regularMarketPrice, changePercent,
+                        meta.regularMarketTime * 1000));
+            }
+        }
+        return quotes;
+    }
+
+    interface SparkApi {
+        @GET("v7/finance/spark")
+        Call<SparkResponse> getSparkData(
+                @Query("symbols") String symbols,
+                @Query("interval") String interval,
+                @Query("range") String range
+        );
+    }
+
+    // Only the fields the worker reads
+    static class SparkResponse {
+        Spark spark;
+    }
+
+    static class Spark {
+        List<SparkResult> result;
+    }
+
+    static class SparkResult {
+        String symbol;
+        List<Chart> response;
+    }
+
+    static class Chart {
+        Meta meta;
+    }
+
+    static class Meta {
+        double regularMarketPrice;
+        double previousClose;
+        double chartPreviousClose;
+        long regularMarketTime; // Epoch seconds
+    }
+}
@@ -0,0 +1,206 @@
+package com.aryan.edenic.worker;
+
+import com.aryan.edenic.leaderboard.LeaderboardPeriod;
+import com.aryan.edenic.leaderboard.RankBuckets;
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.FirebaseOptions;
+import com.google.firebase.database.DataSnapshot;
+import com.google.firebase.database.FirebaseDatabase;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * One real cycle against the Realtime Database emulator, checked by the paths it writes.
+ * Runs only when {@code FIREBASE_DATABASE_EMULATOR_HOST} is set, e.g.
+ * {@code firebase emulators:exec --only database "./gradlew :worker:test"}.
+ * {@code FIREBASE_DATABASE_URL} picks the namespace; the test clears it before and after.
+ */
+public class RevaluationCycleEmulatorTest {
+    private static final String DEFAULT_URL = "https://edenic-worker-test-default-rtdb.firebaseio.com";
+
+    // Fixed prices; the cycle must only ask for symbols someone holds
+    private static class FixedQuotes implements QuoteSource {
+        final Map<String, Quote> quotes = new HashMap<>();
+        final Set<String> asked = new HashSet<>();
+
+        @Override
+        public Map<String, Quote> fetchQuotes(Collection<String> symbols) {
+            asked.addAll(symbols);
+            Map<String, Quote> result = new HashMap<>();
+            for (String symbol : symbols) {
+                if (quotes.containsKey(symbol)) {
+                    result.put(symbol, quotes.get(symbol));
+                }
+            }
+            return result;
+        }
+    }
+
+    private FirebaseApp app;
+    private FirebaseDatabase database;
+    private FixedQuotes quotes;
+    private RevaluationCycle cycle;
+
+    @Before
+    public void setUp() throws Exception {
+        Assume.assumeTrue("Database emulator not configured",
+                System.getenv("FIREBASE_DATABASE_EMULATOR_HOST") != null);
+        String databaseUrl = System.getenv("FIREBASE_DATABASE_URL");
+
+        // The emulator accepts the "owner" token as an admin
+        app = FirebaseApp.initializeApp(FirebaseOptions.builder()
+                .setCredentials(GoogleCredentials.create(new AccessToken("owner", null)))
+                .setDatabaseUrl(databaseUrl != null && !databaseUrl.isEmpty() ? databaseUrl : DEFAULT_URL)
+                .build(), "revaluation-emulator-test");
+        database = FirebaseDatabase.getInstance(app);
+        clear();
+        seed();
+
+        quotes = new FixedQuotes();
+        long now = System.currentTimeMillis();
+        quotes.quotes.put("AAPL", new Quote(200, 1.5, now));
+        quotes.quotes.put("MSFT", new Quote(400, -0.5, now));
+        quotes.quotes.put("NVDA", new Quote(900, 2.0, now)); // Nobody holds it
+        cycle = new RevaluationCycle(database, quotes, 2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (cycle != null) {
+            cycle.shutdown();
+        }
+        if (app != null) {
+            clear();
+            app.delete();
+        }
+    }
+
+    private void clear() throws Exception {
+        database.getReference().setValueAsync(null).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Ada and Ben hold stocks, Cy holds only cash at a stored value
+    private void seed() throws Exception {
+        Map<String, Object> updates = new HashMap<>();
+        entry(updates, "ada", "Ada", 1500.0);
+        holding(updates, "ada", "AAPL", 10, 1500);
+        entry(updates, "ben", "Ben", null);
+        holding(updates, "ben", "AAPL", 5, 1000);
+        holding(updates, "ben", "MSFT", 4, 1200);
+        holding(updates, "ben", "ZZZZ", 1, 50); // No quote, so counted at cost
+        entry(updates, "cy", "Cy", 10000.0);
+        database.getReference().updateChildrenAsync(updates).get(DatabaseReads.TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static void entry(Map<String, Object> updates, String uid, String name, Double value) {
+        updates.put("leaderboard/" + uid + "/name", name);
+        updates.put("leaderboard/" + uid + "/photoUrl", "");
+        updates.put("leaderboard/" + uid + "/portfolioValue", value);
+    }
+
+    private static void holding(Map<String, Object> updates, String uid, String symbol, int qty, double cost) {
+        updates.put("users/" + uid + "/account/holdings/" + symbol + "/qty", qty);
+        updates.put("users/" + uid + "/account/holdings/" + symbol + "/cost", cost);
+    }
+
+    private DataSnapshot read(String path) throws Exception {
+        return DatabaseReads.read(database.getReference(path));
+    }
+
+    // Whole doubles come back as longs
+    private double number(String path) throws Exception {
+        Object value = read(path).getValue();
+        assertTrue(path + " is " + value, value instanceof Number);
+        return ((Number) value).doubleValue();
+    }
+
+    @Test
+    public void oneCycle_writesValuesRankIndexAndPeriodRows() throws Exception {
+        // Ada and Ben moved; Cy has no holdings, so only the period rows are new
+        assertEquals(2, cycle.run());
+        assertEquals(new HashSet<>(Arrays.asList("AAPL", "MSFT", "ZZZZ")), quotes.asked);
+
+        Map<String, Double> values = new HashMap<>();
+        values.put("ada", 2000.0);
+        values.put("ben", 5 * 200 + 4 * 400 + 50.0);
+        values.put("cy", 10000.0);
+
+        assertEquals(2000, number("users/ada/portfolioValue"), 1e-9);
+        assertEquals(2650, number("users/ben/portfolioValue"), 1e-9);
+        assertFalse(read("users/cy/portfolioValue").exists());
+        assertTrue(read("users/ada/lastUpdated").exists());
+        for (Map.Entry<String, Double> value : values.entrySet()) {
+            String uid = value.getKey();
+            assertEquals(value.getValue(), number("leaderboard/" + uid + "/portfolioValue"), 1e-9);
+            assertEquals(RankBuckets.bucketOf(value.getValue()),
+                    (int) number("leaderboardRank/members/" + uid));
+        }
+        assertEquals("Ben", read("leaderboard/ben/displayName").getValue());
+        assertEquals(-1, (int) number("leaderboard/ben/position"));
+
+        // The stored tree is exactly the Fenwick tree of the three buckets
+        List<Integer> buckets = new ArrayList<>();
+        for (double value : values.values()) {
+            buckets.add(RankBuckets.bucketOf(value));
+        }
+        long[] expected = RankBuckets.buildTree(buckets);
+        Map<String, Long> stored = new HashMap<>();
+        for (DataSnapshot node : read("leaderboardRank/tree").getChildren()) {
+            stored.put(node.getKey(), ((Number) node.getValue()).longValue());
+        }
+        for (int i = 1; i < expected.length; i++) {
+            assertEquals("tree/" + i, expected[i] != 0 ? Long.valueOf(expected[i]) : null,
+                    stored.remove(String.valueOf(i)));
+        }
+        assertTrue(stored.isEmpty());
+
+        // Every period is opened at the first value seen, so each row starts at zero return
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            String key = read("periodKeys/" + period.getId() + "/current").getValue(String.class);
+            assertNotNull(period.getId(), key);
+            DataSnapshot board = read("periodLeaderboards/" + period.getId() + "/" + key);
+            assertEquals(3, board.getChildrenCount());
+            for (Map.Entry<String, Double> value : values.entrySet()) {
+                DataSnapshot row = board.child(value.getKey());
+                assertEquals(value.getValue(), ((Number) row.child("portfolioValue").getValue()).doubleValue(), 1e-9);
+                assertEquals(value.getValue(), ((Number) row.child("startValue").getValue()).doubleValue(), 1e-9);
+                assertEquals(0, ((Number) row.child("returnPercent").getValue()).doubleValue(), 1e-9);
+                String marks = "users/" + value.getKey() + "/periodMarks/";
+                assertEquals(key, read(marks + period.getId() + "/key").getValue(String.class));
+                assertEquals(value.getValue(), number(marks + "lastValue"), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void secondCycleAtTheSamePrices_changesNothing() throws Exception {
+        cycle.run();
+        assertEquals(0, cycle.run());
+
+        // A price move reaches only the users holding the symbol
+        quotes.quotes.put("MSFT", new Quote(410, 2.0, System.currentTimeMillis()));
+        assertEquals(1, cycle.run());
+        assertEquals(2690, number("users/ben/portfolioValue"), 1e-9);
+        assertEquals(2000, number("users/ada/portfolioValue"), 1e-9);
+        String daily = read("periodKeys/daily/current").getValue(String.class);
+        assertEquals(40.0 / 2650 * 100, number("periodLeaderboards/daily/" + daily + "/ben/returnPercent"), 1e-9);
+        assertEquals(40.0 / 2650 * 100, number("leaderboard/ben/dailyChangePercent"), 1e-9);
+    }
+}
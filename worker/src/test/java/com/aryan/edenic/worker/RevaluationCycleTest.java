@@ -0,0 +1,131 @@
+package com.aryan.edenic.worker;
+
+import com.aryan.edenic.leaderboard.LeaderboardPeriod;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * What one user's revaluation stages into a cycle's multi-path update
+ */
+public class RevaluationCycleTest {
+    private static final Map<LeaderboardPeriod, String> KEYS = new HashMap<>();
+    static {
+        KEYS.put(LeaderboardPeriod.DAILY, "2024-03-15");
+        KEYS.put(LeaderboardPeriod.WEEKLY, "2024-W11");
+        KEYS.put(LeaderboardPeriod.MONTHLY, "2024-03");
+    }
+
+    private static UserPortfolio user(Double storedValue, Double lastValue, boolean holds) {
+        UserPortfolio user = new UserPortfolio("u1", "Ada", null, storedValue, lastValue);
+        if (holds) {
+            user.quantities.put("AAPL", 10);
+            user.costs.put("AAPL", 1500.0);
+        }
+        return user;
+    }
+
+    private static void markAll(UserPortfolio user, Map<LeaderboardPeriod, String> keys, double startValue) {
+        for (LeaderboardPeriod period : LeaderboardPeriod.values()) {
+            user.periodKeys.put(period, keys.get(period));
+            user.periodStartValues.put(period, startValue);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static double returnPercent(Map<String, Object> updates, String period, String key) {
+        Map<String, Object> row = (Map<String, Object>) updates.get("periodLeaderboards/" + period + "/" + key + "/u1");
+        return (Double) row.get("returnPercent");
+    }
+
+    @Test
+    public void firstValuation_writesProfileAndOpensEveryPeriod() {
+        Map<String, Object> updates = new HashMap<>();
+        assertTrue(RevaluationCycle.stageUser(updates, user(null, null, true), 1700, KEYS));
+
+        assertEquals(1700.0, updates.get("users/u1/portfolioValue"));
+        assertEquals(1700.0, updates.get("leaderboard/u1/portfolioValue"));
+        assertEquals("", updates.get("leaderboard/u1/photoUrl"));
+        assertEquals("2024-W11", updates.get("users/u1/periodMarks/weekly/key"));
+        assertEquals(1700.0, updates.get("users/u1/periodMarks/monthly/startValue"));
+        assertEquals(0.0, returnPercent(updates, "daily", "2024-03-15"), 1e-9);
+        assertEquals(1700.0, updates.get("users/u1/periodMarks/lastValue"));
+    }
+
+    @Test
+    public void unchangedUser_stagesNothing() {
+        UserPortfolio user = user(1700.0, 1700.0, true);
+        markAll(user, KEYS, 1600);
+
+        Map<String, Object> updates = new HashMap<>();
+        assertFalse(RevaluationCycle.stageUser(updates, user, 1700.001, KEYS));
+        assertTrue(updates.isEmpty());
+    }
+
+    @Test
+    public void newPeriod_startsFromLastRecordedValue() {
+        Map<LeaderboardPeriod, String> yesterday = new HashMap<>(KEYS);
+        yesterday.put(LeaderboardPeriod.DAILY, "2024-03-14");
+        UserPortfolio user = user(1700.0, 1600.0, true);
+        markAll(user, yesterday, 1500);
+
+        Map<String, Object> updates = new HashMap<>();
+        RevaluationCycle.stageUser(updates, user, 1760, KEYS);
+
+        // The day opens at the value of the last cycle before the boundary
+        assertEquals("2024-03-15", updates.get("users/u1/periodMarks/daily/key"));
+        assertEquals(1600.0, updates.get("users/u1/periodMarks/daily/startValue"));
+        assertEquals(10.0, returnPercent(updates, "daily", "2024-03-15"), 1e-9);
+        assertEquals(10.0, (Double) updates.get("leaderboard/u1/dailyChangePercent"), 1e-9);
+
+        // The week carries on from its own start
+        assertFalse(updates.containsKey("users/u1/periodMarks/weekly/key"));
+        assertEquals(1760.0 / 1500 * 100 - 100, returnPercent(updates, "weekly", "2024-W11"), 1e-9);
+    }
+
+    @Test
+    public void newPeriod_snapshotsUsersWhoseValueDidNotMove() {
+        Map<LeaderboardPeriod, String> lastMonth = new HashMap<>();
+        lastMonth.put(LeaderboardPeriod.DAILY, "2024-02-29");
+        lastMonth.put(LeaderboardPeriod.WEEKLY, "2024-W09");
+        lastMonth.put(LeaderboardPeriod.MONTHLY, "2024-02");
+        UserPortfolio user = user(1700.0, 1700.0, true);
+        markAll(user, lastMonth, 1650);
+
+        Map<String, Object> updates = new HashMap<>();
+        assertFalse(RevaluationCycle.stageUser(updates, user, 1700, KEYS));
+
+        assertFalse(updates.containsKey("users/u1/portfolioValue"));
+        assertEquals("2024-03", updates.get("users/u1/periodMarks/monthly/key"));
+        assertEquals(1700.0, updates.get("users/u1/periodMarks/monthly/startValue"));
+        assertEquals(0.0, returnPercent(updates, "monthly", "2024-03"), 1e-9);
+    }
+
+    @Test
+    public void userWithoutHoldings_keepsStoredValue() {
+        UserPortfolio user = user(9000.0, 8000.0, false);
+        markAll(user, KEYS, 8000);
+
+        Map<String, Object> updates = new HashMap<>();
+        assertFalse(RevaluationCycle.stageUser(updates, user, 9000, KEYS));
+
+        // Rows catch up with the stored value, but the profile isn't rewritten
+        assertFalse(updates.containsKey("users/u1/portfolioValue"));
+        assertEquals(12.5, returnPercent(updates, "daily", "2024-03-15"), 1e-9);
+    }
+
+    @Test
+    public void valueAt_countsUnpricedSymbolsAtCost() {
+        UserPortfolio user = user(null, null, true);
+        user.quantities.put("MSFT", 2);
+        user.costs.put("MSFT", 700.0);
+
+        Map<String, Double> prices = new HashMap<>();
+        prices.put("AAPL", 170.0);
+        assertEquals(1700 + 700, user.valueAt(prices), 1e-9);
+    }
+}